@@ -2,6 +2,7 @@ package com.edulearn.controller;
 
 import com.edulearn.model.Curso;
 import com.edulearn.model.Inscripcion;
+import com.edulearn.model.Material;
 import com.edulearn.model.Modulo;
 import com.edulearn.patterns.creational.builder.CursoBuilder;
 import com.edulearn.patterns.creational.builder.CursoDirector;
@@ -13,7 +14,9 @@ import com.edulearn.patterns.behavioral.memento.CursoMemento;
 import com.edulearn.patterns.behavioral.memento.CursoOriginator;
 import com.edulearn.repository.CursoRepository;
 import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.MaterialRepository;
 import com.edulearn.repository.ModuloRepository;
+import com.edulearn.service.AlmacenBlobService;
 import com.edulearn.service.CadenaVisualizacionCursosService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +43,12 @@ public class CursoController {
     @Autowired
     private ModuloRepository moduloRepository;
 
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private AlmacenBlobService almacenBlobService;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -278,7 +287,8 @@ public class CursoController {
     /**
      * POST /api/cursos/{id}/clonar
      * Clonar un curso existente usando patrón Prototype
-     * Incluye la duplicación de todos los módulos asociados al curso
+     * Incluye la duplicación de todos los módulos asociados al curso y de sus
+     * materiales; los archivos de los materiales se comparten (mismo blob), no se copian
      */
     @PostMapping("/{id}/clonar")
     public ResponseEntity<?> clonarCurso(@PathVariable Integer id, @RequestBody(required = false) Map<String, String> params) {
@@ -315,6 +325,7 @@ public class CursoController {
             logger.info("📚 Encontrados {} módulos para clonar", modulosOriginales.size());
 
             int modulosClonados = 0;
+            int materialesClonados = 0;
             for (Modulo moduloOriginal : modulosOriginales) {
                 Modulo moduloClon = new Modulo();
                 moduloClon.setCursoId(cursoGuardado.getId());
@@ -326,16 +337,22 @@ public class CursoController {
                 moduloClon.setTipo(moduloOriginal.getTipo());
                 moduloClon.setDuracionEstimada(moduloOriginal.getDuracionEstimada());
 
-                moduloRepository.save(moduloClon);
+                Modulo moduloGuardado = moduloRepository.save(moduloClon);
                 modulosClonados++;
+
+                for (Material materialOriginal : materialRepository.findByModuloIdOrderByOrdenAsc(moduloOriginal.getId())) {
+                    materialRepository.save(clonarMaterial(materialOriginal, moduloGuardado.getId(), cursoGuardado.getId()));
+                    materialesClonados++;
+                }
             }
 
-            logger.info("✅ Se clonaron {} módulos exitosamente", modulosClonados);
+            logger.info("✅ Se clonaron {} módulos y {} materiales exitosamente", modulosClonados, materialesClonados);
 
             // Construir respuesta
             Map<String, Object> response = new HashMap<>();
             response.put("curso", cursoGuardado);
             response.put("modulosClonados", modulosClonados);
+            response.put("materialesClonados", materialesClonados);
             response.put("mensaje", String.format("Curso duplicado exitosamente con %d módulos", modulosClonados));
 
             return ResponseEntity.ok(response);
@@ -350,6 +367,31 @@ public class CursoController {
         }
     }
 
+    /**
+     * Copia un material para el módulo clonado; el archivo se enlaza por nombre
+     */
+    private Material clonarMaterial(Material original, Long moduloId, Integer cursoId) {
+        Material clon = new Material();
+        clon.setModuloId(moduloId);
+        clon.setCursoId(cursoId);
+        clon.setTitulo(original.getTitulo());
+        clon.setDescripcion(original.getDescripcion());
+        clon.setNombre(original.getNombre());
+        clon.setTipo(original.getTipo());
+        clon.setTipoMaterial(original.getTipoMaterial());
+        clon.setUrlRecurso(original.getUrlRecurso());
+        clon.setTamanoBytes(original.getTamanoBytes());
+        clon.setOrden(original.getOrden());
+        clon.setEsObligatorio(original.getEsObligatorio());
+        clon.setDuracionSegundos(original.getDuracionSegundos());
+        clon.setRequiereVisualizacion(original.getRequiereVisualizacion());
+        clon.setEstado(original.getEstado());
+        if (almacenBlobService.vincular(original.getArchivoPath())) {
+            clon.setArchivoPath(original.getArchivoPath());
+        }
+        return clon;
+    }
+
     /**
      * POST /api/cursos/plantilla/{tipoCurso}
      * Crear una plantilla de curso usando Prototype
@@ -5,6 +5,7 @@ import com.edulearn.patterns.comportamiento.observer.NotificationEvent;
 import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
 import com.edulearn.repository.EvaluacionRepository;
 import com.edulearn.repository.CursoRepository;
+import com.edulearn.service.CursoTreeService;
 import com.edulearn.service.NotificacionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -36,6 +37,9 @@ public class EvaluacionController {
     @Autowired
     private CursoRepository cursoRepository;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
     /**
      * GET /api/evaluaciones
      * Obtener todas las evaluaciones
@@ -107,6 +111,8 @@ public class EvaluacionController {
             evaluacion.setEstado(estado.toLowerCase());
 
            Evaluacion saved = evaluacionRepository.save(evaluacion);
+            // Las evaluaciones se enlazan al árbol por moduloId: se invalida el curso del módulo
+            cursoTreeService.invalidarCursoDeModulo(saved.getModuloId());
 
             // PATRÓN OBSERVER: Notificar creación de tarea a estudiantes inscritos del curso
             Integer cursoId = null;
@@ -175,6 +181,8 @@ public class EvaluacionController {
                     }
 
                     Evaluacion saved = evaluacionRepository.save(evaluacion);
+                    // Las evaluaciones se enlazan al árbol por moduloId: se invalida el curso del módulo
+                    cursoTreeService.invalidarCursoDeModulo(saved.getModuloId());
                     return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -186,10 +194,12 @@ public class EvaluacionController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteEvaluacion(@PathVariable Long id) {
-        if (evaluacionRepository.existsById(id)) {
-            evaluacionRepository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return evaluacionRepository.findById(id)
+                .map(evaluacion -> {
+                    evaluacionRepository.delete(evaluacion);
+                    cursoTreeService.invalidarCursoDeModulo(evaluacion.getModuloId());
+                    return ResponseEntity.ok().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 }
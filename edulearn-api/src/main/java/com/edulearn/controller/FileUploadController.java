@@ -2,28 +2,32 @@ package com.edulearn.controller;
 
 import com.edulearn.model.Material;
 import com.edulearn.repository.MaterialRepository;
+import com.edulearn.service.AlmacenBlobService;
+import com.edulearn.service.CursoTreeService;
+import com.edulearn.service.DescargaArchivoService;
+import com.edulearn.service.SubidaFragmentadaService;
+import com.edulearn.util.RutasArchivo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Controlador para gestión de subida y descarga de archivos
@@ -36,12 +40,21 @@ public class FileUploadController {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUploadController.class);
 
-    // Directorio donde se almacenarán los archivos
-    private static final String UPLOAD_DIR = "uploads";
-
     @Autowired
     private MaterialRepository materialRepository;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
+    @Autowired
+    private DescargaArchivoService descargaArchivoService;
+
+    @Autowired
+    private SubidaFragmentadaService subidaFragmentadaService;
+
+    @Autowired
+    private AlmacenBlobService almacenBlobService;
+
     // Tamaño máximo de archivo: 500MB
     private static final long MAX_FILE_SIZE = 500 * 1024 * 1024;
 
@@ -77,41 +90,17 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Crear directorio de uploads si no existe
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                logger.info("📁 Directorio de uploads creado: {}", uploadPath.toAbsolutePath());
-            }
-
-            // Generar nombre único para el archivo
             String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".")
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : "";
-            String uniqueFilename = UUID.randomUUID().toString() + extension;
+            String extension = SubidaFragmentadaService.extension(originalFilename);
 
-            // Guardar el archivo
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Guardar en el almacén por contenido: si ya existe un archivo idéntico, se reutiliza
+            String uniqueFilename = almacenBlobService.almacenar(file, extension);
 
-            logger.info("✅ Archivo guardado exitosamente: {}", filePath.toAbsolutePath());
+            logger.info("✅ Archivo guardado exitosamente: {}", uniqueFilename);
 
             // Si se proporcionó un materialId, actualizar el material en la BD
             if (materialId != null) {
-                materialRepository.findById(materialId).ifPresent(material -> {
-                    material.setArchivoPath(uniqueFilename);
-                    material.setUrlRecurso("/api/archivos/descargar/" + uniqueFilename);
-                    material.setTamanoBytes(file.getSize());
-
-                    // Determinar tipo si no se especificó
-                    if (tipoMaterial == null || tipoMaterial.isEmpty()) {
-                        material.setTipoMaterial(determinarTipoMaterial(extension));
-                    }
-
-                    materialRepository.save(material);
-                    logger.info("📝 Material ID {} actualizado con archivo", materialId);
-                });
+                actualizarMaterialConArchivo(materialId, uniqueFilename, file.getSize(), tipoMaterial, extension);
             }
 
             // Construir respuesta
@@ -133,60 +122,228 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Iniciar una subida fragmentada y reanudable
+     *
+     * POST /api/archivos/subidas
+     * Body: { "filename": "...", "size": 123, "materialId": 1, "tipoMaterial": "VIDEO" }
+     *
+     * @return uploadId, offset actual (0) y tamaño de fragmento recomendado
+     */
+    @PostMapping("/subidas")
+    public ResponseEntity<Map<String, Object>> iniciarSubida(@RequestBody Map<String, Object> body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            String filename = (String) body.get("filename");
+            Object size = body.get("size");
+            if (filename == null || !(size instanceof Number)) {
+                response.put("error", "filename y size son obligatorios");
+                return ResponseEntity.badRequest().body(response);
+            }
+            Long materialId = body.get("materialId") instanceof Number n ? n.longValue() : null;
+
+            SubidaFragmentadaService.Subida subida = subidaFragmentadaService.iniciar(
+                    filename, ((Number) size).longValue(), materialId, (String) body.get("tipoMaterial"));
+
+            response.putAll(subida.aMapa());
+            response.put("tamanoFragmento", subidaFragmentadaService.getTamanoFragmento());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            logger.error("❌ Error al iniciar subida fragmentada", e);
+            response.put("error", "Error al iniciar la subida: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Enviar un fragmento (cuerpo binario) en el offset indicado
+     *
+     * PUT /api/archivos/subidas/{uploadId}?offset=0
+     *
+     * Si el offset no es el último confirmado responde 409 con el offset correcto,
+     * desde el que el cliente debe continuar. También responde 409 (sin esperar)
+     * si otro fragmento de la misma subida todavía se está recibiendo.
+     */
+    @PutMapping(value = "/subidas/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Object>> subirFragmento(
+            @PathVariable String uploadId,
+            @RequestParam("offset") long offset,
+            InputStream cuerpo) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long nuevoOffset = subidaFragmentadaService.escribirFragmento(uploadId, offset, cuerpo);
+            response.put("uploadId", uploadId);
+            response.put("offset", nuevoOffset);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            response.putAll(estadoSubidaSiExiste(uploadId));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return e.getMessage().startsWith("Subida no encontrada")
+                    ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(response)
+                    : ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            logger.warn("⚠️ Fragmento interrumpido en subida {} (offset {}): {}", uploadId, offset, e.getMessage());
+            response.put("error", "Fragmento interrumpido, reanudar desde el offset confirmado");
+            response.putAll(estadoSubidaSiExiste(uploadId));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Consultar el estado de una subida (offset confirmado para reanudar)
+     *
+     * GET /api/archivos/subidas/{uploadId}
+     */
+    @GetMapping("/subidas/{uploadId}")
+    public ResponseEntity<Map<String, Object>> estadoSubida(@PathVariable String uploadId) {
+        try {
+            return ResponseEntity.ok(subidaFragmentadaService.obtener(uploadId).aMapa());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Completar una subida: verifica tamaño y SHA-256 y registra el archivo
+     *
+     * POST /api/archivos/subidas/{uploadId}/completar
+     * Body (opcional): { "sha256": "..." }
+     *
+     * @return Información del archivo subido (mismo formato que /subir) y su sha256
+     */
+    @PostMapping("/subidas/{uploadId}/completar")
+    public ResponseEntity<Map<String, Object>> completarSubida(
+            @PathVariable String uploadId,
+            @RequestBody(required = false) Map<String, Object> body) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            String sha256 = body != null ? (String) body.get("sha256") : null;
+            SubidaFragmentadaService.Subida subida = subidaFragmentadaService.completar(uploadId, sha256);
+            String uniqueFilename = subida.getNombreFinal();
+
+            if (subida.getMaterialId() != null) {
+                actualizarMaterialConArchivo(subida.getMaterialId(), uniqueFilename, subida.getTamanoTotal(),
+                        subida.getTipoMaterial(), SubidaFragmentadaService.extension(subida.getNombreOriginal()));
+            }
+
+            response.put("success", true);
+            response.put("filename", uniqueFilename);
+            response.put("originalFilename", subida.getNombreOriginal());
+            response.put("size", subida.getTamanoTotal());
+            response.put("sha256", subida.getSha256());
+            response.put("url", "/api/archivos/descargar/" + uniqueFilename);
+            response.put("urlRecurso", "/api/archivos/descargar/" + uniqueFilename);
+            response.put("type", descargaArchivoService.tipoContenido(uniqueFilename));
+            response.put("message", "Archivo subido exitosamente");
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            response.putAll(estadoSubidaSiExiste(uploadId));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            logger.error("❌ Error al completar subida {}", uploadId, e);
+            response.put("error", "Error al guardar el archivo: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Cancelar una subida fragmentada y liberar su archivo parcial
+     *
+     * DELETE /api/archivos/subidas/{uploadId}
+     */
+    @DeleteMapping("/subidas/{uploadId}")
+    public ResponseEntity<Map<String, String>> cancelarSubida(@PathVariable String uploadId) {
+        try {
+            subidaFragmentadaService.cancelar(uploadId);
+            return ResponseEntity.ok(Map.of("message", "Subida cancelada"));
+        } catch (IOException e) {
+            logger.error("❌ Error al cancelar subida {}", uploadId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al cancelar la subida: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Estadísticas del almacén por contenido (blobs, bytes, deduplicaciones)
+     *
+     * GET /api/archivos/blobs/estadisticas
+     */
+    @GetMapping("/blobs/estadisticas")
+    public ResponseEntity<Map<String, Object>> estadisticasBlobs() {
+        try {
+            return ResponseEntity.ok(almacenBlobService.obtenerEstadisticas());
+        } catch (IOException e) {
+            logger.error("❌ Error al obtener estadísticas de blobs", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Recolección de basura: elimina los blobs que ningún material referencia
+     *
+     * POST /api/archivos/blobs/recolectar
+     */
+    @PostMapping("/blobs/recolectar")
+    public ResponseEntity<Map<String, Object>> recolectarBlobs() {
+        try {
+            return ResponseEntity.ok(almacenBlobService.recolectar());
+        } catch (IOException e) {
+            logger.error("❌ Error en la recolección de blobs", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Descargar/Visualizar un archivo
      *
      * GET /api/archivos/descargar/{filename}
      *
+     * Soporta Range (uno o varios rangos, 206 Partial Content) para adelantar en
+     * videos, y peticiones condicionales (ETag / Last-Modified, 304 Not Modified).
+     *
      * @param filename Nombre del archivo
      * @param inline Si es true, muestra el archivo en el navegador. Si es false, lo descarga.
-     * @return Archivo
+     * @return Archivo (completo o el rango solicitado)
      */
     @GetMapping("/descargar/{filename}")
-    public ResponseEntity<Resource> descargarArchivo(
+    public ResponseEntity<StreamingResponseBody> descargarArchivo(
             @PathVariable String filename,
-            @RequestParam(value = "inline", defaultValue = "true") boolean inline) {
+            @RequestParam(value = "inline", defaultValue = "true") boolean inline,
+            HttpMethod metodo,
+            @RequestHeader HttpHeaders cabeceras) {
 
-        logger.info("📥 Solicitando archivo: {} (inline: {})", filename, inline);
+        logger.debug("📥 Solicitando archivo: {} (inline: {}, Range: {})",
+                filename, inline, cabeceras.getFirst(HttpHeaders.RANGE));
 
         try {
-            // Obtener el archivo
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(filename).normalize();
-            File file = filePath.toFile();
+            // Obtener el archivo (sin salir del directorio de uploads)
+            Path filePath = resolverArchivo(filename);
 
-            if (!file.exists()) {
+            if (filePath == null || !Files.isRegularFile(filePath)) {
                 logger.warn("⚠️ Archivo no encontrado: {}", filename);
                 return ResponseEntity.notFound().build();
             }
 
-            // Crear recurso
-            Resource resource = new FileSystemResource(file);
+            // Content type precalculado por extensión
+            String contentType = descargaArchivoService.tipoContenido(filename);
+            String disposicion = (inline ? "inline" : "attachment") + "; filename=\"" + filename + "\"";
 
-            // Determinar content type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = determinarContentTypePorExtension(filename);
-            }
-
-            // Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentLength(file.length());
-
-            if (inline) {
-                headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
-            } else {
-                headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
-            }
-
-            // Agregar cabeceras para soporte de streaming de video
-            headers.set("Accept-Ranges", "bytes");
-
-            logger.info("✅ Sirviendo archivo: {} ({} bytes, type: {})", filename, file.length(), contentType);
-
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
+            return descargaArchivoService.servir(filePath, contentType, disposicion, metodo, cabeceras);
 
         } catch (IOException e) {
             logger.error("❌ Error al leer el archivo: {}", filename, e);
@@ -209,14 +366,21 @@ public class FileUploadController {
         Map<String, String> response = new HashMap<>();
 
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(filename).normalize();
-            File file = filePath.toFile();
+            Path filePath = resolverArchivo(filename);
+            File file = filePath != null ? filePath.toFile() : null;
 
-            if (!file.exists()) {
+            if (file == null || !file.exists()) {
                 response.put("error", "Archivo no encontrado");
                 return ResponseEntity.notFound().build();
             }
 
+            // Un archivo compartido por contenido no se borra mientras algún material lo use
+            long referencias = almacenBlobService.referencias(filename);
+            if (referencias > 0) {
+                response.put("error", "El archivo está en uso por " + referencias + " material(es)");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
             if (file.delete()) {
                 logger.info("✅ Archivo eliminado: {}", filename);
                 response.put("message", "Archivo eliminado exitosamente");
@@ -246,25 +410,21 @@ public class FileUploadController {
         logger.info("ℹ️ Obteniendo información del archivo: {}", filename);
 
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(filename).normalize();
-            File file = filePath.toFile();
+            Path filePath = resolverArchivo(filename);
 
-            if (!file.exists()) {
+            if (filePath == null || !Files.isRegularFile(filePath)) {
                 return ResponseEntity.notFound().build();
             }
 
             Map<String, Object> info = new HashMap<>();
             info.put("filename", filename);
-            info.put("size", file.length());
+            info.put("size", Files.size(filePath));
             info.put("exists", true);
             info.put("url", "/api/archivos/descargar/" + filename);
-            info.put("lastModified", file.lastModified());
+            info.put("lastModified", Files.getLastModifiedTime(filePath).toMillis());
+            info.put("referencias", almacenBlobService.referencias(filename));
 
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = determinarContentTypePorExtension(filename);
-            }
-            info.put("contentType", contentType);
+            info.put("contentType", descargaArchivoService.tipoContenido(filename));
 
             return ResponseEntity.ok(info);
 
@@ -274,6 +434,51 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Asocia el archivo subido al material y refresca el árbol del curso
+     */
+    private void actualizarMaterialConArchivo(Long materialId, String uniqueFilename, long size,
+                                              String tipoMaterial, String extension) {
+        materialRepository.findById(materialId).ifPresent(material -> {
+            String archivoAnterior = material.getArchivoPath();
+            material.setArchivoPath(uniqueFilename);
+            material.setUrlRecurso("/api/archivos/descargar/" + uniqueFilename);
+            material.setTamanoBytes(size);
+
+            // Determinar tipo si no se especificó
+            if (tipoMaterial == null || tipoMaterial.isEmpty()) {
+                material.setTipoMaterial(determinarTipoMaterial(extension));
+            }
+
+            materialRepository.save(material);
+            cursoTreeService.invalidarCurso(material.getCursoId());
+            logger.info("📝 Material ID {} actualizado con archivo", materialId);
+
+            // El archivo reemplazado se borra si ya no lo usa ningún material
+            if (archivoAnterior != null && !archivoAnterior.equals(uniqueFilename)) {
+                almacenBlobService.liberar(archivoAnterior);
+            }
+        });
+    }
+
+    /**
+     * Ruta en disco del archivo (blob por contenido o archivo antiguo en uploads/);
+     * null si el nombre intenta salir del directorio de uploads
+     */
+    private Path resolverArchivo(String filename) {
+        Path uploadPath = Paths.get(RutasArchivo.UPLOAD_DIR).toAbsolutePath().normalize();
+        Path filePath = RutasArchivo.resolver(filename).toAbsolutePath().normalize();
+        return filePath.startsWith(uploadPath) ? filePath : null;
+    }
+
+    private Map<String, Object> estadoSubidaSiExiste(String uploadId) {
+        try {
+            return subidaFragmentadaService.obtener(uploadId).aMapa();
+        } catch (IllegalArgumentException e) {
+            return Map.of();
+        }
+    }
+
     /**
      * Determina el tipo de material basándose en la extensión del archivo
      */
@@ -296,27 +501,4 @@ public class FileUploadController {
             return "OTHER";
         }
     }
-
-    /**
-     * Determina el Content-Type basándose en la extensión del archivo
-     */
-    private String determinarContentTypePorExtension(String filename) {
-        String extension = filename.toLowerCase();
-
-        if (extension.endsWith(".mp4")) return "video/mp4";
-        if (extension.endsWith(".webm")) return "video/webm";
-        if (extension.endsWith(".avi")) return "video/x-msvideo";
-        if (extension.endsWith(".mov")) return "video/quicktime";
-        if (extension.endsWith(".pdf")) return "application/pdf";
-        if (extension.endsWith(".doc") || extension.endsWith(".docx")) {
-            return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-        }
-        if (extension.endsWith(".jpg") || extension.endsWith(".jpeg")) return "image/jpeg";
-        if (extension.endsWith(".png")) return "image/png";
-        if (extension.endsWith(".gif")) return "image/gif";
-        if (extension.endsWith(".mp3")) return "audio/mpeg";
-        if (extension.endsWith(".wav")) return "audio/wav";
-
-        return "application/octet-stream";
-    }
 }
@@ -1,5 +1,6 @@
 package com.edulearn.controller;
 
+import com.edulearn.dto.InscripcionDetalleDTO;
 import com.edulearn.model.Inscripcion;
 import com.edulearn.model.Estudiante;
 import com.edulearn.model.Curso;
@@ -14,10 +15,17 @@ import com.edulearn.patterns.estructural.facade.dto.InscripcionRequest;
 import com.edulearn.patterns.estructural.facade.dto.InscripcionResponse;
 import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
 import com.edulearn.patterns.comportamiento.observer.NotificationEvent;
+import com.edulearn.service.AdmisionInscripcionesService;
+import com.edulearn.service.InventarioCuposService;
+import com.edulearn.service.ListaEsperaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/inscripciones")
@@ -35,28 +43,45 @@ public class InscripcionController {
     private SistemaEducativoFacade sistemaEducativoFacade;
     @Autowired
     private NotificationOrchestrator notificationOrchestrator;
+    @Autowired
+    private InventarioCuposService inventarioCupos;
+    @Autowired
+    private AdmisionInscripcionesService admision;
+    @Autowired
+    private ListaEsperaService listaEspera;
 
-    @GetMapping
-    public List<Map<String, Object>> getAll() {
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Inscripcion ins : inscripcionRepository.findAll()) {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", ins.getId());
-            map.put("estudianteId", ins.getEstudianteId());
-            map.put("cursoId", ins.getCursoId());
-            map.put("fechaInscripcion", ins.getFechaInscripcion());
-            map.put("modalidad", ins.getModalidad());
-            map.put("estadoInscripcion", ins.getEstadoInscripcion());
-            map.put("certificadoGarantizado", ins.getCertificadoGarantizado());
-
-            estudianteRepository.findById(ins.getEstudianteId())
-                .ifPresent(e -> map.put("estudianteNombre", e.getNombre() + " " + e.getApellidos()));
-            cursoRepository.findById(ins.getCursoId())
-                .ifPresent(c -> map.put("cursoNombre", c.getNombre()));
+    /** Cuánto espera la petición a que su turno termine antes de responder 202 con el turno */
+    @Value("${edulearn.admision.espera-respuesta-ms:5000}")
+    private long esperaRespuestaMs;
+
+    /** Tamaño máximo de página aceptado en los listados paginados */
+    private static final int LIMITE_MAXIMO = 500;
 
+    /**
+     * Listado general de inscripciones.
+     * Filtros opcionales por modalidad/estado y paginación por keyset:
+     * con "limite" se devuelve como máximo esa cantidad de filas y, si hay más,
+     * la cabecera X-Next-Cursor indica el valor a enviar en "despuesDe".
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getAll(
+            @RequestParam(required = false) String modalidad,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) Integer despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        List<InscripcionDetalleDTO> filas = buscarDetalle(null, modalidad, estado, despuesDe, limite);
+        List<Map<String, Object>> result = new ArrayList<>(filas.size());
+        for (InscripcionDetalleDTO ins : filas) {
+            Map<String, Object> map = mapaBase(ins);
+            if (ins.tieneEstudiante()) {
+                map.put("estudianteNombre", ins.getEstudianteNombreCompleto());
+            }
+            if (ins.tieneCurso()) {
+                map.put("cursoNombre", ins.getCursoNombre());
+            }
             result.add(map);
         }
-        return result;
+        return respuestaPaginada(result, filas, limite);
     }
 
     /**
@@ -79,7 +104,19 @@ public class InscripcionController {
      * sin conocer ni gestionar la complejidad de los subsistemas internos.
      */
     @PostMapping("/facade")
-    public ResponseEntity<InscripcionResponse> inscribirConFacade(@RequestBody InscripcionRequest request) {
+    public CompletableFuture<ResponseEntity<?>> inscribirConFacade(@RequestBody InscripcionRequest request) {
+        if (request.getCursoId() == null || request.getEstudianteId() == null) {
+            // La validación de la fachada responde con el error correspondiente
+            return CompletableFuture.completedFuture(inscribirConFachada(request));
+        }
+
+        // Pasa por la sala de espera del curso; la fachada se ejecuta en un trabajador
+        AdmisionInscripcionesService.Turno turno = admision.encolar(
+            request.getCursoId(), request.getEstudianteId(), () -> inscribirConFachada(request));
+        return responderTurno(turno);
+    }
+
+    private ResponseEntity<InscripcionResponse> inscribirConFachada(InscripcionRequest request) {
         try {
             // La fachada maneja toda la complejidad internamente
             InscripcionResponse response = sistemaEducativoFacade.inscribirEstudiante(request);
@@ -126,18 +163,25 @@ public class InscripcionController {
      * Endpoint para inscripción directa desde la lista de cursos
      */
     @PostMapping("/rapida")
-    public ResponseEntity<?> inscripcionRapida(@RequestBody Map<String, Object> request) {
-        try {
-            Integer estudianteId = (Integer) request.get("estudianteId");
-            Integer cursoId = (Integer) request.get("cursoId");
-
-            if (estudianteId == null || cursoId == null) {
-                return ResponseEntity.badRequest().body(Map.of(
-                    "exitoso", false,
-                    "mensaje", "Debe proporcionar estudianteId y cursoId"
-                ));
-            }
+    public CompletableFuture<ResponseEntity<?>> inscripcionRapida(@RequestBody Map<String, Object> request) {
+        Integer estudianteId = (Integer) request.get("estudianteId");
+        Integer cursoId = (Integer) request.get("cursoId");
+
+        if (estudianteId == null || cursoId == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", "Debe proporcionar estudianteId y cursoId"
+            )));
+        }
 
+        // Pasa por la sala de espera del curso
+        AdmisionInscripcionesService.Turno turno = admision.encolar(
+            cursoId, estudianteId, () -> procesarInscripcionRapida(estudianteId, cursoId));
+        return responderTurno(turno);
+    }
+
+    private ResponseEntity<?> procesarInscripcionRapida(Integer estudianteId, Integer cursoId) {
+        try {
             // Crear solicitud con modalidad GRATUITA por defecto
             SolicitudInscripcion solicitud = new SolicitudInscripcion();
             solicitud.setEstudianteId(estudianteId);
@@ -207,6 +251,7 @@ public class InscripcionController {
     @PostMapping
     public Inscripcion create(@RequestBody Inscripcion inscripcion) {
         Inscripcion saved = inscripcionRepository.save(inscripcion);
+        inventarioCupos.registrarOcupacion(saved);
 
         // 📧 ENVIAR NOTIFICACIONES
         try {
@@ -272,6 +317,7 @@ public class InscripcionController {
 
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Integer id) {
+        inscripcionRepository.findById(id).ifPresent(inventarioCupos::liberarInscripcion);
         inscripcionRepository.deleteById(id);
     }
 
@@ -281,31 +327,13 @@ public class InscripcionController {
      */
     @GetMapping("/estudiante/{estudianteId}")
     public List<Map<String, Object>> getInscripcionesByEstudiante(@PathVariable Integer estudianteId) {
-        List<Inscripcion> inscripciones = inscripcionRepository.findByEstudianteId(estudianteId);
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (Inscripcion ins : inscripciones) {
-            // SOLO mostrar inscripciones activas en "Mis Cursos"
-            if (!"Activa".equals(ins.getEstadoInscripcion())) {
-                continue;
-            }
-
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", ins.getId());
-            map.put("estudianteId", ins.getEstudianteId());
-            map.put("cursoId", ins.getCursoId());
-            map.put("fechaInscripcion", ins.getFechaInscripcion());
-            map.put("modalidad", ins.getModalidad());
-            map.put("estadoInscripcion", ins.getEstadoInscripcion());
-            map.put("certificadoGarantizado", ins.getCertificadoGarantizado());
-
-            cursoRepository.findById(ins.getCursoId())
-                .ifPresent(c -> {
-                    map.put("cursoNombre", c.getNombre());
-                    map.put("cursoDescripcion", c.getDescripcion());
-                    map.put("cursoCodigo", c.getCodigo());
-                });
+        // SOLO mostrar inscripciones activas en "Mis Cursos" (filtrado en la consulta)
+        List<InscripcionDetalleDTO> filas = buscarDetalle(estudianteId, null, "Activa", null, null);
+        List<Map<String, Object>> result = new ArrayList<>(filas.size());
 
+        for (InscripcionDetalleDTO ins : filas) {
+            Map<String, Object> map = mapaBase(ins);
+            agregarDatosCurso(map, ins);
             result.add(map);
         }
         return result;
@@ -316,19 +344,17 @@ public class InscripcionController {
      * Para la vista de "Estado de Solicitudes"
      */
     @GetMapping("/estudiante/{estudianteId}/todas")
-    public List<Map<String, Object>> getTodasInscripcionesByEstudiante(@PathVariable Integer estudianteId) {
-        List<Inscripcion> inscripciones = inscripcionRepository.findByEstudianteId(estudianteId);
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (Inscripcion ins : inscripciones) {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", ins.getId());
-            map.put("estudianteId", ins.getEstudianteId());
-            map.put("cursoId", ins.getCursoId());
-            map.put("fechaInscripcion", ins.getFechaInscripcion());
-            map.put("modalidad", ins.getModalidad());
-            map.put("estadoInscripcion", ins.getEstadoInscripcion());
-            map.put("certificadoGarantizado", ins.getCertificadoGarantizado());
+    public ResponseEntity<List<Map<String, Object>>> getTodasInscripcionesByEstudiante(
+            @PathVariable Integer estudianteId,
+            @RequestParam(required = false) String modalidad,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) Integer despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        List<InscripcionDetalleDTO> filas = buscarDetalle(estudianteId, modalidad, estado, despuesDe, limite);
+        List<Map<String, Object>> result = new ArrayList<>(filas.size());
+
+        for (InscripcionDetalleDTO ins : filas) {
+            Map<String, Object> map = mapaBase(ins);
 
             // Incluir datos específicos de beca si aplica
             if ("BECA".equals(ins.getModalidad())) {
@@ -347,63 +373,94 @@ public class InscripcionController {
                 map.put("motivoRechazo", ins.getMotivoRechazo());
             }
 
-            cursoRepository.findById(ins.getCursoId())
-                .ifPresent(c -> {
-                    map.put("cursoNombre", c.getNombre());
-                    map.put("cursoDescripcion", c.getDescripcion());
-                    map.put("cursoCodigo", c.getCodigo());
-                });
+            agregarDatosCurso(map, ins);
 
-            estudianteRepository.findById(ins.getEstudianteId())
-                .ifPresent(e -> {
-                    map.put("estudianteNombre", e.getNombre() + " " + e.getApellidos());
-                });
+            if (ins.tieneEstudiante()) {
+                map.put("estudianteNombre", ins.getEstudianteNombreCompleto());
+            }
 
             result.add(map);
         }
-        return result;
+        return respuestaPaginada(result, filas, limite);
     }
 
     /**
      * Obtener becas pendientes de aprobación (solo para administradores)
      */
     @GetMapping("/becas/pendientes")
-    public List<Map<String, Object>> getBecasPendientes() {
-        List<Inscripcion> inscripciones = inscripcionRepository.findAll();
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (Inscripcion ins : inscripciones) {
-            if ("BECA".equals(ins.getModalidad()) &&
-                "Pendiente de Aprobación/Documentación".equals(ins.getEstadoInscripcion())) {
-
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", ins.getId());
-                map.put("estudianteId", ins.getEstudianteId());
-                map.put("cursoId", ins.getCursoId());
-                map.put("fechaInscripcion", ins.getFechaInscripcion());
-                map.put("modalidad", ins.getModalidad());
-                map.put("estadoInscripcion", ins.getEstadoInscripcion());
-                map.put("tipoBeca", ins.getTipoBeca());
-                map.put("codigoBeca", ins.getCodigoBeca());
-                map.put("certificadoGarantizado", ins.getCertificadoGarantizado());
-
-                estudianteRepository.findById(ins.getEstudianteId())
-                    .ifPresent(e -> {
-                        map.put("estudianteNombre", e.getNombre() + " " + e.getApellidos());
-                        map.put("estudianteMatricula", e.getMatricula());
-                        map.put("estudianteEmail", e.getEmail());
-                    });
-
-                cursoRepository.findById(ins.getCursoId())
-                    .ifPresent(c -> {
-                        map.put("cursoNombre", c.getNombre());
-                        map.put("cursoCodigo", c.getCodigo());
-                    });
-
-                result.add(map);
+    public ResponseEntity<List<Map<String, Object>>> getBecasPendientes(
+            @RequestParam(required = false) Integer despuesDe,
+            @RequestParam(required = false) Integer limite) {
+        List<InscripcionDetalleDTO> filas = buscarDetalle(
+            null, "BECA", "Pendiente de Aprobación/Documentación", despuesDe, limite);
+        List<Map<String, Object>> result = new ArrayList<>(filas.size());
+
+        for (InscripcionDetalleDTO ins : filas) {
+            Map<String, Object> map = mapaBase(ins);
+            map.put("tipoBeca", ins.getTipoBeca());
+            map.put("codigoBeca", ins.getCodigoBeca());
+
+            if (ins.tieneEstudiante()) {
+                map.put("estudianteNombre", ins.getEstudianteNombreCompleto());
+                map.put("estudianteMatricula", ins.getEstudianteMatricula());
+                map.put("estudianteEmail", ins.getEstudianteEmail());
             }
+
+            if (ins.tieneCurso()) {
+                map.put("cursoNombre", ins.getCursoNombre());
+                map.put("cursoCodigo", ins.getCursoCodigo());
+            }
+
+            result.add(map);
+        }
+        return respuestaPaginada(result, filas, limite);
+    }
+
+    // ========== Lectura por proyección (una consulta por petición) ==========
+
+    private List<InscripcionDetalleDTO> buscarDetalle(Integer estudianteId, String modalidad, String estado,
+                                                      Integer despuesDe, Integer limite) {
+        Pageable pagina = limite != null ? PageRequest.of(0, tamanoPagina(limite)) : Pageable.unpaged();
+        return inscripcionRepository.buscarDetalle(estudianteId, modalidad, estado, despuesDe, pagina);
+    }
+
+    private int tamanoPagina(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    private Map<String, Object> mapaBase(InscripcionDetalleDTO ins) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", ins.getId());
+        map.put("estudianteId", ins.getEstudianteId());
+        map.put("cursoId", ins.getCursoId());
+        map.put("fechaInscripcion", ins.getFechaInscripcion());
+        map.put("modalidad", ins.getModalidad());
+        map.put("estadoInscripcion", ins.getEstadoInscripcion());
+        map.put("certificadoGarantizado", ins.getCertificadoGarantizado());
+        return map;
+    }
+
+    private void agregarDatosCurso(Map<String, Object> map, InscripcionDetalleDTO ins) {
+        if (ins.tieneCurso()) {
+            map.put("cursoNombre", ins.getCursoNombre());
+            map.put("cursoDescripcion", ins.getCursoDescripcion());
+            map.put("cursoCodigo", ins.getCursoCodigo());
         }
-        return result;
+    }
+
+    /**
+     * Si la página vino llena, expone el id de la última fila como cursor
+     * para pedir la siguiente con ?despuesDe=
+     */
+    private ResponseEntity<List<Map<String, Object>>> respuestaPaginada(
+            List<Map<String, Object>> result, List<InscripcionDetalleDTO> filas, Integer limite) {
+        if (limite != null && !filas.isEmpty() && filas.size() >= tamanoPagina(limite)) {
+            return ResponseEntity.ok()
+                .header("X-Next-Cursor", String.valueOf(filas.get(filas.size() - 1).getId()))
+                .header("Access-Control-Expose-Headers", "X-Next-Cursor")
+                .body(result);
+        }
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -426,6 +483,14 @@ public class InscripcionController {
             ));
         }
 
+        // Confirmar el cupo apartado (si la reserva venció, se intenta tomar otro)
+        if (!inventarioCupos.confirmarInscripcion(inscripcion)) {
+            return ResponseEntity.status(409).body(Map.of(
+                "exitoso", false,
+                "mensaje", "No hay cupos disponibles en el curso para aprobar la beca"
+            ));
+        }
+
         // Cambiar estado a Activa
         inscripcion.setEstadoInscripcion("Activa");
         Inscripcion saved = inscripcionRepository.save(inscripcion);
@@ -505,7 +570,10 @@ public class InscripcionController {
             motivo = "No especificado";
         }
 
-        // Cambiar estado a Rechazada y guardar motivo
+        // Devolver el cupo al inventario y cambiar estado a Rechazada
+        if (!"Rechazada".equals(inscripcion.getEstadoInscripcion())) {
+            inventarioCupos.liberarInscripcion(inscripcion);
+        }
         inscripcion.setEstadoInscripcion("Rechazada");
         inscripcion.setMotivoRechazo(motivo);
         Inscripcion saved = inscripcionRepository.save(inscripcion);
@@ -545,4 +613,217 @@ public class InscripcionController {
             "nuevoEstado", "Rechazada"
         ));
     }
+
+    /**
+     * Estado de un turno de la sala de espera (posición mientras espera,
+     * resultado de la inscripción cuando termina)
+     * GET /api/inscripciones/turnos/{turnoId}
+     */
+    @GetMapping("/turnos/{turnoId}")
+    public ResponseEntity<?> consultarTurno(@PathVariable String turnoId) {
+        AdmisionInscripcionesService.Turno turno = admision.obtener(turnoId);
+        if (turno == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> info = admision.describir(turno);
+        if (turno.getResultado() instanceof ResponseEntity<?> resultado) {
+            info.put("codigoHttp", resultado.getStatusCode().value());
+            info.put("resultado", resultado.getBody());
+        }
+        return ResponseEntity.ok(info);
+    }
+
+    /**
+     * Colas por curso, rechazos y tiempos de espera de la sala de espera
+     * GET /api/inscripciones/turnos/metricas
+     */
+    @GetMapping("/turnos/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasAdmision() {
+        return ResponseEntity.ok(admision.obtenerMetricas());
+    }
+
+    /**
+     * Si el turno termina dentro de espera-respuesta-ms se responde como
+     * antes (el resultado de la inscripción); si no, 202 con el turno para
+     * consultar su posición en /turnos/{turnoId}
+     *
+     * La espera no ocupa un hilo de Tomcat: la petición pasa a modo asíncrono
+     * al devolver el CompletableFuture y la respuesta se escribe cuando el
+     * turno termina o vence la espera. Así un pico de cientos de peticiones
+     * en la sala de espera no agota el pool de hilos del contenedor.
+     */
+    private CompletableFuture<ResponseEntity<?>> responderTurno(AdmisionInscripcionesService.Turno turno) {
+        return turno.alTerminar(esperaRespuestaMs)
+            .thenApply(terminado -> respuestaTurno(turno, terminado));
+    }
+
+    private ResponseEntity<?> respuestaTurno(AdmisionInscripcionesService.Turno turno, boolean terminado) {
+        if (terminado) {
+            switch (turno.getEstado()) {
+                case AdmisionInscripcionesService.COMPLETADO:
+                    return (ResponseEntity<?>) turno.getResultado();
+                case AdmisionInscripcionesService.RECHAZADO:
+                    Map<String, Object> rechazo = admision.describir(turno);
+                    rechazo.put("exitoso", false);
+                    return ResponseEntity.status(409).body(rechazo);
+                default:
+                    Map<String, Object> error = admision.describir(turno);
+                    error.put("exitoso", false);
+                    return ResponseEntity.internalServerError().body(error);
+            }
+        }
+        Map<String, Object> enEspera = admision.describir(turno);
+        enEspera.put("consultar", "/api/inscripciones/turnos/" + turno.getId());
+        return ResponseEntity.accepted().body(enEspera);
+    }
+
+    /**
+     * Anotarse en la lista de espera de un curso lleno; al liberarse un cupo
+     * el primero de la lista queda inscrito automáticamente
+     * POST /api/inscripciones/lista-espera  { "estudianteId": 1, "cursoId": 2, "tipoInscripcion": "PAGA" }
+     *
+     * tipoInscripcion es opcional (GRATUITA por defecto). Con PAGA o BECA la
+     * promoción aparta el cupo y la inscripción queda pendiente de pago o de
+     * aprobación.
+     */
+    @PostMapping("/lista-espera")
+    public ResponseEntity<Map<String, Object>> anotarEnListaEspera(@RequestBody Map<String, Object> request) {
+        Integer estudianteId = (Integer) request.get("estudianteId");
+        Integer cursoId = (Integer) request.get("cursoId");
+        if (estudianteId == null || cursoId == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", "Debe proporcionar estudianteId y cursoId"
+            ));
+        }
+        String tipoInscripcion = (String) request.get("tipoInscripcion");
+        Map<String, Object> resultado = listaEspera.anotar(cursoId, estudianteId, tipoInscripcion);
+        return Boolean.TRUE.equals(resultado.get("exitoso"))
+            ? ResponseEntity.ok(resultado)
+            : ResponseEntity.badRequest().body(resultado);
+    }
+
+    /**
+     * Completa el pago de una inscripción PAGA promovida desde la lista de espera
+     * PUT /api/inscripciones/{id}/pagar  { "metodoPago": "TARJETA" }
+     */
+    @PutMapping("/{id}/pagar")
+    public ResponseEntity<?> completarPago(@PathVariable Integer id, @RequestBody Map<String, String> body) {
+        try {
+            Inscripcion activa = listaEspera.completarPago(id, body.get("metodoPago"));
+            if (activa == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of(
+                "exitoso", true,
+                "mensaje", "Pago registrado. Inscripción confirmada",
+                "inscripcionId", activa.getId(),
+                "transaccionId", activa.getTransaccionId(),
+                "nuevoEstado", activa.getEstadoInscripcion()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Primeros de la lista de espera del curso
+     * GET /api/inscripciones/lista-espera/{cursoId}?limite=50
+     */
+    @GetMapping("/lista-espera/{cursoId}")
+    public ResponseEntity<Map<String, Object>> obtenerListaEspera(
+            @PathVariable Integer cursoId,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        return ResponseEntity.ok(listaEspera.listar(cursoId, tamanoPagina(limite)));
+    }
+
+    /**
+     * Posición del estudiante en la lista de espera
+     * GET /api/inscripciones/lista-espera/{cursoId}/estudiante/{estudianteId}
+     */
+    @GetMapping("/lista-espera/{cursoId}/estudiante/{estudianteId}")
+    public ResponseEntity<?> consultarListaEspera(@PathVariable Integer cursoId, @PathVariable Integer estudianteId) {
+        Map<String, Object> lugar = listaEspera.consultar(cursoId, estudianteId);
+        return lugar != null ? ResponseEntity.ok(lugar) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Salir de la lista de espera
+     * DELETE /api/inscripciones/lista-espera/{cursoId}/estudiante/{estudianteId}
+     */
+    @DeleteMapping("/lista-espera/{cursoId}/estudiante/{estudianteId}")
+    public ResponseEntity<?> cancelarListaEspera(@PathVariable Integer cursoId, @PathVariable Integer estudianteId) {
+        if (!listaEspera.cancelar(cursoId, estudianteId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+            "exitoso", true,
+            "mensaje", "Estudiante retirado de la lista de espera"
+        ));
+    }
+
+    /**
+     * Promueve a la lista de espera mientras haya cupos (normalmente ocurre solo)
+     * POST /api/inscripciones/lista-espera/{cursoId}/promover
+     */
+    @PostMapping("/lista-espera/{cursoId}/promover")
+    public ResponseEntity<Map<String, Object>> promoverListaEspera(@PathVariable Integer cursoId) {
+        int inscritos = listaEspera.promover(cursoId);
+        return ResponseEntity.ok(Map.of(
+            "exitoso", true,
+            "inscritos", inscritos
+        ));
+    }
+
+    /**
+     * Anotados, promovidos y cursos con espera
+     * GET /api/inscripciones/lista-espera/metricas
+     */
+    @GetMapping("/lista-espera/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasListaEspera() {
+        return ResponseEntity.ok(listaEspera.obtenerMetricas());
+    }
+
+    /**
+     * Cupos del curso según el inventario
+     * GET /api/inscripciones/cupos/{cursoId}
+     */
+    @GetMapping("/cupos/{cursoId}")
+    public ResponseEntity<?> obtenerCupos(@PathVariable Integer cursoId) {
+        InventarioCuposService.Disponibilidad cupos = inventarioCupos.consultar(cursoId);
+        if (cupos == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(cupos.toMap());
+    }
+
+    /**
+     * Recuenta los cupos ocupados y toma la capacidad actual del curso
+     * POST /api/inscripciones/cupos/{cursoId}/recalcular
+     */
+    @PostMapping("/cupos/{cursoId}/recalcular")
+    public ResponseEntity<?> recalcularCupos(@PathVariable Integer cursoId) {
+        InventarioCuposService.Disponibilidad cupos = inventarioCupos.recalcular(cursoId);
+        if (cupos == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(cupos.toMap());
+    }
+
+    /**
+     * Reservas por estado y contadores del inventario de cupos
+     * GET /api/inscripciones/cupos/metricas
+     */
+    @GetMapping("/cupos/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasCupos() {
+        return ResponseEntity.ok(inventarioCupos.obtenerMetricas());
+    }
 }
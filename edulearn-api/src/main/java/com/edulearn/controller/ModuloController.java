@@ -3,6 +3,7 @@ package com.edulearn.controller;
 import com.edulearn.model.ModuloCurso;
 import com.edulearn.patterns.structural.composite.*;
 import com.edulearn.repository.ModuloCursoRepository;
+import com.edulearn.service.CursoTreeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +16,9 @@ public class ModuloController {
     @Autowired
     private ModuloCursoRepository moduloRepository;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
     @GetMapping
     public List<ModuloCurso> getAll() {
         return moduloRepository.findAll();
@@ -37,12 +41,16 @@ public class ModuloController {
 
     @PostMapping
     public ModuloCurso crear(@RequestBody ModuloCurso modulo) {
-        return moduloRepository.save(modulo);
+        ModuloCurso guardado = moduloRepository.save(modulo);
+        cursoTreeService.invalidarCurso(guardado.getCursoId());
+        return guardado;
     }
 
     @DeleteMapping("/{id}")
     public void eliminar(@PathVariable Integer id) {
+        Integer cursoId = moduloRepository.findById(id).map(ModuloCurso::getCursoId).orElse(null);
         moduloRepository.deleteById(id);
+        cursoTreeService.invalidarCurso(cursoId);
     }
 
     // ========== ENDPOINTS CON PATRÓN COMPOSITE ==========
@@ -94,6 +102,7 @@ public class ModuloController {
 
         // Guardar en BD
         modulosCreados.addAll(guardarEstructuraEnBD(cursoCompleto, cursoId, null, 0));
+        cursoTreeService.invalidarCurso(cursoId);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -9,12 +9,15 @@ import com.edulearn.repository.MaterialRepository;
 import com.edulearn.repository.ModuloCursoRepository;
 import com.edulearn.repository.CursoRepository;
 import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
+import com.edulearn.service.AlmacenBlobService;
+import com.edulearn.service.CursoTreeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +44,12 @@ public class ModuloCursoCRUDController {
     @Autowired
     private NotificationOrchestrator notificationOrchestrator;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
+    @Autowired
+    private AlmacenBlobService almacenBlobService;
+
     /**
      * Obtener todos los módulos de un curso con estructura jerárquica
      */
@@ -102,6 +111,7 @@ public class ModuloCursoCRUDController {
         try {
             ModuloCurso modulo = convertirAEntidad(dto);
             ModuloCurso moduloGuardado = moduloCursoRepository.save(modulo);
+            cursoTreeService.invalidarCurso(moduloGuardado.getCursoId());
 
             ModuloCursoDTO resultado = convertirADTO(moduloGuardado);
             return ResponseEntity.status(HttpStatus.CREATED).body(resultado);
@@ -121,6 +131,15 @@ public class ModuloCursoCRUDController {
         try {
             return moduloCursoRepository.findById(id)
                 .map(moduloExistente -> {
+                    // Antes de tocar nada: ningún material puede apuntar a un archivo inexistente
+                    List<String> inexistentes = archivosInexistentes(dto.getMateriales());
+                    if (!inexistentes.isEmpty()) {
+                        System.err.println("❌ Materiales con archivos inexistentes, no se guarda el módulo " + id + ": " + inexistentes);
+                        return ResponseEntity.badRequest().<ModuloCursoDTO>build();
+                    }
+
+                    Integer cursoAnterior = moduloExistente.getCursoId();
+
                     // Actualizar campos del módulo
                     moduloExistente.setNombre(dto.getNombre());
                     moduloExistente.setDescripcion(dto.getDescripcion());
@@ -137,6 +156,8 @@ public class ModuloCursoCRUDController {
                     if (dto.getMateriales() != null) {
                         actualizarMaterialesModulo(moduloActualizado.getId(), dto.getMateriales());
                     }
+                    // Los materiales cuelgan del módulo, así que basta con su curso (y el anterior si cambió)
+                    cursoTreeService.invalidarCursos(Arrays.asList(cursoAnterior, moduloActualizado.getCursoId()));
 
                     ModuloCursoDTO resultado = convertirADTO(moduloActualizado);
 
@@ -161,15 +182,21 @@ public class ModuloCursoCRUDController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> eliminarModulo(@PathVariable Integer id) {
         try {
-            if (!moduloCursoRepository.existsById(id)) {
+            ModuloCurso modulo = moduloCursoRepository.findById(id).orElse(null);
+            if (modulo == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            // Eliminar materiales asociados primero
+            // Eliminar materiales asociados primero (recordando sus archivos)
+            List<String> archivos = materialRepository.findArchivoPathsByModuloId(id.longValue());
             materialRepository.deleteByModuloId(id.longValue());
 
             // Eliminar módulo
             moduloCursoRepository.deleteById(id);
+            cursoTreeService.invalidarCurso(modulo.getCursoId());
+
+            // Borrar los archivos que ya no usa ningún otro material
+            almacenBlobService.liberar(archivos);
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Módulo eliminado exitosamente");
@@ -197,7 +224,8 @@ public class ModuloCursoCRUDController {
 
         System.out.println("🔄 Actualizando " + materialesDTO.size() + " materiales para módulo " + moduloId);
 
-        // Eliminar materiales existentes
+        // Eliminar materiales existentes (sus archivos se liberan al final si nadie los reutiliza)
+        List<String> archivosAnteriores = materialRepository.findArchivoPathsByModuloId(moduloId.longValue());
         materialRepository.deleteByModuloId(moduloId.longValue());
 
         // Crear nuevos materiales
@@ -252,13 +280,9 @@ public class ModuloCursoCRUDController {
             String urlRecurso = materialDTO.getUrlRecurso() != null ? materialDTO.getUrlRecurso() : materialDTO.getFile();
             material.setUrlRecurso(urlRecurso);
 
-            // Extraer archivoPath de la URL si es necesario
-            if (urlRecurso != null && urlRecurso.contains("/descargar/")) {
-                String archivoPath = urlRecurso.substring(urlRecurso.lastIndexOf("/") + 1);
-                // Remover query params si existen
-                if (archivoPath.contains("?")) {
-                    archivoPath = archivoPath.substring(0, archivoPath.indexOf("?"));
-                }
+            // archivoPath ya validado (y vinculado) en archivosInexistentes
+            String archivoPath = extraerArchivoPath(materialDTO);
+            if (archivoPath != null) {
                 material.setArchivoPath(archivoPath);
                 System.out.println("  ✓ Archivo path extraído: " + archivoPath);
             }
@@ -299,9 +323,45 @@ public class ModuloCursoCRUDController {
             }
         }
 
+        almacenBlobService.liberar(archivosAnteriores);
+
         System.out.println("✅ Todos los materiales actualizados correctamente");
     }
 
+    /**
+     * Vincula los archivos a los que apuntan los materiales y devuelve los que
+     * no existen en el almacén
+     */
+    private List<String> archivosInexistentes(List<MaterialDTO> materialesDTO) {
+        List<String> inexistentes = new ArrayList<>();
+        if (materialesDTO == null) {
+            return inexistentes;
+        }
+        for (MaterialDTO materialDTO : materialesDTO) {
+            String archivoPath = extraerArchivoPath(materialDTO);
+            if (archivoPath != null && !almacenBlobService.vincular(archivoPath)) {
+                inexistentes.add(archivoPath);
+            }
+        }
+        return inexistentes;
+    }
+
+    /**
+     * Extrae archivoPath de la URL de descarga del material (null si no la tiene)
+     */
+    private String extraerArchivoPath(MaterialDTO materialDTO) {
+        String urlRecurso = materialDTO.getUrlRecurso() != null ? materialDTO.getUrlRecurso() : materialDTO.getFile();
+        if (urlRecurso == null || !urlRecurso.contains("/descargar/")) {
+            return null;
+        }
+        String archivoPath = urlRecurso.substring(urlRecurso.lastIndexOf("/") + 1);
+        // Remover query params si existen
+        if (archivoPath.contains("?")) {
+            archivoPath = archivoPath.substring(0, archivoPath.indexOf("?"));
+        }
+        return archivoPath;
+    }
+
     /**
      * Convierte ModuloCurso entity a DTO
      */
@@ -1,8 +1,10 @@
 package com.edulearn.controller;
 
 import com.edulearn.patterns.estructural.composite.dto.ComponenteCursoDTO;
+import com.edulearn.service.CursoTreeCache.ArbolCursoSnapshot;
 import com.edulearn.service.CursoTreeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,12 +27,22 @@ public class ModuloTreeController {
 
     /**
      * GET /api/modulos/tree?cursoId={id}
-     * Obtiene el árbol completo de módulos, materiales y evaluaciones de un curso
+     * Obtiene el árbol completo de módulos, materiales y evaluaciones de un curso.
+     * El árbol se sirve desde caché y la respuesta lleva un ETag con su versión;
+     * si el cliente envía If-None-Match con el ETag vigente se responde 304.
      */
     @GetMapping("/tree")
-    public ResponseEntity<?> obtenerArbolCurso(@RequestParam Integer cursoId) {
+    public ResponseEntity<?> obtenerArbolCurso(
+            @RequestParam Integer cursoId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<ComponenteCursoDTO> arbol = cursoTreeService.obtenerModulosRaiz(cursoId);
+            String etagVigente = cursoTreeService.obtenerEtagArbol(cursoId);
+            if (ifNoneMatch != null && ifNoneMatch.contains(etagVigente)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etagVigente).build();
+            }
+
+            ArbolCursoSnapshot snapshot = cursoTreeService.obtenerModulosRaizVersionados(cursoId);
+            List<ComponenteCursoDTO> arbol = snapshot.getModulos();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -38,7 +50,7 @@ public class ModuloTreeController {
             response.put("modulos", arbol);
             response.put("totalModulos", arbol.size());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(snapshot.getEtag()).body(response);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
@@ -47,6 +59,15 @@ public class ModuloTreeController {
         }
     }
 
+    /**
+     * GET /api/modulos/tree/cache/stats
+     * Métricas de la caché de árboles (aciertos, fallos, desalojos, memoria estimada)
+     */
+    @GetMapping("/tree/cache/stats")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasCache() {
+        return ResponseEntity.ok(cursoTreeService.obtenerEstadisticasCache());
+    }
+
     /**
      * GET /api/modulos/tree/single?cursoId={id}
      * Obtiene el árbol como un único nodo raíz (útil para visualizaciones simples)
@@ -3,8 +3,10 @@ package com.edulearn.controller;
 import com.edulearn.model.Notificacion;
 import com.edulearn.service.NotificacionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -59,6 +61,18 @@ public class NotificacionController {
         return ResponseEntity.ok(Map.of("unreadCount", count));
     }
 
+    /**
+     * PATRÓN OBSERVER: Canal push (SSE) de notificaciones del usuario
+     * GET /api/notificaciones/usuario/{userId}/stream
+     * Al reconectar, el navegador envía Last-Event-ID y se reenvían los eventos perdidos.
+     */
+    @GetMapping(value = "/usuario/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @PathVariable Integer userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return service.abrirStream(userId, lastEventId);
+    }
+
     /**
      * PATRÓN OBSERVER: Marcar notificación como leída
      * PUT /api/notificaciones/{id}/leer
@@ -70,12 +84,19 @@ public class NotificacionController {
 
     /**
      * PATRÓN OBSERVER: Marcar todas las notificaciones como leídas
-     * PUT /api/notificaciones/usuario/{userId}/leer-todas
+     * PUT /api/notificaciones/usuario/{userId}/leer-todas?hastaId=
+     * hastaId (opcional): solo se marcan las notificaciones con id menor o igual
      */
     @PutMapping("/usuario/{userId}/leer-todas")
-    public ResponseEntity<Map<String, Object>> markAllAsRead(@PathVariable Integer userId) {
-        service.markAllAsRead(userId);
-        return ResponseEntity.ok(Map.of("success", true, "message", "Todas las notificaciones marcadas como leídas"));
+    public ResponseEntity<Map<String, Object>> markAllAsRead(
+            @PathVariable Integer userId,
+            @RequestParam(value = "hastaId", required = false) Long hastaId) {
+        int marcadas = service.markAllAsRead(userId, hastaId);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "marcadas", marcadas,
+            "message", "Todas las notificaciones marcadas como leídas"
+        ));
     }
 
     /**
@@ -124,6 +145,65 @@ public class NotificacionController {
         return ResponseEntity.ok(service.obtenerEstadisticas());
     }
 
+    /**
+     * Resincronizar los contadores de notificaciones con la base de datos
+     * POST /api/notificaciones/estadisticas/recalcular
+     */
+    @PostMapping("/estadisticas/recalcular")
+    public ResponseEntity<Map<String, Object>> recalcularEstadisticas() {
+        return ResponseEntity.ok(service.recalcularContadores());
+    }
+
+    /**
+     * Métricas de la cola de persistencia de notificaciones
+     * GET /api/notificaciones/persistencia/metricas
+     */
+    @GetMapping("/persistencia/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasPersistencia() {
+        return ResponseEntity.ok(service.obtenerMetricasPersistencia());
+    }
+
+    /**
+     * Métricas del bus de eventos de dominio (pendientes, rechazos, latencia por listener)
+     * GET /api/notificaciones/eventos/metricas
+     */
+    @GetMapping("/eventos/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasEventos() {
+        return ResponseEntity.ok(service.obtenerMetricasEventos());
+    }
+
+    /**
+     * Estado del outbox de eventos (pendientes, entregados, fallidos, reintentos, carriles por tipo)
+     * GET /api/notificaciones/outbox/metricas
+     */
+    @GetMapping("/outbox/metricas")
+    public ResponseEntity<Map<String, Object>> obtenerMetricasOutbox() {
+        return ResponseEntity.ok(service.obtenerMetricasOutbox());
+    }
+
+    /**
+     * Vuelve a poner en cola los eventos del outbox marcados como FALLIDO
+     * POST /api/notificaciones/outbox/reintentar
+     */
+    @PostMapping("/outbox/reintentar")
+    public ResponseEntity<Map<String, Object>> reintentarEventosFallidos() {
+        int reencolados = service.reintentarEventosFallidos();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "reencolados", reencolados,
+            "message", "Eventos fallidos devueltos al outbox"
+        ));
+    }
+
+    /**
+     * Conexiones SSE abiertas
+     * GET /api/notificaciones/stream/estadisticas
+     */
+    @GetMapping("/stream/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasStream() {
+        return ResponseEntity.ok(service.obtenerEstadisticasStream());
+    }
+
     /**
      * Demo del patrón Observer
      * GET /api/notificaciones/demo
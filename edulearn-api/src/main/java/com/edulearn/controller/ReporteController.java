@@ -1,14 +1,23 @@
 package com.edulearn.controller;
 
+import com.edulearn.dto.ReporteResumenDTO;
 import com.edulearn.model.ReporteGenerado;
 import com.edulearn.patterns.structural.bridge.*;
 import com.edulearn.repository.ReporteGeneradoRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.edulearn.service.AlmacenReportesService;
+import com.edulearn.service.CacheReportesService;
+import com.edulearn.service.EstadisticasAcademicasService;
+import com.edulearn.service.ExportacionListadoService;
+import com.edulearn.service.ReporteService;
+import com.edulearn.service.ReporteTrabajoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,15 +31,30 @@ public class ReporteController {
     private ReporteGeneradoRepository reporteRepository;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private ReporteService reporteService;
+
+    @Autowired
+    private ReporteTrabajoService reporteTrabajoService;
+
+    @Autowired
+    private AlmacenReportesService almacenReportesService;
+
+    @Autowired
+    private ExportacionListadoService exportacionListadoService;
+
+    @Autowired
+    private CacheReportesService cacheReportesService;
+
+    @Autowired
+    private EstadisticasAcademicasService estadisticasAcademicasService;
 
     /**
      * GET /api/reportes
-     * Obtener todos los reportes generados
+     * Obtener todos los reportes generados (solo metadatos)
      */
     @GetMapping
-    public List<ReporteGenerado> getAll() {
-        return reporteRepository.findAll();
+    public List<ReporteResumenDTO> getAll() {
+        return reporteRepository.listarResumen(null);
     }
 
     /**
@@ -47,8 +71,8 @@ public class ReporteController {
      * Obtener reportes por tipo
      */
     @GetMapping("/tipo/{tipo}")
-    public List<ReporteGenerado> getByTipo(@PathVariable String tipo) {
-        return reporteRepository.findByTipoReporte(tipo);
+    public List<ReporteResumenDTO> getByTipo(@PathVariable String tipo) {
+        return reporteRepository.listarResumen(tipo);
     }
 
     /**
@@ -56,7 +80,7 @@ public class ReporteController {
      * Descargar reporte como archivo
      */
     @GetMapping("/{id}/descargar")
-    public ResponseEntity<byte[]> descargarReporte(@PathVariable Integer id) {
+    public ResponseEntity<StreamingResponseBody> descargarReporte(@PathVariable Integer id) {
         ReporteGenerado reporte = reporteRepository.findById(id).orElse(null);
 
         if (reporte == null) {
@@ -87,103 +111,234 @@ public class ReporteController {
 
         String nombreArchivo = reporte.getTitulo().replaceAll("[^a-zA-Z0-9]", "_") + extension;
 
-        // Usar contenido binario si está disponible (PDF, Excel), sino usar contenido de texto (HTML)
-        byte[] contenidoBytes;
-        if (reporte.getContenidoBinario() != null && reporte.getContenidoBinario().length > 0) {
-            contenidoBytes = reporte.getContenidoBinario();
-        } else {
-            String contenido = reporte.getContenido();
-            if (contenido == null) {
-                contenido = "Contenido no disponible";
+        // El archivo se lee del almacén (descomprimiéndolo) directamente hacia la respuesta
+        StreamingResponseBody cuerpo = salida -> {
+            try (InputStream contenido = reporteService.abrirContenido(reporte)) {
+                contenido.transferTo(salida);
             }
-            contenidoBytes = contenido.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        };
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=\"" + nombreArchivo + "\"")
+                .header("Content-Type", mimeType + "; charset=UTF-8");
+        if (reporte.getTamanoBytes() != null) {
+            respuesta.contentLength(reporte.getTamanoBytes());
         }
+        return respuesta.body(cuerpo);
+    }
+
+    /**
+     * GET /api/reportes/exportar/{tipo}?cursoId=&formato=excel|pdf
+     * Exportar un listado completo (inscripciones, calificaciones) a Excel o PDF.
+     * Las filas se escriben en la respuesta a medida que se leen de la base de datos.
+     */
+    @GetMapping("/exportar/{tipo}")
+    public ResponseEntity<StreamingResponseBody> exportarListado(@PathVariable String tipo,
+                                                                 @RequestParam(required = false) Integer cursoId,
+                                                                 @RequestParam(defaultValue = "excel") String formato) {
+        String tipoReporte = switch (tipo.toLowerCase()) {
+            case "inscripciones" -> ExportacionListadoService.INSCRIPCIONES;
+            case "calificaciones" -> ExportacionListadoService.CALIFICACIONES_DETALLE;
+            default -> null;
+        };
+        if (tipoReporte == null) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean pdf = formato.equalsIgnoreCase("pdf");
+        if (!pdf && !formato.equalsIgnoreCase("excel")) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String nombreArchivo = tipo.toLowerCase() + (cursoId != null ? "_curso_" + cursoId : "") + (pdf ? ".pdf" : ".xlsx");
+        StreamingResponseBody cuerpo = pdf
+                ? salida -> exportacionListadoService.exportarPdf(tipoReporte, cursoId, salida)
+                : salida -> exportacionListadoService.exportarExcel(tipoReporte, cursoId, salida);
 
         return ResponseEntity.ok()
                 .header("Content-Disposition", "attachment; filename=\"" + nombreArchivo + "\"")
-                .header("Content-Type", mimeType + "; charset=UTF-8")
-                .body(contenidoBytes);
+                .header("Content-Type", pdf ? "application/pdf"
+                        : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .body(cuerpo);
+    }
+
+    /**
+     * POST /api/reportes/purgar
+     * Aplicar ahora la política de retención (también se ejecuta periódicamente)
+     */
+    @PostMapping("/purgar")
+    public ResponseEntity<Map<String, Object>> purgarReportes() {
+        try {
+            return ResponseEntity.ok(almacenReportesService.purgar());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/reportes/almacen/estadisticas
+     * Ocupación del almacén de archivos de reportes
+     */
+    @GetMapping("/almacen/estadisticas")
+    public ResponseEntity<Map<String, Object>> estadisticasAlmacen() {
+        try {
+            return ResponseEntity.ok(almacenReportesService.obtenerEstadisticas());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/reportes/cache/estadisticas
+     * Aciertos, fallos y bytes ahorrados por la caché de reportes
+     */
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<Map<String, Object>> estadisticasCache() {
+        return ResponseEntity.ok(cacheReportesService.obtenerEstadisticas());
+    }
+
+    /**
+     * DELETE /api/reportes/cache
+     * Vaciar la caché de reportes (los reportes ya generados no se borran)
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> limpiarCache() {
+        cacheReportesService.limpiar();
+        return ResponseEntity.ok(Map.of("mensaje", "Caché de reportes vaciada"));
+    }
+
+    /**
+     * GET /api/reportes/estadisticas
+     * Resumen global (estudiantes, cursos, inscripciones, calificaciones) sin consultar las tablas
+     */
+    @GetMapping("/estadisticas")
+    public ResponseEntity<Map<String, Object>> estadisticasGlobales() {
+        return ResponseEntity.ok(estadisticasAcademicasService.resumenGlobal());
+    }
+
+    /**
+     * GET /api/reportes/estadisticas/curso/{cursoId}
+     * Inscripciones por estado y calificaciones de un curso
+     */
+    @GetMapping("/estadisticas/curso/{cursoId}")
+    public ResponseEntity<Map<String, Object>> estadisticasCurso(@PathVariable Integer cursoId) {
+        return ResponseEntity.ok(estadisticasAcademicasService.resumenCurso(cursoId));
+    }
+
+    /**
+     * POST /api/reportes/estadisticas/recalcular
+     * Reconstruir las estadísticas desde la base de datos
+     */
+    @PostMapping("/estadisticas/recalcular")
+    public ResponseEntity<Map<String, Object>> recalcularEstadisticas() {
+        return ResponseEntity.ok(estadisticasAcademicasService.recalcular());
     }
 
     // ========== ENDPOINTS CON PATRÓN BRIDGE ==========
 
     /**
      * POST /api/reportes/generar
-     * Generar reporte usando patrón Bridge
+     * Generar reporte usando patrón Bridge (síncrono, en la petición)
+     * Para reportes grandes usar POST /api/reportes/trabajos
      */
     @PostMapping("/generar")
     public Map<String, Object> generarReporte(@RequestBody Map<String, Object> params) {
         String tipoReporte = (String) params.get("tipoReporte");
         String formato = (String) params.get("formato");
 
-        // Crear formato (Implementación) usando Factory
-        IFormatoReporte formatoImpl = crearFormato(formato);
+        ReporteService.ResultadoReporte resultado =
+                reporteService.generar(tipoReporte, formato, params, obtenerUsuarioId(params));
+        ReporteGenerado reporteGenerado = resultado.getReporte();
 
-        // Crear reporte (Abstracción) según tipo
-        Reporte reporte = crearReporte(tipoReporte, formatoImpl, params);
+        // Respuesta
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("reporteId", reporteGenerado.getId());
+        response.put("tipoReporte", tipoReporte);
+        response.put("formato", formato);
+        response.put("titulo", reporteGenerado.getTitulo());
+        response.put("contenido", resultado.getContenido());
+        response.put("extension", resultado.getExtension());
+        response.put("mimeType", resultado.getMimeType());
+        response.put("desdeCache", resultado.isDesdeCache());
+        response.put("mensaje", resultado.isDesdeCache()
+                ? "Reporte sin cambios: se reutiliza el generado anteriormente"
+                : "Reporte generado exitosamente usando patrón Bridge");
 
-        // Generar contenido usando Bridge
-        String contenido = reporte.generar();
+        return response;
+    }
 
-        // Guardar en BD
-        ReporteGenerado reporteGenerado = new ReporteGenerado();
-        reporteGenerado.setTipoReporte(tipoReporte);
-        reporteGenerado.setFormato(formato);
-        reporteGenerado.setTitulo(obtenerTituloReporte(tipoReporte));
-        reporteGenerado.setEstado("GENERADO");
+    // ========== TRABAJOS DE REPORTE EN SEGUNDO PLANO ==========
 
-        // Generar contenido binario para PDF y Excel, texto para HTML
-        try {
-            Map<String, Object> datos = obtenerDatosReporte(tipoReporte);
-
-            if (formato.equalsIgnoreCase("PDF")) {
-                byte[] pdfBytes = GeneradorPDF.generarPDF(obtenerTituloReporte(tipoReporte), datos);
-                reporteGenerado.setContenidoBinario(pdfBytes);
-                reporteGenerado.setContenido("[PDF Binario - " + pdfBytes.length + " bytes]");
-            } else if (formato.equalsIgnoreCase("EXCEL") || formato.equalsIgnoreCase("XLS")) {
-                byte[] excelBytes = GeneradorExcel.generarExcel(obtenerTituloReporte(tipoReporte), datos);
-                reporteGenerado.setContenidoBinario(excelBytes);
-                reporteGenerado.setContenido("[Excel Binario - " + excelBytes.length + " bytes]");
-            } else {
-                // HTML - usar el contenido generado por Bridge
-                reporteGenerado.setContenido(contenido);
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error al generar contenido binario: " + e.getMessage());
-            e.printStackTrace();
-            reporteGenerado.setContenido(contenido);
+    /**
+     * POST /api/reportes/trabajos
+     * Encolar la generación de un reporte; responde de inmediato con el id del trabajo
+     * Body: { tipoReporte, formato, usuarioId, ... }
+     */
+    @PostMapping("/trabajos")
+    public ResponseEntity<Map<String, Object>> enviarTrabajo(@RequestBody Map<String, Object> params) {
+        String tipoReporte = (String) params.get("tipoReporte");
+        String formato = (String) params.get("formato");
+        if (tipoReporte == null || formato == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "tipoReporte y formato son obligatorios"));
         }
 
-        // Convertir params a JSON
         try {
-            String parametrosJson = objectMapper.writeValueAsString(params);
-            reporteGenerado.setParametros(parametrosJson);
-        } catch (Exception e) {
-            System.err.println("❌ Error al convertir parámetros a JSON: " + e.getMessage());
-            reporteGenerado.setParametros("{}");
+            ReporteTrabajoService.Trabajo trabajo =
+                    reporteTrabajoService.enviar(tipoReporte, formato, params, obtenerUsuarioId(params));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajo.aMapa());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
         }
+    }
 
+    /**
+     * GET /api/reportes/trabajos/{trabajoId}
+     * Estado y avance de un trabajo
+     */
+    @GetMapping("/trabajos/{trabajoId}")
+    public ResponseEntity<Map<String, Object>> obtenerTrabajo(@PathVariable String trabajoId) {
         try {
-            reporteGenerado = reporteRepository.save(reporteGenerado);
-            System.out.println("✅ Reporte guardado en BD con ID: " + reporteGenerado.getId());
-        } catch (Exception e) {
-            System.err.println("❌ Error al guardar reporte: " + e.getMessage());
-            e.printStackTrace();
+            return ResponseEntity.ok(reporteTrabajoService.obtener(trabajoId).aMapa());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
         }
+    }
 
-        // Respuesta
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("reporteId", reporteGenerado.getId() != null ? reporteGenerado.getId() : System.currentTimeMillis());
-        response.put("tipoReporte", tipoReporte);
-        response.put("formato", formato);
-        response.put("titulo", obtenerTituloReporte(tipoReporte));
-        response.put("contenido", contenido);
-        response.put("extension", reporte.obtenerExtension());
-        response.put("mimeType", reporte.obtenerTipoMIME());
-        response.put("mensaje", "Reporte generado exitosamente usando patrón Bridge");
+    /**
+     * GET /api/reportes/trabajos?usuarioId=
+     * Trabajos recientes de un usuario
+     */
+    @GetMapping("/trabajos")
+    public List<Map<String, Object>> listarTrabajos(@RequestParam(required = false) Integer usuarioId) {
+        return reporteTrabajoService.listarPorUsuario(usuarioId).stream()
+                .map(ReporteTrabajoService.Trabajo::aMapa)
+                .toList();
+    }
 
-        return response;
+    /**
+     * DELETE /api/reportes/trabajos/{trabajoId}
+     * Cancelar un trabajo pendiente o en curso
+     */
+    @DeleteMapping("/trabajos/{trabajoId}")
+    public ResponseEntity<Map<String, Object>> cancelarTrabajo(@PathVariable String trabajoId) {
+        try {
+            if (!reporteTrabajoService.cancelar(trabajoId)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "El trabajo ya había terminado"));
+            }
+            return ResponseEntity.ok(reporteTrabajoService.obtener(trabajoId).aMapa());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * GET /api/reportes/trabajos/estadisticas
+     * Ocupación del motor de trabajos
+     */
+    @GetMapping("/trabajos/estadisticas")
+    public Map<String, Object> estadisticasTrabajos() {
+        return reporteTrabajoService.obtenerEstadisticas();
     }
 
     /**
@@ -195,20 +350,12 @@ public class ReporteController {
         String formato = params.getOrDefault("formato", "PDF");
 
         IFormatoReporte formatoImpl = crearFormato(formato);
-        ReporteEstudiantes reporte = new ReporteEstudiantes(formatoImpl);
-
-        // Datos simulados (en producción vendrían de la BD)
-        reporte.setDatosEstudiantes(150, 142, 8, 85.5);
+        Reporte reporte = reporteService.crearReporte("ESTUDIANTES", formatoImpl);
 
         String contenido = reporte.generar();
 
         // Guardar
-        ReporteGenerado reporteGenerado = new ReporteGenerado();
-        reporteGenerado.setTipoReporte("ESTUDIANTES");
-        reporteGenerado.setFormato(formato);
-        reporteGenerado.setTitulo("Reporte de Estudiantes");
-        reporteGenerado.setContenido(contenido);
-        reporteGenerado = reporteRepository.save(reporteGenerado);
+        ReporteGenerado reporteGenerado = reporteService.guardarTexto("ESTUDIANTES", formato, "Reporte de Estudiantes", contenido);
 
         Map<String, Object> response = new HashMap<>();
         response.put("reporteId", reporteGenerado.getId());
@@ -227,19 +374,11 @@ public class ReporteController {
         String formato = params.getOrDefault("formato", "EXCEL");
 
         IFormatoReporte formatoImpl = crearFormato(formato);
-        ReporteCursos reporte = new ReporteCursos(formatoImpl);
-
-        // Datos simulados
-        reporte.setDatosCursos(45, 38, 7, 520);
+        Reporte reporte = reporteService.crearReporte("CURSOS", formatoImpl);
 
         String contenido = reporte.generar();
 
-        ReporteGenerado reporteGenerado = new ReporteGenerado();
-        reporteGenerado.setTipoReporte("CURSOS");
-        reporteGenerado.setFormato(formato);
-        reporteGenerado.setTitulo("Reporte de Cursos");
-        reporteGenerado.setContenido(contenido);
-        reporteGenerado = reporteRepository.save(reporteGenerado);
+        ReporteGenerado reporteGenerado = reporteService.guardarTexto("CURSOS", formato, "Reporte de Cursos", contenido);
 
         Map<String, Object> response = new HashMap<>();
         response.put("reporteId", reporteGenerado.getId());
@@ -258,19 +397,11 @@ public class ReporteController {
         String formato = params.getOrDefault("formato", "HTML");
 
         IFormatoReporte formatoImpl = crearFormato(formato);
-        ReporteCalificaciones reporte = new ReporteCalificaciones(formatoImpl);
-
-        // Datos simulados
-        reporte.setDatosCalificaciones(520, 78.5, 468, 52, 98.5, 45.0);
+        Reporte reporte = reporteService.crearReporte("CALIFICACIONES", formatoImpl);
 
         String contenido = reporte.generar();
 
-        ReporteGenerado reporteGenerado = new ReporteGenerado();
-        reporteGenerado.setTipoReporte("CALIFICACIONES");
-        reporteGenerado.setFormato(formato);
-        reporteGenerado.setTitulo("Reporte de Calificaciones");
-        reporteGenerado.setContenido(contenido);
-        reporteGenerado = reporteRepository.save(reporteGenerado);
+        ReporteGenerado reporteGenerado = reporteService.guardarTexto("CALIFICACIONES", formato, "Reporte de Calificaciones", contenido);
 
         Map<String, Object> response = new HashMap<>();
         response.put("reporteId", reporteGenerado.getId());
@@ -283,87 +414,21 @@ public class ReporteController {
     // ========== MÉTODOS AUXILIARES ==========
 
     private IFormatoReporte crearFormato(String formato) {
-        switch (formato.toUpperCase()) {
-            case "PDF":
-                return new FormatoPDF();
-            case "EXCEL":
-            case "XLS":
-                return new FormatoExcel();
-            case "HTML":
-                return new FormatoHTML();
-            default:
-                return new FormatoPDF();
-        }
-    }
-
-    private Reporte crearReporte(String tipo, IFormatoReporte formato, Map<String, Object> params) {
-        switch (tipo.toUpperCase()) {
-            case "ESTUDIANTES":
-                ReporteEstudiantes repEst = new ReporteEstudiantes(formato);
-                repEst.setDatosEstudiantes(150, 142, 8, 85.5);
-                return repEst;
-
-            case "CURSOS":
-                ReporteCursos repCur = new ReporteCursos(formato);
-                repCur.setDatosCursos(45, 38, 7, 520);
-                return repCur;
-
-            case "CALIFICACIONES":
-                ReporteCalificaciones repCal = new ReporteCalificaciones(formato);
-                repCal.setDatosCalificaciones(520, 78.5, 468, 52, 98.5, 45.0);
-                return repCal;
-
-            default:
-                ReporteEstudiantes repDefault = new ReporteEstudiantes(formato);
-                repDefault.setDatosEstudiantes(0, 0, 0, 0);
-                return repDefault;
-        }
+        return reporteService.crearFormato(formato);
     }
 
-    private String obtenerTituloReporte(String tipo) {
-        switch (tipo.toUpperCase()) {
-            case "ESTUDIANTES": return "Reporte de Estudiantes";
-            case "CURSOS": return "Reporte de Cursos";
-            case "CALIFICACIONES": return "Reporte de Calificaciones";
-            default: return "Reporte General";
+    private Integer obtenerUsuarioId(Map<String, Object> params) {
+        Object usuarioId = params.get("usuarioId");
+        if (usuarioId instanceof Number numero) {
+            return numero.intValue();
         }
-    }
-
-    private Map<String, Object> obtenerDatosReporte(String tipo) {
-        Map<String, Object> datos = new HashMap<>();
-
-        switch (tipo.toUpperCase()) {
-            case "ESTUDIANTES":
-                datos.put("Total de Estudiantes", 150);
-                datos.put("Estudiantes Activos", 142);
-                datos.put("Estudiantes Inactivos", 8);
-                datos.put("Promedio de Calificaciones", "85.5%");
-                datos.put("Tasa de Actividad", "94.7%");
-                break;
-
-            case "CURSOS":
-                datos.put("Total de Cursos", 45);
-                datos.put("Cursos Activos", 38);
-                datos.put("Cursos Finalizados", 7);
-                datos.put("Total de Inscripciones", 520);
-                datos.put("Promedio de Alumnos por Curso", 13.7);
-                break;
-
-            case "CALIFICACIONES":
-                datos.put("Total de Calificaciones Registradas", 520);
-                datos.put("Promedio General", "78.5%");
-                datos.put("Calificaciones Aprobatorias", 468);
-                datos.put("Calificaciones Reprobatorias", 52);
-                datos.put("Calificación Más Alta", "98.5%");
-                datos.put("Calificación Más Baja", "45.0%");
-                datos.put("Tasa de Aprobación", "90.0%");
-                break;
-
-            default:
-                datos.put("Sin Datos", "No disponible");
-                break;
+        if (usuarioId instanceof String texto && !texto.isBlank()) {
+            try {
+                return Integer.valueOf(texto);
+            } catch (NumberFormatException e) {
+                return null;
+            }
         }
-
-        return datos;
+        return null;
     }
 }
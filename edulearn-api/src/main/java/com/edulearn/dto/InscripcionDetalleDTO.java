@@ -0,0 +1,104 @@
+package com.edulearn.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Proyección plana de una inscripción con los datos del estudiante y del curso
+ * ya resueltos mediante JOIN en una sola consulta.
+ * Se construye directamente desde JPQL (SELECT new ...) en InscripcionRepository.
+ */
+public class InscripcionDetalleDTO {
+    private final Integer id;
+    private final Integer estudianteId;
+    private final Integer cursoId;
+    private final LocalDate fechaInscripcion;
+    private final String modalidad;
+    private final String estadoInscripcion;
+    private final Boolean certificadoGarantizado;
+    private final String tipoBeca;
+    private final String codigoBeca;
+    private final BigDecimal montoPagado;
+    private final String metodoPago;
+    private final String motivoRechazo;
+
+    // Datos del estudiante (null si no existe el registro en estudiantes)
+    private final Integer estudianteRegistradoId;
+    private final String estudianteNombre;
+    private final String estudianteApellidos;
+    private final String estudianteEmail;
+    private final String estudianteMatricula;
+
+    // Datos del curso (null si no existe el registro en cursos)
+    private final Integer cursoRegistradoId;
+    private final String cursoNombre;
+    private final String cursoCodigo;
+    private final String cursoDescripcion;
+
+    public InscripcionDetalleDTO(Integer id, Integer estudianteId, Integer cursoId,
+                                 LocalDate fechaInscripcion, String modalidad, String estadoInscripcion,
+                                 Boolean certificadoGarantizado, String tipoBeca, String codigoBeca,
+                                 BigDecimal montoPagado, String metodoPago, String motivoRechazo,
+                                 Integer estudianteRegistradoId, String estudianteNombre,
+                                 String estudianteApellidos, String estudianteEmail, String estudianteMatricula,
+                                 Integer cursoRegistradoId, String cursoNombre, String cursoCodigo,
+                                 String cursoDescripcion) {
+        this.id = id;
+        this.estudianteId = estudianteId;
+        this.cursoId = cursoId;
+        this.fechaInscripcion = fechaInscripcion;
+        this.modalidad = modalidad;
+        this.estadoInscripcion = estadoInscripcion;
+        this.certificadoGarantizado = certificadoGarantizado;
+        this.tipoBeca = tipoBeca;
+        this.codigoBeca = codigoBeca;
+        this.montoPagado = montoPagado;
+        this.metodoPago = metodoPago;
+        this.motivoRechazo = motivoRechazo;
+        this.estudianteRegistradoId = estudianteRegistradoId;
+        this.estudianteNombre = estudianteNombre;
+        this.estudianteApellidos = estudianteApellidos;
+        this.estudianteEmail = estudianteEmail;
+        this.estudianteMatricula = estudianteMatricula;
+        this.cursoRegistradoId = cursoRegistradoId;
+        this.cursoNombre = cursoNombre;
+        this.cursoCodigo = cursoCodigo;
+        this.cursoDescripcion = cursoDescripcion;
+    }
+
+    public boolean tieneEstudiante() {
+        return estudianteRegistradoId != null;
+    }
+
+    public boolean tieneCurso() {
+        return cursoRegistradoId != null;
+    }
+
+    /**
+     * Nombre completo del estudiante, con el mismo formato que usaba el controlador
+     */
+    public String getEstudianteNombreCompleto() {
+        return estudianteNombre + " " + estudianteApellidos;
+    }
+
+    // Getters
+    public Integer getId() { return id; }
+    public Integer getEstudianteId() { return estudianteId; }
+    public Integer getCursoId() { return cursoId; }
+    public LocalDate getFechaInscripcion() { return fechaInscripcion; }
+    public String getModalidad() { return modalidad; }
+    public String getEstadoInscripcion() { return estadoInscripcion; }
+    public Boolean getCertificadoGarantizado() { return certificadoGarantizado; }
+    public String getTipoBeca() { return tipoBeca; }
+    public String getCodigoBeca() { return codigoBeca; }
+    public BigDecimal getMontoPagado() { return montoPagado; }
+    public String getMetodoPago() { return metodoPago; }
+    public String getMotivoRechazo() { return motivoRechazo; }
+    public String getEstudianteNombre() { return estudianteNombre; }
+    public String getEstudianteApellidos() { return estudianteApellidos; }
+    public String getEstudianteEmail() { return estudianteEmail; }
+    public String getEstudianteMatricula() { return estudianteMatricula; }
+    public String getCursoNombre() { return cursoNombre; }
+    public String getCursoCodigo() { return cursoCodigo; }
+    public String getCursoDescripcion() { return cursoDescripcion; }
+}
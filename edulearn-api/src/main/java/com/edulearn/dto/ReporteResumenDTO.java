@@ -0,0 +1,44 @@
+package com.edulearn.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo metadatos de un reporte generado (sin contenido).
+ * Se construye directamente desde JPQL (SELECT new ...) en ReporteGeneradoRepository
+ * para que los listados no lean el contenido de los reportes.
+ */
+public class ReporteResumenDTO {
+    private final Integer id;
+    private final String tipoReporte;
+    private final String formato;
+    private final String titulo;
+    private final Integer usuarioId;
+    private final Integer generadoPor;
+    private final LocalDateTime fechaGeneracion;
+    private final String estado;
+    private final Long tamanoBytes;
+
+    public ReporteResumenDTO(Integer id, String tipoReporte, String formato, String titulo,
+                             Integer usuarioId, Integer generadoPor, LocalDateTime fechaGeneracion,
+                             String estado, Long tamanoBytes) {
+        this.id = id;
+        this.tipoReporte = tipoReporte;
+        this.formato = formato;
+        this.titulo = titulo;
+        this.usuarioId = usuarioId;
+        this.generadoPor = generadoPor;
+        this.fechaGeneracion = fechaGeneracion;
+        this.estado = estado;
+        this.tamanoBytes = tamanoBytes;
+    }
+
+    public Integer getId() { return id; }
+    public String getTipoReporte() { return tipoReporte; }
+    public String getFormato() { return formato; }
+    public String getTitulo() { return titulo; }
+    public Integer getUsuarioId() { return usuarioId; }
+    public Integer getGeneradoPor() { return generadoPor; }
+    public LocalDateTime getFechaGeneracion() { return fechaGeneracion; }
+    public String getEstado() { return estado; }
+    public Long getTamanoBytes() { return tamanoBytes; }
+}
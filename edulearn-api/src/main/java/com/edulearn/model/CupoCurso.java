@@ -0,0 +1,48 @@
+package com.edulearn.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Inventario de cupos de un curso
+ *
+ * Lo mantiene InventarioCuposService: los cupos se ocupan con un UPDATE
+ * condicional (ocupados < capacidad), así dos inscripciones simultáneas no
+ * pueden tomar el último lugar. Va en su propia tabla para que guardar la
+ * entidad Curso no pise el contador.
+ */
+@Entity
+@Table(name = "cupos_curso")
+public class CupoCurso {
+    @Id
+    @Column(name = "curso_id")
+    private Integer cursoId;
+
+    @Column(name = "capacidad", nullable = false)
+    private Integer capacidad;
+
+    @Column(name = "ocupados", nullable = false)
+    private Integer ocupados = 0; // Inscripciones que ocupan lugar + reservas vigentes
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Integer getCursoId() { return cursoId; }
+    public void setCursoId(Integer cursoId) { this.cursoId = cursoId; }
+
+    public Integer getCapacidad() { return capacidad; }
+    public void setCapacidad(Integer capacidad) { this.capacidad = capacidad; }
+
+    public Integer getOcupados() { return ocupados; }
+    public void setOcupados(Integer ocupados) { this.ocupados = ocupados; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
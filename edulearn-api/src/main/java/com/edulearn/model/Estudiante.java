@@ -3,6 +3,7 @@ package com.edulearn.model;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(VersionDatosListener.class)
 @Table(name = "estudiantes")
 public class Estudiante {
     @Id
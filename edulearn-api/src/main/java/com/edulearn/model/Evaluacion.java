@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
  * Creadas por el patrón Abstract Factory
  */
 @Entity
+@EntityListeners(VersionDatosListener.class)
 @Table(name = "evaluaciones")
 public class Evaluacion {
 
@@ -0,0 +1,104 @@
+package com.edulearn.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de dominio pendiente de entregar (outbox transaccional)
+ *
+ * Se inserta en la misma transacción que el cambio de negocio y lo entrega
+ * OutboxEventosDominio. proximo_intento sirve también de reserva: al
+ * reclamar la fila se mueve al futuro, y si el proceso muere antes de
+ * entregarla vuelve a estar disponible cuando vence.
+ */
+@Entity
+@Table(name = "eventos_outbox", indexes = {
+        @Index(name = "idx_outbox_estado_proximo", columnList = "estado, proximo_intento"),
+        @Index(name = "idx_outbox_clave_orden", columnList = "clave_orden")
+})
+public class EventoOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tipo_evento", nullable = false, length = 100)
+    private String tipoEvento;
+
+    @Column(name = "clave_orden", length = 100)
+    private String claveOrden; // curso:<id>, estudiante:<id>; los de la misma clave se entregan en orden
+
+    @Column(name = "clave_idempotencia", nullable = false, unique = true, length = 36)
+    private String claveIdempotencia;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; // PENDIENTE, ENTREGADO, FALLIDO
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "listeners_entregados", columnDefinition = "TEXT")
+    private String listenersEntregados; // Listeners que ya lo recibieron (separados por salto de línea)
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_entrega")
+    private LocalDateTime fechaEntrega;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        if (proximoIntento == null) {
+            proximoIntento = fechaCreacion;
+        }
+        if (estado == null) {
+            estado = "PENDIENTE";
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTipoEvento() { return tipoEvento; }
+    public void setTipoEvento(String tipoEvento) { this.tipoEvento = tipoEvento; }
+
+    public String getClaveOrden() { return claveOrden; }
+    public void setClaveOrden(String claveOrden) { this.claveOrden = claveOrden; }
+
+    public String getClaveIdempotencia() { return claveIdempotencia; }
+    public void setClaveIdempotencia(String claveIdempotencia) { this.claveIdempotencia = claveIdempotencia; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+
+    public Integer getIntentos() { return intentos; }
+    public void setIntentos(Integer intentos) { this.intentos = intentos; }
+
+    public LocalDateTime getProximoIntento() { return proximoIntento; }
+    public void setProximoIntento(LocalDateTime proximoIntento) { this.proximoIntento = proximoIntento; }
+
+    public String getListenersEntregados() { return listenersEntregados; }
+    public void setListenersEntregados(String listenersEntregados) { this.listenersEntregados = listenersEntregados; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+
+    public LocalDateTime getFechaEntrega() { return fechaEntrega; }
+    public void setFechaEntrega(LocalDateTime fechaEntrega) { this.fechaEntrega = fechaEntrega; }
+}
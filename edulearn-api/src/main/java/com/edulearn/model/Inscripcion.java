@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(VersionDatosListener.class)
 @Table(name = "inscripciones")
 public class Inscripcion {
     @Id
@@ -0,0 +1,78 @@
+package com.edulearn.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lugar de un estudiante en la lista de espera de un curso lleno
+ *
+ * El orden es el del id (FIFO); el índice (curso_id, estado, id) permite
+ * leer la cabeza de la lista y calcular posiciones sin recorrerla.
+ */
+@Entity
+@Table(name = "lista_espera", indexes = {
+        @Index(name = "idx_espera_curso_estado_id", columnList = "curso_id, estado, id"),
+        @Index(name = "idx_espera_estudiante", columnList = "estudiante_id")
+})
+public class ListaEspera {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "curso_id", nullable = false)
+    private Integer cursoId;
+
+    @Column(name = "estudiante_id", nullable = false)
+    private Integer estudianteId;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; // ESPERANDO, PROMOVIDO, CANCELADO
+
+    @Column(name = "modalidad", length = 20)
+    private String modalidad; // GRATUITA, PAGA, BECA (null en filas anteriores: GRATUITA)
+
+    @Column(name = "inscripcion_id")
+    private Integer inscripcionId;
+
+    @Column(name = "fecha_solicitud", nullable = false)
+    private LocalDateTime fechaSolicitud;
+
+    @Column(name = "fecha_promocion")
+    private LocalDateTime fechaPromocion;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaSolicitud = LocalDateTime.now();
+        if (estado == null) {
+            estado = "ESPERANDO";
+        }
+        if (modalidad == null) {
+            modalidad = "GRATUITA";
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getCursoId() { return cursoId; }
+    public void setCursoId(Integer cursoId) { this.cursoId = cursoId; }
+
+    public Integer getEstudianteId() { return estudianteId; }
+    public void setEstudianteId(Integer estudianteId) { this.estudianteId = estudianteId; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+
+    public String getModalidad() { return modalidad; }
+    public void setModalidad(String modalidad) { this.modalidad = modalidad; }
+
+    public Integer getInscripcionId() { return inscripcionId; }
+    public void setInscripcionId(Integer inscripcionId) { this.inscripcionId = inscripcionId; }
+
+    public LocalDateTime getFechaSolicitud() { return fechaSolicitud; }
+    public void setFechaSolicitud(LocalDateTime fechaSolicitud) { this.fechaSolicitud = fechaSolicitud; }
+
+    public LocalDateTime getFechaPromocion() { return fechaPromocion; }
+    public void setFechaPromocion(LocalDateTime fechaPromocion) { this.fechaPromocion = fechaPromocion; }
+}
@@ -5,9 +5,14 @@ import java.time.LocalDateTime;
 
 /**
  * Entidad JPA para almacenar notificaciones
+ *
+ * clave_origen identifica el evento de dominio que generó la notificación
+ * (su clave de idempotencia en el outbox); junto con el destinatario es
+ * única, así que un evento reentregado no crea una segunda fila.
  */
 @Entity
-@Table(name = "notificaciones_patron")
+@Table(name = "notificaciones_patron", uniqueConstraints = @UniqueConstraint(
+    name = "uk_notificacion_origen_destinatario", columnNames = {"clave_origen", "destinatario"}))
 public class Notificacion {
 
     @Id
@@ -41,6 +46,9 @@ public class Notificacion {
     @Column(name = "error", columnDefinition = "TEXT")
     private String error;
 
+    @Column(name = "clave_origen", length = 64)
+    private String claveOrigen;
+
     // Constructores
     public Notificacion() {
         this.fechaCreacion = LocalDateTime.now();
@@ -135,4 +143,12 @@ public class Notificacion {
     public void setError(String error) {
         this.error = error;
     }
+
+    public String getClaveOrigen() {
+        return claveOrigen;
+    }
+
+    public void setClaveOrigen(String claveOrigen) {
+        this.claveOrigen = claveOrigen;
+    }
 }
@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
  * Utiliza el patrón Memento para guardar y restaurar estados
  */
 @Entity
+@EntityListeners(VersionDatosListener.class)
 @Table(name = "estudiante_progreso_memento")
 public class ProgresoEstudiante {
     @Id
@@ -20,13 +20,13 @@ public class ReporteGenerado {
     private String titulo;
 
     @Column(name = "contenido", columnDefinition = "TEXT")
-    private String contenido;
-
-    @Column(name = "contenido_binario", columnDefinition = "LONGBLOB")
-    private byte[] contenidoBinario;
+    private String contenido; // Descripción corta; el reporte en sí está en el almacén de archivos
 
     @Column(name = "ruta_archivo")
-    private String rutaArchivo;
+    private String rutaArchivo; // Clave en AlmacenReportesService (sha256.gz / sha256.bin)
+
+    @Column(name = "tamano_bytes")
+    private Long tamanoBytes;
 
     @Column(name = "usuario_id")
     private Integer usuarioId;
@@ -85,8 +85,8 @@ public class ReporteGenerado {
     public String getEstado() { return estado; }
     public void setEstado(String estado) { this.estado = estado; }
 
-    public byte[] getContenidoBinario() { return contenidoBinario; }
-    public void setContenidoBinario(byte[] contenidoBinario) { this.contenidoBinario = contenidoBinario; }
+    public Long getTamanoBytes() { return tamanoBytes; }
+    public void setTamanoBytes(Long tamanoBytes) { this.tamanoBytes = tamanoBytes; }
 
     public Integer getGeneradoPor() { return generadoPor; }
     public void setGeneradoPor(Integer generadoPor) { this.generadoPor = generadoPor; }
@@ -0,0 +1,69 @@
+package com.edulearn.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cupo apartado para una inscripción
+ *
+ * Se crea RESERVADA al iniciar el proceso de inscripción y pasa a
+ * CONFIRMADA cuando la inscripción queda activa. Las inscripciones con
+ * pago o beca pendiente la mantienen RESERVADA hasta expira_en; si vence
+ * sin confirmarse pasa a EXPIRADA y el cupo vuelve al inventario.
+ */
+@Entity
+@Table(name = "reservas_cupo", indexes = {
+        @Index(name = "idx_reserva_estado_expira", columnList = "estado, expira_en"),
+        @Index(name = "idx_reserva_inscripcion", columnList = "inscripcion_id"),
+        @Index(name = "idx_reserva_curso", columnList = "curso_id")
+})
+public class ReservaCupo {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "curso_id", nullable = false)
+    private Integer cursoId;
+
+    @Column(name = "estudiante_id")
+    private Integer estudianteId;
+
+    @Column(name = "inscripcion_id")
+    private Integer inscripcionId;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; // RESERVADA, CONFIRMADA, LIBERADA, EXPIRADA
+
+    @Column(name = "expira_en")
+    private LocalDateTime expiraEn; // null: no vence
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getCursoId() { return cursoId; }
+    public void setCursoId(Integer cursoId) { this.cursoId = cursoId; }
+
+    public Integer getEstudianteId() { return estudianteId; }
+    public void setEstudianteId(Integer estudianteId) { this.estudianteId = estudianteId; }
+
+    public Integer getInscripcionId() { return inscripcionId; }
+    public void setInscripcionId(Integer inscripcionId) { this.inscripcionId = inscripcionId; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+
+    public LocalDateTime getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(LocalDateTime expiraEn) { this.expiraEn = expiraEn; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+}
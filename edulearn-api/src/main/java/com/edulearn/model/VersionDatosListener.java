@@ -0,0 +1,52 @@
+package com.edulearn.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión de los datos de origen de los reportes
+ *
+ * Se registra con @EntityListeners en las entidades que alimentan los
+ * reportes (cursos, inscripciones, evaluaciones, progreso, estudiantes).
+ * Cada alta, cambio o baja incrementa la versión, y con ella cambia la
+ * clave de la caché de reportes (CacheReportesService).
+ *
+ * La versión se incrementa al hacer flush y otra vez al confirmar la
+ * transacción: un reporte generado entre ambos momentos (que aún pudo leer
+ * los datos anteriores) queda con una versión vieja y no se reutiliza.
+ */
+public class VersionDatosListener {
+
+    private static final AtomicLong version = new AtomicLong();
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(Object entidad) {
+        registrarCambio();
+    }
+
+    public static long actual() {
+        return version.get();
+    }
+
+    /**
+     * También se puede llamar directamente tras escrituras que no pasan por JPA
+     */
+    public static void registrarCambio() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
@@ -1,16 +1,14 @@
 package com.edulearn.patterns.comportamiento.chain_of_responsibility;
 
 import com.edulearn.repository.CursoRepository;
-import com.edulearn.repository.InscripcionRepository;
 import com.edulearn.model.Curso;
-import com.edulearn.model.Inscripcion;
+import com.edulearn.service.InventarioCuposService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.List;
 
 /**
  * GestorConcreto5 - Validador de Cupos
@@ -22,6 +20,10 @@ import java.util.List;
  * - Presencial: 35 estudiantes (limitado por capacidad del salón)
  * - Híbrido: 35 estudiantes (mismo límite que presencial)
  * - Virtual: 45 estudiantes (mayor capacidad al no tener límite físico)
+ *
+ * Si el curso define cupo_maximo, ese valor tiene prioridad. Los lugares
+ * ocupados se leen del InventarioCuposService (una fila por curso), sin
+ * cargar las inscripciones.
  */
 @Component
 public class GestorValidacionCupos extends Gestor {
@@ -30,7 +32,7 @@ public class GestorValidacionCupos extends Gestor {
     private CursoRepository cursoRepository;
 
     @Autowired
-    private InscripcionRepository inscripcionRepository;
+    private InventarioCuposService inventarioCupos;
 
     // Límites de cupos según tipo de curso
     private static final Map<String, Integer> CUPOS_POR_TIPO = new HashMap<>();
@@ -75,18 +77,17 @@ public class GestorValidacionCupos extends Gestor {
         Curso curso = cursoOpt.get();
         String tipoCurso = curso.getTipoCurso() != null ? curso.getTipoCurso().toLowerCase() : "virtual";
 
-        // Obtener límite de cupos para este tipo de curso
-        Integer cupoMaximo = CUPOS_POR_TIPO.getOrDefault(tipoCurso, 45);
-
-        // Contar inscripciones actuales en el curso
-        List<Inscripcion> inscripciones = inscripcionRepository.findByCursoId(cursoId);
-        int inscritosActuales = inscripciones != null ? inscripciones.size() : 0;
+        // Capacidad y lugares ocupados según el inventario del curso
+        InventarioCuposService.Disponibilidad cupos = inventarioCupos.consultar(cursoId);
+        int cupoMaximo = cupos != null ? cupos.getCapacidad() : CUPOS_POR_TIPO.getOrDefault(tipoCurso, 45);
+        int inscritosActuales = cupos != null ? cupos.getOcupados() : 0;
 
         // Verificar si hay cupos disponibles
         if (inscritosActuales >= cupoMaximo) {
             solicitud.setMensajeError(
                 String.format(
-                    "No hay cupos disponibles. Curso '%s' (%s) tiene %d/%d estudiantes inscritos",
+                    "No hay cupos disponibles. Curso '%s' (%s) tiene %d/%d estudiantes inscritos. " +
+                    "Puede anotarse en la lista de espera (POST /api/inscripciones/lista-espera)",
                     curso.getNombre(),
                     tipoCurso,
                     inscritosActuales,
@@ -0,0 +1,154 @@
+package com.edulearn.patterns.comportamiento.observer;
+
+import com.edulearn.model.Notificacion;
+import com.edulearn.repository.NotificacionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PATRÓN OBSERVER - Contadores en memoria de notificaciones
+ * =========================================================
+ * Mantiene incrementalmente los totales de notificaciones_patron para que
+ * el contador de no leídas y las estadísticas no consulten la tabla:
+ *
+ * - total, por estado y por tipo
+ * - no leídas (NO_LEIDA) por destinatario
+ *
+ * Se cargan una vez al arrancar con consultas COUNT/GROUP BY y después se
+ * actualizan en cada inserción y en cada cambio de estado (marcar leída).
+ * recalcular() vuelve a sincronizarlos con la base de datos.
+ */
+@Component
+public class NotificationCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCounters.class);
+
+    public static final String NO_LEIDA = "NO_LEIDA";
+
+    @Autowired
+    private NotificacionRepository repository;
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> porEstado = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> porTipo = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> noLeidasPorDestinatario = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        try {
+            recalcular();
+        } catch (Exception e) {
+            logger.error("No se pudieron cargar los contadores de notificaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a cargar todos los contadores desde la base de datos (4 consultas agregadas)
+     */
+    public synchronized void recalcular() {
+        long nuevoTotal = repository.count();
+        Map<String, Long> estados = aMapa(repository.contarPorEstado());
+        Map<String, Long> tipos = aMapa(repository.contarPorTipo());
+        Map<String, Long> noLeidas = aMapa(repository.contarPorDestinatario(NO_LEIDA));
+
+        total.reset();
+        total.add(nuevoTotal);
+        reemplazar(porEstado, estados);
+        reemplazar(porTipo, tipos);
+        reemplazar(noLeidasPorDestinatario, noLeidas);
+
+        logger.info("Contadores de notificaciones cargados: {} total, {} destinatarios con no leídas",
+            nuevoTotal, noLeidas.size());
+    }
+
+    // ========== Actualizaciones ==========
+
+    public void registrarInsercion(Notificacion notificacion) {
+        total.increment();
+        incrementar(porEstado, notificacion.getEstado(), 1);
+        incrementar(porTipo, notificacion.getTipo(), 1);
+        if (NO_LEIDA.equals(notificacion.getEstado())) {
+            incrementar(noLeidasPorDestinatario, notificacion.getDestinatario(), 1);
+        }
+    }
+
+    public void registrarInserciones(Collection<Notificacion> notificaciones) {
+        notificaciones.forEach(this::registrarInsercion);
+    }
+
+    /**
+     * Registra que {@code cantidad} notificaciones de un destinatario pasaron de un estado a otro
+     */
+    public void registrarCambioEstado(String destinatario, String estadoAnterior, String estadoNuevo, long cantidad) {
+        if (cantidad <= 0 || (estadoAnterior != null && estadoAnterior.equals(estadoNuevo))) {
+            return;
+        }
+        incrementar(porEstado, estadoAnterior, -cantidad);
+        incrementar(porEstado, estadoNuevo, cantidad);
+        if (NO_LEIDA.equals(estadoAnterior)) {
+            incrementar(noLeidasPorDestinatario, destinatario, -cantidad);
+        } else if (NO_LEIDA.equals(estadoNuevo)) {
+            incrementar(noLeidasPorDestinatario, destinatario, cantidad);
+        }
+    }
+
+    // ========== Consultas O(1) ==========
+
+    public long noLeidas(String destinatario) {
+        return valor(noLeidasPorDestinatario, destinatario);
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public long porEstado(String estado) {
+        return valor(porEstado, estado);
+    }
+
+    public long porTipo(String tipo) {
+        return valor(porTipo, tipo);
+    }
+
+    // ========== Internos ==========
+
+    private static void incrementar(Map<String, LongAdder> contadores, String clave, long delta) {
+        if (clave != null) {
+            contadores.computeIfAbsent(clave, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static long valor(Map<String, LongAdder> contadores, String clave) {
+        LongAdder contador = clave != null ? contadores.get(clave) : null;
+        return contador != null ? Math.max(0, contador.sum()) : 0;
+    }
+
+    private static void reemplazar(Map<String, LongAdder> contadores, Map<String, Long> valores) {
+        contadores.keySet().retainAll(valores.keySet());
+        valores.forEach((clave, cantidad) -> {
+            LongAdder contador = contadores.computeIfAbsent(clave, k -> new LongAdder());
+            contador.reset();
+            contador.add(cantidad);
+        });
+    }
+
+    private static Map<String, Long> aMapa(List<Object[]> filas) {
+        Map<String, Long> resultado = new HashMap<>();
+        for (Object[] fila : filas) {
+            if (fila[0] != null) {
+                resultado.put((String) fila[0], ((Number) fila[1]).longValue());
+            }
+        }
+        return resultado;
+    }
+}
@@ -20,6 +20,7 @@ public class NotificationEvent {
     private final String targetType;
     private final LocalDateTime timestamp;
     private final Map<String, Object> metadata;
+    private final String claveOrigen;
 
     private NotificationEvent(Builder builder) {
         this.eventType = builder.eventType;
@@ -30,6 +31,7 @@ public class NotificationEvent {
         this.targetType = builder.targetType;
         this.timestamp = LocalDateTime.now();
         this.metadata = builder.metadata;
+        this.claveOrigen = builder.claveOrigen;
     }
 
     // Getters
@@ -65,6 +67,13 @@ public class NotificationEvent {
         return metadata;
     }
 
+    /**
+     * Clave de idempotencia del evento de dominio que originó la notificación; null si no viene de uno
+     */
+    public String getClaveOrigen() {
+        return claveOrigen;
+    }
+
     /**
      * Builder Pattern para crear eventos de manera fluida
      */
@@ -76,6 +85,7 @@ public class NotificationEvent {
         private Integer targetId;
         private String targetType;
         private Map<String, Object> metadata = new HashMap<>();
+        private String claveOrigen;
 
         public Builder eventType(String eventType) {
             this.eventType = eventType;
@@ -112,6 +122,11 @@ public class NotificationEvent {
             return this;
         }
 
+        public Builder claveOrigen(String claveOrigen) {
+            this.claveOrigen = claveOrigen;
+            return this;
+        }
+
         public NotificationEvent build() {
             return new NotificationEvent(this);
         }
@@ -134,5 +149,8 @@ public class NotificationEvent {
         public static final String BECA_SOLICITADA = "BECA_SOLICITADA";
         public static final String BECA_APROBADA = "BECA_APROBADA";
         public static final String BECA_RECHAZADA = "BECA_RECHAZADA";
+        public static final String REPORTE_GENERADO = "REPORTE_GENERADO";
+        public static final String REPORTE_FALLIDO = "REPORTE_FALLIDO";
+        public static final String CUPO_ASIGNADO = "CUPO_ASIGNADO";
     }
 }
@@ -9,8 +9,6 @@ import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 /**
  * PATRÓN OBSERVER - NotificationManager Avanzado
@@ -31,18 +29,18 @@ public class NotificationManager implements Subject {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationManager.class);
 
-    // Lista global de todos los observadores
-    private final List<Observer> globalObservers = new CopyOnWriteArrayList<>();
-
-    // Mapa de observadores por curso: cursoId -> List<Observer>
-    private final Map<Integer, List<Observer>> courseObservers = new ConcurrentHashMap<>();
-
-    // Mapa de observadores por rol: role -> List<Observer>
-    private final Map<String, List<Observer>> roleObservers = new ConcurrentHashMap<>();
+    // Registro indexado: usuario -> observer, curso <-> usuarios, rol -> usuarios
+    private final ObserverRegistry registry = new ObserverRegistry();
 
     // Mapa de profesor por curso: cursoId -> profesorId
     private final Map<Integer, Integer> courseTeachers = new ConcurrentHashMap<>();
 
+    @Autowired
+    private NotificationPersistenceQueue persistenceQueue;
+
+    @Autowired
+    private NotificationStreamHub streamHub;
+
     @Autowired
     private NotificacionRepository notificacionRepository;
 
@@ -55,20 +53,16 @@ public class NotificationManager implements Subject {
 
     @Override
     public void attach(Observer observer) {
-        if (!globalObservers.contains(observer)) {
-            globalObservers.add(observer);
+        if (registry.registrar(observer)) {
             logger.info("Observer {} registrado globalmente. Total: {}",
-                observer.getObserverId(), globalObservers.size());
+                observer.getObserverId(), registry.total());
         }
     }
 
     @Override
     public void detach(Observer observer) {
-        if (globalObservers.remove(observer)) {
-            // Remover de todos los grupos
-            courseObservers.values().forEach(list -> list.remove(observer));
-            roleObservers.values().forEach(list -> list.remove(observer));
-
+        // Remueve también de todos sus cursos (índice inverso) y roles
+        if (registry.eliminar(observer.getObserverId())) {
             logger.info("Observer {} removido completamente", observer.getObserverId());
         }
     }
@@ -76,13 +70,14 @@ public class NotificationManager implements Subject {
     @Override
     public void notifyObservers(NotificationEvent event) {
         logger.info("Notificación broadcast: {} a {} observadores",
-            event.getEventType(), globalObservers.size());
+            event.getEventType(), registry.total());
 
         int notificationsCreated = 0;
+        Set<String> notificados = yaNotificados(event);
 
-        for (Observer observer : globalObservers) {
+        for (Observer observer : registry.todos()) {
             try {
-                if (observer.isInterestedIn(event.getEventType())) {
+                if (observer.isInterestedIn(event.getEventType()) && !notificados.contains(observer.getObserverId().toString())) {
                     observer.update(event);
                     saveNotificationToDatabase(observer, event);
                     notificationsCreated++;
@@ -104,8 +99,7 @@ public class NotificationManager implements Subject {
      * Suscribir un observador a un curso específico
      */
     public void attachToCourse(Observer observer, Integer cursoId) {
-        courseObservers.computeIfAbsent(cursoId, k -> new CopyOnWriteArrayList<>())
-            .add(observer);
+        registry.suscribirACurso(observer, cursoId);
 
         logger.info("Observer {} suscrito al curso {}", observer.getObserverId(), cursoId);
     }
@@ -114,9 +108,7 @@ public class NotificationManager implements Subject {
      * Desuscribir un observador de un curso específico
      */
     public void detachFromCourse(Observer observer, Integer cursoId) {
-        List<Observer> observers = courseObservers.get(cursoId);
-        if (observers != null) {
-            observers.remove(observer);
+        if (registry.desuscribirDeCurso(observer.getObserverId(), cursoId)) {
             logger.info("Observer {} desuscrito del curso {}", observer.getObserverId(), cursoId);
         }
     }
@@ -125,16 +117,17 @@ public class NotificationManager implements Subject {
      * Notificar solo a observadores de un curso específico
      */
     public void notifyCourseObservers(Integer cursoId, NotificationEvent event) {
-        List<Observer> observers = courseObservers.getOrDefault(cursoId, Collections.emptyList());
+        Collection<Observer> observers = registry.delCurso(cursoId);
 
         logger.info("Notificando evento {} a {} observadores del curso {}",
             event.getEventType(), observers.size(), cursoId);
 
         int notificationsCreated = 0;
+        Set<String> notificados = yaNotificados(event);
 
         for (Observer observer : observers) {
             try {
-                if (observer.isInterestedIn(event.getEventType())) {
+                if (observer.isInterestedIn(event.getEventType()) && !notificados.contains(observer.getObserverId().toString())) {
                     observer.update(event);
                     saveNotificationToDatabase(observer, event);
                     notificationsCreated++;
@@ -159,8 +152,7 @@ public class NotificationManager implements Subject {
         // Normalizar el rol a minúsculas para consistencia
         String normalizedRole = role.toLowerCase().trim();
 
-        roleObservers.computeIfAbsent(normalizedRole, k -> new CopyOnWriteArrayList<>())
-            .add(observer);
+        registry.registrarEnRol(observer, normalizedRole);
 
         logger.info("Observer {} registrado en rol {} (normalizado: {})",
             observer.getObserverId(), role, normalizedRole);
@@ -173,16 +165,17 @@ public class NotificationManager implements Subject {
     public void notifyRoleObservers(String role, NotificationEvent event) {
         // Normalizar el rol para la búsqueda
         String normalizedRole = role.toLowerCase().trim();
-        List<Observer> observers = roleObservers.getOrDefault(normalizedRole, Collections.emptyList());
+        Collection<Observer> observers = registry.delRol(normalizedRole);
 
         logger.info("Notificando evento {} a {} observadores con rol {} (normalizado: {})",
             event.getEventType(), observers.size(), role, normalizedRole);
 
         int notificationsCreated = 0;
+        Set<String> notificados = yaNotificados(event);
 
         for (Observer observer : observers) {
             try {
-                if (observer.isInterestedIn(event.getEventType())) {
+                if (observer.isInterestedIn(event.getEventType()) && !notificados.contains(observer.getObserverId().toString())) {
                     observer.update(event);
                     saveNotificationToDatabase(observer, event);
                     notificationsCreated++;
@@ -204,39 +197,39 @@ public class NotificationManager implements Subject {
      * Notificar a un usuario específico por su ID
      */
     public void notifySpecificUser(Integer userId, NotificationEvent event) {
-        globalObservers.stream()
-            .filter(obs -> obs.getObserverId().equals(userId))
-            .findFirst()
-            .ifPresent(observer -> {
-                try {
-                    observer.update(event);
-                    saveNotificationToDatabase(observer, event);
-                    logger.info("Notificación enviada a usuario específico: {}", userId);
-                } catch (Exception e) {
-                    logger.error("Error al notificar usuario {}: {}", userId, e.getMessage());
-                }
-            });
+        Observer observer = registry.buscar(userId);
+        if (observer == null || yaNotificados(event).contains(userId.toString())) {
+            return;
+        }
+        try {
+            observer.update(event);
+            saveNotificationToDatabase(observer, event);
+            logger.info("Notificación enviada a usuario específico: {}", userId);
+        } catch (Exception e) {
+            logger.error("Error al notificar usuario {}: {}", userId, e.getMessage());
+        }
     }
 
     /**
      * Notificar a múltiples usuarios específicos
      */
     public void notifySpecificUsers(List<Integer> userIds, NotificationEvent event) {
-        Set<Integer> userIdSet = new HashSet<>(userIds);
-
-        globalObservers.stream()
-            .filter(obs -> userIdSet.contains(obs.getObserverId()))
-            .forEach(observer -> {
-                try {
-                    if (observer.isInterestedIn(event.getEventType())) {
-                        observer.update(event);
-                        saveNotificationToDatabase(observer, event);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error al notificar observer {}: {}",
-                        observer.getObserverId(), e.getMessage());
+        Set<String> notificados = yaNotificados(event);
+        for (Integer userId : new LinkedHashSet<>(userIds)) {
+            Observer observer = registry.buscar(userId);
+            if (observer == null || notificados.contains(userId.toString())) {
+                continue;
+            }
+            try {
+                if (observer.isInterestedIn(event.getEventType())) {
+                    observer.update(event);
+                    saveNotificationToDatabase(observer, event);
                 }
-            });
+            } catch (Exception e) {
+                logger.error("Error al notificar observer {}: {}",
+                    observer.getObserverId(), e.getMessage());
+            }
+        }
 
         logger.info("Notificaciones enviadas a {} usuarios específicos", userIds.size());
     }
@@ -263,29 +256,23 @@ public class NotificationManager implements Subject {
             logger.warn("No se encontró profesor asignado al curso {}. No se puede notificar.", cursoId);
             return;
         }
+        if (yaNotificados(event).contains(profesorId.toString())) {
+            return;
+        }
 
-        // Intentar notificar directamente si el profesor ya está en globalObservers
-        boolean notified = globalObservers.stream()
-            .anyMatch(obs -> {
-                if (obs.getObserverId().equals(profesorId)) {
-                    try {
-                        if (obs.isInterestedIn(event.getEventType())) {
-                            obs.update(event);
-                        } else {
-                            // Forzar entrega aunque no tenga el evento suscrito explícitamente
-                            obs.update(event);
-                        }
-                        saveNotificationToDatabase(obs, event);
-                        logger.info("Notificación enviada al profesor {} del curso {}", profesorId, cursoId);
-                        return true;
-                    } catch (Exception e) {
-                        logger.error("Error al notificar profesor {}: {}", profesorId, e.getMessage());
-                    }
-                }
-                return false;
-            });
-
-        if (notified) return;
+        // Intentar notificar directamente si el profesor ya está registrado globalmente
+        Observer obs = registry.buscar(profesorId);
+        if (obs != null) {
+            try {
+                // Se entrega aunque no tenga el evento suscrito explícitamente
+                obs.update(event);
+                saveNotificationToDatabase(obs, event);
+                logger.info("Notificación enviada al profesor {} del curso {}", profesorId, cursoId);
+                return;
+            } catch (Exception e) {
+                logger.error("Error al notificar profesor {}: {}", profesorId, e.getMessage());
+            }
+        }
 
         // Fallback: crear y registrar dinámicamente un TeacherObserver si no existe
         try {
@@ -319,36 +306,28 @@ public class NotificationManager implements Subject {
      * Obtener observadores de un curso
      */
     public List<Observer> getCourseObservers(Integer cursoId) {
-        return new ArrayList<>(courseObservers.getOrDefault(cursoId, Collections.emptyList()));
+        return new ArrayList<>(registry.delCurso(cursoId));
     }
 
     /**
      * Obtener observadores de un rol
      */
     public List<Observer> getRoleObservers(String role) {
-        return new ArrayList<>(roleObservers.getOrDefault(role.toLowerCase(), Collections.emptyList()));
+        return new ArrayList<>(registry.delRol(role.toLowerCase().trim()));
     }
 
     /**
      * Verificar si un usuario está suscrito a un curso
      */
     public boolean isUserSubscribedToCourse(Integer userId, Integer cursoId) {
-        List<Observer> observers = courseObservers.get(cursoId);
-        if (observers == null) return false;
-
-        return observers.stream()
-            .anyMatch(obs -> obs.getObserverId().equals(userId));
+        return registry.estaSuscrito(userId, cursoId);
     }
 
     /**
      * Obtener todos los cursos a los que está suscrito un usuario
      */
     public List<Integer> getUserSubscribedCourses(Integer userId) {
-        return courseObservers.entrySet().stream()
-            .filter(entry -> entry.getValue().stream()
-                .anyMatch(obs -> obs.getObserverId().equals(userId)))
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        return registry.cursosDe(userId);
     }
 
     /**
@@ -356,10 +335,12 @@ public class NotificationManager implements Subject {
      */
     public Map<String, Object> getStatistics() {
         return Map.of(
-            "totalObservers", globalObservers.size(),
-            "coursesWithObservers", courseObservers.size(),
-            "rolesWithObservers", roleObservers.size(),
-            "registeredTeachers", courseTeachers.size()
+            "totalObservers", registry.total(),
+            "coursesWithObservers", registry.cursosConObservadores(),
+            "rolesWithObservers", registry.rolesConObservadores(),
+            "registeredTeachers", courseTeachers.size(),
+            "persistence", persistenceQueue.obtenerMetricas(),
+            "stream", streamHub.obtenerEstadisticas()
         );
     }
 
@@ -367,9 +348,7 @@ public class NotificationManager implements Subject {
      * Limpiar todas las suscripciones
      */
     public void clearAll() {
-        globalObservers.clear();
-        courseObservers.clear();
-        roleObservers.clear();
+        registry.limpiar();
         courseTeachers.clear();
         logger.warn("Todas las suscripciones han sido limpiadas");
     }
@@ -378,6 +357,28 @@ public class NotificationManager implements Subject {
     // PERSISTENCIA EN BASE DE DATOS
     // ==========================================
 
+    /**
+     * Destinatarios que ya tienen la notificación de este evento: el outbox
+     * puede reentregar un evento de dominio, y con esto no se repiten ni la
+     * fila ni el envío por SSE. Vacío si el evento no trae clave de origen.
+     */
+    private Set<String> yaNotificados(NotificationEvent event) {
+        if (event.getClaveOrigen() == null) {
+            return Set.of();
+        }
+        Set<String> destinatarios = new HashSet<>(notificacionRepository.findDestinatariosByClaveOrigen(event.getClaveOrigen()));
+        if (!destinatarios.isEmpty()) {
+            logger.info("Evento {} reentregado: {} destinatarios ya notificados se omiten",
+                event.getClaveOrigen(), destinatarios.size());
+        }
+        return destinatarios;
+    }
+
+    /**
+     * La inserción no se hace en el hilo de la petición: se encola y el
+     * NotificationPersistenceQueue la escribe en lote. Además se empuja a las
+     * conexiones SSE abiertas del destinatario.
+     */
     private void saveNotificationToDatabase(Observer observer, NotificationEvent event) {
         try {
             Notificacion notificacion = new Notificacion();
@@ -387,10 +388,12 @@ public class NotificationManager implements Subject {
             notificacion.setMensaje(event.getMessage());
             notificacion.setEstado("NO_LEIDA");
             notificacion.setFechaCreacion(event.getTimestamp());
+            notificacion.setClaveOrigen(event.getClaveOrigen());
 
-            notificacionRepository.save(notificacion);
+            persistenceQueue.encolar(notificacion);
+            streamHub.publicar(observer.getObserverId(), event);
         } catch (Exception e) {
-            logger.error("Error al guardar notificación en BD: {}", e.getMessage());
+            logger.error("Error al encolar notificación para BD: {}", e.getMessage());
         }
     }
 }
@@ -123,6 +123,13 @@ public class NotificationOrchestrator {
      * CASO 1: Notificar creación de curso a todos los administradores
      */
     public void notifyCourseCreated(Curso curso) {
+        notifyCourseCreated(curso, null);
+    }
+
+    /**
+     * @param claveOrigen clave de idempotencia del evento de dominio; evita repetir la notificación si se reentrega
+     */
+    public void notifyCourseCreated(Curso curso, String claveOrigen) {
         NotificationEvent event = new NotificationEvent.Builder()
             .eventType(NotificationEvent.EventType.CURSO_CREADO)
             .title("Nuevo Curso Creado")
@@ -133,6 +140,7 @@ public class NotificationOrchestrator {
             .targetType("CURSO")
             .addMetadata("cursoNombre", curso.getNombre())
             .addMetadata("cursoCodigo", curso.getCodigo())
+            .claveOrigen(claveOrigen)
             .build();
 
         // Notificar a todos los administradores
@@ -145,6 +153,10 @@ public class NotificationOrchestrator {
      * CASO 2: Notificar subida de material nuevo a estudiantes del curso
      */
     public void notifyMaterialUploaded(Material material, Integer cursoId, String cursoNombre) {
+        notifyMaterialUploaded(material, cursoId, cursoNombre, null);
+    }
+
+    public void notifyMaterialUploaded(Material material, Integer cursoId, String cursoNombre, String claveOrigen) {
         NotificationEvent event = new NotificationEvent.Builder()
             .eventType(NotificationEvent.EventType.MATERIAL_AGREGADO)
             .title("Nuevo Material Disponible")
@@ -156,6 +168,7 @@ public class NotificationOrchestrator {
             .addMetadata("cursoId", cursoId)
             .addMetadata("tipoMaterial", material.getTipoMaterial())
             .addMetadata("cursoNombre", cursoNombre)
+            .claveOrigen(claveOrigen)
             .build();
 
         // Notificar solo a estudiantes del curso específico
@@ -169,6 +182,10 @@ public class NotificationOrchestrator {
      * CASO 3: Notificar creación de tarea a estudiantes del curso
      */
     public void notifyAssignmentCreated(Evaluacion tarea, Integer cursoId, String cursoNombre) {
+        notifyAssignmentCreated(tarea, cursoId, cursoNombre, null);
+    }
+
+    public void notifyAssignmentCreated(Evaluacion tarea, Integer cursoId, String cursoNombre, String claveOrigen) {
         NotificationEvent event = new NotificationEvent.Builder()
             .eventType(NotificationEvent.EventType.TAREA_CREADA)
             .title("Nueva Tarea Asignada")
@@ -182,6 +199,7 @@ public class NotificationOrchestrator {
             .addMetadata("cursoNombre", cursoNombre)
             .addMetadata("fechaCierre", tarea.getFechaCierre())
             .addMetadata("puntajeMaximo", tarea.getPuntajeMaximo())
+            .claveOrigen(claveOrigen)
             .build();
 
         // Notificar solo a estudiantes del curso específico
@@ -196,6 +214,11 @@ public class NotificationOrchestrator {
      */
     public void notifyStudentEnrolled(Inscripcion inscripcion, String estudianteNombre,
                                        String cursoNombre) {
+        notifyStudentEnrolled(inscripcion, estudianteNombre, cursoNombre, null);
+    }
+
+    public void notifyStudentEnrolled(Inscripcion inscripcion, String estudianteNombre,
+                                       String cursoNombre, String claveOrigen) {
         NotificationEvent event = new NotificationEvent.Builder()
             .eventType(NotificationEvent.EventType.ESTUDIANTE_INSCRITO)
             .title("Nuevo Estudiante Inscrito")
@@ -209,6 +232,7 @@ public class NotificationOrchestrator {
             .addMetadata("cursoId", inscripcion.getCursoId())
             .addMetadata("cursoNombre", cursoNombre)
             .addMetadata("modalidad", inscripcion.getModalidad())
+            .claveOrigen(claveOrigen)
             .build();
 
         // Notificar al profesor del curso
@@ -224,6 +248,12 @@ public class NotificationOrchestrator {
     public void notifyAssignmentGraded(Integer estudianteId, String estudianteNombre,
                                         Long tareaId, String tareaNombre,
                                         BigDecimal calificacion, String feedback) {
+        notifyAssignmentGraded(estudianteId, estudianteNombre, tareaId, tareaNombre, calificacion, feedback, null);
+    }
+
+    public void notifyAssignmentGraded(Integer estudianteId, String estudianteNombre,
+                                        Long tareaId, String tareaNombre,
+                                        BigDecimal calificacion, String feedback, String claveOrigen) {
         NotificationEvent event = new NotificationEvent.Builder()
             .eventType(NotificationEvent.EventType.TAREA_CALIFICADA)
             .title("Tarea Calificada")
@@ -237,6 +267,7 @@ public class NotificationOrchestrator {
             .addMetadata("tareaNombre", tareaNombre)
             .addMetadata("calificacion", calificacion)
             .addMetadata("feedback", feedback)
+            .claveOrigen(claveOrigen)
             .build();
 
         // Notificar solo al estudiante específico
@@ -272,6 +303,77 @@ public class NotificationOrchestrator {
         logger.info("Notificación de entrega enviada al profesor del curso {}", cursoId);
     }
 
+    /**
+     * Notificar al usuario que terminó su trabajo de generación de reporte
+     */
+    public void notifyReportFinished(Integer usuarioId, String trabajoId, Integer reporteId,
+                                     String titulo, String formato, String error) {
+        boolean exito = error == null;
+        NotificationEvent event = new NotificationEvent.Builder()
+            .eventType(exito ? NotificationEvent.EventType.REPORTE_GENERADO : NotificationEvent.EventType.REPORTE_FALLIDO)
+            .title(exito ? "Reporte Listo" : "Error al Generar Reporte")
+            .message(exito
+                ? String.format("Tu reporte '%s' (%s) está listo para descargar", titulo, formato)
+                : String.format("No se pudo generar el reporte '%s': %s", titulo, error))
+            .sourceUserId(null)
+            .targetId(reporteId)
+            .targetType("REPORTE")
+            .addMetadata("trabajoId", trabajoId)
+            .addMetadata("formato", formato)
+            .build();
+
+        notificationManager.notifySpecificUser(usuarioId, event);
+
+        logger.info("Notificación de reporte {} enviada al usuario {}", trabajoId, usuarioId);
+    }
+
+    /**
+     * Avisar al estudiante que salió de la lista de espera con un cupo
+     */
+    public void notifyWaitlistPromoted(Inscripcion inscripcion, String cursoNombre) {
+        NotificationEvent event = new NotificationEvent.Builder()
+            .eventType(NotificationEvent.EventType.CUPO_ASIGNADO)
+            .title("Cupo Asignado")
+            .message(String.format("Se liberó un cupo en el curso '%s' y ya quedaste inscrito", cursoNombre))
+            .sourceUserId(null)
+            .targetId(inscripcion.getCursoId())
+            .targetType("INSCRIPCION")
+            .addMetadata("inscripcionId", inscripcion.getId())
+            .addMetadata("cursoNombre", cursoNombre)
+            .build();
+
+        notificationManager.notifySpecificUser(inscripcion.getEstudianteId(), event);
+
+        logger.info("Notificación de cupo asignado enviada al estudiante {}", inscripcion.getEstudianteId());
+    }
+
+    /**
+     * Avisar al estudiante que la lista de espera le apartó un cupo y debe
+     * completar la inscripción (pago o aprobación de la beca) antes de que venza
+     */
+    public void notifyWaitlistReserved(Inscripcion inscripcion, String cursoNombre, long horas) {
+        String pendiente = "BECA".equals(inscripcion.getModalidad())
+            ? "Tu solicitud de beca quedó pendiente de aprobación"
+            : "Completa el pago para confirmar tu inscripción";
+        NotificationEvent event = new NotificationEvent.Builder()
+            .eventType(NotificationEvent.EventType.CUPO_ASIGNADO)
+            .title("Cupo Apartado")
+            .message(String.format("Se liberó un cupo en el curso '%s' y lo apartamos para ti durante %d horas. %s",
+                cursoNombre, horas, pendiente))
+            .sourceUserId(null)
+            .targetId(inscripcion.getCursoId())
+            .targetType("INSCRIPCION")
+            .addMetadata("inscripcionId", inscripcion.getId())
+            .addMetadata("cursoNombre", cursoNombre)
+            .addMetadata("modalidad", inscripcion.getModalidad())
+            .addMetadata("estadoInscripcion", inscripcion.getEstadoInscripcion())
+            .build();
+
+        notificationManager.notifySpecificUser(inscripcion.getEstudianteId(), event);
+
+        logger.info("Notificación de cupo apartado enviada al estudiante {}", inscripcion.getEstudianteId());
+    }
+
     // ================================================
     // MÉTODOS DE UTILIDAD
     // ================================================
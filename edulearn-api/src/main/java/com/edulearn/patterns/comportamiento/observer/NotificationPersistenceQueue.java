@@ -0,0 +1,260 @@
+package com.edulearn.patterns.comportamiento.observer;
+
+import com.edulearn.model.Notificacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PATRÓN OBSERVER - Persistencia asíncrona de notificaciones
+ * ==========================================================
+ * Cola acotada entre el NotificationManager y la base de datos.
+ * Los observadores se notifican en el hilo de la petición, pero las filas
+ * de notificaciones_patron se escriben en un hilo aparte, agrupadas en
+ * inserciones JDBC por lotes.
+ *
+ * - Contrapresión: si la cola está llena, el productor espera un tiempo
+ *   acotado y, si sigue llena, persiste él mismo la notificación (no se pierden).
+ * - Al apagar la aplicación se vacía la cola antes de cerrar.
+ * - Una fila con la misma clave de origen y destinatario que otra ya
+ *   guardada (evento reentregado por el outbox) se descarta antes de
+ *   insertar y no cuenta en los contadores de no leídas; INSERT IGNORE
+ *   cubre la carrera con otra escritura simultánea.
+ * - Métricas: profundidad de cola, tamaño de lote y latencia de escritura.
+ */
+@Component
+public class NotificationPersistenceQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPersistenceQueue.class);
+
+    private static final String SQL_INSERT =
+        "INSERT IGNORE INTO notificaciones_patron " +
+        "(tipo, destinatario, asunto, mensaje, estado, fecha_creacion, fecha_envio, intentos, error, clave_origen) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationCounters contadores;
+
+    @Value("${edulearn.notificaciones.cola.capacidad:10000}")
+    private int capacidad;
+
+    @Value("${edulearn.notificaciones.cola.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${edulearn.notificaciones.cola.espera-encolar-ms:200}")
+    private long esperaEncolarMs;
+
+    private BlockingQueue<Notificacion> cola;
+    private Thread escritor;
+    private volatile boolean activo;
+
+    // Métricas
+    private final AtomicLong encoladas = new AtomicLong();
+    private final AtomicLong persistidas = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+    private final AtomicLong escriturasDirectas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong ultimoTamanoLote = new AtomicLong();
+    private final AtomicLong maxTamanoLote = new AtomicLong();
+    private final AtomicLong ultimaLatenciaNanos = new AtomicLong();
+    private final AtomicLong maxLatenciaNanos = new AtomicLong();
+    private final AtomicLong totalLatenciaNanos = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        cola = new ArrayBlockingQueue<>(capacidad);
+        activo = true;
+        escritor = new Thread(this::procesarCola, "notificaciones-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+        logger.info("Cola de persistencia de notificaciones iniciada (capacidad {}, lote {})",
+            capacidad, tamanoLote);
+    }
+
+    /**
+     * Encola una notificación para su inserción en lote.
+     * Si la cola sigue llena tras la espera, se inserta en el hilo del llamador.
+     */
+    public void encolar(Notificacion notificacion) {
+        if (activo) {
+            try {
+                if (cola.offer(notificacion, esperaEncolarMs, TimeUnit.MILLISECONDS)) {
+                    encoladas.incrementAndGet();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logger.warn("Cola de notificaciones llena ({}), se persiste en el hilo del llamador", cola.size());
+        }
+        escriturasDirectas.incrementAndGet();
+        persistirLote(List.of(notificacion));
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que quede (si el escritor no terminó a tiempo) se escribe aquí
+        List<Notificacion> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            persistirLote(restantes);
+        }
+        logger.info("Cola de persistencia de notificaciones detenida. Persistidas: {}", persistidas.get());
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        long totalLotes = lotes.get();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("profundidadCola", cola.size());
+        metricas.put("capacidadCola", capacidad);
+        metricas.put("encoladas", encoladas.get());
+        metricas.put("persistidas", persistidas.get());
+        metricas.put("fallidas", fallidas.get());
+        metricas.put("escriturasDirectas", escriturasDirectas.get());
+        metricas.put("lotes", totalLotes);
+        metricas.put("ultimoTamanoLote", ultimoTamanoLote.get());
+        metricas.put("maxTamanoLote", maxTamanoLote.get());
+        metricas.put("tamanoLotePromedio", totalLotes == 0 ? 0.0 : (double) persistidas.get() / totalLotes);
+        metricas.put("ultimaLatenciaMs", ultimaLatenciaNanos.get() / 1_000_000.0);
+        metricas.put("maxLatenciaMs", maxLatenciaNanos.get() / 1_000_000.0);
+        metricas.put("latenciaPromedioMs", totalLotes == 0 ? 0.0 : totalLatenciaNanos.get() / 1_000_000.0 / totalLotes);
+        return metricas;
+    }
+
+    // ========== Hilo escritor ==========
+
+    private void procesarCola() {
+        List<Notificacion> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Notificacion primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                cola.drainTo(lote, tamanoLote - 1);
+                persistirLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void persistirLote(List<Notificacion> lote) {
+        long inicio = System.nanoTime();
+        try {
+            List<Notificacion> nuevas = descartarDuplicadas(lote);
+            if (nuevas.isEmpty()) {
+                return;
+            }
+            int[][] filas = jdbcTemplate.batchUpdate(SQL_INSERT, nuevas, nuevas.size(), (ps, n) -> {
+                ps.setString(1, n.getTipo());
+                ps.setString(2, n.getDestinatario());
+                ps.setString(3, n.getAsunto());
+                ps.setString(4, n.getMensaje());
+                ps.setString(5, n.getEstado());
+                ps.setTimestamp(6, n.getFechaCreacion() != null ? Timestamp.valueOf(n.getFechaCreacion()) : null);
+                ps.setTimestamp(7, n.getFechaEnvio() != null ? Timestamp.valueOf(n.getFechaEnvio()) : null);
+                ps.setInt(8, n.getIntentos() != null ? n.getIntentos() : 0);
+                ps.setString(9, n.getError());
+                ps.setString(10, n.getClaveOrigen());
+            });
+            List<Notificacion> insertadas = insertadas(nuevas, filas);
+            persistidas.addAndGet(insertadas.size());
+            contadores.registrarInserciones(insertadas);
+        } catch (Exception e) {
+            fallidas.addAndGet(lote.size());
+            logger.error("Error al guardar lote de {} notificaciones en BD: {}", lote.size(), e.getMessage());
+        } finally {
+            registrarLote(lote.size(), System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Quita las notificaciones cuya clave de origen ya tiene fila para ese
+     * destinatario (o que se repiten dentro del lote)
+     */
+    private List<Notificacion> descartarDuplicadas(List<Notificacion> lote) {
+        Set<String> claves = new HashSet<>();
+        for (Notificacion n : lote) {
+            if (n.getClaveOrigen() != null) {
+                claves.add(n.getClaveOrigen());
+            }
+        }
+        if (claves.isEmpty()) {
+            return lote;
+        }
+
+        String marcadores = String.join(",", Collections.nCopies(claves.size(), "?"));
+        Set<String> existentes = new HashSet<>(jdbcTemplate.query(
+            "SELECT clave_origen, destinatario FROM notificaciones_patron WHERE clave_origen IN (" + marcadores + ")",
+            (rs, i) -> rs.getString(1) + "\n" + rs.getString(2),
+            claves.toArray()));
+
+        List<Notificacion> nuevas = new ArrayList<>(lote.size());
+        for (Notificacion n : lote) {
+            if (n.getClaveOrigen() == null || existentes.add(n.getClaveOrigen() + "\n" + n.getDestinatario())) {
+                nuevas.add(n);
+            }
+        }
+        return nuevas;
+    }
+
+    /**
+     * Las filas con 0 filas afectadas eran duplicados ignorados. Con lotes
+     * reescritos el driver no informa el conteo (SUCCESS_NO_INFO); como los
+     * duplicados ya se descartaron antes, esas filas se dan por insertadas
+     */
+    private static List<Notificacion> insertadas(List<Notificacion> lote, int[][] filas) {
+        List<Notificacion> insertadas = new ArrayList<>(lote.size());
+        int i = 0;
+        for (int[] conteos : filas) {
+            for (int conteo : conteos) {
+                if (conteo != 0 && i < lote.size()) {
+                    insertadas.add(lote.get(i));
+                }
+                i++;
+            }
+        }
+        return i == lote.size() ? insertadas : lote;
+    }
+
+    private void registrarLote(int tamano, long latenciaNanos) {
+        lotes.incrementAndGet();
+        ultimoTamanoLote.set(tamano);
+        maxTamanoLote.accumulateAndGet(tamano, Math::max);
+        ultimaLatenciaNanos.set(latenciaNanos);
+        maxLatenciaNanos.accumulateAndGet(latenciaNanos, Math::max);
+        totalLatenciaNanos.addAndGet(latenciaNanos);
+    }
+}
@@ -0,0 +1,289 @@
+package com.edulearn.patterns.comportamiento.observer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PATRÓN OBSERVER - Canal push (Server-Sent Events) de notificaciones
+ * ===================================================================
+ * El NotificationManager publica aquí cada notificación entregada a un
+ * usuario y el hub la reenvía a todas las conexiones SSE abiertas de ese
+ * usuario, sustituyendo el sondeo periódico del contador.
+ *
+ * - Cada conexión tiene un buffer acotado y su propio hilo virtual de envío:
+ *   un cliente lento no bloquea al publicador. Si el buffer se llena, la
+ *   conexión se cierra y el navegador reconecta con Last-Event-ID.
+ * - Se guardan los últimos eventos de cada usuario para reenviarlos a partir
+ *   del Last-Event-ID recibido al reconectar.
+ * - Un latido periódico mantiene abiertas las conexiones a través de proxies.
+ */
+@Component
+public class NotificationStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamHub.class);
+
+    // Marcas internas: latido (comentario SSE) y fin del hilo de envío
+    private static final EventoStream LATIDO = new EventoStream(0, null, null);
+    private static final EventoStream CIERRE = new EventoStream(0, null, null);
+
+    @Value("${edulearn.notificaciones.stream.buffer-conexion:64}")
+    private int bufferConexion;
+
+    @Value("${edulearn.notificaciones.stream.eventos-replay:50}")
+    private int eventosReplay;
+
+    @Value("${edulearn.notificaciones.stream.max-usuarios-replay:10000}")
+    private int maxUsuariosReplay;
+
+    @Value("${edulearn.notificaciones.stream.latido-segundos:25}")
+    private long latidoSegundos;
+
+    @Value("${edulearn.notificaciones.stream.timeout-minutos:30}")
+    private long timeoutMinutos;
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Map<Integer, Set<Conexion>> conexionesPorUsuario = new ConcurrentHashMap<>();
+
+    // Últimos eventos por usuario (LRU acotado por número de usuarios); protegido por su monitor
+    private Map<Integer, Deque<EventoStream>> recientes;
+
+    private ScheduledExecutorService latidos;
+
+    @PostConstruct
+    public void iniciar() {
+        recientes = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Deque<EventoStream>> eldest) {
+                return size() > maxUsuariosReplay;
+            }
+        };
+        latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notificaciones-sse-latido");
+            t.setDaemon(true);
+            return t;
+        });
+        latidos.scheduleAtFixedRate(this::enviarLatidos, latidoSegundos, latidoSegundos, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        latidos.shutdownNow();
+        conexionesPorUsuario.values().forEach(conexiones -> conexiones.forEach(Conexion::cerrar));
+        conexionesPorUsuario.clear();
+    }
+
+    /**
+     * Abre una conexión SSE para el usuario y reenvía los eventos posteriores a lastEventId
+     */
+    public SseEmitter suscribir(Integer userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutos));
+        Conexion conexion = new Conexion(userId, emitter, bufferConexion);
+
+        emitter.onCompletion(() -> eliminar(conexion));
+        emitter.onTimeout(() -> eliminar(conexion));
+        emitter.onError(e -> eliminar(conexion));
+
+        conexionesPorUsuario.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(conexion);
+        conexion.iniciar();
+
+        // ultimoEventId permite al cliente distinguir los eventos reenviados (ya incluidos
+        // en el contador que recalcula al conectar) de los nuevos
+        conexion.encolar(new EventoStream(0, "conectado", Map.of("userId", userId, "ultimoEventId", secuencia.get())));
+        for (EventoStream evento : eventosPosteriores(userId, parsearId(lastEventId))) {
+            conexion.encolar(evento);
+        }
+
+        logger.info("Conexión SSE abierta para usuario {} (conexiones: {})",
+            userId, conexionesPorUsuario.get(userId).size());
+        return emitter;
+    }
+
+    /**
+     * Publica una notificación entregada a un usuario en sus conexiones abiertas
+     */
+    public void publicar(Integer userId, NotificationEvent event) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("eventType", event.getEventType());
+        datos.put("title", event.getTitle());
+        datos.put("message", event.getMessage());
+        datos.put("targetId", event.getTargetId());
+        datos.put("targetType", event.getTargetType());
+        datos.put("timestamp", String.valueOf(event.getTimestamp()));
+
+        EventoStream evento = new EventoStream(secuencia.incrementAndGet(), "notificacion", datos);
+        guardarReciente(userId, evento);
+
+        Set<Conexion> conexiones = conexionesPorUsuario.get(userId);
+        if (conexiones != null) {
+            for (Conexion conexion : conexiones) {
+                conexion.encolar(evento);
+            }
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        int total = conexionesPorUsuario.values().stream().mapToInt(Set::size).sum();
+        return Map.of(
+            "usuariosConectados", conexionesPorUsuario.size(),
+            "conexionesAbiertas", total,
+            "ultimoEventId", secuencia.get()
+        );
+    }
+
+    // ========== Internos ==========
+
+    private void enviarLatidos() {
+        conexionesPorUsuario.values().forEach(conexiones -> conexiones.forEach(c -> c.encolar(LATIDO)));
+    }
+
+    private void eliminar(Conexion conexion) {
+        conexion.cerrar();
+        conexionesPorUsuario.computeIfPresent(conexion.userId, (k, conexiones) -> {
+            conexiones.remove(conexion);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    private void guardarReciente(Integer userId, EventoStream evento) {
+        synchronized (recientes) {
+            Deque<EventoStream> cola = recientes.computeIfAbsent(userId, k -> new ArrayDeque<>());
+            cola.addLast(evento);
+            while (cola.size() > eventosReplay) {
+                cola.removeFirst();
+            }
+        }
+    }
+
+    private List<EventoStream> eventosPosteriores(Integer userId, long lastEventId) {
+        if (lastEventId < 0) {
+            return List.of();
+        }
+        // Un id mayor que la secuencia actual viene de antes de un reinicio: se reenvía todo lo guardado
+        long desde = lastEventId > secuencia.get() ? 0 : lastEventId;
+        List<EventoStream> resultado = new ArrayList<>();
+        synchronized (recientes) {
+            Deque<EventoStream> cola = recientes.get(userId);
+            if (cola != null) {
+                for (EventoStream evento : cola) {
+                    if (evento.id > desde) {
+                        resultado.add(evento);
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static long parsearId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Evento ya numerado, conservado para replay.
+     * El SseEventBuilder se crea en cada envío porque no es seguro compartirlo entre hilos.
+     */
+    private static class EventoStream {
+        private final long id;
+        private final String nombre;
+        private final Map<String, Object> datos;
+
+        EventoStream(long id, String nombre, Map<String, Object> datos) {
+            this.id = id;
+            this.nombre = nombre;
+            this.datos = datos;
+        }
+
+        SseEmitter.SseEventBuilder aSse() {
+            if (this == LATIDO) {
+                return SseEmitter.event().comment("latido");
+            }
+            SseEmitter.SseEventBuilder sse = SseEmitter.event().name(nombre).data(datos);
+            return id > 0 ? sse.id(String.valueOf(id)) : sse.reconnectTime(3000);
+        }
+    }
+
+    /**
+     * Conexión SSE con buffer acotado y un hilo virtual que envía en orden
+     */
+    private class Conexion {
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<EventoStream> pendientes;
+        private volatile boolean cerrada;
+
+        Conexion(Integer userId, SseEmitter emitter, int capacidad) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidad);
+        }
+
+        void iniciar() {
+            Thread.ofVirtual().name("notificaciones-sse-" + userId).start(this::enviar);
+        }
+
+        void encolar(EventoStream evento) {
+            if (cerrada) {
+                return;
+            }
+            if (!pendientes.offer(evento)) {
+                // Cliente demasiado lento: se cierra y reconectará con Last-Event-ID
+                logger.warn("Buffer SSE lleno para usuario {}, se cierra la conexión", userId);
+                emitter.complete();
+                eliminar(this);
+            }
+        }
+
+        void cerrar() {
+            if (!cerrada) {
+                cerrada = true;
+                pendientes.clear();
+                pendientes.offer(CIERRE);
+            }
+        }
+
+        private void enviar() {
+            try {
+                while (true) {
+                    EventoStream evento = pendientes.take();
+                    if (evento == CIERRE) {
+                        return;
+                    }
+                    emitter.send(evento.aSse());
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                eliminar(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -32,6 +32,9 @@ public class NotificationSubject implements Subject {
     @Autowired
     private NotificacionRepository notificacionRepository;
 
+    @Autowired
+    private NotificationCounters contadores;
+
     @Override
     public void attach(Observer observer) {
         if (!observers.contains(observer)) {
@@ -106,6 +109,7 @@ public class NotificationSubject implements Subject {
             notificacion.setFechaCreacion(event.getTimestamp());
 
             notificacionRepository.save(notificacion);
+            contadores.registrarInsercion(notificacion);
         } catch (Exception e) {
             logger.error("Error al guardar notificación en BD: {}", e.getMessage());
         }
@@ -0,0 +1,167 @@
+package com.edulearn.patterns.comportamiento.observer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PATRÓN OBSERVER - Registro indexado de observadores
+ * ===================================================
+ * Estructura interna del NotificationManager que sustituye las listas
+ * recorridas linealmente por índices:
+ *
+ * - userId -> Observer (registro global)
+ * - cursoId -> (userId -> Observer) y su índice inverso userId -> cursos
+ * - rol -> (userId -> Observer)
+ *
+ * Las búsquedas son O(1) y las consultas por curso/usuario O(k).
+ * Las lecturas no toman bloqueos; todas las mutaciones de un mismo usuario
+ * (registro, roles, cursos y eliminación) se serializan con un bloqueo por
+ * franjas (userId) para mantener consistentes los índices.
+ */
+class ObserverRegistry {
+
+    private static final int FRANJAS = 64;
+
+    private final Map<Integer, Observer> porUsuario = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Observer>> porCurso = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> cursosPorUsuario = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Observer>> porRol = new ConcurrentHashMap<>();
+
+    private final Object[] franjas = new Object[FRANJAS];
+
+    ObserverRegistry() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Object();
+        }
+    }
+
+    private Object franja(Integer userId) {
+        return franjas[Math.floorMod(userId.hashCode(), FRANJAS)];
+    }
+
+    // ========== Registro global ==========
+
+    /**
+     * @return true si el usuario no estaba registrado
+     */
+    boolean registrar(Observer observer) {
+        Integer userId = observer.getObserverId();
+        synchronized (franja(userId)) {
+            return porUsuario.putIfAbsent(userId, observer) == null;
+        }
+    }
+
+    Observer buscar(Integer userId) {
+        return porUsuario.get(userId);
+    }
+
+    /**
+     * Quita al usuario del registro global, de todos sus cursos y de sus roles
+     * @return true si estaba registrado globalmente
+     */
+    boolean eliminar(Integer userId) {
+        synchronized (franja(userId)) {
+            boolean estaba = porUsuario.remove(userId) != null;
+            if (estaba) {
+                Set<Integer> cursos = cursosPorUsuario.remove(userId);
+                if (cursos != null) {
+                    for (Integer cursoId : cursos) {
+                        Map<Integer, Observer> delCurso = porCurso.get(cursoId);
+                        if (delCurso != null) {
+                            delCurso.remove(userId);
+                        }
+                    }
+                }
+                porRol.values().forEach(delRol -> delRol.remove(userId));
+            }
+            return estaba;
+        }
+    }
+
+    Collection<Observer> todos() {
+        return porUsuario.values();
+    }
+
+    int total() {
+        return porUsuario.size();
+    }
+
+    // ========== Cursos ==========
+
+    void suscribirACurso(Observer observer, Integer cursoId) {
+        Integer userId = observer.getObserverId();
+        synchronized (franja(userId)) {
+            porCurso.computeIfAbsent(cursoId, k -> new ConcurrentHashMap<>()).putIfAbsent(userId, observer);
+            cursosPorUsuario.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(cursoId);
+        }
+    }
+
+    /**
+     * @return true si el usuario estaba suscrito al curso
+     */
+    boolean desuscribirDeCurso(Integer userId, Integer cursoId) {
+        synchronized (franja(userId)) {
+            Map<Integer, Observer> delCurso = porCurso.get(cursoId);
+            boolean estaba = delCurso != null && delCurso.remove(userId) != null;
+            Set<Integer> cursos = cursosPorUsuario.get(userId);
+            if (cursos != null) {
+                cursos.remove(cursoId);
+                if (cursos.isEmpty()) {
+                    cursosPorUsuario.remove(userId);
+                }
+            }
+            return estaba;
+        }
+    }
+
+    Collection<Observer> delCurso(Integer cursoId) {
+        Map<Integer, Observer> delCurso = porCurso.get(cursoId);
+        return delCurso != null ? delCurso.values() : Collections.emptyList();
+    }
+
+    boolean estaSuscrito(Integer userId, Integer cursoId) {
+        Map<Integer, Observer> delCurso = porCurso.get(cursoId);
+        return delCurso != null && delCurso.containsKey(userId);
+    }
+
+    List<Integer> cursosDe(Integer userId) {
+        Set<Integer> cursos = cursosPorUsuario.get(userId);
+        return cursos != null ? new ArrayList<>(cursos) : new ArrayList<>();
+    }
+
+    int cursosConObservadores() {
+        return (int) porCurso.values().stream().filter(m -> !m.isEmpty()).count();
+    }
+
+    // ========== Roles ==========
+
+    void registrarEnRol(Observer observer, String rol) {
+        Integer userId = observer.getObserverId();
+        // Con la franja tomada, eliminar() no puede estar recorriendo los roles
+        // mientras se agrega uno nuevo (el usuario quedaría en un rol sin registro)
+        synchronized (franja(userId)) {
+            porRol.computeIfAbsent(rol, k -> new ConcurrentHashMap<>()).putIfAbsent(userId, observer);
+        }
+    }
+
+    Collection<Observer> delRol(String rol) {
+        Map<Integer, Observer> delRol = porRol.get(rol);
+        return delRol != null ? delRol.values() : Collections.emptyList();
+    }
+
+    int rolesConObservadores() {
+        return porRol.size();
+    }
+
+    void limpiar() {
+        porUsuario.clear();
+        porCurso.clear();
+        cursosPorUsuario.clear();
+        porRol.clear();
+    }
+}
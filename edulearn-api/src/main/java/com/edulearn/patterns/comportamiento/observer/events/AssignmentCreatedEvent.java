@@ -1,14 +1,13 @@
 package com.edulearn.patterns.comportamiento.observer.events;
 
 import com.edulearn.model.Evaluacion;
-import org.springframework.context.ApplicationEvent;
 
 /**
  * SPRING EVENTS - Evento de Tarea Creada
  * ======================================
  * Evento publicado cuando se crea una nueva tarea/evaluación.
  */
-public class AssignmentCreatedEvent extends ApplicationEvent {
+public class AssignmentCreatedEvent extends EventoDominio {
 
     private final Evaluacion tarea;
     private final Integer cursoId;
@@ -40,6 +39,11 @@ public class AssignmentCreatedEvent extends ApplicationEvent {
         return profesorId;
     }
 
+    @Override
+    public String getClaveOrden() {
+        return claveCurso(cursoId);
+    }
+
     @Override
     public String toString() {
         return String.format("AssignmentCreatedEvent{tarea='%s', curso='%s'}",
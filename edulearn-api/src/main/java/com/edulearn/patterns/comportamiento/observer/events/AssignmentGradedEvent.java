@@ -1,7 +1,5 @@
 package com.edulearn.patterns.comportamiento.observer.events;
 
-import org.springframework.context.ApplicationEvent;
-
 import java.math.BigDecimal;
 
 /**
@@ -9,7 +7,7 @@ import java.math.BigDecimal;
  * ==========================================
  * Evento publicado cuando se califica una tarea.
  */
-public class AssignmentGradedEvent extends ApplicationEvent {
+public class AssignmentGradedEvent extends EventoDominio {
 
     private final Integer estudianteId;
     private final String estudianteNombre;
@@ -54,6 +52,11 @@ public class AssignmentGradedEvent extends ApplicationEvent {
         return feedback;
     }
 
+    @Override
+    public String getClaveOrden() {
+        return estudianteId != null ? "estudiante:" + estudianteId : null;
+    }
+
     @Override
     public String toString() {
         return String.format("AssignmentGradedEvent{estudiante='%s', tarea='%s', nota=%s}",
@@ -0,0 +1,117 @@
+package com.edulearn.patterns.comportamiento.observer.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SPRING EVENTS - Entrega de eventos de dominio a los listeners
+ * =============================================================
+ * Reemplaza el multicaster de Spring (bean "applicationEventMulticaster")
+ * para entregar los EventoDominio que despacha OutboxEventosDominio:
+ *
+ * - Entrega síncrona en el hilo del outbox, listener por listener: el
+ *   fallo de uno no impide los demás, y un reintento solo repite los que
+ *   no lo recibieron.
+ * - Métricas por listener (invocaciones, fallos, latencia).
+ *
+ * El orden por clave, la concurrencia y los reintentos los resuelve el
+ * outbox. Los eventos del framework se siguen entregando como siempre; los
+ * de dominio se publican con SpringEventPublisher, que los guarda en el
+ * outbox.
+ */
+@Component(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME)
+public class BusEventosDominio extends SimpleApplicationEventMulticaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(BusEventosDominio.class);
+
+    private final Map<String, MetricaListener> metricasListener = new ConcurrentHashMap<>();
+
+    /**
+     * Entrega síncrona en el hilo actual (la usa OutboxEventosDominio): invoca
+     * los listeners cuyo nombre no está en {@code entregados} y añade allí los
+     * que terminan bien, para que un reintento no repita los que ya lo recibieron
+     *
+     * @return mensaje del primer fallo, o null si todos los listeners lo recibieron
+     */
+    public String entregar(EventoDominio evento, Set<String> entregados) {
+        String error = null;
+        for (ApplicationListener<?> listener : getApplicationListeners(evento, ResolvableType.forInstance(evento))) {
+            String nombre = nombreListener(listener);
+            if (entregados.contains(nombre)) {
+                continue;
+            }
+            Exception fallo = invocarListener(listener, evento);
+            if (fallo == null) {
+                entregados.add(nombre);
+            } else if (error == null) {
+                error = nombre + ": " + fallo.getMessage();
+            }
+        }
+        return error;
+    }
+
+    private Exception invocarListener(ApplicationListener<?> listener, EventoDominio evento) {
+        MetricaListener metrica = metricasListener.computeIfAbsent(nombreListener(listener), k -> new MetricaListener());
+        long inicio = System.nanoTime();
+        try {
+            invokeListener(listener, evento);
+            return null;
+        } catch (Exception e) {
+            metrica.fallos.increment();
+            logger.error("Error en listener {} con {}: {}", nombreListener(listener), evento, e.getMessage(), e);
+            return e;
+        } finally {
+            long duracion = System.nanoTime() - inicio;
+            metrica.invocaciones.increment();
+            metrica.tiempoTotalNanos.add(duracion);
+            metrica.tiempoMaximoNanos.accumulateAndGet(duracion, Math::max);
+        }
+    }
+
+    private static String nombreListener(ApplicationListener<?> listener) {
+        if (listener instanceof SmartApplicationListener smart && !smart.getListenerId().isEmpty()) {
+            return smart.getListenerId();
+        }
+        return listener.getClass().getName();
+    }
+
+    // ========== Métricas ==========
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> porListener = new TreeMap<>();
+        metricasListener.forEach((nombre, metrica) -> {
+            long invocaciones = metrica.invocaciones.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("invocaciones", invocaciones);
+            m.put("fallos", metrica.fallos.sum());
+            m.put("latenciaMediaMs", invocaciones > 0 ? metrica.tiempoTotalNanos.sum() / invocaciones / 1_000_000.0 : 0.0);
+            m.put("latenciaMaximaMs", metrica.tiempoMaximoNanos.get() / 1_000_000.0);
+            porListener.put(nombre, m);
+        });
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("listeners", porListener);
+        return metricas;
+    }
+
+    private static class MetricaListener {
+        private final LongAdder invocaciones = new LongAdder();
+        private final LongAdder fallos = new LongAdder();
+        private final LongAdder tiempoTotalNanos = new LongAdder();
+        private final AtomicLong tiempoMaximoNanos = new AtomicLong();
+    }
+}
@@ -1,7 +1,6 @@
 package com.edulearn.patterns.comportamiento.observer.events;
 
 import com.edulearn.model.Curso;
-import org.springframework.context.ApplicationEvent;
 
 /**
  * SPRING EVENTS - Evento de Curso Creado
@@ -13,10 +12,10 @@ import org.springframework.context.ApplicationEvent;
  * Ventajas sobre Observer tradicional:
  * - Integración nativa con Spring
  * - Desacoplamiento automático
- * - Soporte para eventos asíncronos (@Async)
- * - Transaccionalidad (@TransactionalEventListener)
+ * - Entrega asíncrona y después del commit (OutboxEventosDominio)
+ * - Orden garantizado entre eventos del mismo curso
  */
-public class CourseCreatedEvent extends ApplicationEvent {
+public class CourseCreatedEvent extends EventoDominio {
 
     private final Curso curso;
     private final Integer creadorId;
@@ -41,6 +40,11 @@ public class CourseCreatedEvent extends ApplicationEvent {
         return creadorNombre;
     }
 
+    @Override
+    public String getClaveOrden() {
+        return claveCurso(curso.getId());
+    }
+
     @Override
     public String toString() {
         return String.format("CourseCreatedEvent{curso='%s', creador='%s'}",
@@ -0,0 +1,44 @@
+package com.edulearn.patterns.comportamiento.observer.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * SPRING EVENTS - Evento de dominio
+ * =================================
+ * Base de los eventos que OutboxEventosDominio entrega de forma asíncrona
+ * (después del commit). Los eventos con la misma clave de orden se
+ * procesan en el orden en que se publicaron.
+ *
+ * Cada evento lleva una clave de idempotencia estable entre reintentos,
+ * para que un listener pueda reconocer un evento que ya procesó.
+ */
+public abstract class EventoDominio extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private String claveIdempotencia;
+
+    protected EventoDominio(Object source) {
+        super(source);
+    }
+
+    /**
+     * Identificador único del evento en el outbox; null si no pasó por él
+     */
+    public String getClaveIdempotencia() {
+        return claveIdempotencia;
+    }
+
+    void setClaveIdempotencia(String claveIdempotencia) {
+        this.claveIdempotencia = claveIdempotencia;
+    }
+
+    /**
+     * Clave que ordena el procesamiento (normalmente "curso:<id>"); null si no importa el orden
+     */
+    public abstract String getClaveOrden();
+
+    protected static String claveCurso(Integer cursoId) {
+        return cursoId != null ? "curso:" + cursoId : null;
+    }
+}
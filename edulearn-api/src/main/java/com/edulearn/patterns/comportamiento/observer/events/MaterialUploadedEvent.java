@@ -1,14 +1,13 @@
 package com.edulearn.patterns.comportamiento.observer.events;
 
 import com.edulearn.model.Material;
-import org.springframework.context.ApplicationEvent;
 
 /**
  * SPRING EVENTS - Evento de Material Subido
  * =========================================
  * Evento publicado cuando un profesor sube nuevo material a un curso.
  */
-public class MaterialUploadedEvent extends ApplicationEvent {
+public class MaterialUploadedEvent extends EventoDominio {
 
     private final Material material;
     private final Integer cursoId;
@@ -40,6 +39,11 @@ public class MaterialUploadedEvent extends ApplicationEvent {
         return profesorId;
     }
 
+    @Override
+    public String getClaveOrden() {
+        return claveCurso(cursoId);
+    }
+
     @Override
     public String toString() {
         return String.format("MaterialUploadedEvent{material='%s', curso='%s'}",
@@ -0,0 +1,580 @@
+package com.edulearn.patterns.comportamiento.observer.events;
+
+import com.edulearn.model.Curso;
+import com.edulearn.model.Evaluacion;
+import com.edulearn.model.EventoOutbox;
+import com.edulearn.model.Inscripcion;
+import com.edulearn.model.Material;
+import com.edulearn.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SPRING EVENTS - Outbox transaccional
+ * ====================================
+ * Los eventos de dominio se guardan en eventos_outbox dentro de la misma
+ * transacción que el cambio que los origina: si la transacción hace
+ * rollback el evento desaparece con ella, y si hace commit el evento
+ * queda registrado aunque el proceso muera justo después.
+ *
+ * Un hilo despachador reclama lotes de filas pendientes (SELECT ... FOR
+ * UPDATE SKIP LOCKED, así varias instancias reparten el trabajo) y los
+ * entrega a los listeners a través de BusEventosDominio, en hilos virtuales.
+ *
+ * - Orden: las filas con la misma clave (curso:<id>, estudiante:<id>) se
+ *   entregan una tras otra, también con varias instancias: solo es
+ *   reclamable la fila pendiente más antigua de cada clave, y la siguiente
+ *   se reclama al entregarla. Claves distintas se entregan en paralelo.
+ * - Concurrencia por tipo: cada tipo de evento tiene su carril con un
+ *   límite de entregas simultáneas (edulearn.outbox.max-concurrentes, o
+ *   edulearn.outbox.<TipoEvento>.max-concurrentes), dentro del límite
+ *   global (paralelismo). Un tipo lento no ocupa los hilos de los demás.
+ * - Contrapresión: si el carril de su tipo está lleno, la fila no espera en
+ *   memoria: vuelve a la tabla (sigue PENDIENTE, bloqueando su clave) y se
+ *   reclama de nuevo pasado el intervalo de sondeo o cuando termina una entrega.
+ * - Reintentos: un fallo reprograma la fila con espera exponencial y solo
+ *   se vuelve a invocar a los listeners que no lo recibieron. Tras
+ *   max-intentos la fila queda FALLIDO y deja de bloquear su clave.
+ * - Entrega al menos una vez: los listeners reciben la clave de
+ *   idempotencia del evento para reconocer un duplicado (las
+ *   notificaciones la guardan en clave_origen, única por destinatario).
+ * - Las filas entregadas se borran pasado el periodo de retención.
+ */
+@Component
+public class OutboxEventosDominio {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxEventosDominio.class);
+
+    private static final String PENDIENTE = "PENDIENTE";
+    private static final String FALLIDO = "FALLIDO";
+    private static final int LOTE_COMPACTACION = 1000;
+
+    @Autowired
+    private EventoOutboxRepository repository;
+
+    @Autowired
+    private BusEventosDominio bus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${edulearn.outbox.tamano-lote:100}")
+    private int tamanoLote;
+
+    @Value("${edulearn.outbox.intervalo-ms:1000}")
+    private long intervaloMs;
+
+    @Value("${edulearn.outbox.paralelismo:8}")
+    private int paralelismo;
+
+    @Value("${edulearn.outbox.max-concurrentes:4}")
+    private int maxConcurrentesPorTipo;
+
+    @Value("${edulearn.outbox.reserva-segundos:300}")
+    private long reservaSegundos;
+
+    @Value("${edulearn.outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${edulearn.outbox.reintento-base-segundos:5}")
+    private long reintentoBaseSegundos;
+
+    @Value("${edulearn.outbox.reintento-max-segundos:600}")
+    private long reintentoMaxSegundos;
+
+    @Value("${edulearn.outbox.retencion-horas:24}")
+    private long retencionHoras;
+
+    private TransactionTemplate transaccion;
+    private ExecutorService entregas;
+    private Semaphore permisosEntrega;
+    private final Map<String, Carril> carriles = new ConcurrentHashMap<>();
+    private final Semaphore senal = new Semaphore(0);
+    private Thread despachador;
+    private volatile boolean activo;
+    private volatile long proximaCompactacion;
+
+    // Métricas
+    private final AtomicLong registrados = new AtomicLong();
+    private final AtomicLong entregados = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong compactados = new AtomicLong();
+    private final AtomicLong aplazados = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong ultimoTamanoLote = new AtomicLong();
+    private final AtomicLong entregasClave = new AtomicLong();
+    private final AtomicLong ultimaLatenciaNanos = new AtomicLong();
+    private final AtomicLong maxLatenciaNanos = new AtomicLong();
+    private final AtomicLong totalLatenciaNanos = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        entregas = Executors.newVirtualThreadPerTaskExecutor();
+        permisosEntrega = new Semaphore(Math.max(1, paralelismo));
+        activo = true;
+        despachador = new Thread(this::despachar, "outbox-despachador");
+        despachador.setDaemon(true);
+        despachador.start();
+        logger.info("📤 Outbox de eventos iniciado (lote {}, paralelismo {}, max concurrentes por tipo {}, max intentos {})",
+            tamanoLote, paralelismo, maxConcurrentesPorTipo, maxIntentos);
+    }
+
+    /**
+     * Guarda el evento en el outbox dentro de la transacción del llamador
+     * (o en una propia si no hay ninguna). El despachador se despierta al
+     * hacer commit, sin esperar al siguiente sondeo.
+     */
+    @Transactional
+    public void registrar(EventoDominio evento) {
+        EventoOutbox fila = new EventoOutbox();
+        fila.setTipoEvento(evento.getClass().getSimpleName());
+        fila.setClaveOrden(evento.getClaveOrden());
+        fila.setClaveIdempotencia(UUID.randomUUID().toString());
+        fila.setPayload(serializar(evento));
+        repository.save(fila);
+        registrados.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    senal.release();
+                }
+            });
+        } else {
+            senal.release();
+        }
+    }
+
+    /**
+     * Devuelve a la cola los eventos que agotaron sus intentos
+     */
+    public int reintentarFallidos() {
+        Integer filas = transaccion.execute(s -> repository.reintentarFallidos(LocalDateTime.now()));
+        senal.release();
+        logger.info("🔁 {} eventos fallidos devueltos al outbox", filas);
+        return filas != null ? filas : 0;
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        senal.release();
+        try {
+            despachador.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        entregas.shutdown();
+        try {
+            entregas.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que quede pendiente sigue en la tabla y se entrega al volver a arrancar
+        logger.info("Outbox de eventos detenido. Entregados: {}", entregados.get());
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> porEstado = new LinkedHashMap<>();
+        for (Object[] fila : repository.contarPorEstado()) {
+            porEstado.put((String) fila[0], fila[1]);
+        }
+        Map<String, Long> pendientesPorTipo = new LinkedHashMap<>();
+        for (Object[] fila : repository.contarPendientesPorTipo()) {
+            pendientesPorTipo.put((String) fila[0], (Long) fila[1]);
+        }
+        Map<String, Object> porTipo = new TreeMap<>();
+        pendientesPorTipo.keySet().forEach(this::carril);
+        carriles.forEach((tipo, carril) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("maxConcurrentes", carril.limite);
+            m.put("enCurso", carril.limite - carril.permisos.availablePermits());
+            m.put("pendientes", pendientesPorTipo.getOrDefault(tipo, 0L));
+            m.put("entregados", carril.entregados.get());
+            m.put("aplazados", carril.aplazados.get());
+            porTipo.put(tipo, m);
+        });
+
+        long tareas = entregasClave.get();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("filasPorEstado", porEstado);
+        metricas.put("porTipo", porTipo);
+        metricas.put("registrados", registrados.get());
+        metricas.put("entregados", entregados.get());
+        metricas.put("reintentos", reintentos.get());
+        metricas.put("fallidos", fallidos.get());
+        metricas.put("aplazados", aplazados.get());
+        metricas.put("compactados", compactados.get());
+        metricas.put("lotes", lotes.get());
+        metricas.put("ultimoTamanoLote", ultimoTamanoLote.get());
+        // Latencia de cada entrega de una clave (la fila reclamada y las que la siguen)
+        metricas.put("ultimaLatenciaMs", ultimaLatenciaNanos.get() / 1_000_000.0);
+        metricas.put("maxLatenciaMs", maxLatenciaNanos.get() / 1_000_000.0);
+        metricas.put("latenciaPromedioMs", tareas == 0 ? 0.0 : totalLatenciaNanos.get() / 1_000_000.0 / tareas);
+        return metricas;
+    }
+
+    // ========== Hilo despachador ==========
+
+    private void despachar() {
+        while (activo) {
+            try {
+                int procesados = procesarLote();
+                compactarSiCorresponde();
+                if (procesados < tamanoLote) {
+                    // Lote incompleto: no hay más trabajo listo, se espera aviso o sondeo
+                    senal.tryAcquire(intervaloMs, TimeUnit.MILLISECONDS);
+                    senal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Error en el despachador del outbox: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reclama un lote (moviendo proximo_intento al final de la reserva) y
+     * lanza la entrega de cada fila, seguida del resto de su clave de orden,
+     * en el carril de su tipo. No espera a que terminen.
+     *
+     * @return filas lanzadas (las aplazadas por carril lleno no cuentan)
+     */
+    private int procesarLote() throws InterruptedException {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EventoOutbox> filas = transaccion.execute(s -> {
+            List<EventoOutbox> reclamadas = repository.reclamar(ahora, PageRequest.of(0, tamanoLote));
+            LocalDateTime reserva = ahora.plusSeconds(reservaSegundos);
+            reclamadas.forEach(f -> f.setProximoIntento(reserva));
+            return reclamadas;
+        });
+        if (filas == null || filas.isEmpty()) {
+            return 0;
+        }
+        lotes.incrementAndGet();
+        ultimoTamanoLote.set(filas.size());
+
+        int lanzadas = 0;
+        for (EventoOutbox fila : filas) {
+            Carril carril = carril(fila.getTipoEvento());
+            if (!carril.permisos.tryAcquire()) {
+                aplazar(fila, carril);
+                continue;
+            }
+            permisosEntrega.acquire();
+            entregas.execute(() -> {
+                long inicio = System.nanoTime();
+                try {
+                    entregarClave(fila, carril);
+                } catch (RuntimeException e) {
+                    logger.error("Error entregando eventos del outbox: {}", e.getMessage(), e);
+                } finally {
+                    permisosEntrega.release();
+                    registrarLatencia(System.nanoTime() - inicio);
+                    // Un hueco libre: las filas aplazadas pueden volver a reclamarse
+                    senal.release();
+                }
+            });
+            lanzadas++;
+        }
+        return lanzadas;
+    }
+
+    /**
+     * Carril lleno: la fila vuelve a la tabla para el siguiente sondeo, sin
+     * gastar un intento
+     */
+    private void aplazar(EventoOutbox fila, Carril carril) {
+        transaccion.executeWithoutResult(s ->
+            repository.aplazar(fila.getId(), LocalDateTime.now().plus(intervaloMs, ChronoUnit.MILLIS)));
+        carril.aplazados.incrementAndGet();
+        aplazados.incrementAndGet();
+    }
+
+    private Carril carril(String tipoEvento) {
+        return carriles.computeIfAbsent(tipoEvento, tipo -> {
+            int limite = environment.getProperty("edulearn.outbox." + tipo + ".max-concurrentes",
+                Integer.class, maxConcurrentesPorTipo);
+            logger.info("📤 Carril del outbox para {} (max-concurrentes={})", tipo, limite);
+            return new Carril(Math.max(1, limite));
+        });
+    }
+
+    private void registrarLatencia(long latencia) {
+        entregasClave.incrementAndGet();
+        ultimaLatenciaNanos.set(latencia);
+        maxLatenciaNanos.accumulateAndGet(latencia, Math::max);
+        totalLatenciaNanos.addAndGet(latencia);
+    }
+
+    /**
+     * Entrega la fila y, si tiene clave de orden, las siguientes de su clave
+     * una a una (hasta un lote). Al primer fallo se detiene: la fila fallida
+     * (reprogramada) sigue pendiente y bloquea su clave hasta que se entregue
+     * o se dé por FALLIDO. Cada fila ocupa el carril de su tipo; si la
+     * siguiente es de un tipo con el carril lleno, se aplaza.
+     *
+     * @param carril carril de la primera fila, ya adquirido (se libera aquí)
+     */
+    private void entregarClave(EventoOutbox primera, Carril carril) {
+        EventoOutbox fila = primera;
+        try {
+            for (int entregadas = 0; fila != null; entregadas++) {
+                boolean entregada = entregarFila(fila);
+                if (entregada) {
+                    carril.entregados.incrementAndGet();
+                }
+                if (!entregada || fila.getClaveOrden() == null || entregadas + 1 >= tamanoLote) {
+                    return;
+                }
+                fila = reclamarSiguiente(fila.getClaveOrden());
+                if (fila != null) {
+                    Carril siguiente = carril(fila.getTipoEvento());
+                    if (siguiente != carril) {
+                        if (!siguiente.permisos.tryAcquire()) {
+                            aplazar(fila, siguiente);
+                            return;
+                        }
+                        carril.permisos.release();
+                        carril = siguiente;
+                    }
+                }
+            }
+        } finally {
+            carril.permisos.release();
+        }
+    }
+
+    private EventoOutbox reclamarSiguiente(String clave) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return transaccion.execute(s -> {
+            List<EventoOutbox> siguiente = repository.reclamarSiguiente(clave, ahora, PageRequest.of(0, 1));
+            if (siguiente.isEmpty()) {
+                return null;
+            }
+            siguiente.get(0).setProximoIntento(ahora.plusSeconds(reservaSegundos));
+            return siguiente.get(0);
+        });
+    }
+
+    private boolean entregarFila(EventoOutbox fila) {
+        Set<String> recibidos = new LinkedHashSet<>();
+        if (fila.getListenersEntregados() != null && !fila.getListenersEntregados().isBlank()) {
+            recibidos.addAll(Arrays.asList(fila.getListenersEntregados().split("\n")));
+        }
+
+        EventoDominio evento;
+        try {
+            evento = deserializar(fila);
+        } catch (Exception e) {
+            // Un payload ilegible no se arregla reintentando
+            marcarFallo(fila, FALLIDO, LocalDateTime.now(), recibidos, "payload: " + e.getMessage());
+            fallidos.incrementAndGet();
+            logger.error("❌ Evento {} del outbox no se puede leer: {}", fila.getId(), e.getMessage());
+            return false;
+        }
+        evento.setClaveIdempotencia(fila.getClaveIdempotencia());
+
+        String error = bus.entregar(evento, recibidos);
+        if (error == null) {
+            transaccion.executeWithoutResult(s ->
+                repository.marcarEntregado(fila.getId(), LocalDateTime.now(), String.join("\n", recibidos)));
+            entregados.incrementAndGet();
+            return true;
+        }
+
+        int intento = fila.getIntentos() + 1;
+        if (intento >= maxIntentos) {
+            marcarFallo(fila, FALLIDO, LocalDateTime.now(), recibidos, error);
+            fallidos.incrementAndGet();
+            logger.error("❌ Evento {} ({}) FALLIDO tras {} intentos: {}",
+                fila.getId(), fila.getTipoEvento(), intento, error);
+        } else {
+            long espera = Math.min(reintentoBaseSegundos << Math.min(intento - 1, 20), reintentoMaxSegundos);
+            marcarFallo(fila, PENDIENTE, LocalDateTime.now().plusSeconds(espera), recibidos, error);
+            reintentos.incrementAndGet();
+            logger.warn("⚠️ Evento {} ({}) falló (intento {}), reintento en {}s: {}",
+                fila.getId(), fila.getTipoEvento(), intento, espera, error);
+        }
+        return false;
+    }
+
+    private void marcarFallo(EventoOutbox fila, String estado, LocalDateTime proximo,
+                             Set<String> recibidos, String error) {
+        String mensaje = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        transaccion.executeWithoutResult(s -> repository.registrarFallo(
+            fila.getId(), estado, proximo, String.join("\n", recibidos), mensaje));
+    }
+
+    private void compactarSiCorresponde() {
+        long ahora = System.currentTimeMillis();
+        if (ahora < proximaCompactacion) {
+            return;
+        }
+        proximaCompactacion = ahora + TimeUnit.HOURS.toMillis(1);
+
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencionHoras);
+        long borrados = 0;
+        List<Long> ids;
+        do {
+            ids = repository.findIdsEntregadosAntesDe(limite, PageRequest.of(0, LOTE_COMPACTACION));
+            if (!ids.isEmpty()) {
+                List<Long> lote = ids;
+                transaccion.executeWithoutResult(s -> repository.deleteAllByIdInBatch(lote));
+                borrados += lote.size();
+            }
+        } while (ids.size() == LOTE_COMPACTACION && activo);
+
+        if (borrados > 0) {
+            compactados.addAndGet(borrados);
+            logger.info("🧹 Outbox compactado: {} eventos entregados eliminados", borrados);
+        }
+    }
+
+    // ========== Formato del payload ==========
+
+    private String serializar(EventoDominio evento) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        switch (evento) {
+            case CourseCreatedEvent e -> {
+                datos.put("curso", e.getCurso());
+                datos.put("creadorId", e.getCreadorId());
+                datos.put("creadorNombre", e.getCreadorNombre());
+            }
+            case MaterialUploadedEvent e -> {
+                datos.put("material", e.getMaterial());
+                datos.put("cursoId", e.getCursoId());
+                datos.put("cursoNombre", e.getCursoNombre());
+                datos.put("profesorId", e.getProfesorId());
+            }
+            case AssignmentCreatedEvent e -> {
+                datos.put("tarea", e.getTarea());
+                datos.put("cursoId", e.getCursoId());
+                datos.put("cursoNombre", e.getCursoNombre());
+                datos.put("profesorId", e.getProfesorId());
+            }
+            case StudentEnrolledEvent e -> {
+                datos.put("inscripcion", e.getInscripcion());
+                datos.put("estudianteNombre", e.getEstudianteNombre());
+                datos.put("cursoNombre", e.getCursoNombre());
+            }
+            case AssignmentGradedEvent e -> {
+                datos.put("estudianteId", e.getEstudianteId());
+                datos.put("estudianteNombre", e.getEstudianteNombre());
+                datos.put("tareaId", e.getTareaId());
+                datos.put("tareaNombre", e.getTareaNombre());
+                datos.put("calificacion", e.getCalificacion());
+                datos.put("feedback", e.getFeedback());
+            }
+            default -> throw new IllegalArgumentException(
+                "Evento sin formato de outbox: " + evento.getClass().getSimpleName());
+        }
+        try {
+            return objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar " + evento + ": " + e.getMessage(), e);
+        }
+    }
+
+    private EventoDominio deserializar(EventoOutbox fila) throws JsonProcessingException {
+        JsonNode datos = objectMapper.readTree(fila.getPayload());
+        return switch (fila.getTipoEvento()) {
+            case "CourseCreatedEvent" -> new CourseCreatedEvent(this,
+                valor(datos, "curso", Curso.class),
+                valor(datos, "creadorId", Integer.class),
+                valor(datos, "creadorNombre", String.class));
+            case "MaterialUploadedEvent" -> new MaterialUploadedEvent(this,
+                valor(datos, "material", Material.class),
+                valor(datos, "cursoId", Integer.class),
+                valor(datos, "cursoNombre", String.class),
+                valor(datos, "profesorId", Integer.class));
+            case "AssignmentCreatedEvent" -> new AssignmentCreatedEvent(this,
+                valor(datos, "tarea", Evaluacion.class),
+                valor(datos, "cursoId", Integer.class),
+                valor(datos, "cursoNombre", String.class),
+                valor(datos, "profesorId", Integer.class));
+            case "StudentEnrolledEvent" -> new StudentEnrolledEvent(this,
+                valor(datos, "inscripcion", Inscripcion.class),
+                valor(datos, "estudianteNombre", String.class),
+                valor(datos, "cursoNombre", String.class));
+            case "AssignmentGradedEvent" -> new AssignmentGradedEvent(this,
+                valor(datos, "estudianteId", Integer.class),
+                valor(datos, "estudianteNombre", String.class),
+                valor(datos, "tareaId", Long.class),
+                valor(datos, "tareaNombre", String.class),
+                valor(datos, "calificacion", BigDecimal.class),
+                valor(datos, "feedback", String.class));
+            default -> throw new IllegalArgumentException("Tipo de evento desconocido: " + fila.getTipoEvento());
+        };
+    }
+
+    private <T> T valor(JsonNode datos, String campo, Class<T> tipo) throws JsonProcessingException {
+        JsonNode nodo = datos.get(campo);
+        return nodo == null || nodo.isNull() ? null : objectMapper.treeToValue(nodo, tipo);
+    }
+
+    /**
+     * Límite de entregas simultáneas de un tipo de evento
+     */
+    private static class Carril {
+        private final int limite;
+        private final Semaphore permisos;
+        private final AtomicLong entregados = new AtomicLong();
+        private final AtomicLong aplazados = new AtomicLong();
+
+        Carril(int limite) {
+            this.limite = limite;
+            this.permisos = new Semaphore(limite);
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.edulearn.model.Material;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -19,6 +18,10 @@ import java.math.BigDecimal;
  * Proporciona métodos convenientes para publicar eventos desde
  * los servicios de negocio.
  *
+ * Los eventos no se publican directamente: se guardan en el outbox
+ * (OutboxEventosDominio) dentro de la transacción del servicio, y se
+ * entregan a los listeners cuando esa transacción hace commit.
+ *
  * USO EN SERVICIOS:
  * En lugar de inyectar NotificationOrchestrator, los servicios
  * inyectan este SpringEventPublisher y publican eventos.
@@ -41,7 +44,7 @@ public class SpringEventPublisher {
     private static final Logger logger = LoggerFactory.getLogger(SpringEventPublisher.class);
 
     @Autowired
-    private ApplicationEventPublisher applicationEventPublisher;
+    private OutboxEventosDominio outbox;
 
     /**
      * Publicar evento de curso creado
@@ -56,7 +59,7 @@ public class SpringEventPublisher {
             creadorNombre
         );
 
-        applicationEventPublisher.publishEvent(event);
+        outbox.registrar(event);
     }
 
     /**
@@ -75,7 +78,7 @@ public class SpringEventPublisher {
             profesorId
         );
 
-        applicationEventPublisher.publishEvent(event);
+        outbox.registrar(event);
     }
 
     /**
@@ -94,7 +97,7 @@ public class SpringEventPublisher {
             profesorId
         );
 
-        applicationEventPublisher.publishEvent(event);
+        outbox.registrar(event);
     }
 
     /**
@@ -112,7 +115,7 @@ public class SpringEventPublisher {
             cursoNombre
         );
 
-        applicationEventPublisher.publishEvent(event);
+        outbox.registrar(event);
     }
 
     /**
@@ -134,6 +137,6 @@ public class SpringEventPublisher {
             feedback
         );
 
-        applicationEventPublisher.publishEvent(event);
+        outbox.registrar(event);
     }
 }
@@ -1,14 +1,13 @@
 package com.edulearn.patterns.comportamiento.observer.events;
 
 import com.edulearn.model.Inscripcion;
-import org.springframework.context.ApplicationEvent;
 
 /**
  * SPRING EVENTS - Evento de Estudiante Inscrito
  * =============================================
  * Evento publicado cuando un estudiante se inscribe en un curso.
  */
-public class StudentEnrolledEvent extends ApplicationEvent {
+public class StudentEnrolledEvent extends EventoDominio {
 
     private final Inscripcion inscripcion;
     private final String estudianteNombre;
@@ -34,6 +33,11 @@ public class StudentEnrolledEvent extends ApplicationEvent {
         return cursoNombre;
     }
 
+    @Override
+    public String getClaveOrden() {
+        return claveCurso(inscripcion.getCursoId());
+    }
+
     @Override
     public String toString() {
         return String.format("StudentEnrolledEvent{estudiante='%s', curso='%s'}",
@@ -7,7 +7,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
@@ -27,44 +26,36 @@ public class AssignmentEventListener {
      * Escucha evento de tarea creada y notifica a estudiantes
      */
     @EventListener
-    @Async
     public void handleAssignmentCreated(AssignmentCreatedEvent event) {
         logger.info("Procesando evento: {}", event);
 
-        try {
-            notificationOrchestrator.notifyAssignmentCreated(
-                event.getTarea(),
-                event.getCursoId(),
-                event.getCursoNombre()
-            );
+        notificationOrchestrator.notifyAssignmentCreated(
+            event.getTarea(),
+            event.getCursoId(),
+            event.getCursoNombre(),
+            event.getClaveIdempotencia()
+        );
 
-            logger.info("Notificaciones de tarea creada enviadas exitosamente");
-        } catch (Exception e) {
-            logger.error("Error al procesar evento de tarea creada: {}", e.getMessage(), e);
-        }
+        logger.info("Notificaciones de tarea creada enviadas exitosamente");
     }
 
     /**
      * Escucha evento de tarea calificada y notifica al estudiante
      */
     @EventListener
-    @Async
     public void handleAssignmentGraded(AssignmentGradedEvent event) {
         logger.info("Procesando evento: {}", event);
 
-        try {
-            notificationOrchestrator.notifyAssignmentGraded(
-                event.getEstudianteId(),
-                event.getEstudianteNombre(),
-                event.getTareaId(),
-                event.getTareaNombre(),
-                event.getCalificacion(),
-                event.getFeedback()
-            );
-
-            logger.info("Notificación de tarea calificada enviada exitosamente");
-        } catch (Exception e) {
-            logger.error("Error al procesar evento de tarea calificada: {}", e.getMessage(), e);
-        }
+        notificationOrchestrator.notifyAssignmentGraded(
+            event.getEstudianteId(),
+            event.getEstudianteNombre(),
+            event.getTareaId(),
+            event.getTareaNombre(),
+            event.getCalificacion(),
+            event.getFeedback(),
+            event.getClaveIdempotencia()
+        );
+
+        logger.info("Notificación de tarea calificada enviada exitosamente");
     }
 }
@@ -7,7 +7,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
@@ -17,9 +16,11 @@ import org.springframework.stereotype.Component;
  * Actúa como "Observer" en el patrón Observer usando Spring Events.
  *
  * Ventajas:
- * - Procesamiento asíncrono con @Async
+ * - Procesamiento asíncrono después del commit (OutboxEventosDominio)
  * - Desacoplamiento total del publicador
- * - Manejo de excepciones centralizado
+ * - Manejo de excepciones centralizado: los errores se propagan y el
+ *   outbox (OutboxEventosDominio) reintenta la entrega; la clave de
+ *   idempotencia del evento evita notificar dos veces al mismo usuario
  * - Fácil testing y mockeo
  */
 @Component
@@ -34,38 +35,29 @@ public class CourseEventListener {
      * Escucha evento de curso creado y notifica a administradores
      */
     @EventListener
-    @Async // Procesamiento asíncrono para no bloquear el hilo principal
     public void handleCourseCreated(CourseCreatedEvent event) {
         logger.info("Procesando evento: {}", event);
 
-        try {
-            // Delegar al orquestador de notificaciones
-            notificationOrchestrator.notifyCourseCreated(event.getCurso());
+        // Delegar al orquestador de notificaciones
+        notificationOrchestrator.notifyCourseCreated(event.getCurso(), event.getClaveIdempotencia());
 
-            logger.info("Notificaciones de curso creado enviadas exitosamente");
-        } catch (Exception e) {
-            logger.error("Error al procesar evento de curso creado: {}", e.getMessage(), e);
-        }
+        logger.info("Notificaciones de curso creado enviadas exitosamente");
     }
 
     /**
      * Escucha evento de material subido y notifica a estudiantes
      */
     @EventListener
-    @Async
     public void handleMaterialUploaded(MaterialUploadedEvent event) {
         logger.info("Procesando evento: {}", event);
 
-        try {
-            notificationOrchestrator.notifyMaterialUploaded(
-                event.getMaterial(),
-                event.getCursoId(),
-                event.getCursoNombre()
-            );
+        notificationOrchestrator.notifyMaterialUploaded(
+            event.getMaterial(),
+            event.getCursoId(),
+            event.getCursoNombre(),
+            event.getClaveIdempotencia()
+        );
 
-            logger.info("Notificaciones de material subido enviadas exitosamente");
-        } catch (Exception e) {
-            logger.error("Error al procesar evento de material subido: {}", e.getMessage(), e);
-        }
+        logger.info("Notificaciones de material subido enviadas exitosamente");
     }
 }
@@ -6,13 +6,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
  * SPRING EVENTS - Listener para Eventos de Inscripción
  * ===================================================
  * Event Listener que maneja eventos relacionados con inscripciones.
+ *
+ * Cada método hace un solo efecto: el outbox registra qué listeners ya
+ * recibieron el evento y, si uno falla, el reintento solo repite ese.
  */
 @Component
 public class EnrollmentEventListener {
@@ -24,31 +26,34 @@ public class EnrollmentEventListener {
 
     /**
      * Escucha evento de estudiante inscrito y notifica al profesor
-     * También suscribe al estudiante a las notificaciones del curso
      */
     @EventListener
-    @Async
     public void handleStudentEnrolled(StudentEnrolledEvent event) {
         logger.info("Procesando evento: {}", event);
 
-        try {
-            // 1. Notificar al profesor
-            notificationOrchestrator.notifyStudentEnrolled(
-                event.getInscripcion(),
-                event.getEstudianteNombre(),
-                event.getCursoNombre()
-            );
-
-            // 2. Suscribir al estudiante a las notificaciones del curso
-            notificationOrchestrator.subscribeStudentToCourse(
-                event.getInscripcion().getEstudianteId(),
-                event.getEstudianteNombre(),
-                event.getInscripcion().getCursoId()
-            );
-
-            logger.info("Notificación de inscripción enviada y estudiante suscrito al curso");
-        } catch (Exception e) {
-            logger.error("Error al procesar evento de inscripción: {}", e.getMessage(), e);
-        }
+        notificationOrchestrator.notifyStudentEnrolled(
+            event.getInscripcion(),
+            event.getEstudianteNombre(),
+            event.getCursoNombre(),
+            event.getClaveIdempotencia()
+        );
+
+        logger.info("Notificación de inscripción enviada al profesor");
+    }
+
+    /**
+     * Suscribe al estudiante inscrito a las notificaciones del curso
+     * (idempotente: suscribirlo de nuevo no cambia nada)
+     */
+    @EventListener
+    public void subscribeEnrolledStudent(StudentEnrolledEvent event) {
+        notificationOrchestrator.subscribeStudentToCourse(
+            event.getInscripcion().getEstudianteId(),
+            event.getEstudianteNombre(),
+            event.getInscripcion().getCursoId()
+        );
+
+        logger.info("Estudiante {} suscrito al curso {}",
+            event.getInscripcion().getEstudianteId(), event.getInscripcion().getCursoId());
     }
 }
@@ -0,0 +1,97 @@
+package com.edulearn.patterns.comportamiento.template_method;
+
+import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoPaso;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado de una ejecución del proceso de inscripción
+ *
+ * Cada llamada a ProcesoInscripcionTemplate.procesarInscripcion crea su
+ * propio contexto, de modo que los procesos (beans singleton compartidos)
+ * no guardan estado entre solicitudes y pueden atender inscripciones
+ * concurrentes. El contexto no se comparte entre hilos.
+ */
+public final class ContextoInscripcion {
+
+    private final String modalidad;
+    private final boolean incluirTiempos;
+    private final List<ResultadoPaso> pasos = new ArrayList<>();
+    private final Map<String, Long> tiemposNanos = new LinkedHashMap<>();
+    private final LocalDateTime fechaInicio;
+    private final long inicioNanos;
+    private LocalDateTime fechaFin;
+    private long duracionNanos;
+
+    ContextoInscripcion(String modalidad, boolean incluirTiempos) {
+        this.modalidad = modalidad;
+        this.incluirTiempos = incluirTiempos;
+        this.fechaInicio = LocalDateTime.now();
+        this.inicioNanos = System.nanoTime();
+    }
+
+    void agregarPaso(ResultadoPaso paso) {
+        pasos.add(paso);
+    }
+
+    void registrarTiempo(String paso, long nanos) {
+        tiemposNanos.put(paso, nanos);
+    }
+
+    void finalizar() {
+        this.fechaFin = LocalDateTime.now();
+        this.duracionNanos = System.nanoTime() - inicioNanos;
+    }
+
+    /**
+     * Copia de los pasos ejecutados hasta el momento
+     */
+    public List<ResultadoPaso> getPasos() {
+        return new ArrayList<>(pasos);
+    }
+
+    public int getCantidadPasos() {
+        return pasos.size();
+    }
+
+    /**
+     * Pasos y fases cronometrados hasta el momento
+     */
+    public int getCantidadTiempos() {
+        return tiemposNanos.size();
+    }
+
+    /**
+     * Duración de cada paso (y fase del servicio) ejecutado, en milisegundos con decimales
+     */
+    public Map<String, Double> getTiemposMs() {
+        Map<String, Double> tiempos = new LinkedHashMap<>();
+        tiemposNanos.forEach((paso, nanos) -> tiempos.put(paso, nanos / 1_000_000.0));
+        tiempos.put(MetricasPasosInscripcion.PROCESO_COMPLETO, duracionNanos / 1_000_000.0);
+        return tiempos;
+    }
+
+    public String getModalidad() {
+        return modalidad;
+    }
+
+    public boolean isIncluirTiempos() {
+        return incluirTiempos;
+    }
+
+    public LocalDateTime getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public LocalDateTime getFechaFin() {
+        return fechaFin;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Map;
  * - GET /api/inscripciones/proceso/demo - Demo del patrón
  * - GET /api/inscripciones/proceso/cursos-disponibles - Cursos para inscripción
  * - GET /api/inscripciones/proceso/verificar/{estudianteId}/{cursoId} - Verificar elegibilidad
+ * - GET /api/inscripciones/proceso/metricas - Latencia por modalidad y paso (p50/p95/p99)
+ * - POST /api/inscripciones/proceso/metricas/reiniciar - Reiniciar los histogramas
  */
 @RestController
 @RequestMapping("/api/inscripciones/proceso")
@@ -66,6 +68,9 @@ public class InscripcionTemplateController {
      *   "codigoBeca": "BECA-2024-001",
      *   "porcentajeBeca": 100
      * }
+     *
+     * Con "incluirTiempos": true el resultado trae en detalles.tiemposPasosMs
+     * la duración de cada paso.
      */
     @PostMapping
     public ResponseEntity<ResultadoInscripcion> procesarInscripcion(
@@ -135,6 +140,26 @@ public class InscripcionTemplateController {
         return ResponseEntity.ok(inscripcionService.verificarElegibilidad(estudianteId, cursoId));
     }
     
+    /**
+     * Histogramas de latencia de cada paso del template, por modalidad
+     */
+    @GetMapping("/metricas")
+    public ResponseEntity<Map<String, Object>> getMetricasPasos() {
+        return ResponseEntity.ok(inscripcionService.getMetricasPasos());
+    }
+    
+    /**
+     * Reinicia los histogramas (por ejemplo, antes de una prueba de carga)
+     */
+    @PostMapping("/metricas/reiniciar")
+    public ResponseEntity<Map<String, Object>> reiniciarMetricasPasos() {
+        inscripcionService.reiniciarMetricasPasos();
+        return ResponseEntity.ok(Map.of(
+            "exitoso", true,
+            "mensaje", "Métricas de pasos reiniciadas"
+        ));
+    }
+    
     /**
      * Endpoint de salud/prueba
      */
@@ -3,6 +3,7 @@ package com.edulearn.patterns.comportamiento.template_method;
 import com.edulearn.model.Curso;
 import com.edulearn.model.Estudiante;
 import com.edulearn.model.Inscripcion;
+import com.edulearn.model.ReservaCupo;
 import com.edulearn.patterns.comportamiento.observer.NotificationEvent;
 import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
 import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoInscripcion;
@@ -10,11 +11,14 @@ import com.edulearn.patterns.comportamiento.template_method.dto.SolicitudInscrip
 import com.edulearn.repository.CursoRepository;
 import com.edulearn.repository.EstudianteRepository;
 import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.service.InventarioCuposService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -35,6 +39,9 @@ public class InscripcionTemplateService {
     private final CursoRepository cursoRepository;
     private final InscripcionRepository inscripcionRepository;
     private final NotificationOrchestrator notificationOrchestrator;
+    private final InventarioCuposService inventarioCupos;
+    private final MetricasPasosInscripcion metricasPasos;
+    private final TransactionTemplate transaccion;
 
     @Autowired
     public InscripcionTemplateService(
@@ -44,23 +51,39 @@ public class InscripcionTemplateService {
             EstudianteRepository estudianteRepository,
             CursoRepository cursoRepository,
             InscripcionRepository inscripcionRepository,
-            NotificationOrchestrator notificationOrchestrator) {
+            NotificationOrchestrator notificationOrchestrator,
+            InventarioCuposService inventarioCupos,
+            MetricasPasosInscripcion metricasPasos,
+            PlatformTransactionManager transactionManager) {
 
-        this.procesosInscripcion = new HashMap<>();
-        this.procesosInscripcion.put("GRATUITA", inscripcionGratuita);
-        this.procesosInscripcion.put("PAGA", inscripcionPaga);
-        this.procesosInscripcion.put("BECA", inscripcionBeca);
+        // Mapa inmutable: los procesos son singletons sin estado y se comparten entre hilos
+        this.procesosInscripcion = Map.of(
+                "GRATUITA", inscripcionGratuita,
+                "PAGA", inscripcionPaga,
+                "BECA", inscripcionBeca);
 
         this.estudianteRepository = estudianteRepository;
         this.cursoRepository = cursoRepository;
         this.inscripcionRepository = inscripcionRepository;
         this.notificationOrchestrator = notificationOrchestrator;
+        this.inventarioCupos = inventarioCupos;
+        this.metricasPasos = metricasPasos;
+        this.transaccion = new TransactionTemplate(transactionManager);
     }
     
     /**
      * Procesa una solicitud de inscripción según el tipo especificado
+     *
+     * El cupo se reserva en el inventario (en su propia transacción corta)
+     * antes de ejecutar el proceso, que puede incluir el pago y no retiene
+     * ninguna conexión. La inscripción se guarda y el cupo se confirma juntos
+     * en otra transacción; si el proceso falla o no se puede guardar, el cupo
+     * se libera. Ningún paso pide una conexión mientras tiene otra tomada.
+     *
+     * La inserción y las notificaciones se cronometran como fases
+     * (guardarInscripcion, notificaciones) del mismo proceso completo que los
+     * pasos del template, en MetricasPasosInscripcion.
      */
-    @Transactional
     public ResultadoInscripcion procesarInscripcion(SolicitudInscripcion solicitud) {
         // Validar tipo de inscripción
         String tipo = solicitud.getTipoInscripcion();
@@ -109,47 +132,55 @@ public class InscripcionTemplateService {
         // Obtener el proceso de inscripción correspondiente
         ProcesoInscripcionTemplate proceso = procesosInscripcion.get(tipo.toUpperCase());
         
-        // Ejecutar el template method
-        ResultadoInscripcion resultado = proceso.procesarInscripcion(
-                estudianteOpt.get(), 
-                cursoOpt.get(), 
-                solicitud);
-        
-        // Si fue exitoso, persistir la inscripción con todos los datos
-        if (resultado.isExitoso()) {
-            Inscripcion inscripcion = new Inscripcion();
-            inscripcion.setEstudianteId(solicitud.getEstudianteId());
-            inscripcion.setCursoId(solicitud.getCursoId());
-            inscripcion.setFechaInscripcion(LocalDate.now());
-
-            // Datos del Template Method
-            inscripcion.setModalidad(proceso.getTipoInscripcion());
-            inscripcion.setEstadoInscripcion(proceso.getEstadoInscripcion());
-            inscripcion.setCertificadoGarantizado(proceso.tieneCertificadoGarantizado());
+        // Apartar el cupo antes de procesar (pago, documentación)
+        ReservaCupo reserva = inventarioCupos.reservar(solicitud.getCursoId(), solicitud.getEstudianteId());
+        if (reserva == null) {
+            ResultadoInscripcion resultado = new ResultadoInscripcion();
+            resultado.setExitoso(false);
+            resultado.setEstado("FALLIDA");
+            resultado.setMensaje("No hay cupos disponibles en el curso '" + cursoOpt.get().getNombre() +
+                               "'. Puede anotarse en la lista de espera (POST /api/inscripciones/lista-espera)");
+            return resultado;
+        }
 
-            // Datos específicos según modalidad
-            if ("PAGA".equals(tipo.toUpperCase())) {
-                inscripcion.setMetodoPago(solicitud.getMetodoPago());
-                inscripcion.setMontoPagado(new java.math.BigDecimal("500.00"));
+        // Ejecutar el template method. El contexto lo cierra este servicio para
+        // que el proceso completo incluya la inserción y las notificaciones
+        ContextoInscripcion contexto = proceso.nuevoContexto(solicitud);
+        ResultadoInscripcion resultado;
+        try {
+            resultado = proceso.ejecutarPasos(
+                    estudianteOpt.get(),
+                    cursoOpt.get(),
+                    solicitud,
+                    contexto);
+        } catch (RuntimeException e) {
+            inventarioCupos.liberar(reserva);
+            throw e;
+        }
 
-                // Extraer transacción ID de los pasos del resultado
-                resultado.getPasos().stream()
-                    .filter(paso -> paso.getDetalles() != null && paso.getDetalles().containsKey("transaccionId"))
-                    .findFirst()
-                    .ifPresent(paso -> inscripcion.setTransaccionId((String) paso.getDetalles().get("transaccionId")));
+        try {
+            if (!resultado.isExitoso()) {
+                inventarioCupos.liberar(reserva);
+                return resultado;
             }
 
-            if ("BECA".equals(tipo.toUpperCase())) {
-                inscripcion.setTipoBeca(solicitud.getTipoBeca());
-                inscripcion.setCodigoBeca(solicitud.getCodigoBeca());
-                inscripcion.setMontoPagado(java.math.BigDecimal.ZERO); // Becas no pagan
+            // Persistir la inscripción con todos los datos
+            Inscripcion guardada;
+            try {
+                guardada = proceso.medirFase(contexto, MetricasPasosInscripcion.FASE_GUARDAR,
+                        () -> transaccion.execute(estado -> guardarInscripcion(solicitud, proceso, resultado, reserva, estado)));
+            } catch (RuntimeException e) {
+                inventarioCupos.liberar(reserva);
+                resultado.setExitoso(false);
+                throw e;
             }
-
-            if ("GRATUITA".equals(tipo.toUpperCase())) {
-                inscripcion.setMontoPagado(java.math.BigDecimal.ZERO); // Sin costo
+            if (guardada == null) {
+                resultado.setExitoso(false);
+                resultado.setEstado("FALLIDA");
+                resultado.setMensaje("La reserva del cupo venció antes de completar la inscripción");
+                return resultado;
             }
 
-            Inscripcion guardada = inscripcionRepository.save(inscripcion);
             resultado.setNumeroInscripcion("INS-" + guardada.getId());
             resultado.agregarDetalle("inscripcionId", String.valueOf(guardada.getId()));
             resultado.agregarDetalle("modalidad", guardada.getModalidad());
@@ -157,56 +188,124 @@ public class InscripcionTemplateService {
             resultado.agregarDetalle("certificadoGarantizado", String.valueOf(guardada.getCertificadoGarantizado()));
 
             // 📧 ENVIAR NOTIFICACIONES según el tipo de inscripción
-            try {
-                Estudiante estudiante = estudianteOpt.get();
-                Curso curso = cursoOpt.get();
-                String estudianteNombre = estudiante.getNombre() + " " + estudiante.getApellidos();
+            proceso.medirFase(contexto, MetricasPasosInscripcion.FASE_NOTIFICACIONES,
+                    () -> enviarNotificaciones(tipo.toUpperCase(), estudianteOpt.get(), cursoOpt.get(), guardada));
+            return resultado;
+        } finally {
+            proceso.cerrar(contexto, resultado);
+        }
+    }
+
+    /**
+     * Notifica la inscripción guardada: a los administradores si es una beca,
+     * y al profesor (suscribiendo al estudiante al curso) si quedó activa
+     *
+     * @return false si alguna notificación falló (no interrumpe la inscripción)
+     */
+    private boolean enviarNotificaciones(String tipo, Estudiante estudiante, Curso curso, Inscripcion guardada) {
+        try {
+            String estudianteNombre = estudiante.getNombre() + " " + estudiante.getApellidos();
 
-                // Si es BECA, notificar a ADMINISTRADORES
-                if ("BECA".equals(tipo.toUpperCase())) {
-                    NotificationEvent event = new NotificationEvent.Builder()
-                        .eventType(NotificationEvent.EventType.BECA_SOLICITADA)
-                        .title("Nueva Solicitud de Beca")
-                        .message(String.format("El estudiante %s ha solicitado una beca para el curso '%s' (Tipo: %s)",
-                            estudianteNombre, curso.getNombre(), guardada.getTipoBeca()))
-                        .sourceUserId(guardada.getEstudianteId())
-                        .targetId(guardada.getCursoId())
-                        .targetType("INSCRIPCION")
-                        .addMetadata("inscripcionId", guardada.getId())
-                        .addMetadata("tipoBeca", guardada.getTipoBeca())
-                        .addMetadata("codigoBeca", guardada.getCodigoBeca())
-                        .build();
+            // Si es BECA, notificar a ADMINISTRADORES
+            if ("BECA".equals(tipo)) {
+                NotificationEvent event = new NotificationEvent.Builder()
+                    .eventType(NotificationEvent.EventType.BECA_SOLICITADA)
+                    .title("Nueva Solicitud de Beca")
+                    .message(String.format("El estudiante %s ha solicitado una beca para el curso '%s' (Tipo: %s)",
+                        estudianteNombre, curso.getNombre(), guardada.getTipoBeca()))
+                    .sourceUserId(guardada.getEstudianteId())
+                    .targetId(guardada.getCursoId())
+                    .targetType("INSCRIPCION")
+                    .addMetadata("inscripcionId", guardada.getId())
+                    .addMetadata("tipoBeca", guardada.getTipoBeca())
+                    .addMetadata("codigoBeca", guardada.getCodigoBeca())
+                    .build();
 
-                    notificationOrchestrator.notifyRoleObservers("admin", event);
-                    logger.info("📧 Notificación de solicitud de beca enviada a administradores - Inscripción ID: {}", guardada.getId());
-                }
+                notificationOrchestrator.notifyRoleObservers("admin", event);
+                logger.info("📧 Notificación de solicitud de beca enviada a administradores - Inscripción ID: {}", guardada.getId());
+            }
 
-                // Si es GRATUITA o inscripción activa, suscribir estudiante y notificar profesor
-                if ("Activa".equals(guardada.getEstadoInscripcion())) {
-                    // Suscribir estudiante al curso
-                    notificationOrchestrator.subscribeStudentToCourse(
-                        guardada.getEstudianteId(),
-                        estudianteNombre,
-                        guardada.getCursoId()
-                    );
+            // Si es GRATUITA o inscripción activa, suscribir estudiante y notificar profesor
+            if ("Activa".equals(guardada.getEstadoInscripcion())) {
+                // Suscribir estudiante al curso
+                notificationOrchestrator.subscribeStudentToCourse(
+                    guardada.getEstudianteId(),
+                    estudianteNombre,
+                    guardada.getCursoId()
+                );
 
-                    // Notificar al profesor
-                    notificationOrchestrator.notifyStudentEnrolled(
-                        guardada,
-                        estudianteNombre,
-                        curso.getNombre()
-                    );
+                // Notificar al profesor
+                notificationOrchestrator.notifyStudentEnrolled(
+                    guardada,
+                    estudianteNombre,
+                    curso.getNombre()
+                );
 
-                    logger.info("📧 Estudiante suscrito al curso y profesor notificado - Inscripción ID: {}", guardada.getId());
-                }
-            } catch (Exception e) {
-                logger.error("⚠️ Error al enviar notificaciones para inscripción: {}", e.getMessage());
+                logger.info("📧 Estudiante suscrito al curso y profesor notificado - Inscripción ID: {}", guardada.getId());
             }
+            return true;
+        } catch (Exception e) {
+            logger.error("⚠️ Error al enviar notificaciones para inscripción: {}", e.getMessage());
+            return false;
         }
-
-        return resultado;
     }
     
+    /**
+     * Guarda la inscripción y confirma (o deja pendiente) su cupo en la
+     * transacción en curso
+     *
+     * @return la inscripción guardada, o null si la reserva ya había vencido
+     *         (la transacción se marca para rollback)
+     */
+    private Inscripcion guardarInscripcion(SolicitudInscripcion solicitud, ProcesoInscripcionTemplate proceso,
+                                           ResultadoInscripcion resultado, ReservaCupo reserva,
+                                           TransactionStatus estado) {
+        String tipo = solicitud.getTipoInscripcion().toUpperCase();
+        Inscripcion inscripcion = new Inscripcion();
+        inscripcion.setEstudianteId(solicitud.getEstudianteId());
+        inscripcion.setCursoId(solicitud.getCursoId());
+        inscripcion.setFechaInscripcion(LocalDate.now());
+
+        // Datos del Template Method
+        inscripcion.setModalidad(proceso.getTipoInscripcion());
+        inscripcion.setEstadoInscripcion(proceso.getEstadoInscripcion());
+        inscripcion.setCertificadoGarantizado(proceso.tieneCertificadoGarantizado());
+
+        // Datos específicos según modalidad
+        if ("PAGA".equals(tipo)) {
+            inscripcion.setMetodoPago(solicitud.getMetodoPago());
+            inscripcion.setMontoPagado(new java.math.BigDecimal("500.00"));
+
+            // Extraer transacción ID de los pasos del resultado
+            resultado.getPasos().stream()
+                .filter(paso -> paso.getDetalles() != null && paso.getDetalles().containsKey("transaccionId"))
+                .findFirst()
+                .ifPresent(paso -> inscripcion.setTransaccionId((String) paso.getDetalles().get("transaccionId")));
+        }
+
+        if ("BECA".equals(tipo)) {
+            inscripcion.setTipoBeca(solicitud.getTipoBeca());
+            inscripcion.setCodigoBeca(solicitud.getCodigoBeca());
+            inscripcion.setMontoPagado(java.math.BigDecimal.ZERO); // Becas no pagan
+        }
+
+        if ("GRATUITA".equals(tipo)) {
+            inscripcion.setMontoPagado(java.math.BigDecimal.ZERO); // Sin costo
+        }
+
+        Inscripcion guardada = inscripcionRepository.save(inscripcion);
+
+        // Activa: el cupo queda confirmado. Pendiente (beca): se guarda hasta su aprobación
+        boolean cupoAsignado = "Activa".equals(guardada.getEstadoInscripcion())
+                ? inventarioCupos.confirmar(reserva, guardada.getId())
+                : inventarioCupos.mantenerPendiente(reserva, guardada.getId());
+        if (!cupoAsignado) {
+            estado.setRollbackOnly();
+            return null;
+        }
+        return guardada;
+    }
+
     /**
      * Obtiene información sobre los tipos de inscripción disponibles
      */
@@ -235,6 +334,18 @@ public class InscripcionTemplateService {
         return proceso.getPasosEspecificos();
     }
     
+    /**
+     * Histogramas de latencia (p50/p95/p99) por modalidad y paso del proceso
+     */
+    public Map<String, Object> getMetricasPasos() {
+        return metricasPasos.obtenerMetricas();
+    }
+
+    public void reiniciarMetricasPasos() {
+        metricasPasos.reiniciar();
+        logger.info("📊 Métricas de pasos de inscripción reiniciadas");
+    }
+
     /**
      * Información de demostración del patrón
      */
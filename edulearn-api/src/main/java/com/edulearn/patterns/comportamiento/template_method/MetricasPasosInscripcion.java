@@ -0,0 +1,177 @@
+package com.edulearn.patterns.comportamiento.template_method;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramas de latencia de los pasos del proceso de inscripción
+ *
+ * ProcesoInscripcionTemplate mide cada paso con System.nanoTime() y lo
+ * registra aquí, agrupado por modalidad (GRATUITA, PAGA, BECA) y paso.
+ * Cuando la inscripción llega por InscripcionTemplateService se miden además
+ * las fases reales posteriores a los pasos, "guardarInscripcion" (inserción
+ * y confirmación del cupo en su transacción) y "notificaciones", y ambas
+ * quedan incluidas en "procesoCompleto".
+ * Cada histograma usa cubetas logarítmicas fijas (8 por potencia de dos,
+ * en microsegundos), así que registrar una muestra son unos pocos
+ * incrementos atómicos sin bloqueos y los percentiles p50/p95/p99 se
+ * calculan al consultar, con un error máximo de ~12%.
+ */
+@Component
+public class MetricasPasosInscripcion {
+
+    /** Paso artificial que mide el proceso completo */
+    public static final String PROCESO_COMPLETO = "procesoCompleto";
+
+    /** Fases de InscripcionTemplateService posteriores a los pasos del template */
+    public static final String FASE_GUARDAR = "guardarInscripcion";
+    public static final String FASE_NOTIFICACIONES = "notificaciones";
+
+    @Value("${edulearn.inscripciones.metricas-pasos.habilitadas:true}")
+    private boolean habilitadas;
+
+    private final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+
+    /**
+     * Registra la duración de un paso; {@code orden} solo se usa para ordenar la salida
+     */
+    public void registrar(String modalidad, int orden, String paso, long nanos, boolean exitoso) {
+        if (!habilitadas) {
+            return;
+        }
+        histogramas.computeIfAbsent(modalidad + "#" + paso, k -> new Histograma(modalidad, orden, paso))
+            .registrar(nanos, exitoso);
+    }
+
+    public boolean isHabilitadas() {
+        return habilitadas;
+    }
+
+    public void reiniciar() {
+        histogramas.clear();
+    }
+
+    /**
+     * Percentiles por modalidad y paso, en el orden en que se ejecutan los pasos
+     */
+    public Map<String, Object> obtenerMetricas() {
+        List<Histograma> ordenados = new ArrayList<>(histogramas.values());
+        ordenados.sort(Comparator.comparingInt((Histograma h) -> h.orden));
+
+        Map<String, List<Map<String, Object>>> porModalidad = new TreeMap<>();
+        for (Histograma histograma : ordenados) {
+            porModalidad.computeIfAbsent(histograma.modalidad, k -> new ArrayList<>()).add(histograma.resumen());
+        }
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitadas", habilitadas);
+        metricas.put("modalidades", porModalidad);
+        return metricas;
+    }
+
+    // ========== Histograma ==========
+
+    private static class Histograma {
+
+        // 8 cubetas exactas para 0-7 µs y 8 por cada potencia de dos a partir de ahí
+        private static final int SUBCUBETAS = 8;
+        private static final int CUBETAS = (63 - 2) * SUBCUBETAS;
+
+        private final String modalidad;
+        private final int orden;
+        private final String paso;
+
+        private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+        private final LongAdder muestras = new LongAdder();
+        private final LongAdder fallidos = new LongAdder();
+        private final LongAdder tiempoTotalNanos = new LongAdder();
+        private final AtomicLong tiempoMaximoNanos = new AtomicLong();
+
+        Histograma(String modalidad, int orden, String paso) {
+            this.modalidad = modalidad;
+            this.orden = orden;
+            this.paso = paso;
+        }
+
+        void registrar(long nanos, boolean exitoso) {
+            nanos = Math.max(0, nanos);
+            cubetas.incrementAndGet(indice(nanos / 1_000));
+            muestras.increment();
+            tiempoTotalNanos.add(nanos);
+            tiempoMaximoNanos.accumulateAndGet(nanos, Math::max);
+            if (!exitoso) {
+                fallidos.increment();
+            }
+        }
+
+        Map<String, Object> resumen() {
+            long[] copia = new long[CUBETAS];
+            long total = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                copia[i] = cubetas.get(i);
+                total += copia[i];
+            }
+            long maximoNanos = tiempoMaximoNanos.get();
+            long cantidad = muestras.sum();
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("paso", paso);
+            m.put("orden", orden);
+            m.put("muestras", cantidad);
+            m.put("fallidos", fallidos.sum());
+            m.put("mediaMs", cantidad > 0 ? tiempoTotalNanos.sum() / cantidad / 1_000_000.0 : 0.0);
+            m.put("p50Ms", percentil(copia, total, 0.50, maximoNanos));
+            m.put("p95Ms", percentil(copia, total, 0.95, maximoNanos));
+            m.put("p99Ms", percentil(copia, total, 0.99, maximoNanos));
+            m.put("maximoMs", maximoNanos / 1_000_000.0);
+            return m;
+        }
+
+        /**
+         * Límite superior de la cubeta que contiene el percentil (acotado al máximo observado)
+         */
+        private static double percentil(long[] cubetas, long total, double q, long maximoNanos) {
+            if (total == 0) {
+                return 0.0;
+            }
+            long objetivo = (long) Math.ceil(q * total);
+            long acumulado = 0;
+            for (int i = 0; i < cubetas.length; i++) {
+                acumulado += cubetas[i];
+                if (acumulado >= objetivo) {
+                    return Math.min(limiteSuperiorMicros(i) * 1_000, maximoNanos) / 1_000_000.0;
+                }
+            }
+            return maximoNanos / 1_000_000.0;
+        }
+
+        private static int indice(long micros) {
+            if (micros < SUBCUBETAS) {
+                return (int) micros;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exponente - 3)) & (SUBCUBETAS - 1);
+            return (exponente - 2) * SUBCUBETAS + sub;
+        }
+
+        private static long limiteSuperiorMicros(int indice) {
+            if (indice < SUBCUBETAS) {
+                return indice + 1;
+            }
+            int exponente = indice / SUBCUBETAS + 2;
+            int sub = indice % SUBCUBETAS;
+            return (long) (SUBCUBETAS + sub + 1) << (exponente - 3);
+        }
+    }
+}
@@ -6,9 +6,11 @@ import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoInscrip
 import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoPaso;
 import com.edulearn.patterns.comportamiento.template_method.dto.SolicitudInscripcion;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Template Method Pattern - Plantilla abstracta para el proceso de inscripción
@@ -22,11 +24,13 @@ import java.util.List;
  *            que los pasos específicos varíen según el tipo de inscripción
  */
 public abstract class ProcesoInscripcionTemplate {
-    
-    protected List<ResultadoPaso> pasos = new ArrayList<>();
-    protected LocalDateTime fechaInicio;
-    protected LocalDateTime fechaFin;
-    
+
+    // Las subclases son beans singleton compartidos entre solicitudes: el
+    // estado de cada ejecución vive en un ContextoInscripcion, nunca en campos.
+
+    @Autowired(required = false)
+    private MetricasPasosInscripcion metricasPasos;
+
     /**
      * TEMPLATE METHOD - Define el esqueleto del algoritmo de inscripción
      * Este método es final para evitar que las subclases cambien la estructura
@@ -38,76 +42,90 @@ public abstract class ProcesoInscripcionTemplate {
      * Pasos Variables (implementados por cada modalidad):
      * - realizarValidacionEspecifica(): Lógica única de cada modalidad
      * - otorgarBeneficiosAdicionales(): Beneficios específicos por modalidad
+     *
+     * Es seguro llamarlo desde varios hilos a la vez sobre la misma instancia:
+     * los pasos y las fechas de cada ejecución se acumulan en su propio contexto.
+     *
+     * Cada paso se cronometra con System.nanoTime(); la duración queda en el
+     * ResultadoPaso y en los histogramas de MetricasPasosInscripcion.
      */
     public final ResultadoInscripcion procesarInscripcion(
             Estudiante estudiante,
             Curso curso,
             SolicitudInscripcion solicitud) {
 
-        fechaInicio = LocalDateTime.now();
-        pasos.clear();
+        ContextoInscripcion contexto = nuevoContexto(solicitud);
+        ResultadoInscripcion resultado = ejecutarPasos(estudiante, curso, solicitud, contexto);
+        cerrar(contexto, resultado);
+        return resultado;
+    }
+
+    /**
+     * Ejecuta los pasos sobre un contexto del llamador, sin cerrarlo
+     *
+     * InscripcionTemplateService lo usa para medir, dentro del mismo proceso
+     * completo, las fases que hace después de los pasos (guardar la
+     * inscripción y notificar) con medirFase, y cierra él el contexto.
+     */
+    final ResultadoInscripcion ejecutarPasos(
+            Estudiante estudiante,
+            Curso curso,
+            SolicitudInscripcion solicitud,
+            ContextoInscripcion contexto) {
 
         ResultadoInscripcion resultado = new ResultadoInscripcion();
         resultado.setEstudianteId(estudiante.getId());
         resultado.setCursoId(curso.getId());
         resultado.setTipoInscripcion(getTipoInscripcion());
-        resultado.setFechaInicio(fechaInicio);
+        resultado.setFechaInicio(contexto.getFechaInicio());
 
         try {
             // PASO FIJO 1: Aceptar términos y condiciones (obligatorio para todos)
-            ResultadoPaso paso1 = aceptarTerminosYCondiciones(solicitud);
-            pasos.add(paso1);
+            ResultadoPaso paso1 = ejecutarPaso(contexto, "aceptarTerminosYCondiciones", () -> aceptarTerminosYCondiciones(solicitud));
             if (!paso1.isExitoso()) {
-                return finalizarConError(resultado, "Términos y condiciones no aceptados: " + paso1.getMensaje());
+                return finalizarConError(contexto, resultado, "Términos y condiciones no aceptados: " + paso1.getMensaje());
             }
 
             // Paso 2: Validar requisitos previos (común a todos)
-            ResultadoPaso paso2 = validarRequisitosPrevios(estudiante, curso);
-            pasos.add(paso2);
+            ResultadoPaso paso2 = ejecutarPaso(contexto, "validarRequisitosPrevios", () -> validarRequisitosPrevios(estudiante, curso));
             if (!paso2.isExitoso()) {
-                return finalizarConError(resultado, "Requisitos previos no cumplidos: " + paso2.getMensaje());
+                return finalizarConError(contexto, resultado, "Requisitos previos no cumplidos: " + paso2.getMensaje());
             }
 
             // Paso 3: Verificar disponibilidad (común a todos)
-            ResultadoPaso paso3 = verificarDisponibilidad(curso);
-            pasos.add(paso3);
+            ResultadoPaso paso3 = ejecutarPaso(contexto, "verificarDisponibilidad", () -> verificarDisponibilidad(curso));
             if (!paso3.isExitoso()) {
-                return finalizarConError(resultado, "Curso no disponible: " + paso3.getMensaje());
+                return finalizarConError(contexto, resultado, "Curso no disponible: " + paso3.getMensaje());
             }
 
             // PASO VARIABLE 1: Realizar validación específica de la modalidad
-            ResultadoPaso paso4 = realizarValidacionEspecifica(estudiante, curso, solicitud);
-            pasos.add(paso4);
+            ResultadoPaso paso4 = ejecutarPaso(contexto, "realizarValidacionEspecifica", () -> realizarValidacionEspecifica(estudiante, curso, solicitud));
             if (!paso4.isExitoso()) {
-                return finalizarConError(resultado, "Validación específica fallida: " + paso4.getMensaje());
+                return finalizarConError(contexto, resultado, "Validación específica fallida: " + paso4.getMensaje());
             }
 
             // PASO VARIABLE 2: Otorgar beneficios adicionales según modalidad (hook)
-            ResultadoPaso paso5 = otorgarBeneficiosAdicionales(estudiante, curso, solicitud);
-            pasos.add(paso5);
+            ResultadoPaso paso5 = ejecutarPaso(contexto, "otorgarBeneficiosAdicionales", () -> otorgarBeneficiosAdicionales(estudiante, curso, solicitud));
             // Los beneficios adicionales no bloquean el proceso
 
             // PASO FIJO 2: Registrar inscripción en la base de datos (obligatorio para todos)
-            ResultadoPaso paso6 = registrarInscripcionEnBD(estudiante, curso, solicitud, resultado);
-            pasos.add(paso6);
+            ResultadoPaso paso6 = ejecutarPaso(contexto, "registrarInscripcionEnBD", () -> registrarInscripcionEnBD(estudiante, curso, solicitud, resultado));
             if (!paso6.isExitoso()) {
-                return finalizarConError(resultado, "Error al registrar en BD: " + paso6.getMensaje());
+                return finalizarConError(contexto, resultado, "Error al registrar en BD: " + paso6.getMensaje());
             }
 
             // Paso 7: Enviar notificaciones (común a todos)
-            ResultadoPaso paso7 = enviarNotificaciones(estudiante, curso);
-            pasos.add(paso7);
+            ResultadoPaso paso7 = ejecutarPaso(contexto, "enviarNotificaciones", () -> enviarNotificaciones(estudiante, curso));
             // Las notificaciones no bloquean el proceso
 
             // Paso 8: Generar documentos de confirmación (común con detalles variables)
-            ResultadoPaso paso8 = generarDocumentos(estudiante, curso, solicitud);
-            pasos.add(paso8);
+            ResultadoPaso paso8 = ejecutarPaso(contexto, "generarDocumentos", () -> generarDocumentos(estudiante, curso, solicitud));
 
             // Finalizar exitosamente
-            return finalizarExitoso(resultado);
+            return finalizarExitoso(contexto, resultado);
 
         } catch (Exception e) {
-            return finalizarConError(resultado, "Error inesperado: " + e.getMessage());
+            return finalizarConError(contexto, resultado, "Error inesperado: " + e.getMessage());
         }
     }
     
@@ -138,6 +156,7 @@ public abstract class ProcesoInscripcionTemplate {
      * PASO FIJO 2: Registrar inscripción en la base de datos
      * Paso final que persiste la inscripción y su estado en la base de datos
      * Este método será implementado por el servicio que tiene acceso al repositorio
+     * (la inserción real se mide aparte como fase "guardarInscripcion")
      */
     protected ResultadoPaso registrarInscripcionEnBD(
             Estudiante estudiante,
@@ -225,6 +244,7 @@ public abstract class ProcesoInscripcionTemplate {
     
     /**
      * Envía notificaciones al estudiante
+     * (las del servicio se miden aparte como fase "notificaciones")
      */
     protected ResultadoPaso enviarNotificaciones(Estudiante estudiante, Curso curso) {
         ResultadoPaso paso = new ResultadoPaso("Envío de notificaciones");
@@ -292,26 +312,88 @@ public abstract class ProcesoInscripcionTemplate {
     
     
     // ==================== MÉTODOS AUXILIARES ====================
-    
-    private ResultadoInscripcion finalizarExitoso(ResultadoInscripcion resultado) {
-        fechaFin = LocalDateTime.now();
+
+    /**
+     * Ejecuta un paso midiendo su duración; si el paso lanza una excepción
+     * también se registra (como fallido) antes de propagarla
+     */
+    private ResultadoPaso ejecutarPaso(ContextoInscripcion contexto, String nombre, Supplier<ResultadoPaso> paso) {
+        int orden = contexto.getCantidadPasos() + 1;
+        long inicio = System.nanoTime();
+        ResultadoPaso resultado = null;
+        try {
+            resultado = paso.get();
+            return resultado;
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            boolean exitoso = resultado != null && resultado.isExitoso();
+            if (resultado != null) {
+                resultado.setOrden(orden);
+                resultado.setDuracionMs(nanos / 1_000_000);
+                contexto.agregarPaso(resultado);
+            }
+            contexto.registrarTiempo(nombre, nanos);
+            if (metricasPasos != null) {
+                metricasPasos.registrar(contexto.getModalidad(), orden, nombre, nanos, exitoso);
+            }
+        }
+    }
+
+    /**
+     * Mide una fase del llamador que no es un paso del template (no genera
+     * ResultadoPaso). Una fase que lanza una excepción o devuelve null o false
+     * se registra como fallida.
+     */
+    final <T> T medirFase(ContextoInscripcion contexto, String nombre, Supplier<T> fase) {
+        int orden = contexto.getCantidadTiempos() + 1;
+        long inicio = System.nanoTime();
+        T valor = null;
+        try {
+            valor = fase.get();
+            return valor;
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            boolean exitoso = valor != null && !Boolean.FALSE.equals(valor);
+            contexto.registrarTiempo(nombre, nanos);
+            if (metricasPasos != null) {
+                metricasPasos.registrar(contexto.getModalidad(), orden, nombre, nanos, exitoso);
+            }
+        }
+    }
+
+    final ContextoInscripcion nuevoContexto(SolicitudInscripcion solicitud) {
+        return new ContextoInscripcion(getTipoInscripcion(), solicitud != null && solicitud.isIncluirTiempos());
+    }
+
+    /**
+     * Cierra el proceso completo: registra su duración y la añade al resultado
+     */
+    final void cerrar(ContextoInscripcion contexto, ResultadoInscripcion resultado) {
+        contexto.finalizar();
+        if (metricasPasos != null) {
+            metricasPasos.registrar(contexto.getModalidad(), Integer.MAX_VALUE,
+                    MetricasPasosInscripcion.PROCESO_COMPLETO, contexto.getDuracionNanos(), resultado.isExitoso());
+        }
+        if (contexto.isIncluirTiempos()) {
+            resultado.getDetalles().put("tiemposPasosMs", contexto.getTiemposMs());
+        }
+        resultado.setFechaFin(contexto.getFechaFin());
+        resultado.calcularDuracion();
+    }
+
+    private ResultadoInscripcion finalizarExitoso(ContextoInscripcion contexto, ResultadoInscripcion resultado) {
         resultado.setExitoso(true);
         resultado.setEstado("COMPLETADA");
         resultado.setMensaje("Inscripción procesada exitosamente");
-        resultado.setPasos(new ArrayList<>(pasos));
-        resultado.setFechaFin(fechaFin);
-        resultado.calcularDuracion();
+        resultado.setPasos(contexto.getPasos());
         return resultado;
     }
     
-    private ResultadoInscripcion finalizarConError(ResultadoInscripcion resultado, String mensaje) {
-        fechaFin = LocalDateTime.now();
+    private ResultadoInscripcion finalizarConError(ContextoInscripcion contexto, ResultadoInscripcion resultado, String mensaje) {
         resultado.setExitoso(false);
         resultado.setEstado("FALLIDA");
         resultado.setMensaje(mensaje);
-        resultado.setPasos(new ArrayList<>(pasos));
-        resultado.setFechaFin(fechaFin);
-        resultado.calcularDuracion();
+        resultado.setPasos(contexto.getPasos());
         return resultado;
     }
     
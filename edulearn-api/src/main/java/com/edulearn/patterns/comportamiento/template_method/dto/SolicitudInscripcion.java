@@ -27,6 +27,9 @@ public class SolicitudInscripcion {
     private boolean aceptaTerminos;
     private String motivoInscripcion;
     private String documentoIdentidad;
+
+    // Depuración: incluir la duración de cada paso en el resultado
+    private boolean incluirTiempos;
     
     // Getters y Setters
     public Integer getEstudianteId() { return estudianteId; }
@@ -70,4 +73,7 @@ public class SolicitudInscripcion {
     
     public String getDocumentoIdentidad() { return documentoIdentidad; }
     public void setDocumentoIdentidad(String documentoIdentidad) { this.documentoIdentidad = documentoIdentidad; }
+
+    public boolean isIncluirTiempos() { return incluirTiempos; }
+    public void setIncluirTiempos(boolean incluirTiempos) { this.incluirTiempos = incluirTiempos; }
 }
@@ -9,10 +9,10 @@ import com.edulearn.repository.ModuloRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Builder para construir el árbol del curso usando el patrón Composite
@@ -34,93 +34,101 @@ public class CursoTreeBuilder {
      * Construye el árbol completo de un curso
      */
     public ModuloCompuesto construirArbolCurso(Integer cursoId) {
-        // Obtener todos los módulos del curso
-        List<Modulo> modulos = moduloRepository.findByCursoIdOrderByOrdenAsc(cursoId);
+        List<ModuloCompuesto> raices = cargarArbol(cursoId).raices;
 
-        if (modulos.isEmpty()) {
+        if (raices.isEmpty()) {
             return null;
         }
 
-        // Crear un mapa para acceso rápido a los módulos compuestos
-        Map<Long, ModuloCompuesto> mapaModulos = new HashMap<>();
-
-        // Primera pasada: crear todos los módulos compuestos
-        for (Modulo modulo : modulos) {
-            ModuloCompuesto moduloCompuesto = crearModuloCompuesto(modulo);
-            mapaModulos.put(modulo.getId(), moduloCompuesto);
-        }
-
-        // Segunda pasada: establecer las relaciones jerárquicas
-        ModuloCompuesto raiz = null;
-        for (Modulo modulo : modulos) {
-            ModuloCompuesto moduloActual = mapaModulos.get(modulo.getId());
-
-            // Agregar materiales y evaluaciones a este módulo
-            agregarMateriales(moduloActual, modulo.getId());
-            agregarEvaluaciones(moduloActual, modulo.getId());
-
-            // Si tiene padre, agregarlo al padre; si no, es la raíz
-            if (modulo.getModuloPadreId() != null) {
-                ModuloCompuesto padre = mapaModulos.get(modulo.getModuloPadreId());
-                if (padre != null) {
-                    padre.agregar(moduloActual);
-                }
-            } else if (raiz == null) {
-                // El primer módulo sin padre se considera la raíz
-                raiz = moduloActual;
-            } else {
-                // Si hay múltiples módulos raíz, crear un contenedor
-                if (raiz.getNombre().equals("Curso")) {
-                    raiz.agregar(moduloActual);
-                } else {
-                    ModuloCompuesto contenedor = new ModuloCompuesto(
-                        0L, "Curso", "CURSO", "Contenido del curso", 0, 0, "published"
-                    );
-                    contenedor.agregar(raiz);
-                    contenedor.agregar(moduloActual);
-                    raiz = contenedor;
-                }
-            }
+        // Un único módulo raíz es el árbol; si hay varios, se agrupan en un contenedor
+        if (raices.size() == 1) {
+            return raices.get(0);
         }
 
-        return raiz;
+        ModuloCompuesto contenedor = new ModuloCompuesto(
+            0L, "Curso", "CURSO", "Contenido del curso", 0, 0, "published"
+        );
+        contenedor.agregarTodos(raices);
+        return contenedor;
     }
 
     /**
      * Construye un árbol con todos los módulos raíz (módulos sin padre)
      */
     public List<ModuloCompuesto> construirArbolesModulos(Integer cursoId) {
-        List<Modulo> modulosRaiz = moduloRepository.findByCursoIdOrderByOrdenAsc(cursoId).stream()
-            .filter(m -> m.getModuloPadreId() == null)
-            .collect(Collectors.toList());
-
-        return modulosRaiz.stream()
-            .map(modulo -> construirSubarbol(modulo))
-            .collect(Collectors.toList());
+        return cargarArbol(cursoId).raices;
     }
 
     /**
      * Construye un subárbol a partir de un módulo específico
      */
     public ModuloCompuesto construirSubarbol(Modulo moduloRaiz) {
-        ModuloCompuesto raiz = crearModuloCompuesto(moduloRaiz);
+        ModuloCompuesto subarbol = cargarArbol(moduloRaiz.getCursoId()).porId.get(moduloRaiz.getId());
+        return subarbol != null ? subarbol : crearModuloCompuesto(moduloRaiz);
+    }
+
+    /**
+     * Carga módulos, materiales y evaluaciones del curso con tres consultas
+     * (las dos últimas con IN sobre los ids de módulo) y arma el grafo
+     * de ModuloCompuesto en memoria en tiempo lineal.
+     */
+    private ArbolCargado cargarArbol(Integer cursoId) {
+        List<Modulo> modulos = moduloRepository.findByCursoIdOrderByOrdenAsc(cursoId);
+        ArbolCargado arbol = new ArbolCargado(modulos.size());
 
-        // Agregar materiales y evaluaciones
-        agregarMateriales(raiz, moduloRaiz.getId());
-        agregarEvaluaciones(raiz, moduloRaiz.getId());
+        if (modulos.isEmpty()) {
+            return arbol;
+        }
+
+        List<Long> moduloIds = new ArrayList<>(modulos.size());
+        for (Modulo modulo : modulos) {
+            moduloIds.add(modulo.getId());
+            arbol.porId.put(modulo.getId(), crearModuloCompuesto(modulo));
+        }
 
-        // Agregar submódulos recursivamente
-        List<Modulo> submodulos = moduloRepository.findByCursoIdOrderByOrdenAsc(moduloRaiz.getCursoId())
-            .stream()
-            .filter(m -> moduloRaiz.getId().equals(m.getModuloPadreId()))
-            .collect(Collectors.toList());
+        // Hijos de cada módulo: primero materiales, luego evaluaciones y al final submódulos
+        Map<Long, List<ComponenteCurso>> hijosPorModulo = new HashMap<>(modulos.size() * 2);
 
-        for (Modulo submodulo : submodulos) {
-            ModuloCompuesto submoduloCompuesto = construirSubarbol(submodulo);
-            raiz.agregar(submoduloCompuesto);
+        for (Material material : materialRepository.findByModuloIdInOrderByOrdenAsc(moduloIds)) {
+            hijosPorModulo.computeIfAbsent(material.getModuloId(), k -> new ArrayList<>())
+                .add(crearMaterialHoja(material));
         }
 
-        return raiz;
+        for (Evaluacion evaluacion : evaluacionRepository.findByModuloIdInOrderByIdAsc(moduloIds)) {
+            hijosPorModulo.computeIfAbsent(evaluacion.getModuloId(), k -> new ArrayList<>())
+                .add(crearEvaluacionHoja(evaluacion));
+        }
+
+        for (Modulo modulo : modulos) {
+            ModuloCompuesto actual = arbol.porId.get(modulo.getId());
+            if (modulo.getModuloPadreId() == null) {
+                arbol.raices.add(actual);
+            } else if (arbol.porId.containsKey(modulo.getModuloPadreId())) {
+                hijosPorModulo.computeIfAbsent(modulo.getModuloPadreId(), k -> new ArrayList<>())
+                    .add(actual);
+            }
+        }
+
+        for (Map.Entry<Long, List<ComponenteCurso>> entrada : hijosPorModulo.entrySet()) {
+            ModuloCompuesto modulo = arbol.porId.get(entrada.getKey());
+            if (modulo != null) {
+                modulo.agregarTodos(entrada.getValue());
+            }
+        }
+
+        return arbol;
+    }
+
+    /**
+     * Resultado de una carga: índice por id y módulos raíz en orden
+     */
+    private static class ArbolCargado {
+        private final Map<Long, ModuloCompuesto> porId;
+        private final List<ModuloCompuesto> raices = new ArrayList<>();
+
+        ArbolCargado(int cantidadModulos) {
+            this.porId = new HashMap<>(cantidadModulos * 2);
+        }
     }
 
     private ModuloCompuesto crearModuloCompuesto(Modulo modulo) {
@@ -135,41 +143,31 @@ public class CursoTreeBuilder {
         );
     }
 
-    private void agregarMateriales(ModuloCompuesto moduloCompuesto, Long moduloId) {
-        List<Material> materiales = materialRepository.findByModuloIdOrderByOrdenAsc(moduloId);
-
-        for (Material material : materiales) {
-            MaterialHoja materialHoja = new MaterialHoja(
-                material.getId(),
-                material.getTitulo(),
-                material.getTipoMaterial(),
-                material.getDescripcion(),
-                material.getOrden(),
-                material.getUrlRecurso(),
-                material.getArchivoPath(),
-                material.getDuracionSegundos(),
-                material.getEsObligatorio()
-            );
-            moduloCompuesto.agregar(materialHoja);
-        }
+    private MaterialHoja crearMaterialHoja(Material material) {
+        return new MaterialHoja(
+            material.getId(),
+            material.getTitulo(),
+            material.getTipoMaterial(),
+            material.getDescripcion(),
+            material.getOrden(),
+            material.getUrlRecurso(),
+            material.getArchivoPath(),
+            material.getDuracionSegundos(),
+            material.getEsObligatorio()
+        );
     }
 
-    private void agregarEvaluaciones(ModuloCompuesto moduloCompuesto, Long moduloId) {
-        List<Evaluacion> evaluaciones = evaluacionRepository.findByModuloIdOrderByIdAsc(moduloId);
-
-        for (Evaluacion evaluacion : evaluaciones) {
-            EvaluacionHoja evaluacionHoja = new EvaluacionHoja(
-                evaluacion.getId(),
-                evaluacion.getTitulo(),
-                evaluacion.getTipoEvaluacion(),
-                evaluacion.getDescripcion(),
-                0, // Las evaluaciones no tienen orden en la tabla
-                evaluacion.getPuntajeMaximo(),
-                evaluacion.getTiempoLimiteMinutos(),
-                evaluacion.getIntentosPermitidos(),
-                evaluacion.getEstado()
-            );
-            moduloCompuesto.agregar(evaluacionHoja);
-        }
+    private EvaluacionHoja crearEvaluacionHoja(Evaluacion evaluacion) {
+        return new EvaluacionHoja(
+            evaluacion.getId(),
+            evaluacion.getTitulo(),
+            evaluacion.getTipoEvaluacion(),
+            evaluacion.getDescripcion(),
+            0, // Las evaluaciones no tienen orden en la tabla
+            evaluacion.getPuntajeMaximo(),
+            evaluacion.getTiempoLimiteMinutos(),
+            evaluacion.getIntentosPermitidos(),
+            evaluacion.getEstado()
+        );
     }
 }
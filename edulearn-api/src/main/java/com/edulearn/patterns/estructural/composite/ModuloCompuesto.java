@@ -29,6 +29,18 @@ public class ModuloCompuesto extends ComponenteCurso {
         hijos.sort((c1, c2) -> c1.getOrden().compareTo(c2.getOrden()));
     }
 
+    /**
+     * Agrega varios componentes ordenando una sola vez al final
+     * (usado al construir el árbol completo en memoria)
+     */
+    public void agregarTodos(List<? extends ComponenteCurso> componentes) {
+        for (ComponenteCurso componente : componentes) {
+            componente.setPadre(this);
+            hijos.add(componente);
+        }
+        hijos.sort((c1, c2) -> c1.getOrden().compareTo(c2.getOrden()));
+    }
+
     @Override
     public void remover(ComponenteCurso componente) {
         hijos.remove(componente);
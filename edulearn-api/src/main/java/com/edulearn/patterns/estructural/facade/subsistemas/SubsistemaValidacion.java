@@ -6,6 +6,7 @@ import com.edulearn.model.Inscripcion;
 import com.edulearn.repository.CursoRepository;
 import com.edulearn.repository.EstudianteRepository;
 import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.service.InventarioCuposService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -29,6 +30,9 @@ public class SubsistemaValidacion {
     @Autowired
     private InscripcionRepository inscripcionRepository;
 
+    @Autowired
+    private InventarioCuposService inventarioCupos;
+
     /**
      * Valida todos los requisitos previos para la inscripción
      * @return Mensaje de error si falla, null si es exitoso
@@ -63,16 +67,9 @@ public class SubsistemaValidacion {
             return "El estudiante ya está inscrito en este curso";
         }
 
-        // 5. Validar cupos disponibles (si aplica)
-        if (curso.getCupoMaximo() != null && curso.getCupoMaximo() > 0) {
-            long inscritosActivos = inscripcionRepository.findAll().stream()
-                    .filter(i -> i.getCursoId().equals(cursoId) &&
-                                "Activa".equalsIgnoreCase(i.getEstadoInscripcion()))
-                    .count();
-
-            if (inscritosActivos >= curso.getCupoMaximo()) {
-                return "El curso ha alcanzado su cupo máximo";
-            }
+        // 5. Validar cupos disponibles (inventario del curso)
+        if (!inventarioCupos.hayCupo(cursoId)) {
+            return "El curso ha alcanzado su cupo máximo";
         }
 
         // Validación exitosa
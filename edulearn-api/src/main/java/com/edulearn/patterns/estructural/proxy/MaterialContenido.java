@@ -2,6 +2,8 @@ package com.edulearn.patterns.estructural.proxy;
 
 import com.edulearn.model.Material;
 
+import java.nio.file.Path;
+
 /**
  * Interfaz del Patrón Proxy
  *
@@ -22,11 +24,18 @@ public interface MaterialContenido {
 
     /**
      * Carga y obtiene el contenido real del material (archivo, video, PDF)
-     * Este método puede ser costoso en términos de recursos
+     * Este método puede ser costoso en términos de recursos: lee el archivo
+     * completo en memoria. Para servirlo por HTTP usar obtenerArchivo().
      * @return Contenido del material en formato byte array
      */
     byte[] cargarContenido();
 
+    /**
+     * Obtiene la ruta en disco del contenido sin leerlo, para servirlo en streaming
+     * @return Ruta del archivo del material
+     */
+    Path obtenerArchivo();
+
     /**
      * Obtiene la URL del recurso para streaming o descarga
      * @return URL del recurso
@@ -4,6 +4,8 @@ import com.edulearn.model.Material;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+
 /**
  * Proxy del Material
  *
@@ -54,7 +56,21 @@ public class MaterialProxy implements MaterialContenido {
 
     @Override
     public byte[] cargarContenido() {
-        // Verificar permisos antes de cargar contenido
+        // Verificar permisos, crear el objeto real (lazy) y delegar
+        return obtenerMaterialRealAutorizado().cargarContenido();
+    }
+
+    @Override
+    public Path obtenerArchivo() {
+        // Mismo control de acceso que cargarContenido, pero sin leer el archivo en memoria
+        return obtenerMaterialRealAutorizado().obtenerArchivo();
+    }
+
+    /**
+     * Verifica permisos, crea el MaterialReal si aún no existe y registra el acceso
+     */
+    private MaterialReal obtenerMaterialRealAutorizado() {
+        // Verificar permisos antes de acceder al contenido
         if (!verificarAcceso(usuarioId, rolUsuario)) {
             logger.warn("Acceso denegado al contenido del material ID: {} para usuario: {}",
                     material.getId(), usuarioId);
@@ -70,8 +86,7 @@ public class MaterialProxy implements MaterialContenido {
         // Registrar el acceso
         registrarAcceso(usuarioId);
 
-        // Delegar al objeto real
-        return materialReal.cargarContenido();
+        return materialReal;
     }
 
     @Override
@@ -4,15 +4,18 @@ import com.edulearn.model.Material;
 import com.edulearn.patterns.estructural.proxy.dto.MaterialProxyRequest;
 import com.edulearn.patterns.estructural.proxy.dto.MaterialProxyResponse;
 import com.edulearn.patterns.estructural.proxy.dto.ModuloMaterialesRequest;
+import com.edulearn.service.DescargaArchivoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +31,7 @@ import java.util.stream.Collectors;
  * - POST /api/materiales/proxy - Obtener material con proxy (lazy loading)
  * - POST /api/materiales/proxy/modulo - Obtener materiales de un módulo
  * - POST /api/materiales/proxy/cargar - Cargar contenido de un material
+ * - GET /api/materiales/proxy/contenido/{materialId} - Contenido en streaming (Range)
  * - GET /api/materiales/proxy/verificar-acceso/{materialId} - Verificar acceso
  *
  * Patrón de Diseño: Proxy (Estructural)
@@ -42,6 +46,9 @@ public class MaterialProxyController {
     @Autowired
     private MaterialProxyService materialProxyService;
 
+    @Autowired
+    private DescargaArchivoService descargaArchivoService;
+
     /**
      * Endpoint principal: Obtener material con Proxy (sin cargar contenido pesado)
      *
@@ -159,49 +166,67 @@ public class MaterialProxyController {
      *
      * POST /api/materiales/proxy/cargar
      *
+     * El archivo se envía en streaming desde disco (Range / If-Range soportados),
+     * sin cargarlo completo en memoria.
+     *
      * @param request Datos de la solicitud
-     * @return Contenido del material en bytes
+     * @return Contenido del material
      */
     @PostMapping("/cargar")
-    public ResponseEntity<byte[]> cargarContenidoMaterial(
-            @RequestBody MaterialProxyRequest request) {
+    public ResponseEntity<StreamingResponseBody> cargarContenidoMaterial(
+            @RequestBody MaterialProxyRequest request,
+            @RequestHeader HttpHeaders cabeceras) {
 
         logger.info("POST /api/materiales/proxy/cargar - Material ID: {}, Usuario: {}",
                 request.getMaterialId(), request.getUsuarioId());
 
+        return servirContenido(request.getMaterialId(), request.getUsuarioId(), request.getRolUsuario(),
+                HttpMethod.POST, cabeceras);
+    }
+
+    /**
+     * Contenido del material por GET, utilizable directamente como src de
+     * un elemento video/audio (el navegador pide rangos al adelantar)
+     *
+     * GET /api/materiales/proxy/contenido/{materialId}?usuarioId=1&rol=estudiante
+     */
+    @GetMapping("/contenido/{materialId}")
+    public ResponseEntity<StreamingResponseBody> obtenerContenidoMaterial(
+            @PathVariable Long materialId,
+            @RequestParam Long usuarioId,
+            @RequestParam String rol,
+            HttpMethod metodo,
+            @RequestHeader HttpHeaders cabeceras) {
+
+        logger.info("GET /api/materiales/proxy/contenido/{} - Usuario: {}, Range: {}",
+                materialId, usuarioId, cabeceras.getFirst(HttpHeaders.RANGE));
+
+        return servirContenido(materialId, usuarioId, rol, metodo, cabeceras);
+    }
+
+    /**
+     * Verifica el acceso a través del proxy y envía el archivo en streaming
+     */
+    private ResponseEntity<StreamingResponseBody> servirContenido(Long materialId, Long usuarioId,
+                                                                  String rolUsuario, HttpMethod metodo,
+                                                                  HttpHeaders cabeceras) {
         try {
             // Validaciones
-            if (request.getMaterialId() == null || request.getUsuarioId() == null ||
-                request.getRolUsuario() == null) {
+            if (materialId == null || usuarioId == null || rolUsuario == null) {
                 return ResponseEntity.badRequest().build();
             }
 
-            // Cargar contenido a través del proxy
-            byte[] contenido = materialProxyService.cargarContenidoMaterial(
-                    request.getMaterialId(),
-                    request.getUsuarioId(),
-                    request.getRolUsuario()
-            );
+            // El proxy verifica permisos antes de exponer el archivo
+            Path archivo = materialProxyService.obtenerArchivoMaterial(materialId, usuarioId, rolUsuario);
 
             // Obtener información del material para el Content-Type
-            Material material = materialProxyService.obtenerInformacionBasica(
-                    request.getMaterialId(),
-                    request.getUsuarioId(),
-                    request.getRolUsuario()
-            );
+            Material material = materialProxyService.obtenerInformacionBasica(materialId, usuarioId, rolUsuario);
 
             // Determinar el tipo de contenido
             String contentType = determinarContentType(material.getTipoMaterial());
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType(contentType));
-            headers.setContentLength(contenido.length);
-            headers.set("Content-Disposition", "inline; filename=\"" + material.getTitulo() + "\"");
-
-            logger.info("Contenido cargado exitosamente - Material ID: {}, Tamaño: {} bytes",
-                    request.getMaterialId(), contenido.length);
-
-            return new ResponseEntity<>(contenido, headers, HttpStatus.OK);
+            return descargaArchivoService.servir(archivo, contentType,
+                    "inline; filename=\"" + material.getTitulo() + "\"", metodo, cabeceras);
 
         } catch (SecurityException e) {
             logger.warn("Acceso denegado: {}", e.getMessage());
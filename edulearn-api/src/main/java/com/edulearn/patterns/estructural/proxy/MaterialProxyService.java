@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -156,6 +157,24 @@ public class MaterialProxyService {
         return proxy.cargarContenido();
     }
 
+    /**
+     * Obtiene la ruta del archivo de un material a través del proxy (sin leerlo en memoria)
+     *
+     * @param materialId ID del material
+     * @param usuarioId ID del usuario
+     * @param rolUsuario Rol del usuario
+     * @return Ruta del archivo para servirlo en streaming
+     */
+    public Path obtenerArchivoMaterial(Long materialId, Long usuarioId, String rolUsuario) {
+        logger.info("Solicitando archivo del material ID: {} por usuario: {}",
+                materialId, usuarioId);
+
+        MaterialProxy proxy = obtenerMaterialConProxy(materialId, usuarioId, rolUsuario);
+
+        // El proxy verificará permisos antes de exponer el archivo
+        return proxy.obtenerArchivo();
+    }
+
     /**
      * Obtiene solo la información básica del material (sin cargar contenido)
      *
@@ -1,14 +1,13 @@
 package com.edulearn.patterns.estructural.proxy;
 
 import com.edulearn.model.Material;
+import com.edulearn.util.RutasArchivo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 
 /**
@@ -26,6 +25,7 @@ public class MaterialReal implements MaterialContenido {
 
     private static final Logger logger = LoggerFactory.getLogger(MaterialReal.class);
 
+
     private final Material material;
     private byte[] contenidoCargado;
     private boolean cargado = false;
@@ -75,18 +75,35 @@ public class MaterialReal implements MaterialContenido {
      * @throws IOException Si hay error al leer el archivo
      */
     private byte[] cargarContenidoDesdeAlmacenamiento() throws IOException {
-        // Directorio de uploads
-        String UPLOAD_DIR = "uploads";
+        Path path = resolverArchivo();
+        logger.info("✅ Archivo encontrado, cargando {} bytes", Files.size(path));
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public Path obtenerArchivo() {
+        try {
+            return resolverArchivo();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Localiza el archivo del material en el directorio de uploads o en el
+     * almacén por contenido (sin leerlo)
+     * @return Ruta del archivo
+     * @throws IOException Si el material no tiene archivo o no existe en disco
+     */
+    private Path resolverArchivo() throws IOException {
         if (material.getArchivoPath() != null && !material.getArchivoPath().isEmpty()) {
-            // Cargar desde archivo local en el directorio uploads
-            Path path = Paths.get(UPLOAD_DIR, material.getArchivoPath());
+            // Archivo local en el directorio uploads
+            Path path = RutasArchivo.resolver(material.getArchivoPath());
 
-            logger.info("Intentando cargar archivo desde: {}", path.toAbsolutePath());
+            logger.info("Buscando archivo en: {}", path.toAbsolutePath());
 
             if (Files.exists(path)) {
-                logger.info("✅ Archivo encontrado, cargando {} bytes", Files.size(path));
-                return Files.readAllBytes(path);
+                return path;
             } else {
                 logger.warn("❌ Archivo no encontrado en: {}", path.toAbsolutePath());
                 throw new IOException("Archivo no encontrado: " + material.getArchivoPath());
@@ -96,13 +113,12 @@ public class MaterialReal implements MaterialContenido {
             String url = material.getUrlRecurso();
             if (url.contains("/descargar/")) {
                 String filename = url.substring(url.lastIndexOf("/") + 1);
-                Path path = Paths.get(UPLOAD_DIR, filename);
+                Path path = RutasArchivo.resolver(filename);
 
-                logger.info("Intentando cargar archivo desde URL: {}", path.toAbsolutePath());
+                logger.info("Buscando archivo desde URL: {}", path.toAbsolutePath());
 
                 if (Files.exists(path)) {
-                    logger.info("✅ Archivo encontrado vía URL, cargando {} bytes", Files.size(path));
-                    return Files.readAllBytes(path);
+                    return path;
                 }
             }
         }
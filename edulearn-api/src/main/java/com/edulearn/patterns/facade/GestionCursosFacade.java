@@ -6,6 +6,8 @@ import com.edulearn.model.Inscripcion;
 import com.edulearn.repository.CursoRepository;
 import com.edulearn.repository.EstudianteRepository;
 import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.model.ReservaCupo;
+import com.edulearn.service.InventarioCuposService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -31,6 +33,9 @@ public class GestionCursosFacade {
     @Autowired
     private InscripcionRepository inscripcionRepository;
 
+    @Autowired
+    private InventarioCuposService inventarioCupos;
+
     /**
      * Inscribir estudiante - Operación simplificada que coordina múltiples subsistemas
      */
@@ -50,13 +55,27 @@ public class GestionCursosFacade {
             return resultado;
         }
 
+        // Apartar cupo
+        ReservaCupo reserva = inventarioCupos.reservar(cursoId, estudianteId);
+        if (reserva == null) {
+            resultado.put("exito", false);
+            resultado.put("mensaje", "No hay cupos disponibles en el curso");
+            return resultado;
+        }
+
         // Crear inscripción
         Inscripcion inscripcion = new Inscripcion();
         inscripcion.setEstudianteId(estudianteId);
         inscripcion.setCursoId(cursoId);
         inscripcion.setFechaInscripcion(java.time.LocalDate.now());
 
-        inscripcionRepository.save(inscripcion);
+        try {
+            inscripcionRepository.save(inscripcion);
+        } catch (RuntimeException e) {
+            inventarioCupos.liberar(reserva);
+            throw e;
+        }
+        inventarioCupos.confirmar(reserva, inscripcion.getId());
 
         resultado.put("exito", true);
         resultado.put("mensaje", "Inscripción exitosa");
@@ -1,17 +1,45 @@
 package com.edulearn.patterns.structural.bridge;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Generador de Excel real usando Apache POI
+ *
+ * - generarExcel: reporte resumen (pocas filas) en un XSSFWorkbook en memoria.
+ * - exportarFilas: modo streaming para listados grandes. Usa un SXSSFWorkbook
+ *   con ventana de FILAS_EN_MEMORIA filas (las anteriores se vuelcan a un
+ *   temporal comprimido), consume las filas de un iterador (cursor JDBC o
+ *   Stream de repositorio) y calcula el ancho de las columnas con una muestra
+ *   de las primeras filas en lugar de autoSizeColumn. La memoria no depende
+ *   del número de filas.
  */
 public class GeneradorExcel {
 
+    public static final int FILAS_EN_MEMORIA = 100;
+    private static final int FILAS_MUESTRA = 200;
+    private static final int FILA_ENCABEZADOS = 2;
+    private static final int ANCHO_MINIMO = 8;
+    private static final int ANCHO_MAXIMO = 60;
+    private static final int MAX_CARACTERES_CELDA = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+    private static final int MAX_FILAS_HOJA = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
     public static byte[] generarExcel(String titulo, Map<String, Object> datos) throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Reporte");
@@ -90,9 +118,12 @@ public class GeneradorExcel {
             footerCell.setCellStyle(footerStyle);
             sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(rowNum, rowNum, 0, 1));
 
-            // Ajustar ancho de columnas
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
+            // Ajustar ancho de columnas (sin autoSizeColumn, que mide cada celda con AWT)
+            List<Object[]> filas = new ArrayList<>(datos.size());
+            datos.forEach((campo, valor) -> filas.add(new Object[]{campo, valor}));
+            int[] anchos = calcularAnchos(List.of("Campo", "Valor"), filas);
+            sheet.setColumnWidth(0, anchos[0]);
+            sheet.setColumnWidth(1, anchos[1]);
 
             // Convertir a bytes
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -100,4 +131,169 @@ public class GeneradorExcel {
             return baos.toByteArray();
         }
     }
+
+    /**
+     * Exporta un listado en streaming directamente al OutputStream
+     * (respuesta HTTP o almacén de reportes)
+     *
+     * @param encabezados Nombres de las columnas
+     * @param filas       Valores de cada fila, en el orden de los encabezados
+     * @return número de filas exportadas
+     */
+    public static long exportarFilas(String titulo, List<String> encabezados, Iterator<Object[]> filas,
+                                     OutputStream salida) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA);
+        workbook.setCompressTempFiles(true);
+        try {
+            EstilosExportacion estilos = new EstilosExportacion(workbook);
+
+            // Muestra acotada para calcular los anchos; luego se escribe junto al resto
+            List<Object[]> muestra = new ArrayList<>(FILAS_MUESTRA);
+            while (muestra.size() < FILAS_MUESTRA && filas.hasNext()) {
+                muestra.add(filas.next());
+            }
+            int[] anchos = calcularAnchos(encabezados, muestra);
+
+            SXSSFSheet hoja = nuevaHoja(workbook, titulo, encabezados, anchos, estilos);
+            int numeroFila = FILA_ENCABEZADOS + 1;
+            long total = 0;
+
+            Iterator<Object[]> pendientes = muestra.iterator();
+            while (pendientes.hasNext() || filas.hasNext()) {
+                Object[] valores = pendientes.hasNext() ? pendientes.next() : filas.next();
+                if (numeroFila >= MAX_FILAS_HOJA) {
+                    // Límite de filas de Excel: se continúa en otra hoja con los mismos encabezados
+                    hoja = nuevaHoja(workbook, titulo, encabezados, anchos, estilos);
+                    numeroFila = FILA_ENCABEZADOS + 1;
+                }
+                Row row = hoja.createRow(numeroFila++);
+                for (int i = 0; i < encabezados.size(); i++) {
+                    escribirCelda(row.createCell(i), i < valores.length ? valores[i] : null, estilos);
+                }
+                total++;
+            }
+
+            workbook.write(salida);
+            return total;
+        } finally {
+            // Elimina los temporales de las filas ya volcadas
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static SXSSFSheet nuevaHoja(SXSSFWorkbook workbook, String titulo, List<String> encabezados,
+                                        int[] anchos, EstilosExportacion estilos) {
+        int numero = workbook.getNumberOfSheets();
+        SXSSFSheet hoja = workbook.createSheet(numero == 0 ? "Reporte" : "Reporte (" + (numero + 1) + ")");
+
+        Cell titleCell = hoja.createRow(0).createCell(0);
+        titleCell.setCellValue(titulo);
+        titleCell.setCellStyle(estilos.titulo);
+
+        Row headerRow = hoja.createRow(FILA_ENCABEZADOS);
+        for (int i = 0; i < encabezados.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(encabezados.get(i));
+            cell.setCellStyle(estilos.encabezado);
+            hoja.setColumnWidth(i, anchos[i]);
+        }
+        hoja.createFreezePane(0, FILA_ENCABEZADOS + 1);
+        return hoja;
+    }
+
+    private static void escribirCelda(Cell cell, Object valor, EstilosExportacion estilos) {
+        if (valor == null) {
+            cell.setCellStyle(estilos.dato);
+        } else if (valor instanceof Number numero) {
+            cell.setCellValue(numero instanceof BigDecimal decimal ? decimal.doubleValue() : numero.doubleValue());
+            cell.setCellStyle(estilos.dato);
+        } else if (valor instanceof Boolean booleano) {
+            cell.setCellValue(booleano ? "Sí" : "No");
+            cell.setCellStyle(estilos.dato);
+        } else if (valor instanceof LocalDateTime fechaHora) {
+            cell.setCellValue(fechaHora);
+            cell.setCellStyle(estilos.fechaHora);
+        } else if (valor instanceof LocalDate fecha) {
+            cell.setCellValue(fecha);
+            cell.setCellStyle(estilos.fecha);
+        } else if (valor instanceof Date fecha) {
+            cell.setCellValue(fecha);
+            cell.setCellStyle(estilos.fechaHora);
+        } else {
+            String texto = String.valueOf(valor);
+            cell.setCellValue(texto.length() > MAX_CARACTERES_CELDA ? texto.substring(0, MAX_CARACTERES_CELDA) : texto);
+            cell.setCellStyle(estilos.dato);
+        }
+    }
+
+    /**
+     * Ancho de cada columna (en 1/256 de carácter) según el texto más largo de la muestra
+     */
+    private static int[] calcularAnchos(List<String> encabezados, List<Object[]> muestra) {
+        int[] caracteres = new int[encabezados.size()];
+        for (int i = 0; i < caracteres.length; i++) {
+            caracteres[i] = encabezados.get(i).length();
+        }
+        for (Object[] fila : muestra) {
+            for (int i = 0; i < caracteres.length && i < fila.length; i++) {
+                caracteres[i] = Math.max(caracteres[i], longitudVisible(fila[i]));
+            }
+        }
+        int[] anchos = new int[caracteres.length];
+        for (int i = 0; i < anchos.length; i++) {
+            anchos[i] = (Math.min(ANCHO_MAXIMO, Math.max(ANCHO_MINIMO, caracteres[i])) + 2) * 256;
+        }
+        return anchos;
+    }
+
+    private static int longitudVisible(Object valor) {
+        if (valor == null) {
+            return 0;
+        }
+        if (valor instanceof LocalDateTime || valor instanceof Date) {
+            return 16;
+        }
+        if (valor instanceof TemporalAccessor) {
+            return 10;
+        }
+        return String.valueOf(valor).length();
+    }
+
+    /**
+     * Estilos compartidos por todas las celdas (un workbook admite un número limitado)
+     */
+    private static class EstilosExportacion {
+        private final CellStyle titulo;
+        private final CellStyle encabezado;
+        private final CellStyle dato;
+        private final CellStyle fecha;
+        private final CellStyle fechaHora;
+
+        EstilosExportacion(Workbook workbook) {
+            titulo = workbook.createCellStyle();
+            Font titleFont = workbook.createFont();
+            titleFont.setBold(true);
+            titleFont.setFontHeightInPoints((short) 16);
+            titleFont.setColor(IndexedColors.BLUE.getIndex());
+            titulo.setFont(titleFont);
+
+            encabezado = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerFont.setColor(IndexedColors.WHITE.getIndex());
+            encabezado.setFont(headerFont);
+            encabezado.setFillForegroundColor(IndexedColors.DARK_BLUE.getIndex());
+            encabezado.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            encabezado.setBorderBottom(BorderStyle.THIN);
+
+            dato = workbook.createCellStyle();
+
+            CreationHelper helper = workbook.getCreationHelper();
+            fecha = workbook.createCellStyle();
+            fecha.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+            fechaHora = workbook.createCellStyle();
+            fechaHora.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+        }
+    }
 }
@@ -1,95 +1,208 @@
 package com.edulearn.patterns.structural.bridge;
 
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Generador de PDF real usando Apache PDFBox
+ *
+ * - generarPDF: reporte resumen (campo/valor).
+ * - generarTabla: tabla paginada con filas leídas de un iterador; los
+ *   encabezados se repiten en cada página.
+ * - generarSecciones: varias tablas independientes renderizadas en paralelo
+ *   (un documento por sección) y unidas al final en un solo PDF.
+ *
+ * Los documentos usan caché en archivo temporal (no en memoria), así que el
+ * consumo de memoria no crece con el número de páginas.
  */
 public class GeneradorPDF {
 
     public static byte[] generarPDF(String titulo, Map<String, Object> datos) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                float yPosition = 750;
-                float margin = 50;
-                float fontSize = 12;
-                float titleFontSize = 18;
-
-                // Título
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), titleFontSize);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(margin, yPosition);
-                contentStream.showText(titulo);
-                contentStream.endText();
-
-                yPosition -= 30;
-
-                // Línea separadora
-                contentStream.setLineWidth(1f);
-                contentStream.moveTo(margin, yPosition);
-                contentStream.lineTo(PDRectangle.A4.getWidth() - margin, yPosition);
-                contentStream.stroke();
-
-                yPosition -= 30;
-
-                // Contenido
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), fontSize);
-
-                for (Map.Entry<String, Object> entry : datos.entrySet()) {
-                    if (yPosition < 50) {
-                        // Nueva página si no hay espacio
-                        contentStream.close();
-                        page = new PDPage(PDRectangle.A4);
-                        document.addPage(page);
-                        PDPageContentStream newStream = new PDPageContentStream(document, page);
-                        yPosition = 750;
-                        newStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), fontSize);
-                    }
-
-                    contentStream.beginText();
-                    contentStream.newLineAtOffset(margin, yPosition);
-
-                    String clave = entry.getKey();
-                    String valor = String.valueOf(entry.getValue());
-
-                    // Clave en negrita
-                    contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), fontSize);
-                    contentStream.showText(clave + ": ");
-
-                    // Valor en normal
-                    contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), fontSize);
-                    contentStream.showText(valor);
-
-                    contentStream.endText();
-
-                    yPosition -= 20;
-                }
-
-                // Pie de página
-                yPosition -= 30;
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE), 10);
-                contentStream.beginText();
-                contentStream.newLineAtOffset(margin, 30);
-                contentStream.showText("Generado por EduLearn Platform - Formato: PDF");
-                contentStream.endText();
+        List<Object[]> filas = new ArrayList<>(datos.size());
+        datos.forEach((campo, valor) -> filas.add(new Object[]{campo, valor}));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        generarTabla(titulo, List.of(new Columna("Campo", 1), new Columna("Valor", 1)), filas.iterator(), baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Genera una tabla paginada y la escribe en el OutputStream
+     *
+     * @return número de filas dibujadas
+     */
+    public static long generarTabla(String titulo, List<Columna> columnas, Iterator<Object[]> filas,
+                                    OutputStream salida) throws IOException {
+        try (PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+            long total;
+            try (RenderizadorTablaPDF tabla = new RenderizadorTablaPDF(document, titulo, columnas)) {
+                total = tabla.agregarFilas(filas);
+            }
+            document.save(salida);
+            return total;
+        }
+    }
+
+    /**
+     * Renderiza cada sección en su propio documento, con hasta "paralelismo"
+     * secciones a la vez, y las une en orden en el OutputStream
+     *
+     * Cada tarea anota su archivo temporal antes de renderizar, así que si una
+     * sección falla se borran también los de las demás, incluso los de las
+     * que todavía estaban en curso (al terminar ven que la generación acabó
+     * y borran el suyo).
+     */
+    public static void generarSecciones(List<Seccion> secciones, int paralelismo, OutputStream salida) throws IOException {
+        if (secciones.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos una sección");
+        }
+        List<Path> creados = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean terminada = new AtomicBoolean();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(paralelismo, secciones.size())));
+        try {
+            List<Future<Path>> partes = new ArrayList<>();
+            for (Seccion seccion : secciones) {
+                partes.add(ejecutor.submit(() -> renderizarSeccion(seccion, creados, terminada)));
+            }
+            List<Path> temporales = new ArrayList<>(partes.size());
+            for (Future<Path> parte : partes) {
+                temporales.add(esperar(parte));
+            }
+
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (Path temporal : temporales) {
+                merger.addSource(temporal.toFile());
+            }
+            merger.setDestinationStream(salida);
+            merger.mergeDocuments(IOUtils.createTempFileOnlyStreamCache());
+        } finally {
+            terminada.set(true);
+            ejecutor.shutdownNow();
+            List<Path> aBorrar;
+            synchronized (creados) {
+                aBorrar = new ArrayList<>(creados);
+            }
+            aBorrar.forEach(GeneradorPDF::borrar);
+        }
+    }
+
+    private static Path renderizarSeccion(Seccion seccion, List<Path> creados, AtomicBoolean terminada) throws IOException {
+        if (terminada.get()) {
+            throw new IOException("Generación de PDF cancelada");
+        }
+        Path temporal = Files.createTempFile("edulearn-seccion-", ".pdf");
+        creados.add(temporal);
+        try (PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+            try (RenderizadorTablaPDF tabla = new RenderizadorTablaPDF(document, seccion.getTitulo(), seccion.getColumnas())) {
+                seccion.getContenido().escribir(tabla);
+            }
+            document.save(temporal.toFile());
+        } catch (IOException | RuntimeException e) {
+            borrar(temporal);
+            throw e;
+        }
+        // La generación terminó (otra sección falló) mientras esta se renderizaba
+        if (terminada.get()) {
+            borrar(temporal);
+        }
+        return temporal;
+    }
+
+    private static void borrar(Path temporal) {
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            temporal.toFile().deleteOnExit();
+        }
+    }
+
+    private static Path esperar(Future<Path> parte) throws IOException {
+        try {
+            return parte.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generación de PDF interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
             }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Error al renderizar una sección del PDF", e.getCause());
+        }
+    }
+
+    /**
+     * Columna de una tabla; el peso define su ancho relativo
+     */
+    public static class Columna {
+        private final String nombre;
+        private final float peso;
+
+        public Columna(String nombre, float peso) {
+            this.nombre = nombre;
+            this.peso = peso;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
 
-            // Convertir a bytes
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            document.save(baos);
-            return baos.toByteArray();
+        public float getPeso() {
+            return peso;
         }
     }
+
+    /**
+     * Sección independiente de un PDF: una tabla con su título
+     */
+    public static class Seccion {
+        private final String titulo;
+        private final List<Columna> columnas;
+        private final ContenidoSeccion contenido;
+
+        public Seccion(String titulo, List<Columna> columnas, ContenidoSeccion contenido) {
+            this.titulo = titulo;
+            this.columnas = columnas;
+            this.contenido = contenido;
+        }
+
+        public String getTitulo() {
+            return titulo;
+        }
+
+        public List<Columna> getColumnas() {
+            return columnas;
+        }
+
+        public ContenidoSeccion getContenido() {
+            return contenido;
+        }
+    }
+
+    /**
+     * Agrega las filas de una sección (se ejecuta en el hilo que la renderiza)
+     */
+    @FunctionalInterface
+    public interface ContenidoSeccion {
+        void escribir(RenderizadorTablaPDF tabla) throws IOException;
+    }
 }
@@ -0,0 +1,242 @@
+package com.edulearn.patterns.structural.bridge;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Renderizador de tablas paginadas sobre un PDDocument (Apache PDFBox)
+ *
+ * Las filas llegan una a una (de un iterador o de un cursor) y se dibujan en
+ * la página actual; cuando no caben se cierra la página y se abre otra con
+ * los encabezados de la tabla repetidos. Las fuentes se crean una sola vez
+ * por documento y se reutilizan en todas las páginas.
+ *
+ * No es thread-safe: cada hilo debe usar su propio documento y renderizador
+ * (ver GeneradorPDF.generarSecciones para renderizar en paralelo).
+ */
+public class RenderizadorTablaPDF implements Closeable {
+
+    private static final float MARGEN = 40;
+    private static final float TAMANO_TITULO = 16;
+    private static final float TAMANO_TEXTO = 9;
+    private static final float TAMANO_PIE = 8;
+    private static final float ALTO_FILA = 16;
+    private static final float RELLENO = 4;
+    private static final String PUNTOS = "...";
+
+    private final PDDocument documento;
+    private final PDRectangle formato;
+    private final String titulo;
+    private final List<GeneradorPDF.Columna> columnas;
+    private final float[] anchos;
+
+    // Fuentes compartidas por todas las páginas del documento
+    private final PDType1Font normal = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private final PDType1Font negrita = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    private final PDType1Font cursiva = new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
+
+    private PDPageContentStream contenido;
+    private float y;
+    private int paginas;
+    private long filas;
+
+    public RenderizadorTablaPDF(PDDocument documento, String titulo, List<GeneradorPDF.Columna> columnas) {
+        this.documento = documento;
+        this.titulo = titulo;
+        this.columnas = columnas;
+        // Tablas anchas en horizontal
+        this.formato = columnas.size() > 6
+                ? new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth())
+                : PDRectangle.A4;
+
+        float pesoTotal = 0;
+        for (GeneradorPDF.Columna columna : columnas) {
+            pesoTotal += columna.getPeso();
+        }
+        float anchoUtil = formato.getWidth() - 2 * MARGEN;
+        this.anchos = new float[columnas.size()];
+        for (int i = 0; i < anchos.length; i++) {
+            anchos[i] = anchoUtil * columnas.get(i).getPeso() / pesoTotal;
+        }
+    }
+
+    /**
+     * Dibuja todas las filas del iterador
+     *
+     * @return número total de filas dibujadas por este renderizador
+     */
+    public long agregarFilas(Iterator<Object[]> iterador) throws IOException {
+        while (iterador.hasNext()) {
+            agregarFila(iterador.next());
+        }
+        return filas;
+    }
+
+    public void agregarFila(Object[] valores) throws IOException {
+        if (contenido == null || y - ALTO_FILA < MARGEN + ALTO_FILA) {
+            nuevaPagina();
+        }
+
+        // Filas alternas sombreadas
+        if (filas % 2 == 1) {
+            contenido.setNonStrokingColor(0.94f, 0.95f, 0.97f);
+            contenido.addRect(MARGEN, y - ALTO_FILA, formato.getWidth() - 2 * MARGEN, ALTO_FILA);
+            contenido.fill();
+            contenido.setNonStrokingColor(0f, 0f, 0f);
+        }
+
+        escribirFila(valores, normal);
+        filas++;
+    }
+
+    public int getPaginas() {
+        return paginas;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    /**
+     * Cierra la última página (si la tabla está vacía, genera una página con los encabezados)
+     */
+    @Override
+    public void close() throws IOException {
+        if (contenido == null) {
+            nuevaPagina();
+        }
+        cerrarPagina();
+    }
+
+    // ========== Internos ==========
+
+    private void nuevaPagina() throws IOException {
+        cerrarPagina();
+        PDPage pagina = new PDPage(formato);
+        documento.addPage(pagina);
+        contenido = new PDPageContentStream(documento, pagina);
+        paginas++;
+        y = formato.getHeight() - MARGEN;
+
+        // Título en la primera página, referencia corta en las siguientes
+        contenido.beginText();
+        contenido.setFont(negrita, paginas == 1 ? TAMANO_TITULO : TAMANO_TEXTO);
+        contenido.newLineAtOffset(MARGEN, y - (paginas == 1 ? TAMANO_TITULO : TAMANO_TEXTO));
+        contenido.showText(textoSeguro(paginas == 1 ? titulo : titulo + " (continuación)"));
+        contenido.endText();
+        y -= (paginas == 1 ? TAMANO_TITULO : TAMANO_TEXTO) + 12;
+
+        // Encabezados repetidos en cada página
+        contenido.setNonStrokingColor(0.10f, 0.20f, 0.45f);
+        contenido.addRect(MARGEN, y - ALTO_FILA, formato.getWidth() - 2 * MARGEN, ALTO_FILA);
+        contenido.fill();
+        contenido.setNonStrokingColor(1f, 1f, 1f);
+        Object[] encabezados = new Object[columnas.size()];
+        for (int i = 0; i < encabezados.length; i++) {
+            encabezados[i] = columnas.get(i).getNombre();
+        }
+        escribirFila(encabezados, negrita);
+        contenido.setNonStrokingColor(0f, 0f, 0f);
+    }
+
+    private void escribirFila(Object[] valores, PDType1Font fuente) throws IOException {
+        float base = y - ALTO_FILA + (ALTO_FILA - TAMANO_TEXTO) / 2 + 1;
+        contenido.beginText();
+        contenido.setFont(fuente, TAMANO_TEXTO);
+        // Td es relativo al inicio de la celda anterior: se avanza por el ancho de cada columna
+        contenido.newLineAtOffset(MARGEN + RELLENO, base);
+        for (int i = 0; i < anchos.length; i++) {
+            Object valor = i < valores.length ? valores[i] : null;
+            String texto = ajustar(formatear(valor), fuente, anchos[i] - 2 * RELLENO);
+            if (!texto.isEmpty()) {
+                contenido.showText(texto);
+            }
+            if (i < anchos.length - 1) {
+                contenido.newLineAtOffset(anchos[i], 0);
+            }
+        }
+        contenido.endText();
+        y -= ALTO_FILA;
+    }
+
+    private void cerrarPagina() throws IOException {
+        if (contenido == null) {
+            return;
+        }
+        contenido.beginText();
+        contenido.setFont(cursiva, TAMANO_PIE);
+        contenido.newLineAtOffset(MARGEN, MARGEN / 2);
+        contenido.showText("Generado por EduLearn Platform - Formato: PDF - Página " + paginas);
+        contenido.endText();
+        contenido.close();
+        contenido = null;
+    }
+
+    private static String formatear(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof BigDecimal decimal) {
+            return decimal.stripTrailingZeros().toPlainString();
+        }
+        if (valor instanceof Double || valor instanceof Float) {
+            return String.format("%.2f", ((Number) valor).doubleValue());
+        }
+        if (valor instanceof Boolean booleano) {
+            return booleano ? "Sí" : "No";
+        }
+        return String.valueOf(valor);
+    }
+
+    /**
+     * Recorta el texto al ancho de la columna (con "...")
+     */
+    private static String ajustar(String texto, PDType1Font fuente, float ancho) throws IOException {
+        String seguro = textoSeguro(texto);
+        if (anchoTexto(seguro, fuente) <= ancho) {
+            return seguro;
+        }
+        float disponible = ancho - anchoTexto(PUNTOS, fuente);
+        // Ningún carácter de Helvetica mide menos de ~0.2 em: no tiene sentido probar cadenas más largas
+        int fin = Math.min(seguro.length(), (int) (disponible / (TAMANO_TEXTO * 0.2f)) + 1);
+        while (fin > 0 && anchoTexto(seguro.substring(0, fin), fuente) > disponible) {
+            fin--;
+        }
+        return fin == 0 ? "" : seguro.substring(0, fin) + PUNTOS;
+    }
+
+    private static float anchoTexto(String texto, PDType1Font fuente) throws IOException {
+        return fuente.getStringWidth(texto) / 1000 * TAMANO_TEXTO;
+    }
+
+    /**
+     * Las fuentes estándar usan WinAnsiEncoding: los caracteres que no existen
+     * en Latin-1 (emojis, otros alfabetos) o de control se sustituyen
+     */
+    private static String textoSeguro(String texto) {
+        StringBuilder resultado = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            boolean valido = (c >= 0x20 && c < 0x7F) || (c >= 0xA0 && c <= 0xFF);
+            if (!valido) {
+                if (resultado == null) {
+                    resultado = new StringBuilder(texto.substring(0, i));
+                }
+                resultado.append(Character.isWhitespace(c) ? ' ' : '?');
+            } else if (resultado != null) {
+                resultado.append(c);
+            }
+        }
+        return resultado != null ? resultado.toString() : texto;
+    }
+}
@@ -0,0 +1,50 @@
+package com.edulearn.repository;
+
+import com.edulearn.model.CupoCurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CupoCursoRepository extends JpaRepository<CupoCurso, Integer> {
+
+    /**
+     * Ocupa un cupo si queda alguno; devuelve 0 si el curso está lleno
+     */
+    @Modifying
+    @Query("UPDATE CupoCurso c SET c.ocupados = c.ocupados + 1, c.fechaActualizacion = :ahora " +
+           "WHERE c.cursoId = :cursoId AND c.ocupados < c.capacidad")
+    int ocupar(@Param("cursoId") Integer cursoId, @Param("ahora") LocalDateTime ahora);
+
+    // Para inscripciones creadas fuera del flujo de reservas (no comprueba capacidad)
+    @Modifying
+    @Query("UPDATE CupoCurso c SET c.ocupados = c.ocupados + 1, c.fechaActualizacion = :ahora WHERE c.cursoId = :cursoId")
+    int forzarOcupacion(@Param("cursoId") Integer cursoId, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE CupoCurso c SET c.ocupados = c.ocupados - 1, c.fechaActualizacion = :ahora " +
+           "WHERE c.cursoId = :cursoId AND c.ocupados > 0")
+    int desocupar(@Param("cursoId") Integer cursoId, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Crea la fila del curso si no existe; si otra petición la creó al mismo
+     * tiempo no falla (no deja la transacción del llamador marcada para rollback)
+     *
+     * @return 1 si se creó, 0 si ya existía
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO cupos_curso (curso_id, capacidad, ocupados, fecha_actualizacion) " +
+                   "VALUES (:cursoId, :capacidad, :ocupados, :ahora)", nativeQuery = true)
+    int crearSiNoExiste(@Param("cursoId") Integer cursoId, @Param("capacidad") Integer capacidad,
+                        @Param("ocupados") Integer ocupados, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE CupoCurso c SET c.capacidad = :capacidad, c.ocupados = :ocupados, c.fechaActualizacion = :ahora " +
+           "WHERE c.cursoId = :cursoId")
+    int reiniciar(@Param("cursoId") Integer cursoId, @Param("capacidad") Integer capacidad,
+                  @Param("ocupados") Integer ocupados, @Param("ahora") LocalDateTime ahora);
+}
@@ -14,4 +14,8 @@ public interface CursoRepository extends JpaRepository<Curso, Integer> {
     // Obtener cursos donde el estudiante está inscrito con estado ACTIVA
     @Query("SELECT c FROM Curso c JOIN Inscripcion i ON c.id = i.cursoId WHERE i.estudianteId = :estudianteId AND i.estadoInscripcion = 'Activa'")
     List<Curso> findCursosByEstudianteId(@Param("estudianteId") Integer estudianteId);
+
+    // Número de cursos por estado (estadísticas)
+    @Query("SELECT c.estado, COUNT(c) FROM Curso c GROUP BY c.estado")
+    List<Object[]> contarPorEstado();
 }
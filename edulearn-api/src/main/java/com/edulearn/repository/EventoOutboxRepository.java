@@ -0,0 +1,80 @@
+package com.edulearn.repository;
+
+import com.edulearn.model.EventoOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    /**
+     * Eventos listos para entregar, en orden de inserción, bloqueados para esta
+     * transacción (SKIP LOCKED: otra instancia reclama filas distintas).
+     *
+     * De cada clave de orden solo se devuelve la fila PENDIENTE más antigua,
+     * esté o no reclamada o esperando reintento: mientras exista, las
+     * siguientes de su clave no son reclamables por ninguna instancia. El
+     * bloqueo de esa fila (y después su reserva en proximo_intento) hace de
+     * bloqueo de la clave.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoOutbox e WHERE e.estado = 'PENDIENTE' AND e.proximoIntento <= :ahora " +
+           "AND (e.claveOrden IS NULL OR NOT EXISTS (SELECT 1 FROM EventoOutbox a WHERE a.claveOrden = e.claveOrden " +
+           "AND a.estado = 'PENDIENTE' AND a.id < e.id)) " +
+           "ORDER BY e.id ASC")
+    List<EventoOutbox> reclamar(@Param("ahora") LocalDateTime ahora, Pageable pagina);
+
+    /**
+     * La siguiente fila de una clave, una vez entregada la anterior (mismas
+     * condiciones que reclamar)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoOutbox e WHERE e.claveOrden = :clave AND e.estado = 'PENDIENTE' " +
+           "AND e.proximoIntento <= :ahora AND NOT EXISTS (SELECT 1 FROM EventoOutbox a " +
+           "WHERE a.claveOrden = e.claveOrden AND a.estado = 'PENDIENTE' AND a.id < e.id) " +
+           "ORDER BY e.id ASC")
+    List<EventoOutbox> reclamarSiguiente(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora, Pageable pagina);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.estado = 'ENTREGADO', e.intentos = e.intentos + 1, e.fechaEntrega = :fecha, " +
+           "e.listenersEntregados = :listeners, e.ultimoError = NULL WHERE e.id = :id")
+    int marcarEntregado(@Param("id") Long id, @Param("fecha") LocalDateTime fecha, @Param("listeners") String listeners);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.estado = :estado, e.intentos = e.intentos + 1, e.proximoIntento = :proximo, " +
+           "e.listenersEntregados = :listeners, e.ultimoError = :error WHERE e.id = :id")
+    int registrarFallo(@Param("id") Long id, @Param("estado") String estado, @Param("proximo") LocalDateTime proximo,
+                       @Param("listeners") String listeners, @Param("error") String error);
+
+    // Devuelve a la cola un evento reclamado que no se llegó a intentar (carril de su tipo lleno)
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.proximoIntento = :proximo WHERE e.id = :id AND e.estado = 'PENDIENTE'")
+    int aplazar(@Param("id") Long id, @Param("proximo") LocalDateTime proximo);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.estado = 'PENDIENTE', e.intentos = 0, e.proximoIntento = :ahora " +
+           "WHERE e.estado = 'FALLIDO'")
+    int reintentarFallidos(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT e.id FROM EventoOutbox e WHERE e.estado = 'ENTREGADO' AND e.fechaEntrega < :limite ORDER BY e.id ASC")
+    List<Long> findIdsEntregadosAntesDe(@Param("limite") LocalDateTime limite, Pageable pagina);
+
+    @Query("SELECT e.estado, COUNT(e) FROM EventoOutbox e GROUP BY e.estado")
+    List<Object[]> contarPorEstado();
+
+    @Query("SELECT e.tipoEvento, COUNT(e) FROM EventoOutbox e WHERE e.estado = 'PENDIENTE' GROUP BY e.tipoEvento")
+    List<Object[]> contarPendientesPorTipo();
+}
@@ -1,11 +1,82 @@
 package com.edulearn.repository;
 
+import com.edulearn.dto.InscripcionDetalleDTO;
 import com.edulearn.model.Inscripcion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InscripcionRepository extends JpaRepository<Inscripcion, Integer> {
     List<Inscripcion> findByEstudianteId(Integer estudianteId);
     List<Inscripcion> findByCursoId(Integer cursoId);
     java.util.Optional<Inscripcion> findByEstudianteIdAndCursoId(Integer estudianteId, Integer cursoId);
+
+    /**
+     * Listado de inscripciones con estudiante y curso resueltos en una sola consulta.
+     * Paginación por keyset: se devuelven filas con id > despuesDeId ordenadas por id,
+     * el tamaño de página lo fija el Pageable (Pageable.unpaged() devuelve todo).
+     * Los filtros nulos se ignoran.
+     */
+    @Query("SELECT new com.edulearn.dto.InscripcionDetalleDTO(" +
+           "i.id, i.estudianteId, i.cursoId, i.fechaInscripcion, i.modalidad, i.estadoInscripcion, " +
+           "i.certificadoGarantizado, i.tipoBeca, i.codigoBeca, i.montoPagado, i.metodoPago, i.motivoRechazo, " +
+           "e.id, u.nombre, u.apellidos, u.email, e.matricula, " +
+           "c.id, c.nombre, c.codigo, c.descripcion) " +
+           "FROM Inscripcion i " +
+           "LEFT JOIN Estudiante e ON e.id = i.estudianteId " +
+           "LEFT JOIN e.usuario u " +
+           "LEFT JOIN Curso c ON c.id = i.cursoId " +
+           "WHERE (:estudianteId IS NULL OR i.estudianteId = :estudianteId) " +
+           "AND (:modalidad IS NULL OR i.modalidad = :modalidad) " +
+           "AND (:estado IS NULL OR i.estadoInscripcion = :estado) " +
+           "AND (:despuesDeId IS NULL OR i.id > :despuesDeId) " +
+           "ORDER BY i.id ASC")
+    List<InscripcionDetalleDTO> buscarDetalle(@Param("estudianteId") Integer estudianteId,
+                                             @Param("modalidad") String modalidad,
+                                             @Param("estado") String estado,
+                                             @Param("despuesDeId") Integer despuesDeId,
+                                             Pageable pageable);
+
+    /**
+     * Inscripciones con estudiante y curso para exportar, como valores planos
+     * (sin entidades en el contexto de persistencia). El fetch size
+     * Integer.MIN_VALUE hace que el driver de MySQL lea fila a fila en lugar
+     * de cargar todo el resultado. Debe consumirse dentro de una transacción
+     * y cerrarse al terminar.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.id, u.nombre, u.apellidos, u.email, e.matricula, c.codigo, c.nombre, " +
+           "i.fechaInscripcion, i.modalidad, i.estadoInscripcion, i.tipoBeca, i.montoPagado, i.metodoPago " +
+           "FROM Inscripcion i " +
+           "LEFT JOIN Estudiante e ON e.id = i.estudianteId " +
+           "LEFT JOIN e.usuario u " +
+           "LEFT JOIN Curso c ON c.id = i.cursoId " +
+           "WHERE (:cursoId IS NULL OR i.cursoId = :cursoId) " +
+           "ORDER BY i.id ASC")
+    Stream<Object[]> exportarDetalle(@Param("cursoId") Integer cursoId);
+
+    /**
+     * (cursoId, estadoInscripcion, cantidad) para reconstruir las estadísticas
+     */
+    @Query("SELECT i.cursoId, i.estadoInscripcion, COUNT(i) FROM Inscripcion i GROUP BY i.cursoId, i.estadoInscripcion")
+    List<Object[]> contarPorCursoYEstado();
+
+    /**
+     * (estudianteId, cantidad) de inscripciones en un estado dado
+     */
+    @Query("SELECT i.estudianteId, COUNT(i) FROM Inscripcion i WHERE i.estadoInscripcion = :estado GROUP BY i.estudianteId")
+    List<Object[]> contarPorEstudianteConEstado(@Param("estado") String estado);
+
+    /**
+     * Inscripciones que ocupan lugar en el curso (todas salvo las rechazadas)
+     */
+    @Query("SELECT COUNT(i) FROM Inscripcion i WHERE i.cursoId = :cursoId " +
+           "AND (i.estadoInscripcion IS NULL OR i.estadoInscripcion <> 'Rechazada')")
+    long contarOcupandoCupo(@Param("cursoId") Integer cursoId);
 }
@@ -0,0 +1,43 @@
+package com.edulearn.repository;
+
+import com.edulearn.model.ListaEspera;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+    Optional<ListaEspera> findFirstByCursoIdAndEstudianteIdAndEstado(Integer cursoId, Integer estudianteId, String estado);
+
+    /**
+     * Primero en espera del curso, bloqueado para esta transacción
+     * (SKIP LOCKED: dos promociones simultáneas no toman al mismo estudiante)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT l FROM ListaEspera l WHERE l.cursoId = :cursoId AND l.estado = 'ESPERANDO' ORDER BY l.id ASC")
+    List<ListaEspera> reclamarSiguiente(@Param("cursoId") Integer cursoId, Pageable pagina);
+
+    @Query("SELECT l FROM ListaEspera l WHERE l.cursoId = :cursoId AND l.estado = 'ESPERANDO' ORDER BY l.id ASC")
+    List<ListaEspera> findEsperando(@Param("cursoId") Integer cursoId, Pageable pagina);
+
+    // Cuántos esperan delante (posición = resultado + 1)
+    @Query("SELECT COUNT(l) FROM ListaEspera l WHERE l.cursoId = :cursoId AND l.estado = 'ESPERANDO' AND l.id < :id")
+    long contarDelante(@Param("cursoId") Integer cursoId, @Param("id") Long id);
+
+    @Query("SELECT COUNT(l) FROM ListaEspera l WHERE l.cursoId = :cursoId AND l.estado = 'ESPERANDO'")
+    long contarEsperando(@Param("cursoId") Integer cursoId);
+
+    @Query("SELECT DISTINCT l.cursoId FROM ListaEspera l WHERE l.estado = 'ESPERANDO'")
+    List<Integer> findCursosConEspera();
+}
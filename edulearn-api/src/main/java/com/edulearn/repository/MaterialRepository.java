@@ -4,9 +4,11 @@ import com.edulearn.model.Material;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,8 +17,22 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
     List<Material> findByModuloIdOrderByOrden(Long moduloId);
     List<Material> findByCursoId(Integer cursoId);
     List<Material> findByModuloId(Long moduloId);
+    List<Material> findByModuloIdInOrderByOrdenAsc(Collection<Long> moduloIds);
     long countByModuloId(Long moduloId);
     long countByCursoId(Integer cursoId);
+    long countByArchivoPath(String archivoPath);
+
+    /**
+     * Archivos referenciados por al menos un material (almacén de blobs)
+     */
+    @Query("SELECT DISTINCT m.archivoPath FROM Material m WHERE m.archivoPath IS NOT NULL")
+    List<String> findArchivoPathsEnUso();
+
+    /**
+     * Archivos referenciados por los materiales de un módulo (antes de borrarlos)
+     */
+    @Query("SELECT m.archivoPath FROM Material m WHERE m.moduloId = :moduloId AND m.archivoPath IS NOT NULL")
+    List<String> findArchivoPathsByModuloId(@Param("moduloId") Long moduloId);
 
     @Modifying
     @Transactional
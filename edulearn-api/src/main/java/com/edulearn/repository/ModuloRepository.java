@@ -2,7 +2,10 @@ package com.edulearn.repository;
 
 import com.edulearn.model.Modulo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,4 +14,10 @@ public interface ModuloRepository extends JpaRepository<Modulo, Long> {
     List<Modulo> findByCursoId(Integer cursoId);
     List<Modulo> findByCursoIdAndModuloPadreIdIsNull(Integer cursoId);
     long countByCursoId(Integer cursoId);
+
+    /**
+     * Cursos a los que pertenecen los módulos (para invalidar sus árboles)
+     */
+    @Query("SELECT DISTINCT m.cursoId FROM Modulo m WHERE m.id IN :ids AND m.cursoId IS NOT NULL")
+    List<Integer> findCursoIdsByIdIn(@Param("ids") Collection<Long> ids);
 }
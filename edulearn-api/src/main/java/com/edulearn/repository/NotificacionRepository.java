@@ -2,8 +2,13 @@ package com.edulearn.repository;
 
 import com.edulearn.model.Notificacion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -36,4 +41,60 @@ public interface NotificacionRepository extends JpaRepository<Notificacion, Long
      * Buscar notificaciones por destinatario y estado
      */
     List<Notificacion> findByDestinatarioAndEstado(String destinatario, String estado);
+
+    /**
+     * Destinatarios que ya recibieron la notificación de un evento de dominio
+     */
+    @Query("SELECT n.destinatario FROM Notificacion n WHERE n.claveOrigen = :claveOrigen")
+    List<String> findDestinatariosByClaveOrigen(@Param("claveOrigen") String claveOrigen);
+
+    // ========== Conteos en base de datos (sin cargar entidades) ==========
+
+    /**
+     * Filas [estado, cantidad]
+     */
+    @Query("SELECT n.estado, COUNT(n) FROM Notificacion n GROUP BY n.estado")
+    List<Object[]> contarPorEstado();
+
+    /**
+     * Filas [tipo, cantidad]
+     */
+    @Query("SELECT n.tipo, COUNT(n) FROM Notificacion n GROUP BY n.tipo")
+    List<Object[]> contarPorTipo();
+
+    /**
+     * Filas [destinatario, cantidad] de las notificaciones en el estado indicado
+     */
+    @Query("SELECT n.destinatario, COUNT(n) FROM Notificacion n WHERE n.estado = :estado GROUP BY n.destinatario")
+    List<Object[]> contarPorDestinatario(@Param("estado") String estado);
+
+    /**
+     * Cambia de estado, en una sola sentencia UPDATE, las notificaciones de un destinatario.
+     * Si hastaId no es null, solo afecta a las de id <= hastaId (las llegadas después no se tocan).
+     * @return número de filas modificadas
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Notificacion n SET n.estado = :estadoNuevo, n.fechaEnvio = :fecha " +
+           "WHERE n.destinatario = :destinatario AND n.estado = :estadoAnterior " +
+           "AND (:hastaId IS NULL OR n.id <= :hastaId)")
+    int actualizarEstadoDeDestinatario(@Param("destinatario") String destinatario,
+                                       @Param("estadoAnterior") String estadoAnterior,
+                                       @Param("estadoNuevo") String estadoNuevo,
+                                       @Param("fecha") LocalDateTime fecha,
+                                       @Param("hastaId") Long hastaId);
+
+    /**
+     * Cambia el estado de una notificación solo si sigue en estadoAnterior
+     * (comparar y asignar): de dos llamadas concurrentes, solo una modifica la fila.
+     * @return 1 si se cambió, 0 si otro la cambió antes
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Notificacion n SET n.estado = :estadoNuevo, n.fechaEnvio = :fecha " +
+           "WHERE n.id = :id AND (n.estado = :estadoAnterior OR (:estadoAnterior IS NULL AND n.estado IS NULL))")
+    int cambiarEstadoSiSigueEn(@Param("id") Long id,
+                               @Param("estadoAnterior") String estadoAnterior,
+                               @Param("estadoNuevo") String estadoNuevo,
+                               @Param("fecha") LocalDateTime fecha);
 }
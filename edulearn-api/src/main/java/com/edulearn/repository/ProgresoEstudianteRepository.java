@@ -1,11 +1,17 @@
 package com.edulearn.repository;
 
 import com.edulearn.model.ProgresoEstudiante;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProgresoEstudianteRepository extends JpaRepository<ProgresoEstudiante, Integer> {
@@ -19,4 +25,35 @@ public interface ProgresoEstudianteRepository extends JpaRepository<ProgresoEstu
     List<ProgresoEstudiante> findByEstadoCurso(String estadoCurso);
 
     List<ProgresoEstudiante> findByEstudianteIdAndEstadoCurso(Integer estudianteId, String estadoCurso);
+
+    /**
+     * Calificaciones por estudiante y curso para exportar, leídas fila a fila
+     * (ver InscripcionRepository.exportarDetalle). Debe consumirse dentro de
+     * una transacción y cerrarse al terminar.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p.estudianteId, u.nombre, u.apellidos, e.matricula, c.codigo, c.nombre, " +
+           "p.porcentajeCompletado, p.calificacionAcumulada, p.evaluacionesCompletadas, p.estadoCurso, " +
+           "p.fechaUltimaActualizacion " +
+           "FROM ProgresoEstudiante p " +
+           "LEFT JOIN Estudiante e ON e.id = p.estudianteId " +
+           "LEFT JOIN e.usuario u " +
+           "LEFT JOIN Curso c ON c.id = p.cursoId " +
+           "WHERE (:cursoId IS NULL OR p.cursoId = :cursoId) " +
+           "ORDER BY p.cursoId ASC, p.estudianteId ASC")
+    Stream<Object[]> exportarCalificaciones(@Param("cursoId") Integer cursoId);
+
+    /**
+     * Cursos (id, nombre) con registros de progreso, para dividir reportes por curso
+     */
+    @Query("SELECT DISTINCT p.cursoId, c.nombre FROM ProgresoEstudiante p " +
+           "LEFT JOIN Curso c ON c.id = p.cursoId ORDER BY p.cursoId ASC")
+    List<Object[]> findCursosConProgreso();
+
+    /**
+     * Histograma de calificaciones (cursoId, calificacion, cantidad) para reconstruir las estadísticas
+     */
+    @Query("SELECT p.cursoId, p.calificacionAcumulada, COUNT(p) FROM ProgresoEstudiante p " +
+           "WHERE p.calificacionAcumulada IS NOT NULL GROUP BY p.cursoId, p.calificacionAcumulada")
+    List<Object[]> histogramaCalificaciones();
 }
@@ -1,8 +1,15 @@
 package com.edulearn.repository;
 
+import com.edulearn.dto.ReporteResumenDTO;
 import com.edulearn.model.ReporteGenerado;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,4 +18,34 @@ public interface ReporteGeneradoRepository extends JpaRepository<ReporteGenerado
     List<ReporteGenerado> findByFormato(String formato);
     List<ReporteGenerado> findByUsuarioId(Integer usuarioId);
     List<ReporteGenerado> findByEstado(String estado);
+    long countByRutaArchivo(String rutaArchivo);
+
+    /**
+     * Listado de reportes (solo metadatos), del más reciente al más antiguo.
+     * tipoReporte nulo devuelve todos.
+     */
+    @Query("SELECT new com.edulearn.dto.ReporteResumenDTO(" +
+           "r.id, r.tipoReporte, r.formato, r.titulo, r.usuarioId, r.generadoPor, " +
+           "r.fechaGeneracion, r.estado, r.tamanoBytes) " +
+           "FROM ReporteGenerado r " +
+           "WHERE (:tipoReporte IS NULL OR r.tipoReporte = :tipoReporte) " +
+           "ORDER BY r.fechaGeneracion DESC, r.id DESC")
+    List<ReporteResumenDTO> listarResumen(@Param("tipoReporte") String tipoReporte);
+
+    /**
+     * Claves del almacén de reportes referenciadas por algún reporte
+     */
+    @Query("SELECT DISTINCT r.rutaArchivo FROM ReporteGenerado r WHERE r.rutaArchivo IS NOT NULL")
+    List<String> findRutasArchivoEnUso();
+
+    /**
+     * Claves del almacén de los reportes generados antes de la fecha límite
+     */
+    @Query("SELECT r.rutaArchivo FROM ReporteGenerado r WHERE r.fechaGeneracion < :limite AND r.rutaArchivo IS NOT NULL")
+    List<String> findRutasArchivoAnterioresA(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReporteGenerado r WHERE r.fechaGeneracion < :limite")
+    int deleteByFechaGeneracionBefore(@Param("limite") LocalDateTime limite);
 }
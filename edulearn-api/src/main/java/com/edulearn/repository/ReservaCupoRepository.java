@@ -0,0 +1,49 @@
+package com.edulearn.repository;
+
+import com.edulearn.model.ReservaCupo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaCupoRepository extends JpaRepository<ReservaCupo, Long> {
+
+    Optional<ReservaCupo> findFirstByInscripcionIdOrderByIdDesc(Integer inscripcionId);
+
+    /**
+     * Cambia el estado solo si sigue en el esperado: devuelve 0 si otro hilo
+     * (o la expiración) ya lo cambió, y entonces no se toca el contador
+     */
+    @Modifying
+    @Query("UPDATE ReservaCupo r SET r.estado = :nuevo WHERE r.id = :id AND r.estado = :actual")
+    int cambiarEstado(@Param("id") Long id, @Param("actual") String actual, @Param("nuevo") String nuevo);
+
+    @Modifying
+    @Query("UPDATE ReservaCupo r SET r.estado = 'CONFIRMADA', r.inscripcionId = :inscripcionId, r.expiraEn = NULL " +
+           "WHERE r.id = :id AND r.estado = 'RESERVADA'")
+    int confirmar(@Param("id") Long id, @Param("inscripcionId") Integer inscripcionId);
+
+    // Asocia la inscripción pendiente y fija hasta cuándo se guarda el cupo
+    @Modifying
+    @Query("UPDATE ReservaCupo r SET r.inscripcionId = :inscripcionId, r.expiraEn = :expiraEn " +
+           "WHERE r.id = :id AND r.estado = 'RESERVADA'")
+    int vincular(@Param("id") Long id, @Param("inscripcionId") Integer inscripcionId,
+                 @Param("expiraEn") LocalDateTime expiraEn);
+
+    @Query("SELECT r FROM ReservaCupo r WHERE r.estado = 'RESERVADA' AND r.expiraEn < :ahora ORDER BY r.expiraEn ASC")
+    List<ReservaCupo> findVencidas(@Param("ahora") LocalDateTime ahora, Pageable pagina);
+
+    // Reservas en curso que todavía no tienen inscripción guardada
+    @Query("SELECT COUNT(r) FROM ReservaCupo r WHERE r.cursoId = :cursoId AND r.estado = 'RESERVADA' AND r.inscripcionId IS NULL")
+    long contarSinInscripcion(@Param("cursoId") Integer cursoId);
+
+    @Query("SELECT r.estado, COUNT(r) FROM ReservaCupo r GROUP BY r.estado")
+    List<Object[]> contarPorEstado();
+}
@@ -0,0 +1,392 @@
+package com.edulearn.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sala de espera de inscripciones
+ *
+ * Cuando abre un curso muy solicitado, las inscripciones no se procesan en
+ * el hilo de cada petición: entran a una cola FIFO por curso y las atiende
+ * un número fijo de trabajadores (edulearn.admision.trabajadores), así la
+ * concurrencia contra MySQL queda acotada sin importar cuántas peticiones
+ * lleguen a la vez. Los cursos con cola se atienden por turnos (round-robin)
+ * para que uno muy demandado no acapare a los trabajadores.
+ *
+ * - El cliente recibe un turno con su posición en la cola y puede
+ *   consultarlo hasta que termine.
+ * - Rechazo rápido: si el inventario indica que el curso no tiene cupos
+ *   (consulta cacheada refresco-cupos-ms), el turno se rechaza sin
+ *   encolar; cuando un trabajador agota los cupos, los turnos que esperan
+ *   en ese curso se rechazan de inmediato.
+ * - Cada cola tiene una capacidad máxima; al llenarse se rechaza pidiendo
+ *   reintentar más tarde.
+ * - Un estudiante que ya tiene turno en el curso recibe el mismo turno.
+ */
+@Service
+public class AdmisionInscripcionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmisionInscripcionesService.class);
+
+    public static final String EN_COLA = "EN_COLA";
+    public static final String PROCESANDO = "PROCESANDO";
+    public static final String COMPLETADO = "COMPLETADO";
+    public static final String RECHAZADO = "RECHAZADO";
+    public static final String ERROR = "ERROR";
+
+    private static final String SIN_CUPOS =
+        "No quedan cupos disponibles en el curso. Puede anotarse en la lista de espera (POST /api/inscripciones/lista-espera)";
+
+    @Value("${edulearn.admision.trabajadores:8}")
+    private int numeroTrabajadores;
+
+    @Value("${edulearn.admision.capacidad-cola:2000}")
+    private int capacidadCola;
+
+    @Value("${edulearn.admision.refresco-cupos-ms:1000}")
+    private long refrescoCuposMs;
+
+    @Value("${edulearn.admision.retencion-segundos:600}")
+    private long retencionSegundos;
+
+    @Autowired
+    private InventarioCuposService inventarioCupos;
+
+    private final Map<Integer, ColaCurso> colas = new ConcurrentHashMap<>();
+    private final Map<String, Turno> turnos = new ConcurrentHashMap<>();
+    private final Map<String, Turno> turnoPorEstudiante = new ConcurrentHashMap<>();
+
+    // Cursos con turnos pendientes, cada uno como máximo una vez
+    private final BlockingQueue<ColaCurso> cursosListos = new LinkedBlockingQueue<>();
+
+    private final List<Thread> trabajadores = new ArrayList<>();
+    private ScheduledExecutorService limpieza;
+    private volatile boolean activo;
+
+    // Métricas
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong completados = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong rechazadosSinCupo = new AtomicLong();
+    private final AtomicLong rechazadosColaLlena = new AtomicLong();
+    private final AtomicLong totalEsperaNanos = new AtomicLong();
+    private final AtomicLong maxEsperaNanos = new AtomicLong();
+    private final AtomicLong totalProcesoNanos = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        activo = true;
+        for (int i = 0; i < Math.max(1, numeroTrabajadores); i++) {
+            trabajadores.add(Thread.ofVirtual().name("admision-inscripciones-" + i).start(this::atender));
+        }
+        limpieza = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "admision-limpieza");
+            t.setDaemon(true);
+            return t;
+        });
+        limpieza.scheduleWithFixedDelay(this::olvidarTerminados, 60, 60, TimeUnit.SECONDS);
+        logger.info("🎟️ Sala de espera de inscripciones iniciada ({} trabajadores, cola máxima {} por curso)",
+            numeroTrabajadores, capacidadCola);
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        trabajadores.forEach(Thread::interrupt);
+        limpieza.shutdownNow();
+        for (ColaCurso cola : colas.values()) {
+            rechazarPendientes(cola, "El servidor se está deteniendo, intente de nuevo en unos minutos");
+        }
+    }
+
+    /**
+     * Pide turno para inscribir al estudiante en el curso
+     *
+     * @param tarea proceso de inscripción; se ejecuta en un trabajador y su
+     *              resultado queda en el turno
+     * @return el turno (ya RECHAZADO si no hay cupos o la cola está llena)
+     */
+    public Turno encolar(Integer cursoId, Integer estudianteId, Supplier<?> tarea) {
+        String claveEstudiante = cursoId + ":" + estudianteId;
+        Turno existente = turnoPorEstudiante.get(claveEstudiante);
+        if (existente != null && !existente.isTerminado()) {
+            return existente;
+        }
+
+        ColaCurso cola = colas.computeIfAbsent(cursoId, ColaCurso::new);
+        if (disponibles(cola) <= 0) {
+            Turno rechazado = new Turno(cursoId, estudianteId, tarea);
+            turnos.put(rechazado.id, rechazado);
+            rechazadosSinCupo.incrementAndGet();
+            rechazado.terminar(RECHAZADO, SIN_CUPOS, null);
+            return rechazado;
+        }
+
+        Turno turno;
+        synchronized (cola) {
+            // Se vuelve a mirar bajo el candado del curso, donde también se registra:
+            // de dos peticiones simultáneas del mismo estudiante solo una saca ticket
+            existente = turnoPorEstudiante.get(claveEstudiante);
+            if (existente != null && !existente.isTerminado()) {
+                return existente;
+            }
+            turno = new Turno(cursoId, estudianteId, tarea);
+            turnos.put(turno.id, turno);
+
+            if (cola.pendientes.size() >= capacidadCola) {
+                rechazadosColaLlena.incrementAndGet();
+                turno.terminar(RECHAZADO, "La sala de espera del curso está llena, intente de nuevo en unos minutos", null);
+                return turno;
+            }
+            turno.ticket = ++cola.ultimoTicket;
+            cola.pendientes.addLast(turno);
+            turnoPorEstudiante.put(claveEstudiante, turno);
+            if (!cola.enListos) {
+                cola.enListos = true;
+                cursosListos.add(cola);
+            }
+        }
+        encolados.incrementAndGet();
+        return turno;
+    }
+
+    public Turno obtener(String turnoId) {
+        return turnos.get(turnoId);
+    }
+
+    /**
+     * Turnos delante de este en su curso (0 si ya se está atendiendo o terminó)
+     */
+    public long posicion(Turno turno) {
+        if (!EN_COLA.equals(turno.estado)) {
+            return 0;
+        }
+        ColaCurso cola = colas.get(turno.cursoId);
+        return cola == null ? 0 : Math.max(0, turno.ticket - cola.ultimoAtendido - 1);
+    }
+
+    public Map<String, Object> describir(Turno turno) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("turnoId", turno.id);
+        info.put("cursoId", turno.cursoId);
+        info.put("estudianteId", turno.estudianteId);
+        info.put("estado", turno.estado);
+        if (EN_COLA.equals(turno.estado)) {
+            info.put("posicion", posicion(turno));
+        }
+        if (turno.mensaje != null) {
+            info.put("mensaje", turno.mensaje);
+        }
+        return info;
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        long atendidos = completados.get() + errores.get();
+        Map<String, Object> porCurso = new LinkedHashMap<>();
+        int enCola = 0;
+        for (ColaCurso cola : colas.values()) {
+            int pendientes;
+            synchronized (cola) {
+                pendientes = cola.pendientes.size();
+            }
+            if (pendientes > 0) {
+                porCurso.put(String.valueOf(cola.cursoId), pendientes);
+            }
+            enCola += pendientes;
+        }
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("trabajadores", numeroTrabajadores);
+        metricas.put("enCola", enCola);
+        metricas.put("enColaPorCurso", porCurso);
+        metricas.put("encolados", encolados.get());
+        metricas.put("completados", completados.get());
+        metricas.put("errores", errores.get());
+        metricas.put("rechazadosSinCupo", rechazadosSinCupo.get());
+        metricas.put("rechazadosColaLlena", rechazadosColaLlena.get());
+        metricas.put("esperaPromedioMs", atendidos == 0 ? 0.0 : totalEsperaNanos.get() / 1_000_000.0 / atendidos);
+        metricas.put("esperaMaximaMs", maxEsperaNanos.get() / 1_000_000.0);
+        metricas.put("procesoPromedioMs", atendidos == 0 ? 0.0 : totalProcesoNanos.get() / 1_000_000.0 / atendidos);
+        return metricas;
+    }
+
+    // ========== Trabajadores ==========
+
+    private void atender() {
+        while (activo) {
+            ColaCurso cola;
+            try {
+                cola = cursosListos.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            Turno turno;
+            synchronized (cola) {
+                turno = cola.pendientes.pollFirst();
+                if (turno != null) {
+                    cola.ultimoAtendido = turno.ticket;
+                }
+                // El curso vuelve al final de la ronda si le quedan turnos
+                if (cola.pendientes.isEmpty()) {
+                    cola.enListos = false;
+                } else {
+                    cursosListos.add(cola);
+                }
+            }
+            if (turno != null) {
+                procesar(cola, turno);
+            }
+        }
+    }
+
+    private void procesar(ColaCurso cola, Turno turno) {
+        long inicio = System.nanoTime();
+        long espera = inicio - turno.encoladoNanos;
+        totalEsperaNanos.addAndGet(espera);
+        maxEsperaNanos.accumulateAndGet(espera, Math::max);
+
+        turno.estado = PROCESANDO;
+        try {
+            Object resultado = turno.tarea.get();
+            turno.terminar(COMPLETADO, null, resultado);
+            completados.incrementAndGet();
+        } catch (Exception e) {
+            errores.incrementAndGet();
+            turno.terminar(ERROR, "Error al procesar la inscripción: " + e.getMessage(), null);
+            logger.error("Error procesando turno {} del curso {}: {}", turno.id, turno.cursoId, e.getMessage(), e);
+        } finally {
+            totalProcesoNanos.addAndGet(System.nanoTime() - inicio);
+        }
+
+        // Tras cada inscripción se revisa el inventario: si ya no hay lugar, no tiene sentido seguir esperando
+        cola.consultadoEn = 0;
+        if (disponibles(cola) <= 0) {
+            int rechazados = rechazarPendientes(cola, SIN_CUPOS);
+            if (rechazados > 0) {
+                rechazadosSinCupo.addAndGet(rechazados);
+                logger.info("🚫 Curso {} sin cupos: {} turnos en espera rechazados", cola.cursoId, rechazados);
+            }
+        }
+    }
+
+    private int rechazarPendientes(ColaCurso cola, String motivo) {
+        List<Turno> rechazados;
+        synchronized (cola) {
+            rechazados = new ArrayList<>(cola.pendientes);
+            cola.pendientes.clear();
+            if (!rechazados.isEmpty()) {
+                cola.ultimoAtendido = rechazados.get(rechazados.size() - 1).ticket;
+            }
+        }
+        rechazados.forEach(t -> t.terminar(RECHAZADO, motivo, null));
+        return rechazados.size();
+    }
+
+    /**
+     * Cupos libres según el inventario, cacheado por curso durante refresco-cupos-ms
+     */
+    private int disponibles(ColaCurso cola) {
+        long ahora = System.currentTimeMillis();
+        if (ahora - cola.consultadoEn > refrescoCuposMs) {
+            InventarioCuposService.Disponibilidad cupos = inventarioCupos.consultar(cola.cursoId);
+            // Si el curso no existe se deja pasar: el proceso de inscripción da el error adecuado
+            cola.disponibles = cupos != null ? cupos.getDisponibles() : Integer.MAX_VALUE;
+            cola.consultadoEn = ahora;
+        }
+        return cola.disponibles;
+    }
+
+    private void olvidarTerminados() {
+        long limite = System.nanoTime() - TimeUnit.SECONDS.toNanos(retencionSegundos);
+        turnos.values().removeIf(t -> t.isTerminado() && t.terminadoNanos < limite);
+        turnoPorEstudiante.values().removeIf(Turno::isTerminado);
+    }
+
+    // ========== Estructuras ==========
+
+    private static class ColaCurso {
+        private final Integer cursoId;
+        private final ArrayDeque<Turno> pendientes = new ArrayDeque<>();
+        private long ultimoTicket;
+        private volatile long ultimoAtendido;
+        private boolean enListos;
+        private volatile int disponibles;
+        private volatile long consultadoEn;
+
+        ColaCurso(Integer cursoId) {
+            this.cursoId = cursoId;
+        }
+    }
+
+    /**
+     * Lugar de un estudiante en la sala de espera de un curso
+     */
+    public static class Turno {
+        private final String id = UUID.randomUUID().toString();
+        private final Integer cursoId;
+        private final Integer estudianteId;
+        private final Supplier<?> tarea;
+        private final long encoladoNanos = System.nanoTime();
+        private final CompletableFuture<Turno> fin = new CompletableFuture<>();
+        private volatile long ticket;
+        private volatile String estado = EN_COLA;
+        private volatile String mensaje;
+        private volatile Object resultado;
+        private volatile long terminadoNanos;
+
+        Turno(Integer cursoId, Integer estudianteId, Supplier<?> tarea) {
+            this.cursoId = cursoId;
+            this.estudianteId = estudianteId;
+            this.tarea = tarea;
+        }
+
+        void terminar(String estadoFinal, String mensajeFinal, Object resultadoFinal) {
+            this.mensaje = mensajeFinal;
+            this.resultado = resultadoFinal;
+            this.terminadoNanos = System.nanoTime();
+            this.estado = estadoFinal;
+            fin.complete(this);
+        }
+
+        /**
+         * Se completa con true cuando el turno termina, o con false si antes
+         * pasa el tiempo indicado; no bloquea a quien lo pide
+         */
+        public CompletableFuture<Boolean> alTerminar(long milisegundos) {
+            return fin.thenApply(t -> true).completeOnTimeout(false, milisegundos, TimeUnit.MILLISECONDS);
+        }
+
+        public boolean isTerminado() {
+            return fin.isDone();
+        }
+
+        public String getId() { return id; }
+        public Integer getCursoId() { return cursoId; }
+        public Integer getEstudianteId() { return estudianteId; }
+        public String getEstado() { return estado; }
+        public String getMensaje() { return mensaje; }
+        public Object getResultado() { return resultado; }
+    }
+}
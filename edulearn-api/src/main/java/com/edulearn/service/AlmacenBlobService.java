@@ -0,0 +1,405 @@
+package com.edulearn.service;
+
+import com.edulearn.repository.MaterialRepository;
+import com.edulearn.util.RutasArchivo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de archivos direccionado por contenido (deduplicado)
+ *
+ * Cada archivo se guarda una sola vez con el SHA-256 de su contenido como
+ * nombre (ver RutasArchivo). Subir el mismo PDF o video en varios cursos, o
+ * clonar un curso, reutiliza el mismo blob en lugar de copiar los bytes.
+ *
+ * Conteo de referencias: las referencias son los Material.archivoPath que
+ * apuntan al blob, así que el contador se obtiene de la base de datos y no
+ * puede desincronizarse. Cuando se elimina la última referencia, liberar()
+ * borra el blob; recolectar() barre los blobs huérfanos (p. ej. subidos y
+ * nunca asociados).
+ *
+ * Periodo de gracia: la interfaz sube el archivo antes de guardar el
+ * formulario del módulo, así que un blob recién subido o vinculado todavía no
+ * tiene Material. Cada alta o vínculo deja una marca en uploads/.pendientes
+ * (su fecha de modificación es la del último uso), que sobrevive a un
+ * reinicio; ni liberar() ni el barrido borran un blob con una marca o una
+ * fecha de escritura dentro del periodo de gracia. Los que se liberan dentro
+ * de ese periodo los recoge el barrido periódico.
+ */
+@Service
+public class AlmacenBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenBlobService.class);
+
+    private static final String TEMPORALES_DIR = ".parciales";
+    private static final String PENDIENTES_DIR = ".pendientes";
+    private static final int FRANJAS = 64;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Value("${edulearn.blobs.gracia-minutos:1440}")
+    private long graciaMinutos;
+
+    @Value("${edulearn.blobs.recoleccion-minutos:30}")
+    private long intervaloRecoleccionMinutos;
+
+    private ScheduledExecutorService mantenimiento;
+
+    private final Object[] franjas = new Object[FRANJAS];
+
+    private final AtomicLong deduplicados = new AtomicLong();
+    private final AtomicLong bytesAhorrados = new AtomicLong();
+    private final AtomicLong eliminados = new AtomicLong();
+
+    public AlmacenBlobService() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blobs-recoleccion");
+            t.setDaemon(true);
+            return t;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::recolectarSilencioso,
+            intervaloRecoleccionMinutos, intervaloRecoleccionMinutos, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void detener() {
+        mantenimiento.shutdownNow();
+    }
+
+    /**
+     * Guarda un archivo recibido por multipart sin volver a copiarlo
+     *
+     * El hash se calcula leyendo el temporal del multipart en su sitio. Si el
+     * blob ya existe no se escribe nada; si no, el temporal se traslada con
+     * transferTo (un renombrado cuando está en el mismo sistema de archivos)
+     * y se mueve de forma atómica al almacén.
+     *
+     * @return nombre del blob (hash + extensión) para Material.archivoPath
+     */
+    public String almacenar(MultipartFile archivo, String extension) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        try (InputStream entrada = archivo.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int leidos;
+            while ((leidos = entrada.read(buffer)) != -1) {
+                digest.update(buffer, 0, leidos);
+            }
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String nombre = sha256 + normalizarExtension(extension);
+
+        synchronized (franja(nombre)) {
+            if (Files.exists(RutasArchivo.resolver(nombre))) {
+                deduplicados.incrementAndGet();
+                bytesAhorrados.addAndGet(archivo.getSize());
+                registrarUso(nombre);
+                logger.info("♻️ Contenido duplicado, se reutiliza el blob {} ({} bytes ahorrados)", nombre, archivo.getSize());
+                return nombre;
+            }
+        }
+
+        Path temporal = nuevoTemporal();
+        try {
+            archivo.transferTo(temporal);
+            return almacenarConHash(temporal, sha256, extension);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Incorpora al almacén un archivo cuyo hash ya se conoce (p. ej. una subida
+     * fragmentada). El archivo se mueve; si el blob ya existía, se descarta.
+     *
+     * @return nombre del blob (hash + extensión)
+     */
+    public String almacenarConHash(Path archivo, String sha256, String extension) throws IOException {
+        String nombre = sha256.toLowerCase() + normalizarExtension(extension);
+        Path destino = RutasArchivo.resolver(nombre);
+
+        synchronized (franja(nombre)) {
+            if (Files.exists(destino)) {
+                long tamano = Files.size(archivo);
+                Files.delete(archivo);
+                deduplicados.incrementAndGet();
+                bytesAhorrados.addAndGet(tamano);
+                logger.info("♻️ Contenido duplicado, se reutiliza el blob {} ({} bytes ahorrados)", nombre, tamano);
+            } else {
+                Files.createDirectories(destino.getParent());
+                Files.move(archivo, destino, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("📦 Nuevo blob almacenado: {}", nombre);
+            }
+            registrarUso(nombre);
+        }
+        return nombre;
+    }
+
+    /**
+     * Registra que se va a crear una nueva referencia a un archivo existente
+     * (clonado de cursos, importaciones). No copia bytes.
+     *
+     * @return true si el archivo existe y puede enlazarse
+     */
+    public boolean vincular(String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            return false;
+        }
+        if (!RutasArchivo.esBlob(nombre)) {
+            return Files.exists(RutasArchivo.resolver(nombre));
+        }
+        synchronized (franja(nombre)) {
+            if (!Files.exists(RutasArchivo.resolver(nombre))) {
+                return false;
+            }
+            registrarUso(nombre);
+            return true;
+        }
+    }
+
+    /**
+     * Número de materiales que referencian el archivo
+     */
+    public long referencias(String nombre) {
+        return materialRepository.countByArchivoPath(nombre);
+    }
+
+    /**
+     * Llamar después de eliminar o reemplazar referencias: borra los blobs
+     * que se quedaron sin ninguna (fuera del periodo de gracia)
+     */
+    public void liberar(Collection<String> nombres) {
+        for (String nombre : new HashSet<>(nombres)) {
+            if (RutasArchivo.esBlob(nombre)) {
+                eliminarSiHuerfano(nombre, Instant.now().minus(Duration.ofMinutes(graciaMinutos)));
+            }
+        }
+    }
+
+    public void liberar(String nombre) {
+        if (nombre != null) {
+            liberar(List.of(nombre));
+        }
+    }
+
+    /**
+     * Recolección de basura: elimina todos los blobs sin referencias
+     *
+     * @return número de blobs eliminados y bytes liberados
+     */
+    public Map<String, Object> recolectar() throws IOException {
+        Path raiz = Paths.get(RutasArchivo.UPLOAD_DIR, RutasArchivo.BLOBS_DIR);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        if (!Files.isDirectory(raiz)) {
+            resultado.put("eliminados", 0);
+            resultado.put("bytesLiberados", 0L);
+            return resultado;
+        }
+
+        Set<String> enUso = new HashSet<>(materialRepository.findArchivoPathsEnUso());
+        Instant limite = Instant.now().minus(Duration.ofMinutes(graciaMinutos));
+        int borrados = 0;
+        long bytes = 0;
+
+        List<Path> blobs;
+        try (Stream<Path> recorrido = Files.walk(raiz, 3)) {
+            blobs = recorrido.filter(Files::isRegularFile)
+                    .filter(p -> RutasArchivo.esBlob(p.getFileName().toString()))
+                    .toList();
+        }
+        for (Path blob : blobs) {
+            String nombre = blob.getFileName().toString();
+            if (enUso.contains(nombre)) {
+                continue;
+            }
+            long tamano = Files.size(blob);
+            if (eliminarSiHuerfano(nombre, limite)) {
+                borrados++;
+                bytes += tamano;
+            }
+        }
+        limpiarMarcas(enUso, limite);
+
+        logger.info("🧹 Recolección de blobs: {} eliminados, {} bytes liberados", borrados, bytes);
+        resultado.put("eliminados", borrados);
+        resultado.put("bytesLiberados", bytes);
+        return resultado;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() throws IOException {
+        Path raiz = Paths.get(RutasArchivo.UPLOAD_DIR, RutasArchivo.BLOBS_DIR);
+        long blobs = 0;
+        long bytes = 0;
+        if (Files.isDirectory(raiz)) {
+            try (Stream<Path> recorrido = Files.walk(raiz, 3)) {
+                for (Path p : (Iterable<Path>) recorrido.filter(Files::isRegularFile)::iterator) {
+                    blobs++;
+                    bytes += Files.size(p);
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blobs", blobs);
+        stats.put("bytesEnDisco", bytes);
+        stats.put("subidasDeduplicadas", deduplicados.get());
+        stats.put("bytesAhorrados", bytesAhorrados.get());
+        stats.put("blobsEliminados", eliminados.get());
+        return stats;
+    }
+
+    // ========== Internos ==========
+
+    private void recolectarSilencioso() {
+        try {
+            recolectar();
+        } catch (Exception e) {
+            logger.warn("Error en la recolección periódica de blobs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borra el blob si no tiene referencias y no se usó después de limite
+     */
+    private boolean eliminarSiHuerfano(String nombre, Instant limite) {
+        synchronized (franja(nombre)) {
+            Instant uso = ultimoUso(nombre);
+            if (uso != null && uso.isAfter(limite)) {
+                return false;
+            }
+            // Se comprueba dentro del bloqueo: pudo enlazarse mientras tanto
+            if (materialRepository.countByArchivoPath(nombre) > 0) {
+                return false;
+            }
+            Path ruta = RutasArchivo.resolver(nombre);
+            try {
+                if (Files.getLastModifiedTime(ruta).toInstant().isAfter(limite)) {
+                    return false;
+                }
+                Files.delete(ruta);
+                Files.deleteIfExists(marcaPendiente(nombre));
+                eliminados.incrementAndGet();
+                logger.info("🗑️ Blob sin referencias eliminado: {}", nombre);
+                return true;
+            } catch (IOException e) {
+                logger.warn("No se pudo eliminar el blob {}: {}", nombre, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Marca el blob como recién subido o vinculado (persistente en disco)
+     */
+    private void registrarUso(String nombre) {
+        Path marca = marcaPendiente(nombre);
+        try {
+            Files.createDirectories(marca.getParent());
+            // Crea la marca o actualiza su fecha de modificación
+            Files.write(marca, new byte[0]);
+        } catch (IOException e) {
+            logger.warn("No se pudo registrar el uso del blob {}: {}", nombre, e.getMessage());
+        }
+    }
+
+    private Instant ultimoUso(String nombre) {
+        Path marca = marcaPendiente(nombre);
+        try {
+            return Files.exists(marca) ? Files.getLastModifiedTime(marca).toInstant() : null;
+        } catch (IOException e) {
+            // Ante la duda el blob se considera en uso
+            return Instant.now();
+        }
+    }
+
+    /**
+     * Quita las marcas de blobs que ya tienen referencias o cuyo periodo de
+     * gracia terminó
+     */
+    private void limpiarMarcas(Set<String> enUso, Instant limite) throws IOException {
+        Path directorio = Paths.get(RutasArchivo.UPLOAD_DIR, PENDIENTES_DIR);
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        List<Path> marcas;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            marcas = listado.toList();
+        }
+        for (Path marca : marcas) {
+            String nombre = marca.getFileName().toString();
+            synchronized (franja(nombre)) {
+                Instant uso = ultimoUso(nombre);
+                if (enUso.contains(nombre) || uso == null || uso.isBefore(limite)) {
+                    Files.deleteIfExists(marca);
+                }
+            }
+        }
+    }
+
+    private static Path marcaPendiente(String nombre) {
+        return Paths.get(RutasArchivo.UPLOAD_DIR, PENDIENTES_DIR, nombre);
+    }
+
+    private Path nuevoTemporal() throws IOException {
+        Path temporales = Paths.get(RutasArchivo.UPLOAD_DIR, TEMPORALES_DIR);
+        Files.createDirectories(temporales);
+        return temporales.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    private Object franja(String nombre) {
+        return franjas[Math.floorMod(nombre.hashCode(), FRANJAS)];
+    }
+
+    private static String normalizarExtension(String extension) {
+        if (extension == null || extension.isBlank()) {
+            return "";
+        }
+        String ext = extension.startsWith(".") ? extension : "." + extension;
+        // Solo extensiones simples para que el nombre siga siendo un blob válido
+        return ext.matches("\\.[A-Za-z0-9]{1,10}") ? ext.toLowerCase() : "";
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
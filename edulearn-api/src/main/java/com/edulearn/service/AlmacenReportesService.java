@@ -0,0 +1,401 @@
+package com.edulearn.service;
+
+import com.edulearn.repository.ReporteGeneradoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén de archivos de reportes generados (fuera de la base de datos)
+ *
+ * Cada reporte se guarda una sola vez con el SHA-256 de su contenido como
+ * clave, en directorio/ab/<sha256>.gz (comprimido con gzip) o .bin cuando la
+ * compresión no aporta (PDF y XLSX ya vienen comprimidos). La tabla
+ * reportes_generados solo guarda metadatos y la clave (ruta_archivo).
+ *
+ * - Retención: periódicamente se eliminan los reportes más antiguos que
+ *   edulearn.reportes.retencion-dias y los archivos que ya nadie referencia.
+ * - Migración: al arrancar, los reportes antiguos que aún tienen el binario
+ *   en contenido_binario (o el HTML en contenido) se pasan al almacén por lotes.
+ */
+@Service
+public class AlmacenReportesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlmacenReportesService.class);
+
+    private static final String COMPRIMIDO = ".gz";
+    private static final String SIN_COMPRIMIR = ".bin";
+    private static final Pattern CLAVE = Pattern.compile("^[0-9a-f]{64}\\.(gz|bin)$");
+    private static final String TEMPORALES_DIR = ".temporales";
+    private static final int LOTE_MIGRACION = 50;
+    private static final long GRACIA_MS = TimeUnit.HOURS.toMillis(1);
+
+    // Solo se guarda comprimido si ocupa menos del 90% del original
+    private static final double RATIO_MINIMO = 0.9;
+
+    @Value("${edulearn.reportes.almacen.directorio:reportes}")
+    private String directorio;
+
+    @Value("${edulearn.reportes.retencion-dias:90}")
+    private long retencionDias;
+
+    @Value("${edulearn.reportes.retencion.intervalo-horas:24}")
+    private long intervaloPurgaHoras;
+
+    @Autowired
+    private ReporteGeneradoRepository reporteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Object bloqueo = new Object();
+
+    private final AtomicLong bytesOriginales = new AtomicLong();
+    private final AtomicLong bytesAlmacenados = new AtomicLong();
+    private final AtomicLong deduplicados = new AtomicLong();
+
+    private ScheduledExecutorService mantenimiento;
+
+    @PostConstruct
+    public void iniciar() {
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reportes-almacen-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        mantenimiento.execute(this::migrarLegado);
+        mantenimiento.scheduleAtFixedRate(this::purgarSilencioso, intervaloPurgaHoras, intervaloPurgaHoras, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        mantenimiento.shutdownNow();
+    }
+
+    /**
+     * Guarda el contenido de un reporte
+     *
+     * @return clave para ReporteGenerado.rutaArchivo
+     */
+    public String guardar(byte[] contenido) throws IOException {
+        String hash = HexFormat.of().formatHex(nuevoDigest().digest(contenido));
+        byte[] comprimido = comprimir(contenido);
+        boolean usarGzip = comprimido.length < contenido.length * RATIO_MINIMO;
+        String clave = hash + (usarGzip ? COMPRIMIDO : SIN_COMPRIMIR);
+        Path destino = resolver(clave);
+
+        bytesOriginales.addAndGet(contenido.length);
+        synchronized (bloqueo) {
+            if (Files.exists(destino)) {
+                // Se renueva la fecha para que la retención no lo borre antes de guardar la nueva referencia
+                Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+                deduplicados.incrementAndGet();
+                return clave;
+            }
+            Files.createDirectories(destino.getParent());
+            Path temporal = destino.resolveSibling(UUID.randomUUID() + ".tmp");
+            try {
+                Files.write(temporal, usarGzip ? comprimido : contenido);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        }
+        bytesAlmacenados.addAndGet(usarGzip ? comprimido.length : contenido.length);
+        logger.info("📦 Reporte almacenado: {} ({} -> {} bytes)", clave, contenido.length,
+                usarGzip ? comprimido.length : contenido.length);
+        return clave;
+    }
+
+    /**
+     * Guarda un reporte escrito en streaming (p. ej. un XLSX exportado fila a
+     * fila) sin tenerlo completo en memoria. Se guarda sin comprimir: los
+     * formatos que se generan así ya vienen comprimidos.
+     */
+    public ArchivoAlmacenado guardar(EscritorReporte escritor) throws IOException {
+        Path temporales = Paths.get(directorio, TEMPORALES_DIR);
+        Files.createDirectories(temporales);
+        Path temporal = temporales.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = nuevoDigest();
+            try (OutputStream salida = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024), digest)) {
+                escritor.escribir(salida);
+            }
+            long tamano = Files.size(temporal);
+            String clave = HexFormat.of().formatHex(digest.digest()) + SIN_COMPRIMIR;
+            Path destino = resolver(clave);
+
+            bytesOriginales.addAndGet(tamano);
+            synchronized (bloqueo) {
+                if (Files.exists(destino)) {
+                    Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+                    deduplicados.incrementAndGet();
+                } else {
+                    Files.createDirectories(destino.getParent());
+                    Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+                    bytesAlmacenados.addAndGet(tamano);
+                    logger.info("📦 Reporte almacenado en streaming: {} ({} bytes)", clave, tamano);
+                }
+            }
+            return new ArchivoAlmacenado(clave, tamano);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Abre el contenido original (descomprimido) de un reporte
+     */
+    public InputStream abrir(String clave) throws IOException {
+        Path ruta = resolver(clave);
+        InputStream entrada = Files.newInputStream(ruta);
+        return clave.endsWith(COMPRIMIDO) ? new GZIPInputStream(entrada, 64 * 1024) : entrada;
+    }
+
+    public boolean existe(String clave) {
+        return esClave(clave) && Files.isRegularFile(resolver(clave));
+    }
+
+    /**
+     * Borra los archivos que ya no referencia ningún reporte
+     */
+    public void liberar(Collection<String> claves) {
+        for (String clave : new HashSet<>(claves)) {
+            if (esClave(clave)) {
+                eliminarSiHuerfano(clave);
+            }
+        }
+    }
+
+    /**
+     * Aplica la política de retención y elimina los archivos huérfanos
+     *
+     * @return reportes y archivos eliminados
+     */
+    public Map<String, Object> purgar() throws IOException {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+        List<String> clavesAntiguas = reporteRepository.findRutasArchivoAnterioresA(limite);
+        int reportes = reporteRepository.deleteByFechaGeneracionBefore(limite);
+        liberar(clavesAntiguas);
+
+        // Archivos sin reporte (p. ej. guardados por una generación que falló al persistir)
+        int huerfanos = 0;
+        Path raiz = Paths.get(directorio);
+        if (Files.isDirectory(raiz)) {
+            List<Path> archivos;
+            try (Stream<Path> recorrido = Files.walk(raiz, 2)) {
+                archivos = recorrido.filter(Files::isRegularFile)
+                        .filter(p -> esClave(p.getFileName().toString()))
+                        .toList();
+            }
+            Set<String> enUso = new HashSet<>(reporteRepository.findRutasArchivoEnUso());
+            for (Path archivo : archivos) {
+                String clave = archivo.getFileName().toString();
+                if (!enUso.contains(clave) && eliminarSiHuerfano(clave)) {
+                    huerfanos++;
+                }
+            }
+        }
+
+        logger.info("🧹 Retención de reportes: {} reportes (> {} días) y {} archivos huérfanos eliminados",
+                reportes, retencionDias, huerfanos);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("reportesEliminados", reportes);
+        resultado.put("archivosHuerfanosEliminados", huerfanos);
+        resultado.put("retencionDias", retencionDias);
+        return resultado;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() throws IOException {
+        long archivos = 0;
+        long bytes = 0;
+        Path raiz = Paths.get(directorio);
+        if (Files.isDirectory(raiz)) {
+            try (Stream<Path> recorrido = Files.walk(raiz, 2)) {
+                for (Path p : (Iterable<Path>) recorrido.filter(Files::isRegularFile)::iterator) {
+                    archivos++;
+                    bytes += Files.size(p);
+                }
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("archivos", archivos);
+        stats.put("bytesEnDisco", bytes);
+        stats.put("bytesOriginalesGuardados", bytesOriginales.get());
+        stats.put("bytesEscritos", bytesAlmacenados.get());
+        stats.put("deduplicados", deduplicados.get());
+        stats.put("retencionDias", retencionDias);
+        return stats;
+    }
+
+    // ========== Internos ==========
+
+    /**
+     * Pasa al almacén los reportes guardados antes en la propia tabla
+     */
+    void migrarLegado() {
+        int migrados = 0;
+        try {
+            while (true) {
+                List<Map<String, Object>> lote = jdbcTemplate.queryForList(
+                        "SELECT id, formato, contenido, contenido_binario FROM reportes_generados " +
+                        "WHERE ruta_archivo IS NULL AND (contenido_binario IS NOT NULL OR contenido IS NOT NULL) " +
+                        "ORDER BY id LIMIT " + LOTE_MIGRACION);
+                if (lote.isEmpty()) {
+                    break;
+                }
+                for (Map<String, Object> fila : lote) {
+                    byte[] binario = (byte[]) fila.get("contenido_binario");
+                    byte[] contenido = binario != null && binario.length > 0
+                            ? binario
+                            : String.valueOf(fila.get("contenido")).getBytes(StandardCharsets.UTF_8);
+                    String clave = guardar(contenido);
+                    jdbcTemplate.update(
+                            "UPDATE reportes_generados SET ruta_archivo = ?, tamano_bytes = ?, " +
+                            "contenido = ?, contenido_binario = NULL WHERE id = ?",
+                            clave, contenido.length, resumen(String.valueOf(fila.get("formato")), contenido.length),
+                            fila.get("id"));
+                    migrados++;
+                }
+            }
+            if (migrados > 0) {
+                logger.info("✅ {} reportes antiguos migrados al almacén de archivos", migrados);
+            }
+        } catch (Exception e) {
+            // Sin la columna contenido_binario (instalación nueva) no hay nada que migrar
+            logger.warn("Migración de reportes antiguos interrumpida tras {} reportes: {}", migrados, e.getMessage());
+        }
+    }
+
+    /**
+     * Texto descriptivo que se guarda en la columna contenido en lugar del reporte
+     */
+    public static String resumen(String formato, long tamano) {
+        return "[" + (formato != null ? formato.toUpperCase() : "REPORTE") + " - " + tamano + " bytes]";
+    }
+
+    private void purgarSilencioso() {
+        try {
+            purgar();
+        } catch (Exception e) {
+            logger.error("❌ Error al aplicar la retención de reportes: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Borra el archivo si ningún reporte lo referencia y no se escribió o
+     * reutilizó recientemente (puede estar a punto de guardarse en la BD)
+     */
+    private boolean eliminarSiHuerfano(String clave) {
+        synchronized (bloqueo) {
+            Path ruta = resolver(clave);
+            try {
+                long limite = System.currentTimeMillis() - GRACIA_MS;
+                if (!Files.exists(ruta) || Files.getLastModifiedTime(ruta).toMillis() > limite
+                        || reporteRepository.countByRutaArchivo(clave) > 0) {
+                    return false;
+                }
+                Files.delete(ruta);
+                logger.info("🗑️ Archivo de reporte eliminado: {}", clave);
+                return true;
+            } catch (IOException e) {
+                logger.warn("No se pudo eliminar el archivo de reporte {}: {}", clave, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    private Path resolver(String clave) {
+        if (!esClave(clave)) {
+            throw new IllegalArgumentException("Clave de reporte no válida: " + clave);
+        }
+        return Paths.get(directorio, clave.substring(0, 2), clave);
+    }
+
+    private static boolean esClave(String clave) {
+        return clave != null && CLAVE.matcher(clave).matches();
+    }
+
+    private static byte[] comprimir(byte[] contenido) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(512, contenido.length / 2));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(contenido);
+        }
+        return salida.toByteArray();
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Escribe el contenido de un reporte en el almacén
+     */
+    @FunctionalInterface
+    public interface EscritorReporte {
+        void escribir(OutputStream salida) throws IOException;
+    }
+
+    /**
+     * Clave y tamaño original de un reporte guardado en streaming
+     */
+    public static class ArchivoAlmacenado {
+        private final String clave;
+        private final long tamano;
+
+        public ArchivoAlmacenado(String clave, long tamano) {
+            this.clave = clave;
+            this.tamano = tamano;
+        }
+
+        public String getClave() {
+            return clave;
+        }
+
+        public long getTamano() {
+            return tamano;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.edulearn.service;
+
+import com.edulearn.model.ReporteGenerado;
+import com.edulearn.model.VersionDatosListener;
+import com.edulearn.repository.ReporteGeneradoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de reportes generados
+ *
+ * Clave: tipo de reporte + formato + parámetros canónicos (ordenados, sin
+ * los que no cambian el contenido) + versión de los datos de origen
+ * (VersionDatosListener). Si se pide otra vez el mismo reporte y los datos
+ * no han cambiado, se devuelve el ReporteGenerado existente y no se vuelve a
+ * renderizar. El usuario no forma parte de la clave: si el acierto es de
+ * otro usuario, ReporteService inserta una fila para el solicitante que
+ * reutiliza el mismo archivo del almacén.
+ *
+ * Las entradas guardan solo el id del reporte; antes de reutilizarlo se
+ * comprueba que la fila y su archivo sigan existiendo (la retención o un
+ * DELETE pueden haberlos borrado). Con "forzar": true se ignora la caché.
+ */
+@Service
+public class CacheReportesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheReportesService.class);
+
+    // Parámetros que no influyen en el contenido del reporte
+    private static final Set<String> PARAMETROS_IGNORADOS = Set.of("tipoReporte", "formato", "usuarioId", "forzar");
+
+    @Value("${edulearn.reportes.cache.max-entradas:200}")
+    private int maxEntradas;
+
+    @Autowired
+    private ReporteGeneradoRepository reporteRepository;
+
+    @Autowired
+    private AlmacenReportesService almacenReportesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // LRU por orden de acceso; las entradas de versiones anteriores salen al registrar
+    private final Map<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+            return size() > maxEntradas;
+        }
+    };
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong omitidos = new AtomicLong();
+    private final AtomicLong invalidadas = new AtomicLong();
+    private final AtomicLong bytesAhorrados = new AtomicLong();
+
+    /**
+     * Calcula la clave con la versión actual de los datos; debe obtenerse
+     * antes de leerlos para que un cambio durante la generación no deje en
+     * caché un resultado desactualizado con la versión nueva
+     */
+    public String clave(String tipoReporte, String formato, Map<String, Object> params) {
+        return tipoReporte.toUpperCase(Locale.ROOT) + "|" + formatoCanonico(formato) + "|"
+                + parametrosCanonicos(params) + "|" + VersionDatosListener.actual();
+    }
+
+    /**
+     * @return el reporte guardado para la clave, o null si hay que generarlo
+     */
+    public ReporteService.ResultadoReporte buscar(String clave, Map<String, Object> params) {
+        if (params != null && Boolean.TRUE.equals(params.get("forzar"))) {
+            omitidos.incrementAndGet();
+            return null;
+        }
+
+        Entrada entrada;
+        synchronized (entradas) {
+            entrada = entradas.get(clave);
+        }
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+
+        ReporteGenerado reporte = reporteRepository.findById(entrada.reporteId).orElse(null);
+        if (reporte == null || reporte.getRutaArchivo() == null || !almacenReportesService.existe(reporte.getRutaArchivo())) {
+            synchronized (entradas) {
+                entradas.remove(clave, entrada);
+            }
+            invalidadas.incrementAndGet();
+            fallos.incrementAndGet();
+            return null;
+        }
+
+        aciertos.incrementAndGet();
+        if (reporte.getTamanoBytes() != null) {
+            bytesAhorrados.addAndGet(reporte.getTamanoBytes());
+        }
+        logger.info("♻️ Reporte {} servido desde caché (ID: {})", reporte.getTipoReporte(), reporte.getId());
+        return new ReporteService.ResultadoReporte(reporte, entrada.contenido, entrada.extension, entrada.mimeType, true);
+    }
+
+    public void registrar(String clave, ReporteService.ResultadoReporte resultado) {
+        long versionActual = VersionDatosListener.actual();
+        synchronized (entradas) {
+            if (versionClave(clave) == versionActual) {
+                entradas.put(clave, new Entrada(resultado, versionActual));
+            }
+            entradas.values().removeIf(entrada -> entrada.version != versionActual);
+        }
+    }
+
+    public void limpiar() {
+        synchronized (entradas) {
+            entradas.clear();
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        long consultas = aciertos.get() + fallos.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entradas) {
+            stats.put("entradas", entradas.size());
+        }
+        stats.put("maxEntradas", maxEntradas);
+        stats.put("versionDatos", VersionDatosListener.actual());
+        stats.put("aciertos", aciertos.get());
+        stats.put("fallos", fallos.get());
+        stats.put("tasaAciertos", consultas > 0 ? (double) aciertos.get() / consultas : 0.0);
+        stats.put("forzados", omitidos.get());
+        stats.put("invalidadas", invalidadas.get());
+        stats.put("bytesAhorrados", bytesAhorrados.get());
+        return stats;
+    }
+
+    // ========== Internos ==========
+
+    private static String formatoCanonico(String formato) {
+        String valor = formato != null ? formato.toUpperCase(Locale.ROOT) : "PDF";
+        return valor.equals("XLS") ? "EXCEL" : valor;
+    }
+
+    private String parametrosCanonicos(Map<String, Object> params) {
+        if (params == null) {
+            return "{}";
+        }
+        Map<String, Object> canonicos = new TreeMap<>();
+        params.forEach((nombre, valor) -> {
+            if (valor != null && !PARAMETROS_IGNORADOS.contains(nombre)) {
+                canonicos.put(nombre, canonico(valor));
+            }
+        });
+        try {
+            return objectMapper.writeValueAsString(canonicos);
+        } catch (JsonProcessingException e) {
+            return canonicos.toString();
+        }
+    }
+
+    private static Object canonico(Object valor) {
+        if (valor instanceof Map<?, ?> mapa) {
+            Map<String, Object> ordenado = new TreeMap<>();
+            mapa.forEach((k, v) -> ordenado.put(String.valueOf(k), canonico(v)));
+            return ordenado;
+        }
+        if (valor instanceof List<?> lista) {
+            return lista.stream().map(CacheReportesService::canonico).toList();
+        }
+        if (valor instanceof String texto) {
+            return texto.trim();
+        }
+        return valor;
+    }
+
+    private static long versionClave(String clave) {
+        return Long.parseLong(clave.substring(clave.lastIndexOf('|') + 1));
+    }
+
+    private static class Entrada {
+        private final Integer reporteId;
+        private final String contenido;
+        private final String extension;
+        private final String mimeType;
+        private final long version;
+
+        Entrada(ReporteService.ResultadoReporte resultado, long version) {
+            this.reporteId = resultado.getReporte().getId();
+            this.contenido = resultado.getContenido();
+            this.extension = resultado.getExtension();
+            this.mimeType = resultado.getMimeType();
+            this.version = version;
+        }
+    }
+}
@@ -51,6 +51,9 @@ public class CursoCreacionService {
     @Autowired
     private NotificacionService notificacionService;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
     @Autowired
 private NotificationOrchestrator notificationOrchestrator;
 
@@ -162,6 +165,7 @@ private NotificationOrchestrator notificationOrchestrator;
             }
 
             logger.info("✓ Persistencia completa: {} materiales, {} evaluaciones", totalMateriales, totalEvaluaciones);
+            cursoTreeService.invalidarCurso(cursoGuardado.getId());
 
             // PASO 7: Preparar respuesta
             resultado.put("exito", true);
@@ -0,0 +1,233 @@
+package com.edulearn.service;
+
+import com.edulearn.patterns.estructural.composite.dto.ComponenteCursoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de árboles de curso ya construidos (ComponenteCursoDTO)
+ *
+ * - Cada curso tiene una versión que cambia con cada escritura sobre su contenido
+ *   (módulos, materiales, evaluaciones); la invalidación descarta el árbol.
+ * - Las entradas son instantáneas inmutables: listas de hijos no modificables.
+ * - Acotada por número de cursos y por tamaño estimado en memoria (desalojo LRU).
+ * - Una lectura en caliente no ejecuta SQL.
+ */
+@Component
+public class CursoTreeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CursoTreeCache.class);
+
+    // Estimación aproximada del peso de cada nodo (objeto + campos + lista de hijos)
+    private static final long BYTES_POR_NODO = 256;
+
+    private final int maxEntradas;
+    private final long maxBytes;
+
+    // Marca de arranque: evita que un ETag de una ejecución anterior coincida tras reiniciar
+    private final long epoca = System.currentTimeMillis();
+    private final AtomicLong generadorVersiones = new AtomicLong();
+
+    // Acceso protegido por el monitor de this
+    private final LinkedHashMap<Integer, ArbolCursoSnapshot> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Long> versiones = new HashMap<>();
+    // Versión aplicada a todos los cursos tras invalidarTodo()
+    private long versionGlobal = 0;
+    private long bytesEnUso = 0;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CursoTreeCache(
+            @Value("${edulearn.cache.arbol-curso.max-entradas:256}") int maxEntradas,
+            @Value("${edulearn.cache.arbol-curso.max-bytes:33554432}") long maxBytes) {
+        this.maxEntradas = maxEntradas;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Devuelve el árbol del curso desde caché o lo construye con el proveedor.
+     * Si el curso se invalida mientras se construye, el resultado se entrega
+     * pero no se guarda (para no fijar un árbol obsoleto).
+     */
+    public ArbolCursoSnapshot obtener(Integer cursoId, Supplier<List<ComponenteCursoDTO>> constructor) {
+        long versionInicial;
+        synchronized (this) {
+            ArbolCursoSnapshot existente = entradas.get(cursoId);
+            if (existente != null) {
+                aciertos.incrementAndGet();
+                return existente;
+            }
+            versionInicial = versionDe(cursoId);
+        }
+
+        fallos.incrementAndGet();
+        List<ComponenteCursoDTO> modulos = constructor.get();
+        ArbolCursoSnapshot snapshot = new ArbolCursoSnapshot(
+            cursoId, versionInicial, etag(cursoId, versionInicial), congelar(modulos), estimarBytes(modulos));
+
+        synchronized (this) {
+            if (versionDe(cursoId) != versionInicial) {
+                return snapshot;
+            }
+            ArbolCursoSnapshot anterior = entradas.put(cursoId, snapshot);
+            if (anterior != null) {
+                bytesEnUso -= anterior.getBytesEstimados();
+            }
+            bytesEnUso += snapshot.getBytesEstimados();
+            desalojarSiExcede();
+        }
+        return snapshot;
+    }
+
+    /**
+     * ETag vigente para un curso sin construir el árbol (para responder 304)
+     */
+    public synchronized String etagActual(Integer cursoId) {
+        return etag(cursoId, versionDe(cursoId));
+    }
+
+    /**
+     * Descarta el árbol de un curso y avanza su versión.
+     * Con cursoId nulo (curso desconocido) se invalida toda la caché.
+     */
+    public synchronized void invalidarCurso(Integer cursoId) {
+        if (cursoId == null) {
+            invalidarTodo();
+            return;
+        }
+        invalidaciones.incrementAndGet();
+        versiones.put(cursoId, generadorVersiones.incrementAndGet());
+        ArbolCursoSnapshot eliminado = entradas.remove(cursoId);
+        if (eliminado != null) {
+            bytesEnUso -= eliminado.getBytesEstimados();
+        }
+    }
+
+    /**
+     * Descarta todos los árboles (escrituras de las que no se conoce el curso)
+     */
+    public synchronized void invalidarTodo() {
+        invalidaciones.incrementAndGet();
+        // La versión global supera a todas las versiones por curso anteriores
+        versionGlobal = generadorVersiones.incrementAndGet();
+        versiones.clear();
+        entradas.clear();
+        bytesEnUso = 0;
+    }
+
+    /**
+     * Métricas de la caché
+     */
+    public synchronized Map<String, Object> obtenerEstadisticas() {
+        long totalAciertos = aciertos.get();
+        long totalLecturas = totalAciertos + fallos.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entradas", entradas.size());
+        stats.put("maxEntradas", maxEntradas);
+        stats.put("bytesEstimados", bytesEnUso);
+        stats.put("maxBytes", maxBytes);
+        stats.put("aciertos", totalAciertos);
+        stats.put("fallos", fallos.get());
+        stats.put("desalojos", desalojos.get());
+        stats.put("invalidaciones", invalidaciones.get());
+        stats.put("tasaAciertos", totalLecturas == 0 ? 0.0 : (double) totalAciertos / totalLecturas);
+        return stats;
+    }
+
+    // ========== Internos ==========
+
+    private long versionDe(Integer cursoId) {
+        return Math.max(versiones.getOrDefault(cursoId, 0L), versionGlobal);
+    }
+
+    private String etag(Integer cursoId, long version) {
+        return "\"arbol-" + cursoId + "-" + epoca + "-" + version + "\"";
+    }
+
+    private void desalojarSiExcede() {
+        Iterator<Map.Entry<Integer, ArbolCursoSnapshot>> it = entradas.entrySet().iterator();
+        // Se conserva siempre la entrada más reciente aunque por sí sola supere el límite
+        while (it.hasNext() && entradas.size() > 1 && (entradas.size() > maxEntradas || bytesEnUso > maxBytes)) {
+            Map.Entry<Integer, ArbolCursoSnapshot> masAntigua = it.next();
+            bytesEnUso -= masAntigua.getValue().getBytesEstimados();
+            it.remove();
+            desalojos.incrementAndGet();
+            logger.debug("Árbol del curso {} desalojado de la caché", masAntigua.getKey());
+        }
+    }
+
+    /**
+     * Sustituye recursivamente las listas de hijos por copias no modificables
+     */
+    private static List<ComponenteCursoDTO> congelar(List<ComponenteCursoDTO> nodos) {
+        List<ComponenteCursoDTO> copia = new ArrayList<>(nodos.size());
+        for (ComponenteCursoDTO nodo : nodos) {
+            if (nodo != null && nodo.getHijos() != null) {
+                nodo.setHijos(congelar(nodo.getHijos()));
+            }
+            copia.add(nodo);
+        }
+        return Collections.unmodifiableList(copia);
+    }
+
+    private static long estimarBytes(List<ComponenteCursoDTO> nodos) {
+        long total = 0;
+        for (ComponenteCursoDTO nodo : nodos) {
+            if (nodo == null) {
+                continue;
+            }
+            total += BYTES_POR_NODO
+                + longitud(nodo.getNombre()) + longitud(nodo.getDescripcion())
+                + longitud(nodo.getUrlRecurso()) + longitud(nodo.getArchivoPath());
+            if (nodo.getHijos() != null) {
+                total += estimarBytes(nodo.getHijos());
+            }
+        }
+        return total;
+    }
+
+    private static long longitud(String texto) {
+        return texto != null ? 2L * texto.length() : 0;
+    }
+
+    /**
+     * Instantánea inmutable del árbol de un curso en una versión concreta
+     */
+    public static class ArbolCursoSnapshot {
+        private final Integer cursoId;
+        private final long version;
+        private final String etag;
+        private final List<ComponenteCursoDTO> modulos;
+        private final long bytesEstimados;
+
+        ArbolCursoSnapshot(Integer cursoId, long version, String etag,
+                           List<ComponenteCursoDTO> modulos, long bytesEstimados) {
+            this.cursoId = cursoId;
+            this.version = version;
+            this.etag = etag;
+            this.modulos = modulos;
+            this.bytesEstimados = bytesEstimados;
+        }
+
+        public Integer getCursoId() { return cursoId; }
+        public long getVersion() { return version; }
+        public String getEtag() { return etag; }
+        public List<ComponenteCursoDTO> getModulos() { return modulos; }
+        public long getBytesEstimados() { return bytesEstimados; }
+    }
+}
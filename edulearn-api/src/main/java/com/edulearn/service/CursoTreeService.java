@@ -3,10 +3,18 @@ package com.edulearn.service;
 import com.edulearn.patterns.estructural.composite.CursoTreeBuilder;
 import com.edulearn.patterns.estructural.composite.ModuloCompuesto;
 import com.edulearn.patterns.estructural.composite.dto.ComponenteCursoDTO;
+import com.edulearn.repository.ModuloRepository;
+import com.edulearn.service.CursoTreeCache.ArbolCursoSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +26,12 @@ public class CursoTreeService {
     @Autowired
     private CursoTreeBuilder treeBuilder;
 
+    @Autowired
+    private CursoTreeCache treeCache;
+
+    @Autowired
+    private ModuloRepository moduloRepository;
+
     /**
      * Obtiene el árbol completo de un curso
      */
@@ -30,9 +44,76 @@ public class CursoTreeService {
      * Obtiene todos los módulos raíz con sus subárboles
      */
     public List<ComponenteCursoDTO> obtenerModulosRaiz(Integer cursoId) {
-        List<ModuloCompuesto> modulos = treeBuilder.construirArbolesModulos(cursoId);
-        return modulos.stream()
+        return obtenerModulosRaizVersionados(cursoId).getModulos();
+    }
+
+    /**
+     * Igual que obtenerModulosRaiz, pero devuelve la instantánea cacheada con su versión/ETag
+     */
+    public ArbolCursoSnapshot obtenerModulosRaizVersionados(Integer cursoId) {
+        return treeCache.obtener(cursoId, () -> treeBuilder.construirArbolesModulos(cursoId).stream()
             .map(ComponenteCursoDTO::fromComponente)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
+    }
+
+    /**
+     * ETag vigente del árbol de un curso (no consulta la base de datos)
+     */
+    public String obtenerEtagArbol(Integer cursoId) {
+        return treeCache.etagActual(cursoId);
+    }
+
+    /**
+     * Invalida el árbol cacheado de un curso tras una escritura sobre su contenido
+     * (también tras el commit, ver invalidarCursos). Con cursoId nulo se
+     * invalidan todos los cursos.
+     */
+    public void invalidarCurso(Integer cursoId) {
+        if (cursoId == null) {
+            treeCache.invalidarCurso(null);
+            return;
+        }
+        invalidarCursos(List.of(cursoId));
+    }
+
+    /**
+     * Invalida los cursos a los que pertenecen los módulos indicados.
+     * El árbol enlaza materiales y evaluaciones por moduloId, así que el
+     * curso afectado es el del módulo. Los módulos inexistentes o nulos no
+     * aparecen en ningún árbol y se ignoran.
+     */
+    public void invalidarCursosDeModulos(Collection<Long> moduloIds) {
+        Set<Long> ids = moduloIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!ids.isEmpty()) {
+            invalidarCursos(moduloRepository.findCursoIdsByIdIn(ids));
+        }
+    }
+
+    public void invalidarCursoDeModulo(Long moduloId) {
+        if (moduloId != null) {
+            invalidarCursosDeModulos(List.of(moduloId));
+        }
+    }
+
+    /**
+     * Invalida varios cursos. Dentro de una transacción se repite tras el
+     * commit, para que un árbol reconstruido con los datos anteriores
+     * mientras tanto no quede cacheado.
+     */
+    public void invalidarCursos(Collection<Integer> cursoIds) {
+        Set<Integer> ids = cursoIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        ids.forEach(treeCache::invalidarCurso);
+        if (!ids.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(treeCache::invalidarCurso);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> obtenerEstadisticasCache() {
+        return treeCache.obtenerEstadisticas();
     }
 }
@@ -0,0 +1,321 @@
+package com.edulearn.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de descarga de archivos en streaming
+ *
+ * Sirve archivos del disco sin cargarlos en memoria: el cuerpo se copia con
+ * FileChannel.transferTo directamente al stream de la respuesta, de modo que
+ * el heap usado por descarga es constante sea cual sea el tamaño del archivo.
+ *
+ * Soporta:
+ * - Peticiones parciales: un rango (206 + Content-Range) o varios
+ *   (206 multipart/byteranges); 416 si el rango no es satisfacible
+ * - If-Range contra el ETag (tamaño + fecha de modificación) o Last-Modified
+ * - Peticiones condicionales GET/HEAD: If-None-Match / If-Modified-Since (304)
+ * - Content-Type por extensión precalculado (sin Files.probeContentType por petición)
+ */
+@Service
+public class DescargaArchivoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DescargaArchivoService.class);
+
+    // Más rangos que esto en una petición se atienden enviando el archivo completo
+    private static final int MAX_RANGOS = 16;
+
+    private static final String CONTENT_TYPE_DEFECTO = "application/octet-stream";
+
+    private static final Map<String, String> TIPOS_POR_EXTENSION = Map.ofEntries(
+        Map.entry("mp4", "video/mp4"),
+        Map.entry("webm", "video/webm"),
+        Map.entry("avi", "video/x-msvideo"),
+        Map.entry("mov", "video/quicktime"),
+        Map.entry("mkv", "video/x-matroska"),
+        Map.entry("pdf", "application/pdf"),
+        Map.entry("doc", "application/msword"),
+        Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+        Map.entry("ppt", "application/vnd.ms-powerpoint"),
+        Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+        Map.entry("xls", "application/vnd.ms-excel"),
+        Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        Map.entry("txt", "text/plain"),
+        Map.entry("jpg", "image/jpeg"),
+        Map.entry("jpeg", "image/jpeg"),
+        Map.entry("png", "image/png"),
+        Map.entry("gif", "image/gif"),
+        Map.entry("svg", "image/svg+xml"),
+        Map.entry("webp", "image/webp"),
+        Map.entry("mp3", "audio/mpeg"),
+        Map.entry("wav", "audio/wav"),
+        Map.entry("ogg", "audio/ogg"),
+        Map.entry("m4a", "audio/mp4"),
+        Map.entry("zip", "application/zip")
+    );
+
+    // Extensiones no incluidas arriba: se detectan una sola vez y se recuerdan
+    private final Map<String, String> tiposDetectados = new ConcurrentHashMap<>();
+
+    /**
+     * Construye la respuesta para servir el archivo (completo, parcial o 304)
+     *
+     * @param archivo Ruta del archivo en disco
+     * @param contentType Content-Type a enviar
+     * @param disposicion Valor de Content-Disposition (null para omitirlo)
+     * @param metodo Método HTTP de la petición (las condiciones 304 solo aplican a GET/HEAD)
+     * @param peticion Cabeceras de la petición (Range, If-Range, If-None-Match, If-Modified-Since)
+     */
+    public ResponseEntity<StreamingResponseBody> servir(Path archivo, String contentType, String disposicion,
+                                                        HttpMethod metodo, HttpHeaders peticion) throws IOException {
+        long tamano = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+        String etag = calcularEtag(tamano, modificado);
+        boolean lectura = HttpMethod.GET.equals(metodo) || HttpMethod.HEAD.equals(metodo);
+        boolean soloCabeceras = HttpMethod.HEAD.equals(metodo);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(modificado);
+
+        if (lectura && noModificado(peticion, etag, modificado)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        if (disposicion != null) {
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, disposicion);
+        }
+
+        List<HttpRange> rangos = rangosSolicitados(peticion, etag, modificado);
+        if (rangos == null) {
+            return noSatisfacible(tamano);
+        }
+
+        // Sin Range, o demasiados rangos: archivo completo
+        if (rangos.isEmpty() || rangos.size() > MAX_RANGOS) {
+            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.setContentLength(tamano);
+            return ResponseEntity.ok().headers(headers)
+                    .body(soloCabeceras ? null : copiar(archivo, 0, tamano));
+        }
+
+        List<long[]> segmentos = new ArrayList<>(rangos.size());
+        long totalRangos = 0;
+        try {
+            for (HttpRange rango : rangos) {
+                long inicio = rango.getRangeStart(tamano);
+                long fin = rango.getRangeEnd(tamano);
+                // HttpRange no rechaza un inicio igual o posterior al final del archivo
+                if (inicio >= tamano || inicio > fin) {
+                    return noSatisfacible(tamano);
+                }
+                segmentos.add(new long[]{inicio, fin});
+                totalRangos += fin - inicio + 1;
+            }
+        } catch (IllegalArgumentException e) {
+            return noSatisfacible(tamano);
+        }
+
+        // Rangos que en conjunto piden más que el archivo (solapados): se envía completo
+        if (segmentos.size() > 1 && totalRangos > tamano) {
+            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.setContentLength(tamano);
+            return ResponseEntity.ok().headers(headers)
+                    .body(soloCabeceras ? null : copiar(archivo, 0, tamano));
+        }
+
+        if (segmentos.size() == 1) {
+            long inicio = segmentos.get(0)[0];
+            long fin = segmentos.get(0)[1];
+            long longitud = fin - inicio + 1;
+            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.setContentLength(longitud);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+
+            logger.debug("Sirviendo rango {}-{} de {} ({} bytes)", inicio, fin, archivo.getFileName(), tamano);
+
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                    .body(soloCabeceras ? null : copiar(archivo, inicio, longitud));
+        }
+
+        // Varios rangos: multipart/byteranges
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> cabecerasParte = new ArrayList<>(segmentos.size());
+        long longitudTotal = 0;
+        for (long[] segmento : segmentos) {
+            byte[] cabecera = ("\r\n--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: bytes " + segmento[0] + "-" + segmento[1] + "/" + tamano + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            cabecerasParte.add(cabecera);
+            longitudTotal += cabecera.length + (segmento[1] - segmento[0] + 1);
+        }
+        byte[] cierre = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        longitudTotal += cierre.length;
+
+        headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        headers.setContentLength(longitudTotal);
+
+        logger.debug("Sirviendo {} rangos de {} ({} bytes)", segmentos.size(), archivo.getFileName(), tamano);
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                WritableByteChannel destino = Channels.newChannel(salida);
+                for (int i = 0; i < segmentos.size(); i++) {
+                    salida.write(cabecerasParte.get(i));
+                    long[] segmento = segmentos.get(i);
+                    transferir(canal, segmento[0], segmento[1] - segmento[0] + 1, destino);
+                }
+                salida.write(cierre);
+            }
+            salida.flush();
+        };
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                .body(soloCabeceras ? null : cuerpo);
+    }
+
+    /**
+     * Content-Type según la extensión del nombre de archivo, sin acceder al disco
+     */
+    public String tipoContenido(String filename) {
+        int punto = filename.lastIndexOf('.');
+        if (punto < 0 || punto == filename.length() - 1) {
+            return CONTENT_TYPE_DEFECTO;
+        }
+        String extension = filename.substring(punto + 1).toLowerCase();
+        String conocido = TIPOS_POR_EXTENSION.get(extension);
+        if (conocido != null) {
+            return conocido;
+        }
+        return tiposDetectados.computeIfAbsent(extension, ext -> {
+            try {
+                String detectado = Files.probeContentType(Paths.get("archivo." + ext));
+                return detectado != null ? detectado : CONTENT_TYPE_DEFECTO;
+            } catch (IOException e) {
+                return CONTENT_TYPE_DEFECTO;
+            }
+        });
+    }
+
+    /**
+     * ETag fuerte derivado de tamaño y fecha de modificación (no requiere leer el archivo)
+     */
+    public String calcularEtag(long tamano, long modificado) {
+        return "\"" + Long.toHexString(tamano) + "-" + Long.toHexString(modificado) + "\"";
+    }
+
+    // ========== Internos ==========
+
+    private ResponseEntity<StreamingResponseBody> noSatisfacible(long tamano) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano)
+                .build();
+    }
+
+    /**
+     * If-None-Match tiene prioridad; If-Modified-Since solo se evalúa si no viene
+     */
+    private boolean noModificado(HttpHeaders peticion, String etag, long modificado) {
+        List<String> ifNoneMatch = peticion.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            for (String candidato : ifNoneMatch) {
+                // Comparación débil: W/"x" equivale a "x"
+                String valor = candidato.startsWith("W/") ? candidato.substring(2) : candidato;
+                if ("*".equals(valor) || etag.equals(valor)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = peticion.getIfModifiedSince();
+            return ifModifiedSince >= 0 && modificado / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return lista vacía si se debe enviar el archivo completo, los rangos pedidos,
+     *         o null si la cabecera Range no es válida
+     */
+    private List<HttpRange> rangosSolicitados(HttpHeaders peticion, String etag, long modificado) {
+        String range = peticion.getFirst(HttpHeaders.RANGE);
+        if (range == null || range.isBlank()) {
+            return List.of();
+        }
+        // If-Range: si el archivo cambió desde que el cliente lo obtuvo, se ignora el Range
+        String ifRange = peticion.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !coincideIfRange(ifRange.trim(), etag, modificado)) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Cabecera Range no válida: {}", range);
+            return null;
+        }
+    }
+
+    private boolean coincideIfRange(String ifRange, String etag, long modificado) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // La comparación en If-Range es fuerte: un ETag débil nunca coincide
+            return ifRange.equals(etag);
+        }
+        try {
+            HttpHeaders fecha = new HttpHeaders();
+            fecha.set(HttpHeaders.IF_RANGE, ifRange);
+            // Las fechas HTTP tienen resolución de segundos
+            return fecha.getFirstDate(HttpHeaders.IF_RANGE) / 1000 == modificado / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cuerpo que copia [inicio, inicio + longitud) del archivo con FileChannel.transferTo
+     */
+    private StreamingResponseBody copiar(Path archivo, long inicio, long longitud) {
+        return salida -> {
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                transferir(canal, inicio, longitud, Channels.newChannel(salida));
+            }
+            salida.flush();
+        };
+    }
+
+    private void transferir(FileChannel canal, long inicio, long longitud, WritableByteChannel destino) throws IOException {
+        long enviado = 0;
+        while (enviado < longitud) {
+            long n = canal.transferTo(inicio + enviado, longitud - enviado, destino);
+            if (n <= 0) {
+                break;
+            }
+            enviado += n;
+        }
+    }
+}
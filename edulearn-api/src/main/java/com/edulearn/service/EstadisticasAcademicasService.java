@@ -0,0 +1,532 @@
+package com.edulearn.service;
+
+import com.edulearn.model.Curso;
+import com.edulearn.model.Estudiante;
+import com.edulearn.model.Inscripcion;
+import com.edulearn.model.ProgresoEstudiante;
+import com.edulearn.repository.CursoRepository;
+import com.edulearn.repository.EstudianteRepository;
+import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.ProgresoEstudianteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas académicas mantenidas en memoria (para reportes y dashboards)
+ *
+ * Agregados globales y por curso:
+ * - estudiantes (total y activos: con al menos una inscripción "Activa")
+ * - cursos por estado
+ * - inscripciones por estado
+ * - calificaciones (ProgresoEstudiante.calificacionAcumulada): total,
+ *   promedio, mínima, máxima y aprobados
+ *
+ * Se cargan al arrancar con consultas GROUP BY y después se actualizan con
+ * cada alta, cambio o baja confirmada de Estudiante, Curso, Inscripcion y
+ * ProgresoEstudiante (listeners post-commit de Hibernate: una transacción
+ * que hace rollback no altera los contadores). En los cambios se resta el
+ * estado anterior de la fila y se suma el nuevo.
+ *
+ * recalcular() reconstruye todo desde la base de datos; se ejecuta
+ * periódicamente para corregir desviaciones (escrituras fuera de JPA) y se
+ * puede lanzar desde /api/reportes/estadisticas/recalcular.
+ */
+@Service
+public class EstadisticasAcademicasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticasAcademicasService.class);
+
+    public static final String INSCRIPCION_ACTIVA = "Activa";
+
+    private static final Set<Class<?>> ENTIDADES = Set.of(Estudiante.class, Curso.class, Inscripcion.class, ProgresoEstudiante.class);
+
+    @Value("${edulearn.estadisticas.calificacion-aprobatoria:70}")
+    private double calificacionAprobatoria;
+
+    @Value("${edulearn.estadisticas.recalculo-horas:6}")
+    private long intervaloRecalculoHoras;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EstudianteRepository estudianteRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private ProgresoEstudianteRepository progresoRepository;
+
+    private volatile Agregados agregados = new Agregados();
+
+    private final LongAdder cambiosAplicados = new LongAdder();
+    private final AtomicBoolean recalculoPendiente = new AtomicBoolean();
+    private volatile long ultimoRecalculoMs;
+    private volatile long duracionRecalculoMs;
+
+    private ScheduledExecutorService mantenimiento;
+
+    @PostConstruct
+    public void iniciar() {
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        ListenerCambios listener = new ListenerCambios();
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "estadisticas-recalculo");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            recalcular();
+        } catch (Exception e) {
+            logger.error("No se pudieron cargar las estadísticas académicas: {}", e.getMessage());
+        }
+
+        mantenimiento.scheduleAtFixedRate(this::recalcularSilencioso, intervaloRecalculoHoras, intervaloRecalculoHoras, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        mantenimiento.shutdownNow();
+    }
+
+    /**
+     * Reconstruye todos los agregados desde la base de datos (5 consultas agregadas)
+     */
+    public Map<String, Object> recalcular() {
+        return reconstruir(false);
+    }
+
+    private synchronized Map<String, Object> reconstruir(boolean reintento) {
+        long inicio = System.currentTimeMillis();
+        long cambiosAntes = cambiosAplicados.sum();
+        Agregados nuevos = new Agregados();
+
+        nuevos.estudiantes.add(estudianteRepository.count());
+        for (Object[] fila : cursoRepository.contarPorEstado()) {
+            incrementar(nuevos.cursosPorEstado, estadoCurso((String) fila[0]), ((Number) fila[1]).longValue());
+        }
+        for (Object[] fila : inscripcionRepository.contarPorCursoYEstado()) {
+            nuevos.inscripcion((Integer) fila[0], (String) fila[1], ((Number) fila[2]).longValue());
+        }
+        for (Object[] fila : inscripcionRepository.contarPorEstudianteConEstado(INSCRIPCION_ACTIVA)) {
+            nuevos.activaEstudiante((Integer) fila[0], ((Number) fila[1]).longValue());
+        }
+        for (Object[] fila : progresoRepository.histogramaCalificaciones()) {
+            nuevos.calificacion((Integer) fila[0], ((Number) fila[1]).doubleValue(), ((Number) fila[2]).longValue(),
+                    calificacionAprobatoria);
+        }
+
+        agregados = nuevos;
+        ultimoRecalculoMs = System.currentTimeMillis();
+        duracionRecalculoMs = ultimoRecalculoMs - inicio;
+
+        // Un cambio confirmado mientras corrían las consultas pudo aplicarse
+        // a los agregados anteriores sin que la consulta lo viera: se repite una vez
+        if (!reintento && cambiosAplicados.sum() != cambiosAntes) {
+            solicitarRecalculo();
+        }
+
+        logger.info("📈 Estadísticas académicas recalculadas en {} ms: {} estudiantes, {} cursos, {} inscripciones",
+                duracionRecalculoMs, nuevos.estudiantes.sum(), suma(nuevos.cursosPorEstado), suma(nuevos.inscripcionesPorEstado));
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("duracionMs", duracionRecalculoMs);
+        resultado.put("resumen", resumenGlobal());
+        return resultado;
+    }
+
+    // ========== Consultas O(1) ==========
+
+    public long totalEstudiantes() {
+        return Math.max(0, agregados.estudiantes.sum());
+    }
+
+    public long estudiantesActivos() {
+        return Math.max(0, agregados.estudiantesActivos.sum());
+    }
+
+    public long totalCursos() {
+        return suma(agregados.cursosPorEstado);
+    }
+
+    public long cursosEnEstado(String... estados) {
+        long total = 0;
+        for (String estado : estados) {
+            total += valor(agregados.cursosPorEstado, estadoCurso(estado));
+        }
+        return total;
+    }
+
+    public long totalInscripciones() {
+        return suma(agregados.inscripcionesPorEstado);
+    }
+
+    /**
+     * @param cursoId null para las calificaciones de todos los cursos
+     */
+    public ResumenCalificaciones calificaciones(Integer cursoId) {
+        Agregados actual = agregados;
+        AgregadoCalificaciones agregado = cursoId == null ? actual.calificacionesGlobal : actual.calificacionesPorCurso.get(cursoId);
+        return agregado != null ? agregado.resumen() : new ResumenCalificaciones(0, 0, 0, 0, 0);
+    }
+
+    public Map<String, Object> resumenGlobal() {
+        Agregados actual = agregados;
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("totalEstudiantes", totalEstudiantes());
+        resumen.put("estudiantesActivos", estudiantesActivos());
+        resumen.put("totalCursos", totalCursos());
+        resumen.put("cursosPorEstado", aMapa(actual.cursosPorEstado));
+        resumen.put("totalInscripciones", totalInscripciones());
+        resumen.put("inscripcionesPorEstado", aMapa(actual.inscripcionesPorEstado));
+        resumen.put("calificaciones", calificaciones(null).aMapa());
+        resumen.put("ultimoRecalculo", ultimoRecalculoMs);
+        resumen.put("cambiosAplicados", cambiosAplicados.sum());
+        return resumen;
+    }
+
+    public Map<String, Object> resumenCurso(Integer cursoId) {
+        Map<String, LongAdder> inscripciones = agregados.inscripcionesPorCurso.getOrDefault(cursoId, Map.of());
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("cursoId", cursoId);
+        resumen.put("totalInscripciones", suma(inscripciones));
+        resumen.put("inscripcionesPorEstado", aMapa(inscripciones));
+        resumen.put("calificaciones", calificaciones(cursoId).aMapa());
+        return resumen;
+    }
+
+    // ========== Actualización incremental ==========
+
+    /**
+     * Aplica la aportación de una fila a los agregados (signo +1 al sumar, -1 al restar)
+     */
+    private void aplicar(Agregados destino, EntityPersister persister, Object[] estado, int signo) {
+        Class<?> tipo = persister.getMappedClass();
+        if (tipo == Estudiante.class) {
+            destino.estudiantes.add(signo);
+        } else if (tipo == Curso.class) {
+            incrementar(destino.cursosPorEstado, estadoCurso((String) valor(persister, estado, "estado")), signo);
+        } else if (tipo == Inscripcion.class) {
+            String estadoInscripcion = (String) valor(persister, estado, "estadoInscripcion");
+            destino.inscripcion((Integer) valor(persister, estado, "cursoId"), estadoInscripcion, signo);
+            if (INSCRIPCION_ACTIVA.equalsIgnoreCase(estadoInscripcion)) {
+                destino.activaEstudiante((Integer) valor(persister, estado, "estudianteId"), signo);
+            }
+        } else if (tipo == ProgresoEstudiante.class) {
+            Double calificacion = (Double) valor(persister, estado, "calificacionAcumulada");
+            if (calificacion != null) {
+                destino.calificacion((Integer) valor(persister, estado, "cursoId"), calificacion, signo, calificacionAprobatoria);
+            }
+        }
+    }
+
+    private class ListenerCambios implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return ENTIDADES.contains(persister.getMappedClass());
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            if (requiresPostCommitHandling(event.getPersister())) {
+                cambio(event.getPersister(), null, event.getState());
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!requiresPostCommitHandling(event.getPersister())) {
+                return;
+            }
+            if (event.getOldState() == null) {
+                // Sin el estado anterior no se puede calcular la diferencia
+                solicitarRecalculo();
+                return;
+            }
+            cambio(event.getPersister(), event.getOldState(), event.getState());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (requiresPostCommitHandling(event.getPersister())) {
+                cambio(event.getPersister(), event.getDeletedState(), null);
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        private void cambio(EntityPersister persister, Object[] anterior, Object[] nuevo) {
+            try {
+                Agregados destino = agregados;
+                if (anterior != null) {
+                    aplicar(destino, persister, anterior, -1);
+                }
+                if (nuevo != null) {
+                    aplicar(destino, persister, nuevo, 1);
+                }
+                cambiosAplicados.increment();
+            } catch (Exception e) {
+                // Nunca interrumpir la transacción que ya se confirmó
+                logger.warn("No se pudo actualizar las estadísticas para {}: {}",
+                        persister.getMappedClass().getSimpleName(), e.getMessage());
+                solicitarRecalculo();
+            }
+        }
+    }
+
+    /**
+     * Programa una reconstrucción en un minuto (si no hay otra pendiente)
+     */
+    private void solicitarRecalculo() {
+        if (recalculoPendiente.compareAndSet(false, true)) {
+            mantenimiento.schedule(() -> {
+                recalculoPendiente.set(false);
+                recalcularSilencioso(true);
+            }, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    private void recalcularSilencioso() {
+        recalcularSilencioso(false);
+    }
+
+    private void recalcularSilencioso(boolean reintento) {
+        try {
+            reconstruir(reintento);
+        } catch (Exception e) {
+            logger.error("Error al recalcular las estadísticas académicas: {}", e.getMessage());
+        }
+    }
+
+    // ========== Internos ==========
+
+    private static Object valor(EntityPersister persister, Object[] estado, String propiedad) {
+        String[] nombres = persister.getPropertyNames();
+        for (int i = 0; i < nombres.length; i++) {
+            if (nombres[i].equals(propiedad)) {
+                return estado[i];
+            }
+        }
+        throw new IllegalArgumentException("Propiedad desconocida: " + propiedad);
+    }
+
+    private static String estadoCurso(String estado) {
+        return estado != null ? estado.toLowerCase(Locale.ROOT) : "sin_estado";
+    }
+
+    private static void incrementar(Map<String, LongAdder> contadores, String clave, long delta) {
+        contadores.computeIfAbsent(clave != null ? clave : "SIN_ESTADO", k -> new LongAdder()).add(delta);
+    }
+
+    private static long valor(Map<String, LongAdder> contadores, String clave) {
+        LongAdder contador = contadores.get(clave);
+        return contador != null ? Math.max(0, contador.sum()) : 0;
+    }
+
+    private static long suma(Map<String, LongAdder> contadores) {
+        long total = 0;
+        for (LongAdder contador : contadores.values()) {
+            total += contador.sum();
+        }
+        return Math.max(0, total);
+    }
+
+    private static Map<String, Long> aMapa(Map<String, LongAdder> contadores) {
+        Map<String, Long> resultado = new TreeMap<>();
+        contadores.forEach((clave, contador) -> {
+            long n = contador.sum();
+            if (n > 0) {
+                resultado.put(clave, n);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Conjunto de agregados; recalcular() construye uno nuevo y lo reemplaza de una vez
+     */
+    private static class Agregados {
+        private final LongAdder estudiantes = new LongAdder();
+        private final LongAdder estudiantesActivos = new LongAdder();
+        private final Map<Integer, Long> activasPorEstudiante = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> cursosPorEstado = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> inscripcionesPorEstado = new ConcurrentHashMap<>();
+        private final Map<Integer, Map<String, LongAdder>> inscripcionesPorCurso = new ConcurrentHashMap<>();
+        private final AgregadoCalificaciones calificacionesGlobal = new AgregadoCalificaciones();
+        private final Map<Integer, AgregadoCalificaciones> calificacionesPorCurso = new ConcurrentHashMap<>();
+
+        void inscripcion(Integer cursoId, String estado, long delta) {
+            incrementar(inscripcionesPorEstado, estado, delta);
+            if (cursoId != null) {
+                incrementar(inscripcionesPorCurso.computeIfAbsent(cursoId, k -> new ConcurrentHashMap<>()), estado, delta);
+            }
+        }
+
+        /**
+         * Un estudiante es activo mientras tenga al menos una inscripción activa
+         */
+        void activaEstudiante(Integer estudianteId, long delta) {
+            if (estudianteId == null) {
+                return;
+            }
+            activasPorEstudiante.compute(estudianteId, (id, anterior) -> {
+                long antes = anterior != null ? anterior : 0;
+                long despues = antes + delta;
+                if (antes <= 0 && despues > 0) {
+                    estudiantesActivos.increment();
+                } else if (antes > 0 && despues <= 0) {
+                    estudiantesActivos.decrement();
+                }
+                return despues > 0 ? despues : null;
+            });
+        }
+
+        void calificacion(Integer cursoId, double calificacion, long delta, double aprobatoria) {
+            calificacionesGlobal.agregar(calificacion, delta, aprobatoria);
+            if (cursoId != null) {
+                calificacionesPorCurso.computeIfAbsent(cursoId, k -> new AgregadoCalificaciones())
+                        .agregar(calificacion, delta, aprobatoria);
+            }
+        }
+    }
+
+    /**
+     * Histograma de calificaciones: el mínimo y el máximo siguen siendo
+     * correctos cuando se retira una calificación
+     */
+    private static class AgregadoCalificaciones {
+        private final TreeMap<Double, Long> histograma = new TreeMap<>();
+        private long total;
+        private double suma;
+        private long aprobados;
+
+        synchronized void agregar(double calificacion, long delta, double aprobatoria) {
+            long cantidad = histograma.getOrDefault(calificacion, 0L) + delta;
+            if (cantidad > 0) {
+                histograma.put(calificacion, cantidad);
+            } else {
+                histograma.remove(calificacion);
+            }
+            total += delta;
+            suma += calificacion * delta;
+            if (calificacion >= aprobatoria) {
+                aprobados += delta;
+            }
+        }
+
+        synchronized ResumenCalificaciones resumen() {
+            if (total <= 0 || histograma.isEmpty()) {
+                return new ResumenCalificaciones(0, 0, 0, 0, 0);
+            }
+            return new ResumenCalificaciones(total, suma / total, histograma.firstKey(), histograma.lastKey(), aprobados);
+        }
+    }
+
+    /**
+     * Resumen de calificaciones de un curso o global
+     */
+    public static class ResumenCalificaciones {
+        private final long total;
+        private final double promedio;
+        private final double minima;
+        private final double maxima;
+        private final long aprobados;
+
+        public ResumenCalificaciones(long total, double promedio, double minima, double maxima, long aprobados) {
+            this.total = total;
+            this.promedio = promedio;
+            this.minima = minima;
+            this.maxima = maxima;
+            this.aprobados = aprobados;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public double getPromedio() {
+            return promedio;
+        }
+
+        public double getMinima() {
+            return minima;
+        }
+
+        public double getMaxima() {
+            return maxima;
+        }
+
+        public long getAprobados() {
+            return aprobados;
+        }
+
+        public long getReprobados() {
+            return Math.max(0, total - aprobados);
+        }
+
+        public double getTasaAprobacion() {
+            return total > 0 ? aprobados * 100.0 / total : 0;
+        }
+
+        public Map<String, Object> aMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("total", total);
+            mapa.put("promedio", promedio);
+            mapa.put("minima", minima);
+            mapa.put("maxima", maxima);
+            mapa.put("aprobados", aprobados);
+            mapa.put("reprobados", getReprobados());
+            mapa.put("tasaAprobacion", getTasaAprobacion());
+            return mapa;
+        }
+    }
+}
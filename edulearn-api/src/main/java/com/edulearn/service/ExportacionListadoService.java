@@ -0,0 +1,200 @@
+package com.edulearn.service;
+
+import com.edulearn.patterns.structural.bridge.GeneradorExcel;
+import com.edulearn.patterns.structural.bridge.GeneradorPDF;
+import com.edulearn.patterns.structural.bridge.RenderizadorTablaPDF;
+import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.ProgresoEstudianteRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones de listados completos (inscripciones, calificaciones) a Excel y PDF
+ *
+ * Las filas se leen con un Stream de repositorio (cursor del driver, fila a
+ * fila) y se escriben directamente en el OutputStream recibido (la respuesta
+ * HTTP o el almacén de reportes): en Excel con GeneradorExcel.exportarFilas
+ * (SXSSF) y en PDF con GeneradorPDF (tabla paginada). La lectura ocurre en
+ * una transacción de solo lectura abierta durante toda la exportación,
+ * porque el cursor solo es válido dentro de ella.
+ *
+ * El PDF de calificaciones de todos los cursos se divide en una sección por
+ * curso; las secciones se renderizan en paralelo (cada una con su consulta y
+ * su transacción) y se unen al final.
+ */
+@Service
+public class ExportacionListadoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionListadoService.class);
+
+    public static final String INSCRIPCIONES = "INSCRIPCIONES";
+    public static final String CALIFICACIONES_DETALLE = "CALIFICACIONES_DETALLE";
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private ProgresoEstudianteRepository progresoEstudianteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Cada sección usa una conexión mientras se renderiza
+    @Value("${edulearn.reportes.pdf.secciones-paralelas:3}")
+    private int seccionesParalelas;
+
+    private TransactionTemplate lectura;
+
+    @PostConstruct
+    public void iniciar() {
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    /**
+     * @return true si el tipo de reporte es un listado que se exporta en streaming
+     */
+    public boolean soporta(String tipoReporte) {
+        return tipoReporte != null && definicion(tipoReporte) != null;
+    }
+
+    public String titulo(String tipoReporte) {
+        return definicion(tipoReporte).titulo;
+    }
+
+    /**
+     * Exporta el listado a Excel en el OutputStream
+     *
+     * @param cursoId Filtro opcional por curso
+     * @return número de filas exportadas
+     */
+    public long exportarExcel(String tipoReporte, Integer cursoId, OutputStream salida) throws IOException {
+        Definicion definicion = definicion(tipoReporte);
+        if (definicion == null) {
+            throw new IllegalArgumentException("Tipo de exportación no soportado: " + tipoReporte);
+        }
+        long inicio = System.currentTimeMillis();
+        try {
+            Long filas = lectura.execute(estado -> {
+                try (Stream<Object[]> datos = definicion.consulta.apply(cursoId)) {
+                    return GeneradorExcel.exportarFilas(definicion.titulo, definicion.encabezados, datos.iterator(), salida);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("📊 Exportación {} completada: {} filas en {} ms", tipoReporte, filas,
+                    System.currentTimeMillis() - inicio);
+            return filas != null ? filas : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Exporta el listado a PDF (tabla paginada) en el OutputStream
+     *
+     * @param cursoId Filtro opcional por curso
+     */
+    public void exportarPdf(String tipoReporte, Integer cursoId, OutputStream salida) throws IOException {
+        Definicion definicion = definicion(tipoReporte);
+        if (definicion == null) {
+            throw new IllegalArgumentException("Tipo de exportación no soportado: " + tipoReporte);
+        }
+        long inicio = System.currentTimeMillis();
+        List<GeneradorPDF.Columna> columnas = definicion.encabezados.stream()
+                .map(encabezado -> new GeneradorPDF.Columna(encabezado, 1))
+                .toList();
+
+        if (CALIFICACIONES_DETALLE.equalsIgnoreCase(tipoReporte) && cursoId == null) {
+            // Una sección por curso, renderizadas en paralelo
+            List<GeneradorPDF.Seccion> secciones = new ArrayList<>();
+            for (Object[] curso : progresoEstudianteRepository.findCursosConProgreso()) {
+                Integer id = (Integer) curso[0];
+                String nombre = curso[1] != null ? (String) curso[1] : "Curso " + id;
+                secciones.add(new GeneradorPDF.Seccion(definicion.titulo + " - " + nombre, columnas,
+                        tabla -> leerFilas(definicion, id, tabla)));
+            }
+            if (!secciones.isEmpty()) {
+                GeneradorPDF.generarSecciones(secciones, seccionesParalelas, salida);
+                logger.info("📄 PDF {} completado: {} secciones en {} ms", tipoReporte, secciones.size(),
+                        System.currentTimeMillis() - inicio);
+                return;
+            }
+        }
+
+        try {
+            Long filas = lectura.execute(estado -> {
+                try (Stream<Object[]> datos = definicion.consulta.apply(cursoId)) {
+                    return GeneradorPDF.generarTabla(definicion.titulo, columnas, datos.iterator(), salida);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("📄 PDF {} completado: {} filas en {} ms", tipoReporte, filas,
+                    System.currentTimeMillis() - inicio);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Recorre el cursor de la consulta dentro de una transacción de solo lectura
+     */
+    private void leerFilas(Definicion definicion, Integer cursoId, RenderizadorTablaPDF tabla) throws IOException {
+        try {
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<Object[]> datos = definicion.consulta.apply(cursoId)) {
+                    tabla.agregarFilas(datos.iterator());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Definicion definicion(String tipoReporte) {
+        switch (tipoReporte.toUpperCase(Locale.ROOT)) {
+            case INSCRIPCIONES:
+                return new Definicion("Listado de Inscripciones",
+                        List.of("ID", "Nombre", "Apellidos", "Email", "Matrícula", "Código Curso", "Curso",
+                                "Fecha Inscripción", "Modalidad", "Estado", "Beca", "Monto Pagado", "Método de Pago"),
+                        inscripcionRepository::exportarDetalle);
+            case CALIFICACIONES_DETALLE:
+                return new Definicion("Calificaciones por Estudiante",
+                        List.of("Estudiante ID", "Nombre", "Apellidos", "Matrícula", "Código Curso", "Curso",
+                                "% Completado", "Calificación", "Evaluaciones", "Estado", "Última Actualización"),
+                        progresoEstudianteRepository::exportarCalificaciones);
+            default:
+                return null;
+        }
+    }
+
+    private static class Definicion {
+        private final String titulo;
+        private final List<String> encabezados;
+        private final Function<Integer, Stream<Object[]>> consulta;
+
+        Definicion(String titulo, List<String> encabezados, Function<Integer, Stream<Object[]>> consulta) {
+            this.titulo = titulo;
+            this.encabezados = encabezados;
+            this.consulta = consulta;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.edulearn.service;
+
+import com.edulearn.model.CupoCurso;
+import com.edulearn.model.Curso;
+import com.edulearn.model.Inscripcion;
+import com.edulearn.model.ReservaCupo;
+import com.edulearn.patterns.comportamiento.chain_of_responsibility.GestorValidacionCupos;
+import com.edulearn.repository.CupoCursoRepository;
+import com.edulearn.repository.CursoRepository;
+import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.ReservaCupoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Inventario de cupos por curso
+ *
+ * Cada curso tiene una fila en cupos_curso con su capacidad y los lugares
+ * ocupados. Reservar un cupo es un UPDATE condicional (ocupados < capacidad)
+ * en una transacción corta e independiente: solo una de dos peticiones
+ * simultáneas puede tomar el último lugar, y el bloqueo de la fila dura lo
+ * que dura el UPDATE, no todo el proceso de inscripción.
+ *
+ * reservar() y liberar() abren su propia transacción (REQUIRES_NEW), así
+ * que se llaman fuera de cualquier transacción: dentro de una, cada llamada
+ * ocuparía una segunda conexión del pool mientras la primera sigue tomada.
+ * Desde código transaccional se usa reservarEnTransaccion().
+ *
+ * Ciclo de una reserva:
+ * - reservar(): RESERVADA, vence en reserva-minutos (cubre el proceso y el pago)
+ * - confirmar(): CONFIRMADA al guardar una inscripción activa (ya no vence)
+ * - mantenerPendiente(): las becas pendientes de aprobación (y las
+ *   promociones PAGA de la lista de espera, pendientes de pago) guardan el
+ *   cupo reserva-beca-horas
+ * - liberar() / expiración: LIBERADA o EXPIRADA, el cupo vuelve al inventario.
+ *   Una inscripción pendiente cuya reserva vence se marca Rechazada.
+ *
+ * Quien necesite enterarse de que un curso recuperó cupo (lista de espera)
+ * se registra con alLiberarCupo(); se avisa después del commit.
+ *
+ * La fila de un curso se crea la primera vez que se consulta, contando las
+ * inscripciones que ocupan lugar. recalcular() vuelve a contar y toma la
+ * capacidad actual del curso (p. ej. tras cambiar cupo_maximo).
+ */
+@Service
+public class InventarioCuposService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioCuposService.class);
+
+    public static final String RESERVADA = "RESERVADA";
+    public static final String CONFIRMADA = "CONFIRMADA";
+    public static final String LIBERADA = "LIBERADA";
+    public static final String EXPIRADA = "EXPIRADA";
+
+    private static final String INSCRIPCION_ACTIVA = "Activa";
+    private static final String INSCRIPCION_RECHAZADA = "Rechazada";
+    private static final int LOTE_EXPIRACION = 100;
+
+    @Value("${edulearn.cupos.reserva-minutos:15}")
+    private long reservaMinutos;
+
+    @Value("${edulearn.cupos.reserva-beca-horas:72}")
+    private long reservaBecaHoras;
+
+    @Value("${edulearn.cupos.expiracion-intervalo-segundos:60}")
+    private long intervaloExpiracionSegundos;
+
+    @Autowired
+    private CupoCursoRepository cupoRepository;
+
+    @Autowired
+    private ReservaCupoRepository reservaRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+    private TransactionTemplate transaccionPropia;
+    private ScheduledExecutorService mantenimiento;
+    private final Set<Integer> inicializados = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<Integer>> alLiberar = new CopyOnWriteArrayList<>();
+
+    // Métricas
+    private final AtomicLong reservas = new AtomicLong();
+    private final AtomicLong sinCupo = new AtomicLong();
+    private final AtomicLong confirmadas = new AtomicLong();
+    private final AtomicLong liberadas = new AtomicLong();
+    private final AtomicLong expiradas = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        transaccionPropia = new TransactionTemplate(transactionManager);
+        transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cupos-expiracion");
+            t.setDaemon(true);
+            return t;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::expirarSilencioso,
+            intervaloExpiracionSegundos, intervaloExpiracionSegundos, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        mantenimiento.shutdownNow();
+    }
+
+    // ========== Consultas ==========
+
+    /**
+     * Capacidad y lugares ocupados del curso (lectura por clave primaria)
+     *
+     * @return null si el curso no existe
+     */
+    public Disponibilidad consultar(Integer cursoId) {
+        asegurarInventario(cursoId);
+        return cupoRepository.findById(cursoId).map(Disponibilidad::new).orElse(null);
+    }
+
+    public boolean hayCupo(Integer cursoId) {
+        Disponibilidad disponibilidad = consultar(cursoId);
+        return disponibilidad != null && disponibilidad.getDisponibles() > 0;
+    }
+
+    // ========== Reservas ==========
+
+    /**
+     * Aparta un cupo para el estudiante, en una transacción propia que se
+     * confirma enseguida (llamar sin una transacción abierta)
+     *
+     * @return la reserva, o null si el curso no existe o está lleno
+     */
+    public ReservaCupo reservar(Integer cursoId, Integer estudianteId) {
+        asegurarInventario(cursoId);
+        ReservaCupo reserva = transaccionPropia.execute(s -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            if (cupoRepository.ocupar(cursoId, ahora) == 0) {
+                return null;
+            }
+            ReservaCupo nueva = new ReservaCupo();
+            nueva.setCursoId(cursoId);
+            nueva.setEstudianteId(estudianteId);
+            nueva.setEstado(RESERVADA);
+            nueva.setExpiraEn(ahora.plusMinutes(reservaMinutos));
+            return reservaRepository.save(nueva);
+        });
+        if (reserva == null) {
+            sinCupo.incrementAndGet();
+            logger.info("🚫 Curso {} sin cupos para el estudiante {}", cursoId, estudianteId);
+        } else {
+            reservas.incrementAndGet();
+        }
+        return reserva;
+    }
+
+    /**
+     * Como reservar(), pero dentro de la transacción del llamador: si esta
+     * hace rollback el cupo no se llega a ocupar
+     */
+    @Transactional
+    public ReservaCupo reservarEnTransaccion(Integer cursoId, Integer estudianteId) {
+        asegurarInventario(cursoId);
+        LocalDateTime ahora = LocalDateTime.now();
+        if (cupoRepository.ocupar(cursoId, ahora) == 0) {
+            return null;
+        }
+        ReservaCupo reserva = new ReservaCupo();
+        reserva.setCursoId(cursoId);
+        reserva.setEstudianteId(estudianteId);
+        reserva.setEstado(RESERVADA);
+        reserva.setExpiraEn(ahora.plusMinutes(reservaMinutos));
+        reservas.incrementAndGet();
+        return reservaRepository.save(reserva);
+    }
+
+    /**
+     * Confirma la reserva para la inscripción ya guardada (en la transacción
+     * del llamador: si esta hace rollback la reserva sigue RESERVADA y vence)
+     *
+     * @return false si la reserva ya había vencido o se había liberado
+     */
+    @Transactional
+    public boolean confirmar(ReservaCupo reserva, Integer inscripcionId) {
+        boolean confirmada = reservaRepository.confirmar(reserva.getId(), inscripcionId) == 1;
+        if (confirmada) {
+            confirmadas.incrementAndGet();
+        }
+        return confirmada;
+    }
+
+    /**
+     * Asocia la inscripción pendiente (beca por aprobar o pago por completar)
+     * y guarda el cupo reserva-beca-horas; si no se completa antes, la
+     * inscripción se rechaza
+     */
+    @Transactional
+    public boolean mantenerPendiente(ReservaCupo reserva, Integer inscripcionId) {
+        return reservaRepository.vincular(reserva.getId(), inscripcionId,
+            LocalDateTime.now().plusHours(reservaBecaHoras)) == 1;
+    }
+
+    /**
+     * Devuelve al inventario una reserva que no llegó a confirmarse
+     */
+    public void liberar(ReservaCupo reserva) {
+        transaccionPropia.executeWithoutResult(s -> liberarSiEsta(reserva, RESERVADA));
+    }
+
+    // ========== Inscripciones existentes ==========
+
+    /**
+     * Al aprobar una inscripción pendiente: confirma su reserva o, si ya
+     * venció, intenta tomar un cupo nuevo
+     *
+     * @return false si no quedan cupos
+     */
+    @Transactional
+    public boolean confirmarInscripcion(Inscripcion inscripcion) {
+        Optional<ReservaCupo> reservaOpt = reservaRepository.findFirstByInscripcionIdOrderByIdDesc(inscripcion.getId());
+        if (reservaOpt.isEmpty()) {
+            // Inscripción anterior al inventario: ya se contó al crear la fila del curso
+            return true;
+        }
+        ReservaCupo reserva = reservaOpt.get();
+        if (CONFIRMADA.equals(reserva.getEstado()) || confirmar(reserva, inscripcion.getId())) {
+            return true;
+        }
+        ReservaCupo nueva = reservarEnTransaccion(inscripcion.getCursoId(), inscripcion.getEstudianteId());
+        return nueva != null && confirmar(nueva, inscripcion.getId());
+    }
+
+    /**
+     * Al rechazar o borrar una inscripción: libera el cupo que ocupaba
+     * (llamar antes de cambiar su estado)
+     */
+    @Transactional
+    public void liberarInscripcion(Inscripcion inscripcion) {
+        Optional<ReservaCupo> reservaOpt = reservaRepository.findFirstByInscripcionIdOrderByIdDesc(inscripcion.getId());
+        if (reservaOpt.isPresent()) {
+            ReservaCupo reserva = reservaOpt.get();
+            liberarSiEsta(reserva, reserva.getEstado());
+        } else if (ocupaCupo(inscripcion)) {
+            // Inscripción sin reserva (anterior al inventario o alta directa): sigue contada
+            asegurarInventario(inscripcion.getCursoId());
+            cupoRepository.desocupar(inscripcion.getCursoId(), LocalDateTime.now());
+            liberadas.incrementAndGet();
+            avisarLiberacion(inscripcion.getCursoId());
+        }
+    }
+
+    /**
+     * Para inscripciones guardadas sin pasar por reservar() (alta directa):
+     * suma el lugar aunque el curso esté lleno
+     */
+    @Transactional
+    public void registrarOcupacion(Inscripcion inscripcion) {
+        // Si la fila se crea ahora, el conteo inicial ya incluye esta inscripción
+        if (ocupaCupo(inscripcion) && !asegurarInventario(inscripcion.getCursoId())) {
+            cupoRepository.forzarOcupacion(inscripcion.getCursoId(), LocalDateTime.now());
+        }
+    }
+
+    // ========== Mantenimiento ==========
+
+    /**
+     * Vuelve a contar los lugares ocupados y toma la capacidad actual del curso
+     */
+    public Disponibilidad recalcular(Integer cursoId) {
+        if (!asegurarInventario(cursoId)) {
+            Optional<Curso> curso = cursoRepository.findById(cursoId);
+            if (curso.isEmpty()) {
+                return null;
+            }
+            transaccionPropia.executeWithoutResult(s ->
+                cupoRepository.reiniciar(cursoId, capacidadDe(curso.get()), contarOcupados(cursoId), LocalDateTime.now()));
+        }
+        // La capacidad pudo haber aumentado
+        avisarLiberacion(cursoId);
+        return consultar(cursoId);
+    }
+
+    /**
+     * Expira las reservas vencidas; devuelve cuántas se liberaron
+     */
+    public int expirarVencidas() {
+        int total = 0;
+        List<ReservaCupo> vencidas;
+        do {
+            vencidas = reservaRepository.findVencidas(LocalDateTime.now(), PageRequest.of(0, LOTE_EXPIRACION));
+            for (ReservaCupo reserva : vencidas) {
+                Boolean expirada = transaccionPropia.execute(s -> expirar(reserva));
+                if (Boolean.TRUE.equals(expirada)) {
+                    total++;
+                }
+            }
+        } while (vencidas.size() == LOTE_EXPIRACION);
+        if (total > 0) {
+            logger.info("⏰ {} reservas de cupo vencidas devueltas al inventario", total);
+        }
+        return total;
+    }
+
+    /**
+     * Registra una acción que se ejecuta (con el id del curso) cada vez que
+     * un curso recupera un cupo, después del commit que lo liberó
+     */
+    public void alLiberarCupo(Consumer<Integer> accion) {
+        alLiberar.add(accion);
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> porEstado = new LinkedHashMap<>();
+        for (Object[] fila : reservaRepository.contarPorEstado()) {
+            porEstado.put((String) fila[0], fila[1]);
+        }
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("cursosEnInventario", inicializados.size());
+        metricas.put("reservasPorEstado", porEstado);
+        metricas.put("reservas", reservas.get());
+        metricas.put("sinCupo", sinCupo.get());
+        metricas.put("confirmadas", confirmadas.get());
+        metricas.put("liberadas", liberadas.get());
+        metricas.put("expiradas", expiradas.get());
+        metricas.put("reservaMinutos", reservaMinutos);
+        metricas.put("reservaBecaHoras", reservaBecaHoras);
+        return metricas;
+    }
+
+    // ========== Internos ==========
+
+    private void expirarSilencioso() {
+        try {
+            expirarVencidas();
+        } catch (Exception e) {
+            logger.error("Error al expirar reservas de cupo: {}", e.getMessage());
+        }
+    }
+
+    private boolean expirar(ReservaCupo reserva) {
+        if (reservaRepository.cambiarEstado(reserva.getId(), RESERVADA, EXPIRADA) == 0) {
+            return false; // Se confirmó o liberó mientras tanto
+        }
+        cupoRepository.desocupar(reserva.getCursoId(), LocalDateTime.now());
+        expiradas.incrementAndGet();
+        avisarLiberacion(reserva.getCursoId());
+
+        if (reserva.getInscripcionId() != null) {
+            inscripcionRepository.findById(reserva.getInscripcionId())
+                .filter(i -> !INSCRIPCION_ACTIVA.equals(i.getEstadoInscripcion())
+                          && !INSCRIPCION_RECHAZADA.equals(i.getEstadoInscripcion()))
+                .ifPresent(i -> {
+                    i.setEstadoInscripcion(INSCRIPCION_RECHAZADA);
+                    i.setMotivoRechazo("La reserva del cupo venció sin que se confirmara la inscripción");
+                    inscripcionRepository.save(i);
+                    logger.info("⏰ Inscripción {} rechazada: su reserva de cupo venció", i.getId());
+                });
+        }
+        return true;
+    }
+
+    private void liberarSiEsta(ReservaCupo reserva, String estadoActual) {
+        if ((RESERVADA.equals(estadoActual) || CONFIRMADA.equals(estadoActual))
+                && reservaRepository.cambiarEstado(reserva.getId(), estadoActual, LIBERADA) == 1) {
+            cupoRepository.desocupar(reserva.getCursoId(), LocalDateTime.now());
+            liberadas.incrementAndGet();
+            avisarLiberacion(reserva.getCursoId());
+        }
+    }
+
+    private void avisarLiberacion(Integer cursoId) {
+        if (alLiberar.isEmpty()) {
+            return;
+        }
+        Runnable avisar = () -> alLiberar.forEach(accion -> {
+            try {
+                accion.accept(cursoId);
+            } catch (Exception e) {
+                logger.error("Error al avisar cupo liberado en curso {}: {}", cursoId, e.getMessage());
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    avisar.run();
+                }
+            });
+        } else {
+            avisar.run();
+        }
+    }
+
+    /**
+     * Crea la fila de inventario del curso si no existe, en la transacción
+     * del llamador si hay una (sin pedir otra conexión) o en una propia
+     *
+     * @return true si se creó en esta llamada (el conteo inicial ya refleja
+     *         las inscripciones guardadas hasta ahora)
+     */
+    private boolean asegurarInventario(Integer cursoId) {
+        if (cursoId == null || inicializados.contains(cursoId)) {
+            return false;
+        }
+        if (cupoRepository.existsById(cursoId)) {
+            marcarInicializado(cursoId);
+            return false;
+        }
+        Optional<Curso> curso = cursoRepository.findById(cursoId);
+        if (curso.isEmpty()) {
+            return false;
+        }
+        // Si otra petición crea la fila al mismo tiempo, el INSERT no hace nada
+        Integer creadas = transaccion.execute(s -> cupoRepository.crearSiNoExiste(
+            cursoId, capacidadDe(curso.get()), contarOcupados(cursoId), LocalDateTime.now()));
+        marcarInicializado(cursoId);
+        if (creadas == null || creadas == 0) {
+            return false;
+        }
+        logger.info("📦 Inventario de cupos creado para el curso {}", cursoId);
+        return true;
+    }
+
+    /**
+     * Dentro de una transacción la fila puede desaparecer con un rollback:
+     * el curso se da por inicializado solo tras el commit
+     */
+    private void marcarInicializado(Integer cursoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inicializados.add(cursoId);
+                }
+            });
+        } else {
+            inicializados.add(cursoId);
+        }
+    }
+
+    private int contarOcupados(Integer cursoId) {
+        return (int) (inscripcionRepository.contarOcupandoCupo(cursoId) + reservaRepository.contarSinInscripcion(cursoId));
+    }
+
+    /**
+     * cupo_maximo del curso si está definido; si no, el límite por tipo de curso
+     */
+    private int capacidadDe(Curso curso) {
+        if (curso.getCupoMaximo() != null && curso.getCupoMaximo() > 0) {
+            return curso.getCupoMaximo();
+        }
+        return GestorValidacionCupos.obtenerCupoMaximo(curso.getTipoCurso() != null ? curso.getTipoCurso() : "virtual");
+    }
+
+    private static boolean ocupaCupo(Inscripcion inscripcion) {
+        return !INSCRIPCION_RECHAZADA.equals(inscripcion.getEstadoInscripcion());
+    }
+
+    /**
+     * Foto del inventario de un curso
+     */
+    public static class Disponibilidad {
+        private final Integer cursoId;
+        private final int capacidad;
+        private final int ocupados;
+
+        Disponibilidad(CupoCurso cupo) {
+            this.cursoId = cupo.getCursoId();
+            this.capacidad = cupo.getCapacidad();
+            this.ocupados = cupo.getOcupados();
+        }
+
+        public Integer getCursoId() { return cursoId; }
+        public int getCapacidad() { return capacidad; }
+        public int getOcupados() { return ocupados; }
+        public int getDisponibles() { return Math.max(0, capacidad - ocupados); }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("cursoId", cursoId);
+            mapa.put("capacidad", capacidad);
+            mapa.put("ocupados", ocupados);
+            mapa.put("disponibles", getDisponibles());
+            return mapa;
+        }
+    }
+}
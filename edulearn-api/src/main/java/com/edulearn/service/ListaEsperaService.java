@@ -0,0 +1,483 @@
+package com.edulearn.service;
+
+import com.edulearn.model.Curso;
+import com.edulearn.model.Estudiante;
+import com.edulearn.model.Inscripcion;
+import com.edulearn.model.ListaEspera;
+import com.edulearn.model.ReservaCupo;
+import com.edulearn.patterns.comportamiento.observer.NotificationEvent;
+import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
+import com.edulearn.repository.CursoRepository;
+import com.edulearn.repository.EstudianteRepository;
+import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.ListaEsperaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lista de espera de cursos llenos
+ *
+ * Un estudiante que no alcanzó cupo se anota una vez en la lista del curso
+ * en lugar de reintentar la inscripción. Cuando el inventario avisa que el
+ * curso recuperó un cupo (beca rechazada, inscripción borrada, reserva
+ * vencida, capacidad ampliada), se promueve al primero de la lista.
+ *
+ * Cada promoción es una sola transacción: bloquea la cabeza de la lista
+ * (SKIP LOCKED), ocupa el cupo con el UPDATE condicional del inventario,
+ * crea la inscripción en la modalidad que pidió el estudiante y marca el
+ * lugar como PROMOVIDO. Si algo falla no queda nada a medias.
+ *
+ * - GRATUITA: la inscripción queda Activa; tras el commit se notifica al
+ *   estudiante y al profesor.
+ * - PAGA y BECA: no se regala el cupo. La inscripción queda pendiente (de
+ *   pago o de aprobación) y el cupo apartado reserva-beca-horas, como una
+ *   beca recién solicitada; se avisa al estudiante para que complete el
+ *   proceso (PUT /api/inscripciones/{id}/pagar o la aprobación de la beca).
+ *   Si no lo completa a tiempo, la reserva vence, la inscripción se rechaza
+ *   y el cupo pasa al siguiente de la lista.
+ *
+ * Las promociones corren en un hilo propio; además se revisan
+ * periódicamente los cursos con espera por si algún aviso se perdió.
+ */
+@Service
+public class ListaEsperaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListaEsperaService.class);
+
+    public static final String ESPERANDO = "ESPERANDO";
+    public static final String PROMOVIDO = "PROMOVIDO";
+    public static final String CANCELADO = "CANCELADO";
+
+    public static final String GRATUITA = "GRATUITA";
+    public static final String PAGA = "PAGA";
+    public static final String BECA = "BECA";
+
+    public static final String PENDIENTE_PAGO = "Pendiente de Pago";
+    public static final String PENDIENTE_BECA = "Pendiente de Aprobación/Documentación";
+
+    private static final BigDecimal PRECIO_PAGA = new BigDecimal("500.00");
+
+    @Value("${edulearn.lista-espera.revision-minutos:5}")
+    private long revisionMinutos;
+
+    @Value("${edulearn.cupos.reserva-beca-horas:72}")
+    private long reservaHoras;
+
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Autowired
+    private InscripcionRepository inscripcionRepository;
+
+    @Autowired
+    private EstudianteRepository estudianteRepository;
+
+    @Autowired
+    private CursoRepository cursoRepository;
+
+    @Autowired
+    private InventarioCuposService inventarioCupos;
+
+    @Autowired
+    private NotificationOrchestrator notificationOrchestrator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaccion;
+    private ScheduledExecutorService promociones;
+
+    // Cursos con una promoción ya programada (se agrupan los avisos repetidos)
+    private final Set<Integer> programados = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong anotados = new AtomicLong();
+    private final AtomicLong promovidos = new AtomicLong();
+    private final AtomicLong reservados = new AtomicLong();
+    private final AtomicLong pagados = new AtomicLong();
+    private final AtomicLong omitidos = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        transaccion = new TransactionTemplate(transactionManager);
+        promociones = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lista-espera-promocion");
+            t.setDaemon(true);
+            return t;
+        });
+        inventarioCupos.alLiberarCupo(this::programarPromocion);
+        promociones.scheduleWithFixedDelay(this::revisarCursos, revisionMinutos, revisionMinutos, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void detener() {
+        promociones.shutdownNow();
+    }
+
+    /**
+     * Anota al estudiante en la lista de espera del curso con la modalidad
+     * con la que quiere inscribirse (GRATUITA si no indica ninguna)
+     */
+    public Map<String, Object> anotar(Integer cursoId, Integer estudianteId, String modalidad) {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        String tipo = modalidad == null || modalidad.isBlank() ? GRATUITA : modalidad.trim().toUpperCase();
+        if (!GRATUITA.equals(tipo) && !PAGA.equals(tipo) && !BECA.equals(tipo)) {
+            resultado.put("exitoso", false);
+            resultado.put("mensaje", "Tipo de inscripción no válido: " + modalidad + ". Tipos válidos: GRATUITA, PAGA, BECA");
+            return resultado;
+        }
+        if (!cursoRepository.existsById(cursoId)) {
+            resultado.put("exitoso", false);
+            resultado.put("mensaje", "Curso no encontrado con ID: " + cursoId);
+            return resultado;
+        }
+        if (!estudianteRepository.existsById(estudianteId)) {
+            resultado.put("exitoso", false);
+            resultado.put("mensaje", "Estudiante no encontrado con ID: " + estudianteId);
+            return resultado;
+        }
+        if (yaInscrito(cursoId, estudianteId)) {
+            resultado.put("exitoso", false);
+            resultado.put("mensaje", "El estudiante ya está inscrito en este curso");
+            return resultado;
+        }
+
+        ListaEspera lugar = listaEsperaRepository
+            .findFirstByCursoIdAndEstudianteIdAndEstado(cursoId, estudianteId, ESPERANDO)
+            .orElse(null);
+        if (lugar == null) {
+            lugar = new ListaEspera();
+            lugar.setCursoId(cursoId);
+            lugar.setEstudianteId(estudianteId);
+            lugar.setEstado(ESPERANDO);
+            lugar.setModalidad(tipo);
+            lugar = listaEsperaRepository.save(lugar);
+            anotados.incrementAndGet();
+            logger.info("📝 Estudiante {} anotado en la lista de espera del curso {} ({})", estudianteId, cursoId, tipo);
+            // Si justo hay un cupo libre, se promueve sin esperar a otro aviso
+            programarPromocion(cursoId);
+        } else if (!tipo.equals(modalidadDe(lugar))) {
+            // Conserva su lugar; solo cambia la modalidad con la que se le promoverá
+            lugar.setModalidad(tipo);
+            lugar = listaEsperaRepository.save(lugar);
+        }
+
+        resultado.put("exitoso", true);
+        resultado.put("mensaje", GRATUITA.equals(tipo)
+            ? "Anotado en la lista de espera. Se te inscribirá automáticamente cuando se libere un cupo"
+            : "Anotado en la lista de espera. Cuando se libere un cupo se te apartará y deberás completar la inscripción");
+        resultado.putAll(describir(lugar));
+        return resultado;
+    }
+
+    /**
+     * Lugar del estudiante en la lista del curso, o null si no está esperando
+     */
+    public Map<String, Object> consultar(Integer cursoId, Integer estudianteId) {
+        return listaEsperaRepository.findFirstByCursoIdAndEstudianteIdAndEstado(cursoId, estudianteId, ESPERANDO)
+            .map(this::describir)
+            .orElse(null);
+    }
+
+    public boolean cancelar(Integer cursoId, Integer estudianteId) {
+        Optional<ListaEspera> lugar = listaEsperaRepository
+            .findFirstByCursoIdAndEstudianteIdAndEstado(cursoId, estudianteId, ESPERANDO);
+        lugar.ifPresent(l -> {
+            l.setEstado(CANCELADO);
+            listaEsperaRepository.save(l);
+        });
+        return lugar.isPresent();
+    }
+
+    /**
+     * Primeros de la lista del curso, en orden
+     */
+    public Map<String, Object> listar(Integer cursoId, int limite) {
+        List<Map<String, Object>> lugares = new ArrayList<>();
+        long posicion = 1;
+        for (ListaEspera lugar : listaEsperaRepository.findEsperando(cursoId, PageRequest.of(0, limite))) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("posicion", posicion++);
+            fila.put("estudianteId", lugar.getEstudianteId());
+            fila.put("modalidad", modalidadDe(lugar));
+            fila.put("fechaSolicitud", lugar.getFechaSolicitud());
+            lugares.add(fila);
+        }
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("cursoId", cursoId);
+        resultado.put("enEspera", listaEsperaRepository.contarEsperando(cursoId));
+        resultado.put("lugares", lugares);
+        return resultado;
+    }
+
+    /**
+     * Promueve a los primeros de la lista mientras haya cupos
+     *
+     * @return estudiantes promovidos (inscritos o con el cupo apartado)
+     */
+    public int promover(Integer cursoId) {
+        int inscritos = 0;
+        Promocion promocion;
+        while ((promocion = promoverSiguiente(cursoId)) != null) {
+            if (promocion.inscripcion == null) {
+                omitidos.incrementAndGet();
+                continue;
+            }
+            inscritos++;
+            promovidos.incrementAndGet();
+            if (promocion.pendiente) {
+                reservados.incrementAndGet();
+                notificarReserva(promocion.inscripcion);
+            } else {
+                notificar(promocion.inscripcion);
+            }
+        }
+        if (inscritos > 0) {
+            logger.info("🎉 {} estudiantes promovidos de la lista de espera del curso {}", inscritos, cursoId);
+        }
+        return inscritos;
+    }
+
+    /**
+     * Completa el pago de una inscripción PAGA promovida desde la lista de
+     * espera: confirma el cupo apartado (o toma otro si la reserva venció)
+     * y deja la inscripción Activa
+     *
+     * @return la inscripción activa, o null si no existe
+     * @throws IllegalArgumentException si no está pendiente de pago o falta el método de pago
+     * @throws IllegalStateException si el curso ya no tiene cupos
+     */
+    public Inscripcion completarPago(Integer inscripcionId, String metodoPago) {
+        Inscripcion inscripcion = inscripcionRepository.findById(inscripcionId).orElse(null);
+        if (inscripcion == null) {
+            return null;
+        }
+        if (!PAGA.equals(inscripcion.getModalidad()) || !PENDIENTE_PAGO.equals(inscripcion.getEstadoInscripcion())) {
+            throw new IllegalArgumentException("La inscripción no está pendiente de pago");
+        }
+        if (metodoPago == null || metodoPago.isBlank()) {
+            throw new IllegalArgumentException("Debe especificar un método de pago válido");
+        }
+        if (!inventarioCupos.confirmarInscripcion(inscripcion)) {
+            throw new IllegalStateException("No hay cupos disponibles en el curso para completar la inscripción");
+        }
+
+        // Simulación del gateway, como en InscripcionPaga
+        inscripcion.setMetodoPago(metodoPago);
+        inscripcion.setMontoPagado(PRECIO_PAGA);
+        inscripcion.setTransaccionId("TXN-" + UUID.randomUUID().toString().substring(0, 12).toUpperCase());
+        inscripcion.setEstadoInscripcion("Activa");
+        Inscripcion activa = inscripcionRepository.save(inscripcion);
+        pagados.incrementAndGet();
+        logger.info("💳 Pago completado para la inscripción {} promovida de la lista de espera", activa.getId());
+
+        notificar(activa);
+        return activa;
+    }
+
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("cursosConEspera", listaEsperaRepository.findCursosConEspera().size());
+        metricas.put("anotados", anotados.get());
+        metricas.put("promovidos", promovidos.get());
+        metricas.put("reservados", reservados.get());
+        metricas.put("pagados", pagados.get());
+        metricas.put("omitidos", omitidos.get());
+        metricas.put("promocionesProgramadas", programados.size());
+        return metricas;
+    }
+
+    // ========== Internos ==========
+
+    private void programarPromocion(Integer cursoId) {
+        if (programados.add(cursoId)) {
+            promociones.execute(() -> {
+                programados.remove(cursoId);
+                try {
+                    promover(cursoId);
+                } catch (Exception e) {
+                    logger.error("Error al promover la lista de espera del curso {}: {}", cursoId, e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    private void revisarCursos() {
+        try {
+            listaEsperaRepository.findCursosConEspera().forEach(this::programarPromocion);
+        } catch (Exception e) {
+            logger.error("Error al revisar las listas de espera: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Una promoción en una transacción
+     *
+     * @return null si la lista está vacía o no hay cupo; con inscripcion null
+     *         si el primero ya estaba inscrito y solo se sacó de la lista
+     */
+    private Promocion promoverSiguiente(Integer cursoId) {
+        return transaccion.execute(s -> {
+            List<ListaEspera> cabeza = listaEsperaRepository.reclamarSiguiente(cursoId, PageRequest.of(0, 1));
+            if (cabeza.isEmpty()) {
+                return null;
+            }
+            ListaEspera lugar = cabeza.get(0);
+
+            if (yaInscrito(cursoId, lugar.getEstudianteId())) {
+                lugar.setEstado(CANCELADO);
+                return new Promocion(null, false);
+            }
+
+            ReservaCupo reserva = inventarioCupos.reservarEnTransaccion(cursoId, lugar.getEstudianteId());
+            if (reserva == null) {
+                return null;
+            }
+
+            String modalidad = modalidadDe(lugar);
+            Inscripcion inscripcion = new Inscripcion();
+            inscripcion.setEstudianteId(lugar.getEstudianteId());
+            inscripcion.setCursoId(cursoId);
+            inscripcion.setFechaInscripcion(LocalDate.now());
+            inscripcion.setModalidad(modalidad);
+            if (PAGA.equals(modalidad)) {
+                // El monto se registra al completar el pago
+                inscripcion.setEstadoInscripcion(PENDIENTE_PAGO);
+                inscripcion.setCertificadoGarantizado(true);
+            } else if (BECA.equals(modalidad)) {
+                inscripcion.setEstadoInscripcion(PENDIENTE_BECA);
+                inscripcion.setCertificadoGarantizado(false);
+                inscripcion.setMontoPagado(BigDecimal.ZERO);
+            } else {
+                inscripcion.setEstadoInscripcion("Activa");
+                inscripcion.setCertificadoGarantizado(false);
+                inscripcion.setMontoPagado(BigDecimal.ZERO);
+            }
+            inscripcion = inscripcionRepository.save(inscripcion);
+
+            // PAGA y BECA: el cupo queda apartado hasta que se complete la inscripción
+            boolean pendiente = !GRATUITA.equals(modalidad);
+            boolean cupoAsignado = pendiente
+                ? inventarioCupos.mantenerPendiente(reserva, inscripcion.getId())
+                : inventarioCupos.confirmar(reserva, inscripcion.getId());
+            if (!cupoAsignado) {
+                s.setRollbackOnly();
+                return null;
+            }
+
+            lugar.setEstado(PROMOVIDO);
+            lugar.setInscripcionId(inscripcion.getId());
+            lugar.setFechaPromocion(LocalDateTime.now());
+            return new Promocion(inscripcion, pendiente);
+        });
+    }
+
+    private void notificar(Inscripcion inscripcion) {
+        try {
+            Estudiante estudiante = estudianteRepository.findById(inscripcion.getEstudianteId()).orElse(null);
+            Curso curso = cursoRepository.findById(inscripcion.getCursoId()).orElse(null);
+            if (estudiante == null || curso == null) {
+                return;
+            }
+            String estudianteNombre = estudiante.getNombre() + " " + estudiante.getApellidos();
+
+            notificationOrchestrator.subscribeStudentToCourse(inscripcion.getEstudianteId(), estudianteNombre, curso.getId());
+            if (curso.getProfesorTitularId() != null) {
+                notificationOrchestrator.registerCourseTeacher(curso.getId(), curso.getProfesorTitularId());
+            }
+            notificationOrchestrator.notifyWaitlistPromoted(inscripcion, curso.getNombre());
+            notificationOrchestrator.notifyStudentEnrolled(inscripcion, estudianteNombre, curso.getNombre());
+        } catch (Exception e) {
+            logger.error("⚠️ Error al notificar la promoción de la inscripción {}: {}", inscripcion.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cupo apartado para una inscripción PAGA o BECA: solo se avisa al
+     * estudiante (y a los administradores si es una beca); la suscripción al
+     * curso y el aviso al profesor llegan cuando la inscripción queda Activa
+     */
+    private void notificarReserva(Inscripcion inscripcion) {
+        try {
+            Estudiante estudiante = estudianteRepository.findById(inscripcion.getEstudianteId()).orElse(null);
+            Curso curso = cursoRepository.findById(inscripcion.getCursoId()).orElse(null);
+            if (estudiante == null || curso == null) {
+                return;
+            }
+            notificationOrchestrator.notifyWaitlistReserved(inscripcion, curso.getNombre(), reservaHoras);
+
+            if (BECA.equals(inscripcion.getModalidad())) {
+                String estudianteNombre = estudiante.getNombre() + " " + estudiante.getApellidos();
+                NotificationEvent event = new NotificationEvent.Builder()
+                    .eventType(NotificationEvent.EventType.BECA_SOLICITADA)
+                    .title("Nueva Solicitud de Beca")
+                    .message(String.format("El estudiante %s obtuvo un cupo de la lista de espera del curso '%s' y su beca espera aprobación",
+                        estudianteNombre, curso.getNombre()))
+                    .sourceUserId(inscripcion.getEstudianteId())
+                    .targetId(inscripcion.getCursoId())
+                    .targetType("INSCRIPCION")
+                    .addMetadata("inscripcionId", inscripcion.getId())
+                    .build();
+                notificationOrchestrator.notifyRoleObservers("admin", event);
+            }
+        } catch (Exception e) {
+            logger.error("⚠️ Error al notificar el cupo apartado de la inscripción {}: {}", inscripcion.getId(), e.getMessage());
+        }
+    }
+
+    private boolean yaInscrito(Integer cursoId, Integer estudianteId) {
+        return inscripcionRepository.findByEstudianteId(estudianteId).stream()
+            .anyMatch(i -> cursoId.equals(i.getCursoId()) && !"Rechazada".equals(i.getEstadoInscripcion()));
+    }
+
+    private Map<String, Object> describir(ListaEspera lugar) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("listaEsperaId", lugar.getId());
+        info.put("cursoId", lugar.getCursoId());
+        info.put("estudianteId", lugar.getEstudianteId());
+        info.put("estado", lugar.getEstado());
+        info.put("modalidad", modalidadDe(lugar));
+        if (ESPERANDO.equals(lugar.getEstado())) {
+            info.put("posicion", listaEsperaRepository.contarDelante(lugar.getCursoId(), lugar.getId()) + 1);
+        }
+        info.put("fechaSolicitud", lugar.getFechaSolicitud());
+        return info;
+    }
+
+    private static String modalidadDe(ListaEspera lugar) {
+        return lugar.getModalidad() != null ? lugar.getModalidad() : GRATUITA;
+    }
+
+    private static class Promocion {
+        private final Inscripcion inscripcion;
+        private final boolean pendiente;
+
+        Promocion(Inscripcion inscripcion, boolean pendiente) {
+            this.inscripcion = inscripcion;
+            this.pendiente = pendiente;
+        }
+    }
+}
@@ -9,10 +9,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Servicio para manejar la navegación de materiales y actualización de progreso
@@ -29,6 +33,9 @@ public class MaterialNavegacionService {
     @Autowired
     private ProgresoEstudianteService progresoService;
 
+    @Autowired
+    private CursoTreeService cursoTreeService;
+
     /**
      * Obtiene todos los materiales de un curso ordenados
      */
@@ -218,6 +225,17 @@ public class MaterialNavegacionService {
         // Eliminar los materiales
         materialRepository.deleteAll(materialesSinArchivo);
 
+        // Invalidar los árboles cacheados de los cursos afectados
+        Set<Integer> cursosAfectados = new HashSet<>();
+        List<Long> modulosAfectados = new ArrayList<>();
+        for (Material material : materialesSinArchivo) {
+            cursosAfectados.add(material.getCursoId());
+            modulosAfectados.add(material.getModuloId());
+        }
+        cursosAfectados.removeIf(Objects::isNull);
+        cursoTreeService.invalidarCursos(cursosAfectados);
+        cursoTreeService.invalidarCursosDeModulos(modulosAfectados);
+
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("eliminados", cantidadEliminada);
         resultado.put("mensaje", cantidadEliminada > 0
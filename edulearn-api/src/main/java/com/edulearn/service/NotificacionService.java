@@ -1,11 +1,17 @@
 package com.edulearn.service;
 
 import com.edulearn.model.Notificacion;
+import com.edulearn.patterns.comportamiento.observer.NotificationCounters;
 import com.edulearn.patterns.comportamiento.observer.NotificationEvent;
 import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
+import com.edulearn.patterns.comportamiento.observer.NotificationPersistenceQueue;
+import com.edulearn.patterns.comportamiento.observer.NotificationStreamHub;
+import com.edulearn.patterns.comportamiento.observer.events.BusEventosDominio;
+import com.edulearn.patterns.comportamiento.observer.events.OutboxEventosDominio;
 import com.edulearn.repository.NotificacionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +30,21 @@ public class NotificacionService {
     @Autowired
     private NotificationOrchestrator notificationOrchestrator;
 
+    @Autowired
+    private NotificationPersistenceQueue persistenceQueue;
+
+    @Autowired
+    private NotificationStreamHub streamHub;
+
+    @Autowired
+    private NotificationCounters contadores;
+
+    @Autowired
+    private BusEventosDominio busEventos;
+
+    @Autowired
+    private OutboxEventosDominio outboxEventos;
+
     /**
      * PATRÓN OBSERVER - Registrar usuario como observador (unificado)
      * Delegado al NotificationOrchestrator para mantener una única fuente de verdad
@@ -55,25 +76,45 @@ public class NotificacionService {
 
     /**
      * Marcar notificación como leída
+     *
+     * El cambio se hace con un UPDATE condicionado al estado leído, y el
+     * contador de no leídas solo se ajusta si este llamado modificó la fila:
+     * dos llamadas concurrentes sobre la misma notificación lo descuentan una vez.
      */
     public Notificacion markAsRead(Long notificationId) {
-        Notificacion notif = repository.findById(notificationId)
-            .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
-        notif.setEstado("LEIDA");
-        notif.setFechaEnvio(LocalDateTime.now());
-        return repository.save(notif);
+        while (true) {
+            Notificacion notif = repository.findById(notificationId)
+                .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
+            String estadoAnterior = notif.getEstado();
+            if ("LEIDA".equals(estadoAnterior)) {
+                return notif;
+            }
+            if (repository.cambiarEstadoSiSigueEn(notificationId, estadoAnterior, "LEIDA", LocalDateTime.now()) == 1) {
+                contadores.registrarCambioEstado(notif.getDestinatario(), estadoAnterior, "LEIDA", 1);
+                return repository.findById(notificationId).orElse(notif);
+            }
+            // Otro hilo cambió el estado entre la lectura y el UPDATE: se vuelve a leer
+        }
     }
 
     /**
      * Marcar todas las notificaciones de un usuario como leídas
      */
-    public void markAllAsRead(Integer userId) {
-        List<Notificacion> unread = getUnreadNotifications(userId);
-        unread.forEach(notif -> {
-            notif.setEstado("LEIDA");
-            notif.setFechaEnvio(LocalDateTime.now());
-        });
-        repository.saveAll(unread);
+    public int markAllAsRead(Integer userId) {
+        return markAllAsRead(userId, null);
+    }
+
+    /**
+     * Marcar como leídas, con un único UPDATE, las notificaciones no leídas de un usuario
+     * hasta el id indicado (null = todas).
+     * @return número de notificaciones marcadas
+     */
+    public int markAllAsRead(Integer userId, Long hastaId) {
+        String destinatario = userId.toString();
+        int marcadas = repository.actualizarEstadoDeDestinatario(
+            destinatario, NotificationCounters.NO_LEIDA, "LEIDA", LocalDateTime.now(), hastaId);
+        contadores.registrarCambioEstado(destinatario, NotificationCounters.NO_LEIDA, "LEIDA", marcadas);
+        return marcadas;
     }
 
     /**
@@ -105,20 +146,20 @@ public class NotificacionService {
     }
 
     /**
-     * Obtener número de notificaciones no leídas
+     * Obtener número de notificaciones no leídas (contador en memoria, sin consultar la tabla)
      */
     public long getUnreadCount(Integer userId) {
-        return getUnreadNotifications(userId).size();
+        return contadores.noLeidas(userId.toString());
     }
 
     /**
-     * Obtener estadísticas de notificaciones
+     * Obtener estadísticas de notificaciones (contadores en memoria, sin consultar la tabla)
      */
     public Map<String, Object> obtenerEstadisticas() {
-        long total = repository.count();
-        long enviadas = repository.findByEstado("ENVIADA").size();
-        long fallidas = repository.findByEstado("FALLIDA").size();
-        long pendientes = repository.findByEstado("PENDIENTE").size();
+        long total = contadores.total();
+        long enviadas = contadores.porEstado("ENVIADA");
+        long fallidas = contadores.porEstado("FALLIDA");
+        long pendientes = contadores.porEstado("PENDIENTE");
 
         return Map.of(
             "total", total,
@@ -127,10 +168,60 @@ public class NotificacionService {
             "pendientes", pendientes,
             "tasaExito", total > 0 ? (enviadas * 100.0 / total) : 0,
             "porTipo", Map.of(
-                "EMAIL", repository.findByTipo("EMAIL").size(),
-                "SMS", repository.findByTipo("SMS").size(),
-                "PUSH", repository.findByTipo("PUSH").size()
+                "EMAIL", contadores.porTipo("EMAIL"),
+                "SMS", contadores.porTipo("SMS"),
+                "PUSH", contadores.porTipo("PUSH")
             )
         );
     }
+
+    /**
+     * Vuelve a sincronizar los contadores en memoria con la base de datos
+     */
+    public Map<String, Object> recalcularContadores() {
+        contadores.recalcular();
+        return obtenerEstadisticas();
+    }
+
+    /**
+     * Métricas de la cola de persistencia (profundidad, lotes, latencia)
+     */
+    public Map<String, Object> obtenerMetricasPersistencia() {
+        return persistenceQueue.obtenerMetricas();
+    }
+
+    /**
+     * Métricas de los listeners de eventos de dominio (invocaciones, fallos, latencia)
+     */
+    public Map<String, Object> obtenerMetricasEventos() {
+        return busEventos.obtenerMetricas();
+    }
+
+    /**
+     * Filas del outbox por estado, carriles por tipo de evento, reintentos y latencia de entrega
+     */
+    public Map<String, Object> obtenerMetricasOutbox() {
+        return outboxEventos.obtenerMetricas();
+    }
+
+    /**
+     * Devuelve al outbox los eventos que agotaron sus intentos
+     */
+    public int reintentarEventosFallidos() {
+        return outboxEventos.reintentarFallidos();
+    }
+
+    /**
+     * Abre el canal SSE de notificaciones del usuario (reemplaza el sondeo del contador)
+     */
+    public SseEmitter abrirStream(Integer userId, String lastEventId) {
+        return streamHub.suscribir(userId, lastEventId);
+    }
+
+    /**
+     * Conexiones SSE abiertas y último id de evento emitido
+     */
+    public Map<String, Object> obtenerEstadisticasStream() {
+        return streamHub.obtenerEstadisticas();
+    }
 }
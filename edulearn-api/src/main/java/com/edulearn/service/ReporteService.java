@@ -0,0 +1,428 @@
+package com.edulearn.service;
+
+import com.edulearn.model.ReporteGenerado;
+import com.edulearn.patterns.structural.bridge.*;
+import com.edulearn.repository.ReporteGeneradoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Servicio de generación de reportes (patrón Bridge + PDFBox/POI)
+ *
+ * Contiene el flujo que antes vivía en ReporteController.generarReporte para
+ * poder ejecutarlo tanto en la petición (síncrono) como en un trabajo en
+ * segundo plano (ReporteTrabajoService). Cada etapa informa su avance con
+ * el callback recibido, que también sirve como punto de cancelación.
+ */
+@Service
+public class ReporteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteService.class);
+
+    private static final IntConsumer SIN_AVANCE = porcentaje -> { };
+
+    private static final String CURSO_ACTIVO = "activo";
+    private static final String[] CURSOS_BORRADOR = {"borrador", "en_creacion"};
+    private static final String[] CURSOS_FINALIZADOS = {"finalizado", "archivado"};
+
+    @Autowired
+    private ReporteGeneradoRepository reporteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AlmacenReportesService almacenReportesService;
+
+    @Autowired
+    private ExportacionListadoService exportacionListadoService;
+
+    @Autowired
+    private CacheReportesService cacheReportesService;
+
+    @Autowired
+    private EstadisticasAcademicasService estadisticas;
+
+    /**
+     * Genera y guarda un reporte en la petición actual
+     */
+    public ResultadoReporte generar(String tipoReporte, String formato, Map<String, Object> params, Integer usuarioId) {
+        return generar(tipoReporte, formato, params, usuarioId, SIN_AVANCE);
+    }
+
+    /**
+     * Genera y guarda un reporte informando el avance (0-90; el 100 lo marca quien llama)
+     *
+     * @param avance Recibe el porcentaje al terminar cada etapa; puede lanzar
+     *               una excepción para abortar la generación (cancelación)
+     */
+    public ResultadoReporte generar(String tipoReporte, String formato, Map<String, Object> params,
+                                    Integer usuarioId, IntConsumer avance) {
+        // Mismo reporte con los mismos datos: se reutiliza el ya generado
+        String claveCache = cacheReportesService.clave(tipoReporte, formato, params);
+        ResultadoReporte enCache = cacheReportesService.buscar(claveCache, params);
+        if (enCache != null) {
+            return paraSolicitante(enCache, params, usuarioId);
+        }
+
+        ResultadoReporte resultado;
+        // Listados completos en Excel o PDF: se exportan fila a fila directamente al almacén
+        if ((esExcel(formato) || esPdf(formato)) && exportacionListadoService.soporta(tipoReporte)) {
+            resultado = generarListado(tipoReporte, formato, params, usuarioId, avance);
+        } else {
+            resultado = renderizar(tipoReporte, formato, params, usuarioId, avance);
+        }
+        cacheReportesService.registrar(claveCache, resultado);
+        return resultado;
+    }
+
+    /**
+     * Un acierto de caché reutiliza el archivo ya generado, pero el reporte
+     * queda registrado a nombre de quien lo pidió: si otro usuario lo generó,
+     * se inserta una fila propia que apunta al mismo archivo del almacén (el
+     * archivo solo se borra cuando ninguna fila lo referencia).
+     */
+    private ResultadoReporte paraSolicitante(ResultadoReporte enCache, Map<String, Object> params, Integer usuarioId) {
+        ReporteGenerado original = enCache.getReporte();
+        if (Objects.equals(original.getUsuarioId(), usuarioId)) {
+            return enCache;
+        }
+
+        ReporteGenerado reporteGenerado = new ReporteGenerado();
+        reporteGenerado.setTipoReporte(original.getTipoReporte());
+        reporteGenerado.setFormato(original.getFormato());
+        reporteGenerado.setTitulo(original.getTitulo());
+        reporteGenerado.setContenido(original.getContenido());
+        reporteGenerado.setRutaArchivo(original.getRutaArchivo());
+        reporteGenerado.setTamanoBytes(original.getTamanoBytes());
+        reporteGenerado.setEstado(original.getEstado());
+        reporteGenerado.setUsuarioId(usuarioId);
+        if (usuarioId != null) {
+            reporteGenerado.setGeneradoPor(usuarioId);
+        }
+        reporteGenerado.setParametros(aJson(params));
+        reporteGenerado = reporteRepository.save(reporteGenerado);
+        logger.info("♻️ Reporte {} reutilizado para el usuario {} (ID: {}, archivo del ID {})",
+            reporteGenerado.getTipoReporte(), usuarioId, reporteGenerado.getId(), original.getId());
+
+        return new ResultadoReporte(reporteGenerado, enCache.getContenido(), enCache.getExtension(),
+            enCache.getMimeType(), true);
+    }
+
+    private ResultadoReporte renderizar(String tipoReporte, String formato, Map<String, Object> params,
+                                        Integer usuarioId, IntConsumer avance) {
+        // Crear formato (Implementación) y reporte (Abstracción) según tipo
+        IFormatoReporte formatoImpl = crearFormato(formato);
+        Reporte reporte = crearReporte(tipoReporte, formatoImpl);
+
+        // Generar contenido usando Bridge
+        String contenido = reporte.generar();
+        avance.accept(20);
+
+        ReporteGenerado reporteGenerado = new ReporteGenerado();
+        reporteGenerado.setTipoReporte(tipoReporte);
+        reporteGenerado.setFormato(formato);
+        reporteGenerado.setTitulo(obtenerTituloReporte(tipoReporte));
+        reporteGenerado.setEstado("GENERADO");
+        reporteGenerado.setUsuarioId(usuarioId);
+        if (usuarioId != null) {
+            reporteGenerado.setGeneradoPor(usuarioId);
+        }
+
+        // Generar contenido binario para PDF y Excel, texto para HTML
+        byte[] archivo;
+        try {
+            Map<String, Object> datos = obtenerDatosReporte(tipoReporte);
+            avance.accept(40);
+
+            if (esPdf(formato)) {
+                archivo = GeneradorPDF.generarPDF(obtenerTituloReporte(tipoReporte), datos);
+            } else if (esExcel(formato)) {
+                archivo = GeneradorExcel.generarExcel(obtenerTituloReporte(tipoReporte), datos);
+            } else {
+                // HTML - usar el contenido generado por Bridge
+                archivo = contenido.getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            logger.error("❌ Error al generar contenido binario: {}", e.getMessage(), e);
+            archivo = contenido.getBytes(StandardCharsets.UTF_8);
+        }
+        avance.accept(60);
+
+        // El archivo va al almacén; en la tabla solo quedan metadatos y la clave
+        adjuntarArchivo(reporteGenerado, archivo);
+        avance.accept(80);
+
+        reporteGenerado.setParametros(aJson(params));
+
+        // Última oportunidad de cancelar: una vez guardado, el reporte queda disponible
+        avance.accept(90);
+        reporteGenerado = reporteRepository.save(reporteGenerado);
+        logger.info("✅ Reporte guardado en BD con ID: {}", reporteGenerado.getId());
+
+        return new ResultadoReporte(reporteGenerado, contenido, reporte.obtenerExtension(), reporte.obtenerTipoMIME());
+    }
+
+    /**
+     * Exporta un listado completo (ExportacionListadoService) en streaming: las
+     * filas van del cursor de la base de datos al archivo del almacén sin
+     * acumularse en memoria
+     */
+    private ResultadoReporte generarListado(String tipoReporte, String formato, Map<String, Object> params,
+                                            Integer usuarioId, IntConsumer avance) {
+        avance.accept(10);
+        Integer cursoId = params != null && params.get("cursoId") instanceof Number numero ? numero.intValue() : null;
+
+        AlmacenReportesService.ArchivoAlmacenado archivo;
+        try {
+            if (esPdf(formato)) {
+                archivo = almacenReportesService.guardar(salida -> exportacionListadoService.exportarPdf(tipoReporte, cursoId, salida));
+            } else {
+                archivo = almacenReportesService.guardar(salida -> exportacionListadoService.exportarExcel(tipoReporte, cursoId, salida));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo exportar el listado " + tipoReporte, e);
+        }
+        avance.accept(80);
+
+        ReporteGenerado reporteGenerado = new ReporteGenerado();
+        reporteGenerado.setTipoReporte(tipoReporte);
+        reporteGenerado.setFormato(formato);
+        reporteGenerado.setTitulo(obtenerTituloReporte(tipoReporte));
+        reporteGenerado.setEstado("GENERADO");
+        reporteGenerado.setUsuarioId(usuarioId);
+        if (usuarioId != null) {
+            reporteGenerado.setGeneradoPor(usuarioId);
+        }
+        reporteGenerado.setRutaArchivo(archivo.getClave());
+        reporteGenerado.setTamanoBytes(archivo.getTamano());
+        reporteGenerado.setContenido(AlmacenReportesService.resumen(formato, archivo.getTamano()));
+        reporteGenerado.setParametros(aJson(params));
+
+        avance.accept(90);
+        reporteGenerado = reporteRepository.save(reporteGenerado);
+        logger.info("✅ Listado {} guardado en BD con ID: {}", tipoReporte, reporteGenerado.getId());
+
+        if (esPdf(formato)) {
+            return new ResultadoReporte(reporteGenerado, reporteGenerado.getContenido(), ".pdf", "application/pdf");
+        }
+        return new ResultadoReporte(reporteGenerado, reporteGenerado.getContenido(), ".xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    }
+
+    /**
+     * Guarda un reporte de texto ya generado (endpoints /estudiantes, /cursos, /calificaciones)
+     */
+    public ReporteGenerado guardarTexto(String tipoReporte, String formato, String titulo, String contenido) {
+        ReporteGenerado reporteGenerado = new ReporteGenerado();
+        reporteGenerado.setTipoReporte(tipoReporte);
+        reporteGenerado.setFormato(formato);
+        reporteGenerado.setTitulo(titulo);
+        adjuntarArchivo(reporteGenerado, contenido.getBytes(StandardCharsets.UTF_8));
+        return reporteRepository.save(reporteGenerado);
+    }
+
+    /**
+     * Abre el contenido de un reporte para descargarlo
+     */
+    public InputStream abrirContenido(ReporteGenerado reporte) throws IOException {
+        if (reporte.getRutaArchivo() != null && almacenReportesService.existe(reporte.getRutaArchivo())) {
+            return almacenReportesService.abrir(reporte.getRutaArchivo());
+        }
+        // Reporte antiguo aún no migrado: solo queda el texto de la columna contenido
+        String contenido = reporte.getContenido() != null ? reporte.getContenido() : "Contenido no disponible";
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String obtenerTituloReporte(String tipo) {
+        switch (tipo.toUpperCase()) {
+            case "ESTUDIANTES": return "Reporte de Estudiantes";
+            case "CURSOS": return "Reporte de Cursos";
+            case "CALIFICACIONES": return "Reporte de Calificaciones";
+            case ExportacionListadoService.INSCRIPCIONES:
+            case ExportacionListadoService.CALIFICACIONES_DETALLE:
+                return exportacionListadoService.titulo(tipo);
+            default: return "Reporte General";
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static boolean esExcel(String formato) {
+        return formato.equalsIgnoreCase("EXCEL") || formato.equalsIgnoreCase("XLS");
+    }
+
+    private static boolean esPdf(String formato) {
+        return formato.equalsIgnoreCase("PDF");
+    }
+
+    private String aJson(Map<String, Object> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (Exception e) {
+            logger.error("❌ Error al convertir parámetros a JSON: {}", e.getMessage());
+            return "{}";
+        }
+    }
+
+    private void adjuntarArchivo(ReporteGenerado reporteGenerado, byte[] archivo) {
+        try {
+            reporteGenerado.setRutaArchivo(almacenReportesService.guardar(archivo));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el archivo del reporte", e);
+        }
+        reporteGenerado.setTamanoBytes((long) archivo.length);
+        reporteGenerado.setContenido(AlmacenReportesService.resumen(reporteGenerado.getFormato(), archivo.length));
+    }
+
+    public IFormatoReporte crearFormato(String formato) {
+        switch (formato.toUpperCase()) {
+            case "PDF":
+                return new FormatoPDF();
+            case "EXCEL":
+            case "XLS":
+                return new FormatoExcel();
+            case "HTML":
+                return new FormatoHTML();
+            default:
+                return new FormatoPDF();
+        }
+    }
+
+    /**
+     * Crea la abstracción del Bridge con los datos actuales (EstadisticasAcademicasService)
+     */
+    public Reporte crearReporte(String tipo, IFormatoReporte formato) {
+        switch (tipo.toUpperCase()) {
+            case "ESTUDIANTES":
+                ReporteEstudiantes repEst = new ReporteEstudiantes(formato);
+                repEst.setDatosEstudiantes((int) estadisticas.totalEstudiantes(), (int) estadisticas.estudiantesActivos(),
+                        (int) estudiantesInactivos(), estadisticas.calificaciones(null).getPromedio());
+                return repEst;
+
+            case "CURSOS":
+                ReporteCursos repCur = new ReporteCursos(formato);
+                repCur.setDatosCursos((int) estadisticas.totalCursos(), (int) estadisticas.cursosEnEstado(CURSO_ACTIVO),
+                        (int) estadisticas.cursosEnEstado(CURSOS_BORRADOR), (int) estadisticas.totalInscripciones());
+                return repCur;
+
+            case "CALIFICACIONES":
+                EstadisticasAcademicasService.ResumenCalificaciones cal = estadisticas.calificaciones(null);
+                ReporteCalificaciones repCal = new ReporteCalificaciones(formato);
+                repCal.setDatosCalificaciones((int) cal.getTotal(), cal.getPromedio(), (int) cal.getAprobados(),
+                        (int) cal.getReprobados(), cal.getMaxima(), cal.getMinima());
+                return repCal;
+
+            default:
+                ReporteEstudiantes repDefault = new ReporteEstudiantes(formato);
+                repDefault.setDatosEstudiantes(0, 0, 0, 0);
+                return repDefault;
+        }
+    }
+
+    private Map<String, Object> obtenerDatosReporte(String tipo) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+
+        switch (tipo.toUpperCase()) {
+            case "ESTUDIANTES":
+                long estudiantes = estadisticas.totalEstudiantes();
+                long activos = estadisticas.estudiantesActivos();
+                datos.put("Total de Estudiantes", estudiantes);
+                datos.put("Estudiantes Activos", activos);
+                datos.put("Estudiantes Inactivos", estudiantesInactivos());
+                datos.put("Promedio de Calificaciones", String.format("%.1f%%", estadisticas.calificaciones(null).getPromedio()));
+                datos.put("Tasa de Actividad", String.format("%.1f%%", estudiantes > 0 ? activos * 100.0 / estudiantes : 0));
+                break;
+
+            case "CURSOS":
+                long cursosActivos = estadisticas.cursosEnEstado(CURSO_ACTIVO);
+                long inscripciones = estadisticas.totalInscripciones();
+                datos.put("Total de Cursos", estadisticas.totalCursos());
+                datos.put("Cursos Activos", cursosActivos);
+                datos.put("Cursos en Borrador", estadisticas.cursosEnEstado(CURSOS_BORRADOR));
+                datos.put("Cursos Finalizados", estadisticas.cursosEnEstado(CURSOS_FINALIZADOS));
+                datos.put("Total de Inscripciones", inscripciones);
+                datos.put("Promedio de Alumnos por Curso",
+                        cursosActivos > 0 ? String.format("%.1f", inscripciones * 1.0 / cursosActivos) : "0");
+                break;
+
+            case "CALIFICACIONES":
+                EstadisticasAcademicasService.ResumenCalificaciones cal = estadisticas.calificaciones(null);
+                datos.put("Total de Calificaciones Registradas", cal.getTotal());
+                datos.put("Promedio General", String.format("%.1f%%", cal.getPromedio()));
+                datos.put("Calificaciones Aprobatorias", cal.getAprobados());
+                datos.put("Calificaciones Reprobatorias", cal.getReprobados());
+                datos.put("Calificación Más Alta", String.format("%.1f%%", cal.getMaxima()));
+                datos.put("Calificación Más Baja", String.format("%.1f%%", cal.getMinima()));
+                datos.put("Tasa de Aprobación", String.format("%.1f%%", cal.getTasaAprobacion()));
+                break;
+
+            default:
+                datos.put("Sin Datos", "No disponible");
+                break;
+        }
+
+        return datos;
+    }
+
+    private long estudiantesInactivos() {
+        return Math.max(0, estadisticas.totalEstudiantes() - estadisticas.estudiantesActivos());
+    }
+
+    /**
+     * Reporte guardado junto con el contenido generado por el Bridge
+     */
+    public static class ResultadoReporte {
+        private final ReporteGenerado reporte;
+        private final String contenido;
+        private final String extension;
+        private final String mimeType;
+        private final boolean desdeCache;
+
+        public ResultadoReporte(ReporteGenerado reporte, String contenido, String extension, String mimeType) {
+            this(reporte, contenido, extension, mimeType, false);
+        }
+
+        public ResultadoReporte(ReporteGenerado reporte, String contenido, String extension, String mimeType,
+                                boolean desdeCache) {
+            this.reporte = reporte;
+            this.contenido = contenido;
+            this.extension = extension;
+            this.mimeType = mimeType;
+            this.desdeCache = desdeCache;
+        }
+
+        public ReporteGenerado getReporte() {
+            return reporte;
+        }
+
+        public String getContenido() {
+            return contenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public boolean isDesdeCache() {
+            return desdeCache;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.edulearn.service;
+
+import com.edulearn.model.ReporteGenerado;
+import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Motor de trabajos de reportes en segundo plano
+ *
+ * POST /api/reportes/trabajos registra el trabajo y responde de inmediato con
+ * su id; la generación (PDFBox/POI) corre en un hilo virtual y no ocupa un
+ * hilo de Tomcat. El número de reportes renderizándose a la vez está acotado
+ * por un semáforo (los trabajos en exceso esperan EN_COLA) y cada usuario
+ * solo puede tener un número limitado de trabajos pendientes.
+ *
+ * El estado y el avance se consultan por id; un trabajo pendiente o en curso
+ * puede cancelarse. Al terminar (bien o mal) se notifica al usuario por el
+ * NotificationOrchestrator. Los trabajos terminados se conservan en memoria
+ * durante edulearn.reportes.trabajos.retencion-minutos.
+ */
+@Service
+public class ReporteTrabajoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReporteTrabajoService.class);
+
+    public static final String EN_COLA = "EN_COLA";
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADO = "COMPLETADO";
+    public static final String ERROR = "ERROR";
+    public static final String CANCELADO = "CANCELADO";
+
+    @Value("${edulearn.reportes.trabajos.max-concurrentes:4}")
+    private int maxConcurrentes;
+
+    @Value("${edulearn.reportes.trabajos.max-por-usuario:3}")
+    private int maxPorUsuario;
+
+    @Value("${edulearn.reportes.trabajos.max-pendientes:200}")
+    private int maxPendientes;
+
+    @Value("${edulearn.reportes.trabajos.retencion-minutos:60}")
+    private long retencionMinutos;
+
+    @Autowired
+    private ReporteService reporteService;
+
+    @Autowired
+    private NotificationOrchestrator notificationOrchestrator;
+
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+
+    private final AtomicLong completados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong cancelados = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    private ExecutorService ejecutor;
+    private Semaphore permisos;
+
+    @PostConstruct
+    public void iniciar() {
+        ejecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("reporte-trabajo-", 0).factory());
+        permisos = new Semaphore(maxConcurrentes, true);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        ejecutor.shutdownNow();
+        ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Registra un trabajo de generación y lo pone en cola
+     *
+     * @throws IllegalStateException si el usuario o el sistema alcanzaron su límite de trabajos
+     */
+    public Trabajo enviar(String tipoReporte, String formato, Map<String, Object> params, Integer usuarioId) {
+        purgarTerminados();
+
+        Trabajo trabajo = new Trabajo(UUID.randomUUID().toString(), tipoReporte, formato, usuarioId);
+        // Los límites se comprueban y el trabajo se registra de forma atómica
+        synchronized (trabajos) {
+            long pendientes = trabajos.values().stream().filter(t -> !t.isTerminado()).count();
+            if (pendientes >= maxPendientes) {
+                rechazados.incrementAndGet();
+                throw new IllegalStateException("Demasiados reportes en cola, inténtelo más tarde");
+            }
+            long delUsuario = trabajos.values().stream()
+                    .filter(t -> !t.isTerminado() && Objects.equals(t.usuarioId, usuarioId))
+                    .count();
+            if (delUsuario >= maxPorUsuario) {
+                rechazados.incrementAndGet();
+                throw new IllegalStateException("Ya tiene " + delUsuario + " reportes en curso (máximo " + maxPorUsuario + ")");
+            }
+            trabajos.put(trabajo.id, trabajo);
+        }
+
+        Map<String, Object> copiaParams = params != null ? new HashMap<>(params) : new HashMap<>();
+        trabajo.futuro = ejecutor.submit(() -> ejecutar(trabajo, copiaParams));
+
+        logger.info("📥 Trabajo de reporte {} en cola: {} / {} (usuario {})", trabajo.id, tipoReporte, formato, usuarioId);
+        return trabajo;
+    }
+
+    public Trabajo obtener(String trabajoId) {
+        Trabajo trabajo = trabajos.get(trabajoId);
+        if (trabajo == null) {
+            throw new IllegalArgumentException("Trabajo no encontrado: " + trabajoId);
+        }
+        return trabajo;
+    }
+
+    /**
+     * Trabajos de un usuario, del más reciente al más antiguo
+     */
+    public List<Trabajo> listarPorUsuario(Integer usuarioId) {
+        return trabajos.values().stream()
+                .filter(t -> Objects.equals(t.usuarioId, usuarioId))
+                .sorted(Comparator.comparing((Trabajo t) -> t.creado).reversed())
+                .toList();
+    }
+
+    /**
+     * Cancela un trabajo pendiente o en curso
+     *
+     * @return false si el trabajo ya había terminado
+     */
+    public boolean cancelar(String trabajoId) {
+        Trabajo trabajo = obtener(trabajoId);
+        synchronized (trabajo) {
+            if (trabajo.isTerminado()) {
+                return false;
+            }
+            trabajo.cancelacionSolicitada = true;
+        }
+        // Interrumpe la espera del permiso o la generación en curso
+        if (trabajo.futuro != null) {
+            trabajo.futuro.cancel(true);
+        }
+        finalizar(trabajo, CANCELADO, null);
+        logger.info("🛑 Trabajo de reporte {} cancelado", trabajoId);
+        return true;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Long> porEstado = new LinkedHashMap<>();
+        for (Trabajo trabajo : trabajos.values()) {
+            porEstado.merge(trabajo.getEstado(), 1L, Long::sum);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentes", maxConcurrentes);
+        stats.put("maxPorUsuario", maxPorUsuario);
+        stats.put("renderizando", maxConcurrentes - permisos.availablePermits());
+        stats.put("esperandoTurno", permisos.getQueueLength());
+        stats.put("porEstado", porEstado);
+        stats.put("completados", completados.get());
+        stats.put("fallidos", fallidos.get());
+        stats.put("cancelados", cancelados.get());
+        stats.put("rechazados", rechazados.get());
+        return stats;
+    }
+
+    // ========== Internos ==========
+
+    private void ejecutar(Trabajo trabajo, Map<String, Object> params) {
+        try {
+            permisos.acquire();
+        } catch (InterruptedException e) {
+            // Cancelado mientras esperaba turno
+            return;
+        }
+        try {
+            synchronized (trabajo) {
+                if (trabajo.isTerminado()) {
+                    return;
+                }
+                trabajo.estado = EN_PROCESO;
+                trabajo.iniciado = Instant.now();
+            }
+
+            ReporteService.ResultadoReporte resultado = reporteService.generar(
+                    trabajo.tipoReporte, trabajo.formato, params, trabajo.usuarioId,
+                    porcentaje -> avanzar(trabajo, porcentaje));
+
+            trabajo.reporteId = resultado.getReporte().getId();
+            trabajo.desdeCache = resultado.isDesdeCache();
+            if (finalizar(trabajo, COMPLETADO, null)) {
+                notificar(trabajo, resultado.getReporte());
+            }
+        } catch (CancellationException e) {
+            finalizar(trabajo, CANCELADO, null);
+        } catch (Exception e) {
+            logger.error("❌ Error en trabajo de reporte {}: {}", trabajo.id, e.getMessage(), e);
+            if (finalizar(trabajo, ERROR, e.getMessage())) {
+                notificar(trabajo, null);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Registra el avance; es también el punto en que se detecta la cancelación
+     */
+    private void avanzar(Trabajo trabajo, int porcentaje) {
+        if (trabajo.cancelacionSolicitada || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Trabajo cancelado: " + trabajo.id);
+        }
+        trabajo.progreso = porcentaje;
+    }
+
+    /**
+     * Pasa el trabajo a un estado final una sola vez
+     *
+     * @return true si este llamado fue el que lo finalizó
+     */
+    private boolean finalizar(Trabajo trabajo, String estado, String error) {
+        synchronized (trabajo) {
+            if (trabajo.isTerminado()) {
+                return false;
+            }
+            trabajo.estado = estado;
+            trabajo.error = error;
+            trabajo.finalizado = Instant.now();
+            if (COMPLETADO.equals(estado)) {
+                trabajo.progreso = 100;
+            }
+        }
+        switch (estado) {
+            case COMPLETADO -> completados.incrementAndGet();
+            case CANCELADO -> cancelados.incrementAndGet();
+            default -> fallidos.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void notificar(Trabajo trabajo, ReporteGenerado reporte) {
+        if (trabajo.usuarioId == null) {
+            return;
+        }
+        try {
+            String titulo = reporte != null ? reporte.getTitulo() : reporteService.obtenerTituloReporte(trabajo.tipoReporte);
+            notificationOrchestrator.notifyReportFinished(trabajo.usuarioId, trabajo.id, trabajo.reporteId,
+                    titulo, trabajo.formato, trabajo.error);
+        } catch (Exception e) {
+            logger.warn("No se pudo notificar el trabajo de reporte {}: {}", trabajo.id, e.getMessage());
+        }
+    }
+
+    private void purgarTerminados() {
+        Instant limite = Instant.now().minus(Duration.ofMinutes(retencionMinutos));
+        trabajos.values().removeIf(t -> t.isTerminado() && t.finalizado.isBefore(limite));
+    }
+
+    /**
+     * Estado de un trabajo de generación de reporte
+     */
+    public static class Trabajo {
+        private final String id;
+        private final String tipoReporte;
+        private final String formato;
+        private final Integer usuarioId;
+        private final Instant creado = Instant.now();
+        private volatile String estado = EN_COLA;
+        private volatile int progreso;
+        private volatile boolean cancelacionSolicitada;
+        private volatile Instant iniciado;
+        private volatile Instant finalizado;
+        private volatile Integer reporteId;
+        private volatile boolean desdeCache;
+        private volatile String error;
+        private volatile Future<?> futuro;
+
+        Trabajo(String id, String tipoReporte, String formato, Integer usuarioId) {
+            this.id = id;
+            this.tipoReporte = tipoReporte;
+            this.formato = formato;
+            this.usuarioId = usuarioId;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getEstado() {
+            return estado;
+        }
+
+        public Integer getUsuarioId() {
+            return usuarioId;
+        }
+
+        public Integer getReporteId() {
+            return reporteId;
+        }
+
+        public boolean isTerminado() {
+            String actual = estado;
+            return COMPLETADO.equals(actual) || ERROR.equals(actual) || CANCELADO.equals(actual);
+        }
+
+        public Map<String, Object> aMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("trabajoId", id);
+            mapa.put("tipoReporte", tipoReporte);
+            mapa.put("formato", formato);
+            mapa.put("usuarioId", usuarioId);
+            mapa.put("estado", estado);
+            mapa.put("progreso", progreso);
+            mapa.put("creado", creado.toString());
+            mapa.put("iniciado", iniciado != null ? iniciado.toString() : null);
+            mapa.put("finalizado", finalizado != null ? finalizado.toString() : null);
+            mapa.put("reporteId", reporteId);
+            mapa.put("desdeCache", desdeCache);
+            mapa.put("error", error);
+            return mapa;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.edulearn.service;
+
+import com.edulearn.util.RutasArchivo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio de subidas fragmentadas y reanudables
+ *
+ * Protocolo: iniciar -> enviar fragmentos por offset -> completar.
+ * Cada fragmento se escribe directamente en el archivo parcial de destino
+ * (uploads/.parciales) con un FileChannel en su posición, sin pasar por el
+ * archivo temporal de multipart, y se va calculando el SHA-256 a medida que
+ * se escribe. Al completar, el archivo parcial se mueve (no se copia) al
+ * almacén por contenido usando ese hash, sin volver a leerlo.
+ *
+ * Si la conexión se corta, el cliente consulta el último offset confirmado
+ * y continúa desde ahí. Un fragmento interrumpido se descarta entero: el
+ * archivo se trunca al offset confirmado y el hash vuelve a su estado previo.
+ *
+ * Concurrencia: cada subida admite un solo escritor (fragmento o completar)
+ * a la vez. Un segundo escritor no espera: se rechaza con IllegalStateException
+ * (409), ya que el primero puede estar bloqueado leyendo de una conexión
+ * lenta o medio cerrada. El offset confirmado y el estado completado son
+ * volátiles, así que consultar el estado para reanudar nunca se bloquea.
+ *
+ * Las sesiones viven en memoria; tras un reinicio la subida debe empezar de nuevo.
+ */
+@Service
+public class SubidaFragmentadaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubidaFragmentadaService.class);
+
+    private static final String PARCIALES_DIR = ".parciales";
+    private static final int BUFFER_ESCRITURA = 64 * 1024;
+
+    @Value("${edulearn.subidas.tamano-fragmento:8388608}")
+    private int tamanoFragmento;
+
+    @Value("${edulearn.subidas.tamano-maximo:524288000}")
+    private long tamanoMaximo;
+
+    @Value("${edulearn.subidas.expiracion-horas:24}")
+    private long expiracionHoras;
+
+    @Autowired
+    private AlmacenBlobService almacenBlobService;
+
+    private final Map<String, Subida> subidas = new ConcurrentHashMap<>();
+
+    /**
+     * Registra una nueva subida y reserva su archivo parcial
+     */
+    public Subida iniciar(String nombreOriginal, long tamanoTotal, Long materialId, String tipoMaterial) throws IOException {
+        if (tamanoTotal <= 0) {
+            throw new IllegalArgumentException("El tamaño del archivo debe ser mayor que cero");
+        }
+        if (tamanoTotal > tamanoMaximo) {
+            throw new IllegalArgumentException("El archivo excede el tamaño máximo permitido (" + (tamanoMaximo / (1024 * 1024)) + "MB)");
+        }
+        purgarExpiradas();
+
+        Path parciales = Paths.get(RutasArchivo.UPLOAD_DIR, PARCIALES_DIR);
+        Files.createDirectories(parciales);
+
+        String uploadId = UUID.randomUUID().toString();
+        Path parcial = parciales.resolve(uploadId + ".part");
+        Files.createFile(parcial);
+
+        Subida subida = new Subida(uploadId, nombreOriginal, tamanoTotal, materialId, tipoMaterial, parcial, nuevoDigest());
+        subidas.put(uploadId, subida);
+
+        logger.info("📤 Subida fragmentada iniciada: {} ({} bytes) -> {}", nombreOriginal, tamanoTotal, uploadId);
+        return subida;
+    }
+
+    public Subida obtener(String uploadId) {
+        Subida subida = subidas.get(uploadId);
+        if (subida == null) {
+            throw new IllegalArgumentException("Subida no encontrada: " + uploadId);
+        }
+        return subida;
+    }
+
+    /**
+     * Escribe un fragmento en su offset. Solo se acepta el offset confirmado
+     * actual (los fragmentos van en orden para poder calcular el hash en streaming).
+     *
+     * @return nuevo offset confirmado
+     * @throws IllegalStateException si el offset no coincide con el confirmado
+     *         o si otro fragmento de la misma subida se está escribiendo
+     */
+    public long escribirFragmento(String uploadId, long offset, InputStream datos) throws IOException {
+        Subida subida = obtener(uploadId);
+        bloquearEscritura(subida);
+        try {
+            if (subida.completada) {
+                throw new IllegalStateException("La subida ya fue completada");
+            }
+            if (offset != subida.offsetConfirmado) {
+                throw new IllegalStateException("Offset esperado: " + subida.offsetConfirmado);
+            }
+
+            MessageDigest respaldo = clonar(subida.digest);
+            long maximo = Math.min((long) tamanoFragmento, subida.tamanoTotal - offset);
+            long escritos = 0;
+
+            try (FileChannel canal = FileChannel.open(subida.parcial, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_ESCRITURA];
+                int leidos;
+                while ((leidos = datos.read(buffer)) != -1) {
+                    if (escritos + leidos > maximo) {
+                        throw new IllegalArgumentException("El fragmento excede el tamaño permitido (" + maximo + " bytes)");
+                    }
+                    subida.digest.update(buffer, 0, leidos);
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, leidos);
+                    while (bb.hasRemaining()) {
+                        escritos += canal.write(bb, offset + escritos);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Fragmento incompleto: se descarta para poder reanudar desde el offset confirmado
+                subida.digest = respaldo;
+                try (FileChannel canal = FileChannel.open(subida.parcial, StandardOpenOption.WRITE)) {
+                    canal.truncate(subida.offsetConfirmado);
+                }
+                throw e;
+            }
+
+            subida.ultimaActividad = Instant.now();
+            subida.offsetConfirmado = offset + escritos;
+            return subida.offsetConfirmado;
+        } finally {
+            subida.escritura.unlock();
+        }
+    }
+
+    /**
+     * Verifica tamaño y hash, y mueve el archivo parcial al almacén por contenido
+     *
+     * @param sha256Esperado Hash calculado por el cliente (opcional)
+     * @return subida completada, con nombreFinal y sha256
+     */
+    public Subida completar(String uploadId, String sha256Esperado) throws IOException {
+        Subida subida = obtener(uploadId);
+        if (subida.completada) {
+            return subida;
+        }
+        bloquearEscritura(subida);
+        try {
+            if (subida.completada) {
+                return subida;
+            }
+            if (subida.offsetConfirmado != subida.tamanoTotal) {
+                throw new IllegalStateException("Faltan bytes: recibidos " + subida.offsetConfirmado +
+                        " de " + subida.tamanoTotal);
+            }
+            // Se finaliza una copia para que un fallo al mover permita reintentar
+            String sha256 = HexFormat.of().formatHex(clonar(subida.digest).digest());
+            if (sha256Esperado != null && !sha256Esperado.isBlank() && !sha256Esperado.equalsIgnoreCase(sha256)) {
+                cancelar(uploadId);
+                throw new IllegalArgumentException("El hash SHA-256 no coincide; la subida se descartó");
+            }
+
+            // El hash ya está calculado: el archivo parcial se mueve al almacén por contenido
+            String nombreFinal = almacenBlobService.almacenarConHash(subida.parcial, sha256, extension(subida.nombreOriginal));
+
+            subida.sha256 = sha256;
+            subida.nombreFinal = nombreFinal;
+            subida.completada = true;
+            // La sesión se conserva (hasta expirar) para que un reintento de "completar" sea idempotente
+
+            logger.info("✅ Subida fragmentada completada: {} -> {} (sha256 {})", subida.nombreOriginal, nombreFinal, sha256);
+            return subida;
+        } finally {
+            subida.escritura.unlock();
+        }
+    }
+
+    /**
+     * Descarta una subida y su archivo parcial
+     *
+     * No espera a un fragmento en curso: la sesión deja de existir y lo que ese
+     * escritor termine de grabar se pierde con el archivo.
+     */
+    public void cancelar(String uploadId) throws IOException {
+        Subida subida = subidas.remove(uploadId);
+        if (subida != null) {
+            Files.deleteIfExists(subida.parcial);
+            logger.info("🗑️ Subida fragmentada cancelada: {}", uploadId);
+        }
+    }
+
+    public int getTamanoFragmento() {
+        return tamanoFragmento;
+    }
+
+    public static String extension(String nombre) {
+        return nombre != null && nombre.contains(".") ? nombre.substring(nombre.lastIndexOf(".")) : "";
+    }
+
+    // ========== Internos ==========
+
+    /**
+     * Toma el turno de escritura de la subida sin esperar
+     *
+     * @throws IllegalStateException si otra petición está escribiendo en ella
+     */
+    private static void bloquearEscritura(Subida subida) {
+        if (!subida.escritura.tryLock()) {
+            throw new IllegalStateException("Otro fragmento de esta subida se está escribiendo; reintentar más tarde");
+        }
+    }
+
+    /**
+     * Elimina las subidas sin actividad durante más de expiracionHoras
+     */
+    private void purgarExpiradas() {
+        Instant limite = Instant.now().minus(Duration.ofHours(expiracionHoras));
+        subidas.values().stream()
+                .filter(s -> s.ultimaActividad.isBefore(limite))
+                .map(s -> s.uploadId)
+                .toList()
+                .forEach(id -> {
+                    try {
+                        cancelar(id);
+                    } catch (IOException e) {
+                        logger.warn("No se pudo eliminar la subida expirada {}: {}", id, e.getMessage());
+                    }
+                });
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static MessageDigest clonar(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El digest SHA-256 no admite clonado", e);
+        }
+    }
+
+    /**
+     * Estado de una subida en curso
+     */
+    public static class Subida {
+        private final String uploadId;
+        private final String nombreOriginal;
+        private final long tamanoTotal;
+        private final Long materialId;
+        private final String tipoMaterial;
+        private final Path parcial;
+        // Solo un escritor a la vez; protege el digest y el archivo parcial
+        private final ReentrantLock escritura = new ReentrantLock();
+        private MessageDigest digest;
+        private volatile long offsetConfirmado;
+        private volatile Instant ultimaActividad = Instant.now();
+        private volatile boolean completada;
+        // Se asignan antes de marcar completada
+        private String sha256;
+        private String nombreFinal;
+
+        Subida(String uploadId, String nombreOriginal, long tamanoTotal, Long materialId,
+               String tipoMaterial, Path parcial, MessageDigest digest) {
+            this.uploadId = uploadId;
+            this.nombreOriginal = nombreOriginal;
+            this.tamanoTotal = tamanoTotal;
+            this.materialId = materialId;
+            this.tipoMaterial = tipoMaterial;
+            this.parcial = parcial;
+            this.digest = digest;
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public String getNombreOriginal() {
+            return nombreOriginal;
+        }
+
+        public long getTamanoTotal() {
+            return tamanoTotal;
+        }
+
+        public Long getMaterialId() {
+            return materialId;
+        }
+
+        public String getTipoMaterial() {
+            return tipoMaterial;
+        }
+
+        public long getOffsetConfirmado() {
+            return offsetConfirmado;
+        }
+
+        public boolean isCompletada() {
+            return completada;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public String getNombreFinal() {
+            return nombreFinal;
+        }
+
+        public Map<String, Object> aMapa() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("uploadId", uploadId);
+            mapa.put("originalFilename", nombreOriginal);
+            mapa.put("tamanoTotal", tamanoTotal);
+            mapa.put("offset", getOffsetConfirmado());
+            mapa.put("completada", isCompletada());
+            return mapa;
+        }
+    }
+}
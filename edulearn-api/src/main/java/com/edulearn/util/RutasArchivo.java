@@ -0,0 +1,48 @@
+package com.edulearn.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+/**
+ * Resolución de nombres de archivo de materiales a rutas en disco
+ *
+ * Los archivos nuevos se guardan por contenido: su nombre es el SHA-256 del
+ * contenido más la extensión, y viven en uploads/blobs/ab/cd/ (los dos primeros
+ * pares de caracteres del hash) para no acumular miles de entradas por directorio.
+ * Los archivos antiguos (nombre UUID) siguen directamente en uploads/.
+ */
+public final class RutasArchivo {
+
+    public static final String UPLOAD_DIR = "uploads";
+    public static final String BLOBS_DIR = "blobs";
+
+    private static final Pattern NOMBRE_BLOB = Pattern.compile("^[0-9a-f]{64}(\\.[A-Za-z0-9]{1,10})?$");
+
+    private RutasArchivo() {
+    }
+
+    /**
+     * @return true si el nombre corresponde a un blob direccionado por contenido
+     */
+    public static boolean esBlob(String nombre) {
+        return nombre != null && NOMBRE_BLOB.matcher(nombre).matches();
+    }
+
+    /**
+     * Ruta en disco del archivo con ese nombre (blob con fan-out o archivo antiguo en uploads/)
+     */
+    public static Path resolver(String nombre) {
+        if (esBlob(nombre)) {
+            return Paths.get(UPLOAD_DIR, BLOBS_DIR, nombre.substring(0, 2), nombre.substring(2, 4), nombre);
+        }
+        return Paths.get(UPLOAD_DIR, nombre);
+    }
+
+    /**
+     * Hash SHA-256 contenido en el nombre de un blob
+     */
+    public static String hashDe(String nombre) {
+        return nombre.substring(0, 64);
+    }
+}
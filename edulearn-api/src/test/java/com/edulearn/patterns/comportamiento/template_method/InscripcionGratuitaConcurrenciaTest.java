@@ -0,0 +1,199 @@
+package com.edulearn.patterns.comportamiento.template_method;
+
+import com.edulearn.model.Curso;
+import com.edulearn.model.Estudiante;
+import com.edulearn.model.Usuario;
+import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoInscripcion;
+import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoPaso;
+import com.edulearn.patterns.comportamiento.template_method.dto.SolicitudInscripcion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una sola instancia de InscripcionGratuita (como el bean singleton)
+ * atendiendo inscripciones desde muchos hilos a la vez: cada resultado debe
+ * tener sus propios pasos, y un benchmark de inscripciones por segundo
+ * (solo con mvn test -Pbenchmark)
+ */
+class InscripcionGratuitaConcurrenciaTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InscripcionGratuitaConcurrenciaTest.class);
+
+    private static final int PASOS = 8;
+
+    private final InscripcionGratuita proceso = new InscripcionGratuita();
+    private final MetricasPasosInscripcion metricas = new MetricasPasosInscripcion();
+
+    @BeforeEach
+    void conectarMetricas() {
+        // Fuera de Spring: se conectan a mano los histogramas que el proceso registra
+        ReflectionTestUtils.setField(metricas, "habilitadas", true);
+        ReflectionTestUtils.setField(proceso, "metricasPasos", metricas);
+    }
+
+    @Test
+    void ejecucionesConcurrentesNoMezclanPasos() throws Exception {
+        int hilos = 16;
+        int porHilo = 500;
+
+        List<List<ResultadoInscripcion>> porTrabajador = ejecutarEnParalelo(hilos, porHilo, true);
+
+        for (int h = 0; h < hilos; h++) {
+            List<ResultadoInscripcion> resultados = porTrabajador.get(h);
+            assertThat(resultados).hasSize(porHilo);
+            for (int i = 0; i < porHilo; i++) {
+                verificarAislado(resultados.get(i), estudianteId(h, i), cursoId(i));
+            }
+        }
+
+        assertThat(muestrasProcesoCompleto()).isEqualTo((long) hilos * porHilo);
+    }
+
+    /**
+     * Benchmark: inscripciones por segundo con un hilo y con varios hilos
+     * sobre la misma instancia del proceso
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkInscripcionesPorSegundo() throws Exception {
+        int porHilo = 20_000;
+        int hilos = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        // Calentamiento
+        ejecutarEnParalelo(hilos, 2_000, false);
+        metricas.reiniciar();
+
+        long inicio = System.nanoTime();
+        ejecutarEnParalelo(1, porHilo, false);
+        double unHilo = porHilo / ((System.nanoTime() - inicio) / 1e9);
+
+        inicio = System.nanoTime();
+        ejecutarEnParalelo(hilos, porHilo, false);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        double variosHilos = (long) hilos * porHilo / segundos;
+
+        logger.info(String.format("Inscripciones GRATUITA: 1 hilo -> %.0f inscripciones/s; %d hilos -> %.0f inscripciones/s (x%.1f)",
+            unHilo, hilos, variosHilos, variosHilos / unHilo));
+
+        assertThat(muestrasProcesoCompleto()).isEqualTo(porHilo + (long) hilos * porHilo);
+    }
+
+    // ========== Auxiliares ==========
+
+    /**
+     * Lanza los hilos a la vez (misma barrera de salida); cada uno inscribe a
+     * sus propios estudiantes y devuelve los resultados si se piden
+     */
+    private List<List<ResultadoInscripcion>> ejecutarEnParalelo(int hilos, int porHilo, boolean guardar) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<List<ResultadoInscripcion>>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                tareas.add(ejecutor.submit(() -> {
+                    List<ResultadoInscripcion> resultados = new ArrayList<>(guardar ? porHilo : 0);
+                    salida.await();
+                    for (int i = 0; i < porHilo; i++) {
+                        ResultadoInscripcion resultado = inscribir(estudianteId(hilo, i), cursoId(i));
+                        assertThat(resultado.isExitoso()).isTrue();
+                        if (guardar) {
+                            resultados.add(resultado);
+                        }
+                    }
+                    return resultados;
+                }));
+            }
+            salida.countDown();
+
+            List<List<ResultadoInscripcion>> todos = new ArrayList<>();
+            for (Future<List<ResultadoInscripcion>> tarea : tareas) {
+                todos.add(tarea.get(60, TimeUnit.SECONDS));
+            }
+            return todos;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private ResultadoInscripcion inscribir(int estudianteId, int cursoId) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(correo(estudianteId));
+        Estudiante estudiante = new Estudiante();
+        estudiante.setUsuario(usuario);
+        estudiante.setId(estudianteId);
+
+        Curso curso = new Curso();
+        curso.setId(cursoId);
+        curso.setEstado("activo");
+
+        SolicitudInscripcion solicitud = new SolicitudInscripcion();
+        solicitud.setEstudianteId(estudianteId);
+        solicitud.setCursoId(cursoId);
+        solicitud.setTipoInscripcion("GRATUITA");
+        solicitud.setAceptaTerminos(true);
+        solicitud.setIncluirTiempos(true);
+
+        return proceso.procesarInscripcion(estudiante, curso, solicitud);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verificarAislado(ResultadoInscripcion resultado, int estudianteId, int cursoId) {
+        assertThat(resultado.isExitoso()).isTrue();
+        assertThat(resultado.getEstudianteId()).isEqualTo(estudianteId);
+        assertThat(resultado.getCursoId()).isEqualTo(cursoId);
+
+        List<ResultadoPaso> pasos = resultado.getPasos();
+        assertThat(pasos).hasSize(PASOS);
+        for (int i = 0; i < PASOS; i++) {
+            assertThat(pasos.get(i).getOrden()).isEqualTo(i + 1);
+        }
+
+        // Los pasos que llevan datos del estudiante son los de esta ejecución
+        Map<String, String> registro = pasos.get(5).getDetalles();
+        assertThat(registro).containsEntry("estudianteId", String.valueOf(estudianteId))
+            .containsEntry("cursoId", String.valueOf(cursoId));
+        assertThat(pasos.get(6).getDetalles()).containsEntry("email", correo(estudianteId));
+
+        Map<String, Double> tiempos = (Map<String, Double>) resultado.getDetalles().get("tiemposPasosMs");
+        assertThat(tiempos).hasSize(PASOS + 1).containsKey(MetricasPasosInscripcion.PROCESO_COMPLETO);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long muestrasProcesoCompleto() {
+        Map<String, List<Map<String, Object>>> modalidades =
+            (Map<String, List<Map<String, Object>>>) metricas.obtenerMetricas().get("modalidades");
+        return modalidades.get("GRATUITA").stream()
+            .filter(m -> MetricasPasosInscripcion.PROCESO_COMPLETO.equals(m.get("paso")))
+            .mapToLong(m -> (Long) m.get("muestras"))
+            .findFirst()
+            .orElse(0);
+    }
+
+    private static int estudianteId(int hilo, int indice) {
+        return hilo * 1_000_000 + indice + 1;
+    }
+
+    private static int cursoId(int indice) {
+        return indice % 50 + 1;
+    }
+
+    private static String correo(int estudianteId) {
+        return "estudiante" + estudianteId + "@edulearn.test";
+    }
+}
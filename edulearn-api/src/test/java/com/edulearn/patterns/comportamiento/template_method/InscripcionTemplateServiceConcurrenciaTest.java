@@ -0,0 +1,264 @@
+package com.edulearn.patterns.comportamiento.template_method;
+
+import com.edulearn.model.CupoCurso;
+import com.edulearn.model.Curso;
+import com.edulearn.model.Estudiante;
+import com.edulearn.model.Inscripcion;
+import com.edulearn.model.ReservaCupo;
+import com.edulearn.model.Usuario;
+import com.edulearn.patterns.comportamiento.observer.NotificationOrchestrator;
+import com.edulearn.patterns.comportamiento.template_method.dto.ResultadoInscripcion;
+import com.edulearn.patterns.comportamiento.template_method.dto.SolicitudInscripcion;
+import com.edulearn.repository.CupoCursoRepository;
+import com.edulearn.repository.CursoRepository;
+import com.edulearn.repository.EstudianteRepository;
+import com.edulearn.repository.InscripcionRepository;
+import com.edulearn.repository.ReservaCupoRepository;
+import com.edulearn.service.InventarioCuposService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Muchos estudiantes inscribiéndose a la vez en un curso con N cupos a
+ * través de InscripcionTemplateService: la reserva del inventario es la
+ * que decide, así que nunca se confirman más de N inscripciones.
+ *
+ * Los repositorios son mocks; el UPDATE condicional de cupos_curso y los
+ * cambios de estado de las reservas se simulan con operaciones atómicas,
+ * como los hace la base de datos.
+ */
+class InscripcionTemplateServiceConcurrenciaTest {
+
+    private static final int CURSO_ID = 7;
+    private static final int CAPACIDAD = 10;
+
+    private final CupoCursoRepository cupoRepository = mock(CupoCursoRepository.class);
+    private final ReservaCupoRepository reservaRepository = mock(ReservaCupoRepository.class);
+    private final CursoRepository cursoRepository = mock(CursoRepository.class);
+    private final InscripcionRepository inscripcionRepository = mock(InscripcionRepository.class);
+    private final EstudianteRepository estudianteRepository = mock(EstudianteRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    // Estado que en producción vive en MySQL
+    private final AtomicInteger ocupados = new AtomicInteger();
+    private final AtomicLong siguienteReserva = new AtomicLong();
+    private final AtomicInteger siguienteInscripcion = new AtomicInteger();
+    private final Map<Long, ReservaCupo> reservas = new ConcurrentHashMap<>();
+    private final Map<Integer, Inscripcion> inscripciones = new ConcurrentHashMap<>();
+
+    private InventarioCuposService inventarioCupos;
+    private InscripcionTemplateService servicio;
+
+    @BeforeEach
+    void armarServicio() {
+        when(transactionManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        simularCupos();
+        simularReservas();
+        simularInscripciones();
+
+        Curso curso = new Curso();
+        curso.setId(CURSO_ID);
+        curso.setNombre("Curso con cupo limitado");
+        curso.setEstado("activo");
+        curso.setCupoMaximo(CAPACIDAD);
+        when(cursoRepository.findById(CURSO_ID)).thenReturn(Optional.of(curso));
+        when(estudianteRepository.findById(anyInt())).thenAnswer(i -> Optional.of(estudiante(i.getArgument(0))));
+
+        inventarioCupos = new InventarioCuposService();
+        ReflectionTestUtils.setField(inventarioCupos, "cupoRepository", cupoRepository);
+        ReflectionTestUtils.setField(inventarioCupos, "reservaRepository", reservaRepository);
+        ReflectionTestUtils.setField(inventarioCupos, "cursoRepository", cursoRepository);
+        ReflectionTestUtils.setField(inventarioCupos, "inscripcionRepository", inscripcionRepository);
+        ReflectionTestUtils.setField(inventarioCupos, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(inventarioCupos, "reservaMinutos", 15L);
+        ReflectionTestUtils.setField(inventarioCupos, "reservaBecaHoras", 72L);
+        ReflectionTestUtils.setField(inventarioCupos, "intervaloExpiracionSegundos", 3600L);
+        inventarioCupos.iniciar();
+
+        MetricasPasosInscripcion metricas = new MetricasPasosInscripcion();
+        InscripcionGratuita gratuita = new InscripcionGratuita();
+        InscripcionPaga paga = new InscripcionPaga();
+        InscripcionBeca beca = new InscripcionBeca();
+        for (ProcesoInscripcionTemplate proceso : List.of(gratuita, paga, beca)) {
+            ReflectionTestUtils.setField(proceso, "metricasPasos", metricas);
+        }
+
+        servicio = new InscripcionTemplateService(gratuita, paga, beca,
+            estudianteRepository, cursoRepository, inscripcionRepository,
+            mock(NotificationOrchestrator.class), inventarioCupos, metricas, transactionManager);
+    }
+
+    @AfterEach
+    void detenerInventario() {
+        inventarioCupos.detener();
+    }
+
+    @Test
+    void nuncaSeConfirmanMasInscripcionesQueCupos() throws Exception {
+        int hilos = 32;
+        int porHilo = 10;
+
+        List<ResultadoInscripcion> resultados = inscribirEnParalelo(hilos, porHilo);
+
+        assertThat(resultados).hasSize(hilos * porHilo);
+        List<ResultadoInscripcion> exitosos = resultados.stream().filter(ResultadoInscripcion::isExitoso).toList();
+        assertThat(exitosos).hasSize(CAPACIDAD);
+        assertThat(resultados.stream().filter(r -> !r.isExitoso()))
+            .allSatisfy(r -> assertThat(r.getMensaje()).startsWith("No hay cupos disponibles"));
+
+        assertThat(inscripciones).hasSize(CAPACIDAD);
+        assertThat(inscripciones.values()).allSatisfy(i -> assertThat(i.getEstadoInscripcion()).isEqualTo("Activa"));
+        assertThat(reservas.values().stream().filter(r -> InventarioCuposService.CONFIRMADA.equals(r.getEstado())))
+            .hasSize(CAPACIDAD);
+        assertThat(ocupados.get()).isEqualTo(CAPACIDAD);
+        assertThat(inventarioCupos.consultar(CURSO_ID).getDisponibles()).isZero();
+    }
+
+    // ========== Base de datos simulada ==========
+
+    private void simularCupos() {
+        when(cupoRepository.existsById(CURSO_ID)).thenReturn(true);
+        // UPDATE ... SET ocupados = ocupados + 1 WHERE ocupados < capacidad
+        when(cupoRepository.ocupar(eq(CURSO_ID), any())).thenAnswer(i -> {
+            int antes = ocupados.getAndUpdate(o -> o < CAPACIDAD ? o + 1 : o);
+            return antes < CAPACIDAD ? 1 : 0;
+        });
+        when(cupoRepository.desocupar(eq(CURSO_ID), any())).thenAnswer(i -> {
+            int antes = ocupados.getAndUpdate(o -> o > 0 ? o - 1 : o);
+            return antes > 0 ? 1 : 0;
+        });
+        when(cupoRepository.findById(CURSO_ID)).thenAnswer(i -> {
+            CupoCurso cupo = new CupoCurso();
+            cupo.setCursoId(CURSO_ID);
+            cupo.setCapacidad(CAPACIDAD);
+            cupo.setOcupados(ocupados.get());
+            return Optional.of(cupo);
+        });
+    }
+
+    private void simularReservas() {
+        when(reservaRepository.save(any(ReservaCupo.class))).thenAnswer(i -> {
+            ReservaCupo reserva = i.getArgument(0);
+            reserva.setId(siguienteReserva.incrementAndGet());
+            reservas.put(reserva.getId(), reserva);
+            return reserva;
+        });
+        when(reservaRepository.confirmar(anyLong(), anyInt())).thenAnswer(i ->
+            cambiarEstado(i.getArgument(0), InventarioCuposService.RESERVADA, InventarioCuposService.CONFIRMADA));
+        when(reservaRepository.vincular(anyLong(), anyInt(), any())).thenAnswer(i ->
+            reservas.containsKey((Long) i.getArgument(0)) ? 1 : 0);
+        when(reservaRepository.cambiarEstado(anyLong(), anyString(), anyString())).thenAnswer(i ->
+            cambiarEstado(i.getArgument(0), i.getArgument(1), i.getArgument(2)));
+    }
+
+    private void simularInscripciones() {
+        when(inscripcionRepository.findByEstudianteId(anyInt())).thenReturn(List.of());
+        when(inscripcionRepository.save(any(Inscripcion.class))).thenAnswer(i -> {
+            Inscripcion inscripcion = i.getArgument(0);
+            inscripcion.setId(siguienteInscripcion.incrementAndGet());
+            inscripciones.put(inscripcion.getId(), inscripcion);
+            return inscripcion;
+        });
+    }
+
+    // UPDATE ... SET estado = :nuevo WHERE id = :id AND estado = :actual
+    private int cambiarEstado(Long id, String actual, String nuevo) {
+        ReservaCupo reserva = reservas.get(id);
+        if (reserva == null) {
+            return 0;
+        }
+        synchronized (reserva) {
+            if (!actual.equals(reserva.getEstado())) {
+                return 0;
+            }
+            reserva.setEstado(nuevo);
+            return 1;
+        }
+    }
+
+    // ========== Auxiliares ==========
+
+    /**
+     * Todos los hilos salen a la vez; estudiantes distintos, mitad GRATUITA
+     * y mitad PAGA, todos al mismo curso
+     */
+    private List<ResultadoInscripcion> inscribirEnParalelo(int hilos, int porHilo) throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<List<ResultadoInscripcion>>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                tareas.add(ejecutor.submit(() -> {
+                    List<ResultadoInscripcion> resultados = new ArrayList<>(porHilo);
+                    salida.await();
+                    for (int i = 0; i < porHilo; i++) {
+                        resultados.add(servicio.procesarInscripcion(solicitud(hilo * porHilo + i + 1)));
+                    }
+                    return resultados;
+                }));
+            }
+            salida.countDown();
+
+            List<ResultadoInscripcion> todos = new ArrayList<>();
+            for (Future<List<ResultadoInscripcion>> tarea : tareas) {
+                todos.addAll(tarea.get(60, TimeUnit.SECONDS));
+            }
+            return todos;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private static SolicitudInscripcion solicitud(int estudianteId) {
+        SolicitudInscripcion solicitud = new SolicitudInscripcion();
+        solicitud.setEstudianteId(estudianteId);
+        solicitud.setCursoId(CURSO_ID);
+        solicitud.setAceptaTerminos(true);
+        if (estudianteId % 2 == 0) {
+            solicitud.setTipoInscripcion("PAGA");
+            solicitud.setMetodoPago("TARJETA");
+            solicitud.setNumeroTarjeta("4111111111111111");
+        } else {
+            solicitud.setTipoInscripcion("GRATUITA");
+        }
+        return solicitud;
+    }
+
+    private static Estudiante estudiante(Integer id) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail("estudiante" + id + "@edulearn.test");
+        Estudiante estudiante = new Estudiante();
+        estudiante.setUsuario(usuario);
+        estudiante.setId(id);
+        estudiante.setNombre("Estudiante");
+        estudiante.setApellidos(String.valueOf(id));
+        return estudiante;
+    }
+}
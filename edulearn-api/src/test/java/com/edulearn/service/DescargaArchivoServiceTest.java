@@ -0,0 +1,201 @@
+package com.edulearn.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Descargas parciales y condicionales de DescargaArchivoService, y un
+ * benchmark de saltos (seeks) concurrentes sobre el mismo archivo (solo
+ * con mvn test -Pbenchmark)
+ */
+class DescargaArchivoServiceTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DescargaArchivoServiceTest.class);
+
+    private static final int TAMANO = 8 * 1024 * 1024;
+
+    @TempDir
+    Path directorio;
+
+    private final DescargaArchivoService servicio = new DescargaArchivoService();
+    private Path archivo;
+    private byte[] contenido;
+
+    @BeforeEach
+    void crearArchivo() throws Exception {
+        contenido = new byte[TAMANO];
+        for (int i = 0; i < TAMANO; i++) {
+            contenido[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        archivo = directorio.resolve("video.mp4");
+        Files.write(archivo, contenido);
+    }
+
+    @Test
+    void sinRangeDevuelveElArchivoCompleto() throws Exception {
+        ResponseEntity<StreamingResponseBody> respuesta = servir(new HttpHeaders());
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(respuesta.getHeaders().getContentLength()).isEqualTo(TAMANO);
+        assertThat(cuerpo(respuesta)).isEqualTo(contenido);
+    }
+
+    @Test
+    void unRangoDevuelve206ConContentRange() throws Exception {
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.set(HttpHeaders.RANGE, "bytes=1000-1999");
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(respuesta.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 1000-1999/" + TAMANO);
+        assertThat(cuerpo(respuesta)).isEqualTo(Arrays.copyOfRange(contenido, 1000, 2000));
+    }
+
+    @Test
+    void variosRangosDevuelvenMultipartByteranges() throws Exception {
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.set(HttpHeaders.RANGE, "bytes=0-9,100-109");
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+        byte[] cuerpo = cuerpo(respuesta);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(respuesta.getHeaders().getContentType().toString()).startsWith("multipart/byteranges");
+        assertThat(respuesta.getHeaders().getContentLength()).isEqualTo(cuerpo.length);
+        String texto = new String(cuerpo, StandardCharsets.ISO_8859_1);
+        assertThat(texto).contains("Content-Range: bytes 0-9/" + TAMANO, "Content-Range: bytes 100-109/" + TAMANO);
+    }
+
+    @Test
+    void rangoFueraDelArchivoDevuelve416() throws Exception {
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.set(HttpHeaders.RANGE, "bytes=" + TAMANO + "-");
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(respuesta.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + TAMANO);
+    }
+
+    @Test
+    void etagCoincidenteDevuelve304() throws Exception {
+        String etag = servir(new HttpHeaders()).getHeaders().getETag();
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.setIfNoneMatch(etag);
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(respuesta.getBody()).isNull();
+    }
+
+    @Test
+    void ifRangeConEtagDistintoIgnoraElRange() throws Exception {
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.set(HttpHeaders.RANGE, "bytes=0-99");
+        peticion.set(HttpHeaders.IF_RANGE, "\"otro\"");
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(respuesta.getHeaders().getContentLength()).isEqualTo(TAMANO);
+    }
+
+    /**
+     * Benchmark: varios hilos saltando a posiciones aleatorias del mismo video,
+     * como hace un reproductor al buscar. Verifica cada fragmento e informa
+     * peticiones/s y MB/s.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkSaltosConcurrentes() throws Exception {
+        int hilos = 8;
+        int saltosPorHilo = 250;
+        int longitudFragmento = 256 * 1024;
+
+        // Calentamiento
+        for (int i = 0; i < 50; i++) {
+            saltoAleatorio(longitudFragmento);
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        long inicio = System.nanoTime();
+        try {
+            List<Future<Long>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(ejecutor.submit(() -> {
+                    long bytes = 0;
+                    for (int i = 0; i < saltosPorHilo; i++) {
+                        bytes += saltoAleatorio(longitudFragmento);
+                    }
+                    return bytes;
+                }));
+            }
+            long bytesTotales = 0;
+            for (Future<Long> resultado : resultados) {
+                bytesTotales += resultado.get(60, TimeUnit.SECONDS);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            int peticiones = hilos * saltosPorHilo;
+
+            logger.info(String.format("Saltos concurrentes: %d hilos, %d peticiones de %d KB en %.2f s -> %.0f peticiones/s, %.1f MB/s",
+                hilos, peticiones, longitudFragmento / 1024, segundos,
+                peticiones / segundos, bytesTotales / segundos / (1024 * 1024)));
+
+            assertThat(bytesTotales).isEqualTo((long) peticiones * longitudFragmento);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    // ========== Auxiliares ==========
+
+    private long saltoAleatorio(int longitud) throws Exception {
+        int inicio = ThreadLocalRandom.current().nextInt(TAMANO - longitud);
+        HttpHeaders peticion = new HttpHeaders();
+        peticion.set(HttpHeaders.RANGE, "bytes=" + inicio + "-" + (inicio + longitud - 1));
+
+        ResponseEntity<StreamingResponseBody> respuesta = servir(peticion);
+        byte[] cuerpo = cuerpo(respuesta);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(cuerpo).isEqualTo(Arrays.copyOfRange(contenido, inicio, inicio + longitud));
+        return cuerpo.length;
+    }
+
+    private ResponseEntity<StreamingResponseBody> servir(HttpHeaders peticion) throws Exception {
+        return servicio.servir(archivo, servicio.tipoContenido(archivo.getFileName().toString()),
+            null, HttpMethod.GET, peticion);
+    }
+
+    private static byte[] cuerpo(ResponseEntity<StreamingResponseBody> respuesta) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        respuesta.getBody().writeTo(salida);
+        return salida.toByteArray();
+    }
+}
@@ -71,14 +71,35 @@ export default function Navigation({ role, currentView, onNavigate, onLogout, us
   const [unreadCount, setUnreadCount] = useState(0)
   const items = menuItems[role]
 
-  // Fetch unread notifications count
+  // Contador de no leídas: carga inicial y luego push por SSE (sin sondeo)
   useEffect(() => {
-    if (userId) {
+    if (!userId) return
+
+    fetchUnreadCount()
+
+    const source = new EventSource(`${API_URL}/notificaciones/usuario/${userId}/stream`)
+    // Último id visto y último id existente al (re)conectar: los eventos reenviados
+    // hasta ese id ya están incluidos en el contador recalculado
+    let ultimoVisto = 0
+    let reenviadosHasta = 0
+
+    source.addEventListener('conectado', (event) => {
+      try {
+        reenviadosHasta = Number(JSON.parse((event as MessageEvent).data).ultimoEventId) || 0
+      } catch {
+        reenviadosHasta = 0
+      }
       fetchUnreadCount()
-      // Actualizar cada 30 segundos
-      const interval = setInterval(fetchUnreadCount, 30000)
-      return () => clearInterval(interval)
-    }
+    })
+    source.addEventListener('notificacion', (event) => {
+      const id = Number((event as MessageEvent).lastEventId) || 0
+      if (id > 0 && id <= ultimoVisto) return
+      ultimoVisto = Math.max(ultimoVisto, id)
+      if (id > 0 && id <= reenviadosHasta) return
+      setUnreadCount((count) => count + 1)
+    })
+
+    return () => source.close()
   }, [userId])
 
   const fetchUnreadCount = async () => {
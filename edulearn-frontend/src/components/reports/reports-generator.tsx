@@ -74,24 +74,52 @@ export default function ReportsView() {
     }
   }
 
+  // Consulta el trabajo hasta que termine (la generación corre en el servidor en segundo plano)
+  const esperarTrabajo = async (trabajoId: string) => {
+    while (true) {
+      await new Promise((resolve) => setTimeout(resolve, 1000))
+      const response = await fetch(`http://localhost:8080/api/reportes/trabajos/${trabajoId}`, {
+        cache: 'no-store'
+      })
+      if (!response.ok) {
+        throw new Error('No se pudo consultar el estado del reporte')
+      }
+      const trabajo = await response.json()
+      if (['COMPLETADO', 'ERROR', 'CANCELADO'].includes(trabajo.estado)) {
+        return trabajo
+      }
+    }
+  }
+
   const handleGenerateReport = async () => {
     setGenerating(true)
     try {
-      const response = await fetch('http://localhost:8080/api/reportes/generar', {
+      const usuarioStr = localStorage.getItem('usuario')
+      const usuario = usuarioStr ? JSON.parse(usuarioStr) : null
+
+      const response = await fetch('http://localhost:8080/api/reportes/trabajos', {
         method: 'POST',
         headers: { 'Content-Type': 'application/json' },
         body: JSON.stringify({
           tipoReporte: reportType,
           formato: format,
-          cursoId: selectedCourse === 'all' ? null : selectedCourse
+          cursoId: selectedCourse === 'all' ? null : selectedCourse,
+          usuarioId: usuario?.id ?? null
         })
       })
 
       if (response.ok) {
-        const data = await response.json()
+        const trabajo = await esperarTrabajo((await response.json()).trabajoId)
         // Recargar la lista de reportes primero
         await fetchReportes()
-        alert(`Reporte generado exitosamente\n\nID: ${data.reporteId}\nTipo: ${data.tipoReporte}\nFormato: ${data.formato}`)
+        if (trabajo.estado === 'COMPLETADO') {
+          alert(`Reporte generado exitosamente\n\nID: ${trabajo.reporteId}\nTipo: ${trabajo.tipoReporte}\nFormato: ${trabajo.formato}`)
+        } else {
+          alert(`Error al generar reporte${trabajo.error ? `: ${trabajo.error}` : ''}`)
+        }
+      } else if (response.status === 429) {
+        const data = await response.json()
+        alert(data.error || 'Hay demasiados reportes en curso, inténtelo más tarde')
       } else {
         alert('Error al generar reporte')
       }
@@ -367,6 +367,11 @@ export async function subirArchivo(
   type: string;
   message: string;
 }> {
+  // Archivos grandes: subida por fragmentos, reanudable si se corta la conexión
+  if (file.size > SUBIDA_FRAGMENTADA_UMBRAL) {
+    return subirArchivoFragmentado(file, materialId, tipoMaterial, onProgress);
+  }
+
   const formData = new FormData();
   formData.append('file', file);
 
@@ -416,6 +421,83 @@ export async function subirArchivo(
   });
 }
 
+const SUBIDA_FRAGMENTADA_UMBRAL = 16 * 1024 * 1024;
+const SUBIDA_FRAGMENTADA_REINTENTOS = 5;
+
+/**
+ * Sube un archivo por fragmentos (init / PUT por offset / completar).
+ * Si un fragmento falla, consulta el offset confirmado y continúa desde ahí.
+ */
+export async function subirArchivoFragmentado(
+  file: File,
+  materialId?: number,
+  tipoMaterial?: string,
+  onProgress?: (progress: number) => void
+) {
+  const initRes = await fetch(`${API_URL}/archivos/subidas`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({ filename: file.name, size: file.size, materialId, tipoMaterial })
+  });
+
+  if (!initRes.ok) {
+    const data = await initRes.json().catch(() => ({}));
+    throw new Error(data.error || `Error al iniciar la subida: ${initRes.statusText}`);
+  }
+
+  const { uploadId, tamanoFragmento } = await initRes.json();
+  let offset = 0;
+  let fallos = 0;
+
+  while (offset < file.size) {
+    const fragmento = file.slice(offset, Math.min(offset + tamanoFragmento, file.size));
+    try {
+      const res = await fetch(`${API_URL}/archivos/subidas/${uploadId}?offset=${offset}`, {
+        method: 'PUT',
+        headers: { 'Content-Type': 'application/octet-stream' },
+        body: fragmento
+      });
+      const data = await res.json();
+      if (res.ok) {
+        offset = data.offset;
+        fallos = 0;
+      } else if (res.status === 409 || res.status === 500) {
+        // El servidor indica el offset confirmado desde el que continuar
+        if (typeof data.offset !== 'number' || ++fallos > SUBIDA_FRAGMENTADA_REINTENTOS) {
+          throw new Error(data.error || 'Error al subir fragmento');
+        }
+        offset = data.offset;
+      } else {
+        throw new Error(data.error || `Error al subir fragmento: ${res.statusText}`);
+      }
+    } catch (error) {
+      if (++fallos > SUBIDA_FRAGMENTADA_REINTENTOS) {
+        throw error instanceof Error ? error : new Error('Error de red al subir archivo');
+      }
+      // Error de red: preguntar cuánto llegó realmente antes de reintentar
+      await new Promise((r) => setTimeout(r, 1000 * fallos));
+      const estado = await fetch(`${API_URL}/archivos/subidas/${uploadId}`).catch(() => null);
+      if (estado?.ok) {
+        offset = (await estado.json()).offset;
+      }
+    }
+    onProgress?.((offset / file.size) * 100);
+  }
+
+  const completarRes = await fetch(`${API_URL}/archivos/subidas/${uploadId}/completar`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json' },
+    body: JSON.stringify({})
+  });
+
+  if (!completarRes.ok) {
+    const data = await completarRes.json().catch(() => ({}));
+    throw new Error(data.error || `Error al completar la subida: ${completarRes.statusText}`);
+  }
+
+  return completarRes.json();
+}
+
 /**
  * Obtiene la URL completa para descargar/visualizar un archivo
  */